@@ -61,6 +61,25 @@ tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// benchmarks report timings rather than asserting on them: they only run in the benchmark task
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+val benchmark by tasks.registering(Test::class) {
+    description = "Runs the benchmarks, and reports their timings."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging.showStandardStreams = true
+    outputs.upToDateWhen { false }
+}
+
 openApi {
     apiDocsUrl.set("http://localhost:8080/spec")
 }
@@ -0,0 +1,218 @@
+package byzzbench.simulator;
+
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.nodes.ReplicaObserver;
+import byzzbench.simulator.state.LogEntry;
+import byzzbench.simulator.transport.Event;
+import byzzbench.simulator.transport.TransportObserver;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Evaluates the invariants of a {@link Scenario}, re-evaluating each {@link ScenarioPredicate}
+ * only when one of its declared {@link ScenarioPredicate#getInputs() inputs} has changed since
+ * its last evaluation. In between, the result of the last evaluation is returned.
+ * <p>
+ * Changes to the inputs are tracked by observing the scenario's transport and replicas: each
+ * input has a version number that is bumped whenever it is dirtied. The
+ * {@link ScenarioPredicate.Input#SCHEDULE} input is versioned by the length of the schedule, which
+ * the {@link Schedule} keeps counted as actions are appended.
+ * <p>
+ * {@link ScenarioPredicate#isExpensive() Expensive} predicates are additionally only
+ * re-evaluated by {@link #invariantsHold()} when the length of the schedule is a multiple of the
+ * campaign's {@link byzzbench.simulator.config.TerminationConfig#getSamplingFrequency() sampling
+ * frequency}. {@link #unsatisfiedInvariants()} re-evaluates them whenever their inputs changed, so
+ * the final verdict on a schedule does not depend on the cadence.
+ */
+public class InvariantEvaluator implements ScenarioObserver, TransportObserver, ReplicaObserver, Serializable {
+    /**
+     * The scenario whose invariants are evaluated.
+     */
+    private final Scenario scenario;
+
+    /**
+     * The invariants, with their memoized results.
+     */
+    private final List<MemoizedPredicate> predicates;
+
+    /**
+     * The current version of each input, indexed by ordinal.
+     */
+    private final long[] versions = new long[ScenarioPredicate.Input.values().length];
+
+    /**
+     * Creates a new evaluator and starts tracking changes to the scenario's state.
+     *
+     * @param scenario   The scenario whose invariants are evaluated.
+     * @param invariants The invariants to evaluate.
+     */
+    public InvariantEvaluator(Scenario scenario, List<ScenarioPredicate> invariants) {
+        this.scenario = scenario;
+        this.predicates = invariants.stream().map(MemoizedPredicate::new).toList();
+        scenario.addObserver(this);
+        scenario.getTransport().addObserver(this);
+        scenario.getReplicas().values().forEach(replica -> replica.addObserver(this));
+    }
+
+    /**
+     * Checks if all invariants are satisfied by the scenario in its current state.
+     *
+     * @return True if the invariants are satisfied, false otherwise.
+     */
+    public synchronized boolean invariantsHold() {
+        this.syncScheduleVersion();
+        for (MemoizedPredicate predicate : this.predicates) {
+            if (!predicate.evaluate(true)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the invariants that are not satisfied by the scenario in its current state,
+     * regardless of the sampling frequency.
+     *
+     * @return The invariants that are not satisfied.
+     */
+    public synchronized SortedSet<ScenarioPredicate> unsatisfiedInvariants() {
+        this.syncScheduleVersion();
+        SortedSet<ScenarioPredicate> unsatisfied = new TreeSet<>();
+        for (MemoizedPredicate predicate : this.predicates) {
+            if (!predicate.evaluate(false)) {
+                unsatisfied.add(predicate.predicate);
+            }
+        }
+        return unsatisfied;
+    }
+
+    /**
+     * Marks an input as changed, so that the predicates depending on it are re-evaluated.
+     *
+     * @param input The input that changed.
+     */
+    public synchronized void markDirty(ScenarioPredicate.Input input) {
+        this.versions[input.ordinal()]++;
+    }
+
+    @Override
+    public void onReplicaAdded(Replica replica) {
+        replica.addObserver(this);
+        this.markDirty(ScenarioPredicate.Input.COMMIT_LOG);
+    }
+
+    @Override
+    public void onEventAdded(Event event) {
+        this.markDirty(ScenarioPredicate.Input.QUEUE);
+    }
+
+    @Override
+    public void onEventsAdded(List<? extends Event> events) {
+        this.markDirty(ScenarioPredicate.Input.QUEUE);
+    }
+
+    @Override
+    public void onEventDropped(Event event) {
+        this.markDirty(ScenarioPredicate.Input.QUEUE);
+    }
+
+    @Override
+    public void onEventRequeued(Event event) {
+        this.markDirty(ScenarioPredicate.Input.QUEUE);
+    }
+
+    @Override
+    public void onEventDelivered(Event event) {
+        this.markDirty(ScenarioPredicate.Input.QUEUE);
+    }
+
+    @Override
+    public void onGlobalStabilizationTime() {
+        this.markDirty(ScenarioPredicate.Input.GST);
+    }
+
+    @Override
+    public void onLeaderChange(Replica r, String newLeaderId) {
+        this.markDirty(ScenarioPredicate.Input.LEADER_CHANGE);
+    }
+
+    @Override
+    public void onCommitLogEntry(Replica r, long sequenceNumber, LogEntry entry) {
+        this.markDirty(ScenarioPredicate.Input.COMMIT_LOG);
+    }
+
+    private void syncScheduleVersion() {
+        Schedule schedule = this.scenario.getSchedule();
+        this.versions[ScenarioPredicate.Input.SCHEDULE.ordinal()] = schedule == null ? 0 : schedule.getLength();
+    }
+
+    private long getSamplingFrequency() {
+        Schedule schedule = this.scenario.getSchedule();
+        if (schedule == null || schedule.getCampaign() == null || schedule.getCampaign().getTermination() == null) {
+            return 1;
+        }
+        return Math.max(1, schedule.getCampaign().getTermination().getSamplingFrequency());
+    }
+
+    /**
+     * A predicate with the result of its last evaluation.
+     */
+    private class MemoizedPredicate implements Serializable {
+        /**
+         * The predicate.
+         */
+        private final ScenarioPredicate predicate;
+
+        /**
+         * The inputs of the predicate.
+         */
+        private final Set<ScenarioPredicate.Input> inputs;
+
+        /**
+         * The versions of the inputs at the last evaluation, indexed by ordinal.
+         */
+        private final long[] evaluatedVersions = new long[ScenarioPredicate.Input.values().length];
+
+        /**
+         * The result of the last evaluation, or null if the predicate was never evaluated.
+         */
+        private Boolean result;
+
+        MemoizedPredicate(ScenarioPredicate predicate) {
+            this.predicate = predicate;
+            this.inputs = EnumSet.noneOf(ScenarioPredicate.Input.class);
+            this.inputs.addAll(predicate.getInputs());
+        }
+
+        /**
+         * Returns the result of the predicate, re-evaluating it if its inputs changed.
+         *
+         * @param sampled whether expensive predicates are only re-evaluated at the sampling frequency
+         */
+        boolean evaluate(boolean sampled) {
+            if (this.result == null || (this.isDirty() && (!sampled || this.isSampled()))) {
+                for (ScenarioPredicate.Input input : this.inputs) {
+                    this.evaluatedVersions[input.ordinal()] = versions[input.ordinal()];
+                }
+                this.result = this.predicate.test(scenario);
+            }
+            return this.result;
+        }
+
+        private boolean isDirty() {
+            for (ScenarioPredicate.Input input : this.inputs) {
+                if (this.evaluatedVersions[input.ordinal()] != versions[input.ordinal()]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isSampled() {
+            return !this.predicate.isExpensive()
+                    || versions[ScenarioPredicate.Input.SCHEDULE.ordinal()] % getSamplingFrequency() == 0;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package byzzbench.simulator;
 
-import byzzbench.simulator.faults.Fault;
-import byzzbench.simulator.nodes.Node;
 import byzzbench.simulator.transport.*;
 import lombok.extern.slf4j.Slf4j;
 
@@ -10,7 +8,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
-import java.util.SortedSet;
 
 @Slf4j
 public class OutputLogger implements TransportObserver {
@@ -28,49 +25,16 @@ public class OutputLogger implements TransportObserver {
         }
     }
 
-    @Override
-    public void onMulticast(Node sender, SortedSet<String> recipients, MessagePayload payload) {
-    }
-
-    @Override
-    public void onEventAdded(Event event) {
-    }
-
     @Override
     public void onEventDropped(Event event) {
         appendLine("DROPPED: " + event);
     }
 
-    @Override
-    public void onEventRequeued(Event event) {
-
-    }
-
-    @Override
-    public void onEventDelivered(Event event) {
-
-    }
-
     @Override
     public void onMessageMutation(MutateMessageEventPayload payload) {
         appendLine("MUTATED: " + payload);
     }
 
-    @Override
-    public void onFault(Fault fault) {
-
-    }
-
-    @Override
-    public void onTimeout(TimeoutEvent event) {
-
-    }
-
-    @java.lang.Override
-    public void onGlobalStabilizationTime() {
-
-    }
-
     private void appendLine(String message) {
         try {
             Files.writeString(file, message + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
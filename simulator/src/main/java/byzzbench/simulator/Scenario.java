@@ -1,6 +1,8 @@
 package byzzbench.simulator;
 
 import byzzbench.simulator.domain.*;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
 import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.faults.faults.GlobalStabilizationTimeFault;
 import byzzbench.simulator.faults.faults.HealNodeNetworkFault;
@@ -9,6 +11,7 @@ import byzzbench.simulator.faults.faults.MessageMutationFault;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Node;
 import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.nodes.ReplicaObserver;
 import byzzbench.simulator.service.ApplicationContextProvider;
 import byzzbench.simulator.service.FaultsFactoryService;
 import byzzbench.simulator.state.AgreementPredicate;
@@ -16,7 +19,10 @@ import byzzbench.simulator.state.BoundedLivenessPredicate;
 import byzzbench.simulator.state.DeadlockPredicate;
 import byzzbench.simulator.state.adob.AdobDistributedState;
 import byzzbench.simulator.transport.*;
+import byzzbench.simulator.utils.AsyncLane;
+import byzzbench.simulator.utils.ObserverBus;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Synchronized;
 import lombok.ToString;
@@ -24,6 +30,7 @@ import lombok.extern.java.Log;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -42,11 +49,27 @@ public abstract class Scenario implements Serializable {
      * The invariants that must be satisfied by the scenario at all times.
      */
     private final List<ScenarioPredicate> invariants;
+    /**
+     * Evaluates the invariants, memoizing their results between changes to their inputs.
+     */
+    @JsonIgnore
+    private final transient InvariantEvaluator invariantEvaluator;
     /**
      * The observers of this scenario.
      */
     @JsonIgnore
-    private final transient List<ScenarioObserver> observers = new java.util.ArrayList<>();
+    private final transient ObserverBus<ScenarioObserver, ScenarioObserver.Kind> observers =
+            new ObserverBus<>(ScenarioObserver.class, ScenarioObserver.Kind.class);
+    /**
+     * The lane on which asynchronous observers of this scenario and its nodes run.
+     */
+    @JsonIgnore
+    private final transient AsyncLane observerLane = new AsyncLane();
+    /**
+     * The checkpoints of the scenario, used to reset it or restore it to an earlier step.
+     */
+    @JsonIgnore
+    private final transient ScenarioCheckpoints checkpoints = new ScenarioCheckpoints(this);
     /**
      * The set of faulty replica IDs.
      */
@@ -81,6 +104,13 @@ public abstract class Scenario implements Serializable {
     @Getter
     Random random;
 
+    /**
+     * The state of each exploration strategy exploring the scenario.
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    private final transient Map<ExplorationStrategy, StrategyContext> strategyContexts = new IdentityHashMap<>();
+
     /**
      * Creates a new scenario from the given schedule.
      *
@@ -93,6 +123,7 @@ public abstract class Scenario implements Serializable {
         this.setupScenario();
         this.addObserver(new AdobDistributedState());
         this.invariants = List.of(new AgreementPredicate(this), new DeadlockPredicate(this), new BoundedLivenessPredicate(this));
+        this.invariantEvaluator = new InvariantEvaluator(this, this.invariants);
 
         // this must be the last line in the constructor
         this.schedule = schedule;
@@ -186,7 +217,77 @@ public abstract class Scenario implements Serializable {
      * @param observer The observer to add.
      */
     public void addObserver(ScenarioObserver observer) {
-        this.observers.add(observer);
+        this.observers.subscribe(observer);
+    }
+
+    /**
+     * Remove an observer from the scenario.
+     *
+     * @param observer The observer to remove.
+     */
+    public void removeObserver(ScenarioObserver observer) {
+        this.observers.unsubscribe(observer);
+    }
+
+    /**
+     * Get the state of an exploration strategy for the scenario, creating it if needed.
+     *
+     * @param strategy The exploration strategy.
+     * @param factory  Creates the context of the strategy for the scenario.
+     * @return The context of the strategy.
+     */
+    public synchronized StrategyContext getStrategyContext(ExplorationStrategy strategy,
+                                                         Function<Scenario, StrategyContext> factory) {
+        StrategyContext context = this.strategyContexts.get(strategy);
+        if (context == null) {
+            context = factory.apply(this);
+            this.strategyContexts.put(strategy, context);
+        }
+        return context;
+    }
+
+    /**
+     * Release the state of an exploration strategy for the scenario.
+     *
+     * @param strategy The exploration strategy.
+     */
+    public synchronized void releaseStrategyContext(ExplorationStrategy strategy) {
+        this.strategyContexts.remove(strategy);
+    }
+
+    /**
+     * Detaches the observers that only instrument the scenario, for headless executions:
+     * the {@link AdobDistributedState} and the {@link InvariantEvaluator}. The observers that
+     * the invariants themselves rely on are kept, but {@link #invariantsHold()} and
+     * {@link #unsatisfiedInvariants()} no longer track changes: test the
+     * {@link #getInvariants() invariants} directly instead.
+     */
+    public synchronized void detachInstrumentation() {
+        this.observerLane.flush();
+        List<ScenarioObserver> instrumentation = new ArrayList<>(this.getObservers().stream()
+                .filter(AdobDistributedState.class::isInstance)
+                .toList());
+        instrumentation.add(this.invariantEvaluator);
+
+        for (ScenarioObserver observer : instrumentation) {
+            this.removeObserver(observer);
+            if (observer instanceof TransportObserver transportObserver) {
+                this.transport.removeObserver(transportObserver);
+            }
+            if (observer instanceof ReplicaObserver replicaObserver) {
+                this.getReplicas().values().forEach(replica -> replica.removeObserver(replicaObserver));
+            }
+        }
+    }
+
+    /**
+     * Get the observers of the scenario.
+     *
+     * @return The list of observers, in subscription order.
+     */
+    @JsonIgnore
+    public List<ScenarioObserver> getObservers() {
+        return this.observers.getListeners();
     }
 
     /**
@@ -196,8 +297,11 @@ public abstract class Scenario implements Serializable {
      */
     public void addClient(Client client) {
         this.nodes.put(client.getId(), client);
+        this.transport.getRouter().registerNode(client.getId());
         // notify the observers
-        this.observers.forEach(o -> o.onClientAdded(client));
+        for (ScenarioObserver o : this.observers.get(ScenarioObserver.Kind.CLIENT_ADDED)) {
+            o.onClientAdded(client);
+        }
     }
 
     /**
@@ -208,13 +312,16 @@ public abstract class Scenario implements Serializable {
     public void addNode(Replica replica) {
         // add the node to the list of nodes
         getNodes().put(replica.getId(), replica);
+        this.transport.getRouter().registerNode(replica.getId());
 
         // for each node, add a IsolateNodeFault and a HealNodeFault
         this.transport.addFault(new IsolateProcessNetworkFault(replica.getId()), false);
         this.transport.addFault(new HealNodeNetworkFault(replica.getId()), false);
 
         // notify the observers
-        this.observers.forEach(o -> o.onReplicaAdded(replica));
+        for (ScenarioObserver o : this.observers.get(ScenarioObserver.Kind.REPLICA_ADDED)) {
+            o.onReplicaAdded(replica);
+        }
     }
 
     /**
@@ -256,65 +363,27 @@ public abstract class Scenario implements Serializable {
 
     /**
      * Get the available {@link DeliverMessageAction} in the scenario in the current state.
+     * In {@link ExecutionMode#SYNC}, only the first queued message of each mailbox is available.
      *
      * @return The list of available {@link DeliverMessageAction}.
      */
     private List<DeliverMessageAction> getAvailableDeliverMessageAction() {
-        switch (this.getExecutionMode()) {
-            // return the first queued message in each mailbox
-            case SYNC -> {
-                Set<String> recipientIdsSeen = new HashSet<>();
-                return getQueuedEventsOfType(MessageEvent.class)
-                        .filter(event -> recipientIdsSeen.add(event.getRecipientId()))
-                        .map(DeliverMessageAction::fromEvent)
-                        .toList();
-            }
-            // return all queued message events in all mailboxes
-            case ASYNC -> {
-                return getQueuedEventsOfType(MessageEvent.class)
-                        .map(DeliverMessageAction::fromEvent)
-                        .toList();
-            }
-            default -> throw new IllegalStateException("Unknown execution mode: " + this.getExecutionMode());
-        }
+        return this.getTransport().getEnabledEvents().getDeliverableMessages(this.getExecutionMode()).stream()
+                .map(DeliverMessageAction::fromEvent)
+                .toList();
     }
 
     /**
-     * Get the available {@link TriggerTimeoutAction} in the scenario in the current state.
+     * Get the available {@link TriggerTimeoutAction} in the scenario in the current state:
+     * the earliest-expiring timeout of each node. In {@link ExecutionMode#SYNC}, timeouts
+     * are only available once every mailbox is empty.
      *
      * @return The list of available {@link TriggerTimeoutAction}.
      */
     private List<TriggerTimeoutAction> getAvailableTriggerTimeoutAction() {
-        // get all time out events in order of expiration (earliest first)
-        Set<String> recipientIdsSeen = new HashSet<>();
-        Stream<TimeoutEvent> firstTimeoutForEachReplica = getQueuedEventsOfType(TimeoutEvent.class)
-                .sorted(Comparator.comparing(TimeoutEvent::getExpiresAt))
-                .filter(event -> recipientIdsSeen.add(event.getRecipientId()));
-
-        switch (this.getExecutionMode()) {
-            // return the first timeout for each replica without a message in their mailbox
-            case SYNC -> {
-                // check which replicas have messages in their mailbox
-                Set<String> replicasWithMessages = this.getQueuedEventsOfType(MessageEvent.class)
-                        .map(MessageEvent::getRecipientId)
-                        .collect(Collectors.toSet());
-                // if any replica has a message in its mailbox, do not return any timeouts!
-                if (!replicasWithMessages.isEmpty()) {
-                    return Collections.emptyList();
-                }
-                // return only timeouts for replicas without messages in their mailbox
-                return firstTimeoutForEachReplica
-                        .map(TriggerTimeoutAction::fromEvent)
-                        .toList();
-            }
-            // return the first timeout for each replica
-            case ASYNC -> {
-                return firstTimeoutForEachReplica
-                        .map(TriggerTimeoutAction::fromEvent)
-                        .toList();
-            }
-            default -> throw new IllegalStateException("Unknown execution mode: " + this.getExecutionMode());
-        }
+        return this.getTransport().getEnabledEvents().getTriggerableTimeouts(this.getExecutionMode()).stream()
+                .map(TriggerTimeoutAction::fromEvent)
+                .toList();
     }
 
     private List<? extends FaultInjectionAction> getAvailableFaultInjectionAction() {
@@ -375,22 +444,90 @@ public abstract class Scenario implements Serializable {
 
     /**
      * Returns the invariants that are not satisfied by the scenario in its current state.
+     * Invariants whose inputs did not change since their last evaluation are not re-evaluated.
      *
      * @return The invariants that are not satisfied by the scenario in its current state.
      */
     public final SortedSet<ScenarioPredicate> unsatisfiedInvariants() {
-        return this.invariants.stream().filter(invariant -> !invariant.test(this))
-                .collect(Collectors.toCollection(TreeSet::new));
+        return this.invariantEvaluator.unsatisfiedInvariants();
     }
 
     /**
      * Checks if the invariants are satisfied by the scenario in its current state.
+     * Invariants whose inputs did not change since their last evaluation are not re-evaluated.
      *
      * @return True if the invariants are satisfied, false otherwise.
      */
     public final boolean invariantsHold() {
-        return this.invariants.stream()
-                .allMatch(invariant -> invariant.test(this));
+        return this.invariantEvaluator.invariantsHold();
+    }
+
+    /**
+     * Takes an in-memory snapshot of the current state of the scenario.
+     *
+     * @return The snapshot.
+     * @throws IllegalStateException If bounded-memory mode is enabled for the scenario.
+     */
+    public synchronized ScenarioSnapshot snapshot() {
+        return ScenarioSnapshot.capture(this);
+    }
+
+    /**
+     * Restores the scenario to the state of a snapshot, discarding the checkpoints taken
+     * after it.
+     *
+     * @param snapshot The snapshot, taken from this scenario.
+     * @throws IllegalArgumentException If the snapshot was taken from another scenario.
+     */
+    public synchronized void restore(ScenarioSnapshot snapshot) {
+        snapshot.restore(this);
+        this.checkpoints.discardAfter(snapshot.getStep());
+    }
+
+    /**
+     * Forks the scenario: creates a new, independent scenario in the same state, that
+     * continues with the given schedule. The schedule must hold the actions applied so far.
+     *
+     * @param schedule The schedule of the fork.
+     * @return The fork, without checkpoints.
+     * @throws IllegalStateException If bounded-memory mode is enabled for the scenario.
+     */
+    public synchronized Scenario fork(Schedule schedule) {
+        return ScenarioSnapshot.fork(this, schedule);
+    }
+
+    /**
+     * Resets the scenario to its state right after setup, or right after it was forked.
+     *
+     * @throws IllegalStateException If no checkpoint was taken after setup.
+     */
+    public synchronized void reset() {
+        this.restore(this.checkpoints.getInitial()
+                .orElseThrow(() -> new IllegalStateException("Scenario has no initial checkpoint")));
+    }
+
+    /**
+     * Restores the scenario to its state after the first {@code step} actions of its schedule:
+     * restores the latest checkpoint at or before that step, then re-applies the actions
+     * between the checkpoint and the step.
+     *
+     * @param step The number of actions of the schedule to keep.
+     * @throws IllegalArgumentException If the step is outside the schedule.
+     * @throws IllegalStateException    If there is no checkpoint at or before the step.
+     */
+    public synchronized void restoreToStep(int step) {
+        List<Action> actions = List.copyOf(this.schedule.getActions());
+        if (step < 0 || step > actions.size()) {
+            throw new IllegalArgumentException("Step " + step + " is outside the schedule (0-" + actions.size() + ")");
+        }
+
+        ScenarioSnapshot checkpoint = this.checkpoints.getLatest(step)
+                .orElseThrow(() -> new IllegalStateException("No checkpoint at or before step " + step));
+        this.restore(checkpoint);
+        for (Action action : actions.subList(checkpoint.getStep(), step)) {
+            this.checkpoints.checkpointIfDue();
+            action.accept(this);
+        }
     }
 
     /**
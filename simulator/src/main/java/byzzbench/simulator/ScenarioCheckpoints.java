@@ -0,0 +1,137 @@
+package byzzbench.simulator;
+
+import byzzbench.simulator.config.CheckpointConfig;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * The checkpoints of a {@link Scenario}: {@link ScenarioSnapshot snapshots} of its state taken
+ * every {@link #getInterval() interval} schedule actions, indexed by the number of actions
+ * applied when they were taken.
+ * <p>
+ * The first checkpoint (usually the state right after setup) is always kept. When there are
+ * more than {@link CheckpointConfig#getMaxCheckpoints()} checkpoints, every other checkpoint is
+ * discarded and the interval is doubled, so the checkpoints keep covering the whole schedule.
+ */
+public class ScenarioCheckpoints {
+    /**
+     * The scenario being checkpointed.
+     */
+    private final Scenario scenario;
+
+    /**
+     * The checkpoints, by step.
+     */
+    private final NavigableMap<Integer, ScenarioSnapshot> checkpoints = new TreeMap<>();
+
+    /**
+     * The number of actions between two checkpoints, or 0 if periodic checkpoints are disabled.
+     */
+    @Getter
+    private int interval = 0;
+
+    /**
+     * The maximum number of checkpoints kept.
+     */
+    @Getter
+    private int maxCheckpoints = 16;
+
+    /**
+     * Creates the checkpoints of a scenario.
+     *
+     * @param scenario The scenario to checkpoint.
+     */
+    public ScenarioCheckpoints(Scenario scenario) {
+        this.scenario = scenario;
+    }
+
+    /**
+     * Applies a checkpoint configuration.
+     *
+     * @param config The configuration.
+     */
+    public synchronized void configure(CheckpointConfig config) {
+        if (config.getInterval() < 0 || config.getMaxCheckpoints() < 2) {
+            throw new IllegalArgumentException("Invalid checkpoint configuration: " + config);
+        }
+        this.interval = config.getInterval();
+        this.maxCheckpoints = config.getMaxCheckpoints();
+    }
+
+    /**
+     * Takes a checkpoint of the current state of the scenario.
+     *
+     * @return The checkpoint.
+     */
+    public synchronized ScenarioSnapshot checkpoint() {
+        ScenarioSnapshot snapshot = this.scenario.snapshot();
+        this.checkpoints.put(snapshot.getStep(), snapshot);
+        this.thin();
+        return snapshot;
+    }
+
+    /**
+     * Takes a checkpoint if periodic checkpoints are enabled, the number of actions in the
+     * schedule is a multiple of the interval, and there is no checkpoint for it yet.
+     */
+    public synchronized void checkpointIfDue() {
+        int step = this.scenario.getSchedule().getActions().size();
+        if (this.interval > 0 && step % this.interval == 0 && !this.checkpoints.containsKey(step)) {
+            this.checkpoint();
+        }
+    }
+
+    /**
+     * Gets the first checkpoint taken.
+     *
+     * @return The first checkpoint, or empty if none was taken.
+     */
+    public synchronized Optional<ScenarioSnapshot> getInitial() {
+        return Optional.ofNullable(this.checkpoints.firstEntry()).map(Map.Entry::getValue);
+    }
+
+    /**
+     * Gets the latest checkpoint taken at or before the given step.
+     *
+     * @param step The step.
+     * @return The checkpoint, or empty if there is none.
+     */
+    public synchronized Optional<ScenarioSnapshot> getLatest(int step) {
+        return Optional.ofNullable(this.checkpoints.floorEntry(step)).map(Map.Entry::getValue);
+    }
+
+    /**
+     * Discards the checkpoints taken after the given step, e.g. because the scenario was
+     * restored to an earlier state and will diverge from them.
+     *
+     * @param step The step.
+     */
+    public synchronized void discardAfter(int step) {
+        this.checkpoints.tailMap(step, false).clear();
+    }
+
+    /**
+     * Discards all checkpoints.
+     */
+    public synchronized void clear() {
+        this.checkpoints.clear();
+    }
+
+    /**
+     * Gets the steps at which checkpoints were taken.
+     *
+     * @return The steps, in ascending order.
+     */
+    public synchronized SortedSet<Integer> getSteps() {
+        return new TreeSet<>(this.checkpoints.keySet());
+    }
+
+    private void thin() {
+        while (this.checkpoints.size() > this.maxCheckpoints && this.interval > 0) {
+            this.interval *= 2;
+            int first = this.checkpoints.firstKey();
+            this.checkpoints.keySet().removeIf(step -> step != first && step % this.interval != 0);
+        }
+    }
+}
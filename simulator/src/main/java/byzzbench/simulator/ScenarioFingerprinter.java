@@ -0,0 +1,87 @@
+package byzzbench.simulator;
+
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.Campaign;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import byzzbench.simulator.nodes.Node;
+import byzzbench.simulator.transport.EventArchive;
+import byzzbench.simulator.transport.MessageEvent;
+import byzzbench.simulator.transport.TimeoutEvent;
+import byzzbench.simulator.transport.Transport;
+import byzzbench.simulator.utils.AsyncLane;
+import byzzbench.simulator.utils.ObjectFingerprinter;
+import byzzbench.simulator.utils.ObserverBus;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hashes the state of a {@link Scenario} into a 64-bit fingerprint: the state of each node, the
+ * messages queued in each mailbox, the pending timeouts of each node, the partitions of the
+ * {@link byzzbench.simulator.transport.Router}, whether the global stabilization time was reached,
+ * and the {@link Timekeeper} clock of each node.
+ * <p>
+ * Event IDs and physical timestamps are not part of the fingerprint, so schedules that reach the
+ * same state in different orders get the same fingerprint. Distinct states may collide, with a
+ * probability of about {@code n^2 / 2^65} for {@code n} states.
+ */
+public class ScenarioFingerprinter {
+    /**
+     * Types that are not part of the state of the nodes, but referenced by them.
+     */
+    private static final Set<Class<?>> SKIPPED_TYPES = Set.of(
+            Scenario.class, ScenarioSnapshot.class, ScenarioCheckpoints.class, ObserverBus.class, AsyncLane.class,
+            Schedule.class, Campaign.class, Action.class, ExplorationStrategy.class, StrategyContext.class,
+            Transport.class, EventArchive.class, Thread.class);
+
+    private ScenarioFingerprinter() {
+    }
+
+    /**
+     * Computes the fingerprint of the current state of a scenario.
+     *
+     * @param scenario the scenario
+     * @return the fingerprint
+     */
+    public static long fingerprint(Scenario scenario) {
+        Transport transport = scenario.getTransport();
+        long fingerprint = ObjectFingerprinter.mix(0, transport.isGlobalStabilizationTime() ? 1 : 0);
+
+        for (Map.Entry<String, Node> entry : scenario.getNodes().entrySet()) {
+            String nodeId = entry.getKey();
+            fingerprint = ObjectFingerprinter.mix(fingerprint, ObjectFingerprinter.hash(nodeId));
+            fingerprint = ObjectFingerprinter.mix(fingerprint, fingerprint(entry.getValue()));
+            fingerprint = ObjectFingerprinter.mix(fingerprint, transport.getRouter().getNodePartition(nodeId));
+
+            // the mailbox is delivered in order
+            for (MessageEvent message : transport.getQueuedMessages(nodeId)) {
+                fingerprint = ObjectFingerprinter.mix(fingerprint, ObjectFingerprinter.hash(message.getSenderId()));
+                fingerprint = ObjectFingerprinter.mix(fingerprint, new ObjectFingerprinter(SKIPPED_TYPES).fingerprint(message.getPayload()));
+            }
+
+            // the pending timeouts, regardless of their IDs
+            long timeouts = 0;
+            for (long eventId : transport.getQueuedTimeouts(entry.getValue())) {
+                if (transport.getEvent(eventId) instanceof TimeoutEvent timeout) {
+                    timeouts += ObjectFingerprinter.mix(ObjectFingerprinter.hash(timeout.getDescription()),
+                            ObjectFingerprinter.mix(timeout.getTimeout().toNanos(), timeout.getExpiresAt().hashCode()));
+                }
+            }
+            fingerprint = ObjectFingerprinter.mix(fingerprint, timeouts);
+        }
+
+        return ObjectFingerprinter.mix(fingerprint, new ObjectFingerprinter(SKIPPED_TYPES).fingerprint(scenario.getTimekeeper()));
+    }
+
+    /**
+     * Computes the fingerprint of the current state of a node, without its mailbox and timeouts.
+     *
+     * @param node the node
+     * @return the fingerprint
+     */
+    public static long fingerprint(Node node) {
+        return new ObjectFingerprinter(SKIPPED_TYPES).fingerprint(node);
+    }
+}
@@ -2,9 +2,15 @@ package byzzbench.simulator;
 
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.utils.ObserverBus;
+
+import java.util.List;
 
 /**
  * An observer that listens to changes in the scenario.
+ * <p>
+ * All callbacks are no-ops by default: observers are only dispatched the kinds of
+ * callbacks they implement (see {@link ObserverBus}).
  */
 public interface ScenarioObserver {
     /**
@@ -12,12 +18,33 @@ public interface ScenarioObserver {
      *
      * @param replica The replica that was added.
      */
-    void onReplicaAdded(Replica replica);
+    default void onReplicaAdded(Replica replica) {
+    }
 
     /**
      * Called when a client is added to the scenario.
      *
      * @param client The client that was added.
      */
-    void onClientAdded(Client client);
+    default void onClientAdded(Client client) {
+    }
+
+    /**
+     * The kinds of callbacks of a {@link ScenarioObserver}.
+     */
+    enum Kind implements ObserverBus.Kind {
+        REPLICA_ADDED("onReplicaAdded"),
+        CLIENT_ADDED("onClientAdded");
+
+        private final List<String> methodNames;
+
+        Kind(String... methodNames) {
+            this.methodNames = List.of(methodNames);
+        }
+
+        @Override
+        public List<String> getMethodNames() {
+            return this.methodNames;
+        }
+    }
 }
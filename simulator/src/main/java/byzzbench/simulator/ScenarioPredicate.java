@@ -7,6 +7,8 @@ import lombok.RequiredArgsConstructor;
 
 import java.io.Serializable;
 import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -45,6 +47,29 @@ public abstract class ScenarioPredicate implements Serializable, Predicate<Scena
         return test(scenario);
     }
 
+    /**
+     * Get the parts of the scenario state that the predicate depends on. The predicate is
+     * only re-evaluated by the {@link InvariantEvaluator} after one of them changes.
+     * Defaults to all inputs, i.e. the predicate is re-evaluated after every action.
+     *
+     * @return The inputs of the predicate.
+     */
+    @JsonIgnore
+    public Set<Input> getInputs() {
+        return EnumSet.allOf(Input.class);
+    }
+
+    /**
+     * Whether the predicate is expensive to evaluate. Expensive predicates are only
+     * re-evaluated at the cadence set by {@link byzzbench.simulator.config.TerminationConfig#getSamplingFrequency()}.
+     *
+     * @return True if the predicate is expensive, false otherwise.
+     */
+    @JsonIgnore
+    public boolean isExpensive() {
+        return false;
+    }
+
     /**
      * Provide an explanation for the predicate result.
      *
@@ -54,4 +79,29 @@ public abstract class ScenarioPredicate implements Serializable, Predicate<Scena
         return test() ? "OK" : "Failed";
     }
 
+    /**
+     * The parts of the scenario state that a predicate can depend on.
+     */
+    public enum Input {
+        /**
+         * The commit logs of the replicas.
+         */
+        COMMIT_LOG,
+        /**
+         * The events queued in the transport layer.
+         */
+        QUEUE,
+        /**
+         * Whether the global stabilization time has been reached.
+         */
+        GST,
+        /**
+         * The leaders of the replicas.
+         */
+        LEADER_CHANGE,
+        /**
+         * The length of the schedule.
+         */
+        SCHEDULE
+    }
 }
@@ -0,0 +1,182 @@
+package byzzbench.simulator;
+
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.Campaign;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.exploration_strategy.SharedStrategyState;
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.transport.EventArchive;
+import byzzbench.simulator.utils.AsyncLane;
+import byzzbench.simulator.utils.DeepCopier;
+import byzzbench.simulator.utils.ObserverBus;
+import lombok.Getter;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * An in-memory snapshot of the state of a {@link Scenario}: its nodes, {@link byzzbench.simulator.transport.Transport}
+ * (events, router and faults), {@link Timekeeper}, random number generator, observers (such as
+ * the invariants) and the {@link byzzbench.simulator.exploration_strategy.StrategyContext contexts}
+ * of its exploration strategies.
+ * <p>
+ * The objects that are referenced from outside the scenario state (the scenario, transport,
+ * timekeeper, nodes and observers) are restored in place, by overwriting their fields with
+ * copies of the saved values. Everything they reference is deep-copied, both when the
+ * snapshot is taken and when it is restored, so a snapshot can be restored any number of
+ * times and costs time proportional to the size of the state, not to the length of the schedule.
+ * <p>
+ * A scenario can also be {@link #fork forked}: its whole state is copied into a new, independent
+ * scenario, which continues from the same state with a schedule of its own.
+ */
+public class ScenarioSnapshot {
+    /**
+     * Types that are not part of the state of the scenario, and are never copied.
+     */
+    private static final Set<Class<?>> SHARED_TYPES = Set.of(
+            Scenario.class, ScenarioSnapshot.class, ScenarioCheckpoints.class, ObserverBus.class, AsyncLane.class,
+            Schedule.class, Campaign.class, Action.class, ExplorationStrategy.class, SharedStrategyState.class,
+            EventArchive.class, Thread.class);
+
+    /**
+     * Types that are not part of the state of a forked scenario, and are shared with its fork.
+     */
+    private static final Set<Class<?>> FORK_SHARED_TYPES = Set.of(
+            ScenarioSnapshot.class, Schedule.class, Campaign.class, Action.class, ExplorationStrategy.class,
+            EventArchive.class, Thread.class);
+
+    /**
+     * The number of actions in the schedule when the snapshot was taken.
+     */
+    @Getter
+    private final int step;
+
+    /**
+     * The actions in the schedule when the snapshot was taken.
+     */
+    private final List<Action> actions;
+
+    /**
+     * The objects that are restored in place.
+     */
+    private final List<Object> roots;
+
+    /**
+     * Copies of the values of the fields of each root, in the order of {@link DeepCopier#getInstanceFields}.
+     */
+    private final List<Object[]> state;
+
+    private ScenarioSnapshot(Scenario scenario) {
+        if (scenario.getTransport().isEventArchiveEnabled()) {
+            throw new IllegalStateException("Scenario snapshots are not supported in bounded-memory mode");
+        }
+
+        scenario.getObserverLane().flush();
+        this.actions = List.copyOf(scenario.getSchedule().getActions());
+        this.step = this.actions.size();
+        this.roots = getRoots(scenario);
+
+        try {
+            DeepCopier copier = new DeepCopier(this.roots, SHARED_TYPES);
+            this.state = new ArrayList<>(this.roots.size());
+            for (Object root : this.roots) {
+                Field[] fields = DeepCopier.getInstanceFields(root.getClass());
+                Object[] values = new Object[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    values[i] = copier.copy(fields[i].get(root));
+                }
+                this.state.add(values);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot snapshot scenario", e);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the current state of a scenario.
+     *
+     * @param scenario The scenario.
+     * @return The snapshot.
+     * @throws IllegalStateException If bounded-memory mode is enabled for the scenario.
+     */
+    static ScenarioSnapshot capture(Scenario scenario) {
+        return new ScenarioSnapshot(scenario);
+    }
+
+    /**
+     * Gets the objects of a scenario whose identity must be preserved.
+     */
+    private static List<Object> getRoots(Scenario scenario) {
+        List<Object> candidates = new ArrayList<>();
+        candidates.add(scenario);
+        candidates.add(scenario.getTransport());
+        candidates.add(scenario.getTimekeeper());
+        candidates.add(scenario.getInvariantEvaluator());
+        candidates.addAll(scenario.getInvariants());
+        candidates.addAll(scenario.getNodes().values());
+        candidates.addAll(scenario.getObservers());
+        candidates.addAll(scenario.getTransport().getObservers());
+        for (Replica replica : scenario.getReplicas().values()) {
+            candidates.addAll(replica.getObservers().getListeners());
+        }
+
+        // deduplicate by identity, keeping the scenario first
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        return candidates.stream().filter(Objects::nonNull).filter(seen::add).toList();
+    }
+
+    /**
+     * Forks a scenario: copies its whole state into a new scenario, independent of the
+     * original one, including the contexts of its exploration strategies.
+     * <p>
+     * The fork gets the given schedule, and no checkpoints. The actions and other immutable
+     * values are shared between both scenarios; everything else is copied.
+     *
+     * @param scenario The scenario to fork.
+     * @param schedule The schedule of the fork.
+     * @return The fork.
+     * @throws IllegalStateException If bounded-memory mode is enabled for the scenario.
+     */
+    static Scenario fork(Scenario scenario, Schedule schedule) {
+        if (scenario.getTransport().isEventArchiveEnabled()) {
+            throw new IllegalStateException("Scenario forks are not supported in bounded-memory mode");
+        }
+
+        scenario.getObserverLane().flush();
+        DeepCopier copier = new DeepCopier(List.of(), FORK_SHARED_TYPES);
+        copier.replace(scenario.getSchedule(), schedule);
+        Scenario fork = copier.copy(scenario);
+        fork.getCheckpoints().clear();
+        return fork;
+    }
+
+    /**
+     * Restores the scenario to the state of this snapshot, including its schedule.
+     *
+     * @param scenario The scenario the snapshot was taken from.
+     * @throws IllegalArgumentException If the snapshot was taken from another scenario.
+     */
+    void restore(Scenario scenario) {
+        if (this.roots.getFirst() != scenario) {
+            throw new IllegalArgumentException("Snapshot was taken from another scenario");
+        }
+
+        scenario.getObserverLane().flush();
+        try {
+            DeepCopier copier = new DeepCopier(this.roots, SHARED_TYPES);
+            for (int i = 0; i < this.roots.size(); i++) {
+                Object root = this.roots.get(i);
+                Field[] fields = DeepCopier.getInstanceFields(root.getClass());
+                Object[] values = this.state.get(i);
+                for (int j = 0; j < fields.length; j++) {
+                    fields[j].set(root, copier.copy(values[j]));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot restore scenario", e);
+        }
+
+        scenario.getSchedule().replaceActions(this.actions);
+    }
+}
@@ -1,6 +1,5 @@
 package byzzbench.simulator;
 
-import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.nodes.Node;
 import byzzbench.simulator.transport.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -9,7 +8,6 @@ import java.io.Serializable;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.SortedMap;
-import java.util.SortedSet;
 import java.util.TreeMap;
 
 /**
@@ -62,26 +60,6 @@ public class Timekeeper implements Serializable, TransportObserver {
         return times.computeIfAbsent(node.getId(), k -> Instant.ofEpochMilli(0));
     }
 
-    @Override
-    public void onMulticast(Node sender, SortedSet<String> recipients, MessagePayload payload) {
-        // nothing to do
-    }
-
-    @Override
-    public void onEventAdded(Event Event) {
-        // nothing to do
-    }
-
-    @Override
-    public void onEventDropped(Event Event) {
-        // nothing to do
-    }
-
-    @Override
-    public void onEventRequeued(Event Event) {
-        // nothing to do
-    }
-
     @Override
     public void onEventDelivered(Event Event) {
         // check if it was a timeout
@@ -95,24 +73,4 @@ public class Timekeeper implements Serializable, TransportObserver {
         Instant current = times.getOrDefault(nodeId, Instant.ofEpochMilli(0));
         times.put(nodeId, current.isAfter(expiration) ? current : expiration);
     }
-
-    @Override
-    public void onMessageMutation(MutateMessageEventPayload payload) {
-        // nothing to do
-    }
-
-    @Override
-    public void onFault(Fault fault) {
-        // nothing to do
-    }
-
-    @Override
-    public void onTimeout(TimeoutEvent event) {
-        // nothing to do
-    }
-
-    @Override
-    public void onGlobalStabilizationTime() {
-        // nothing to do
-    }
 }
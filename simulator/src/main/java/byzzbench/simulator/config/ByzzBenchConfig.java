@@ -32,6 +32,35 @@ public class ByzzBenchConfig {
      * Policy for saving schedules in the database.
      */
     private SaveScheduleMode saveSchedules = SaveScheduleMode.ALL;
+    /**
+     * Number of scenarios of a campaign that are run concurrently.
+     */
+    private int scenarioWorkers = 1;
+    /**
+     * Number of schedules replayed concurrently by the headless replay engine. If 0, one per
+     * available processor.
+     */
+    private int replayWorkers = 0;
+
+    /**
+     * Bounded-memory mode: archive delivered events instead of keeping them in memory.
+     */
+    private EventArchiveConfig eventArchive = new EventArchiveConfig();
+
+    /**
+     * Periodic checkpoints of scenarios, to restore them to earlier steps.
+     */
+    private CheckpointConfig checkpoints = new CheckpointConfig();
+
+    /**
+     * Bounds on the materialized schedules kept in memory.
+     */
+    private ScheduleCacheConfig scheduleCache = new ScheduleCacheConfig();
+
+    /**
+     * Background persistence of schedules and campaign results.
+     */
+    private PersistenceConfig persistence = new PersistenceConfig();
 
     /**
      * List of campaign configurations to run at startup.
@@ -53,4 +53,9 @@ public class CampaignConfig implements Serializable {
      * Parameters for terminating the execution of a scenario
      */
     private TerminationConfig termination;
+
+    /**
+     * Parameters for forking the scenarios at given depths
+     */
+    private ForkConfig fork = new ForkConfig();
 }
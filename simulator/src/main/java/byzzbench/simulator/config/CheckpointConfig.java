@@ -0,0 +1,29 @@
+package byzzbench.simulator.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the periodic checkpoints of scenarios
+ */
+@Data
+public class CheckpointConfig implements Serializable {
+    /**
+     * Whether materialized scenarios are checkpointed. If false, scenarios are not snapshotted
+     * after setup: resetting or restoring them replays their schedule from scratch instead.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The number of schedule actions between two checkpoints. If 0, only the state right
+     * after the setup of the scenario is checkpointed.
+     */
+    private int interval = 0;
+
+    /**
+     * The maximum number of checkpoints kept for each scenario. Once exceeded, every other
+     * checkpoint is discarded and the interval is doubled.
+     */
+    private int maxCheckpoints = 16;
+}
@@ -0,0 +1,26 @@
+package byzzbench.simulator.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the bounded-memory mode of the transport layer
+ */
+@Data
+public class EventArchiveConfig implements Serializable {
+    /**
+     * Whether to retire delivered events from memory into a compact archive.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The maximum number of archived events of each scenario to keep in memory before evicting them to disk.
+     */
+    private int maxInMemory = 10_000;
+
+    /**
+     * The directory for the spill files. Defaults to the system temporary directory.
+     */
+    private String directory;
+}
@@ -0,0 +1,66 @@
+package byzzbench.simulator.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for prefix-sharing fork exploration: each scenario of a campaign is run up to
+ * the first depth, and then forked into several children that continue from that point. Each
+ * child is forked again at the next depth, and so on, and the leaves run until termination.
+ */
+@Data
+public class ForkConfig implements Serializable {
+    /**
+     * The number of schedule actions at which scenarios are forked, in increasing order.
+     * If empty, scenarios are not forked.
+     */
+    private List<Integer> depths = new ArrayList<>();
+
+    /**
+     * The number of children forked from a scenario at each depth.
+     */
+    private int width = 4;
+
+    /**
+     * Whether scenarios are forked.
+     *
+     * @return true if scenarios are forked, false otherwise.
+     */
+    public boolean isEnabled() {
+        return !this.depths.isEmpty();
+    }
+
+    /**
+     * The number of scenarios run to termination for each scenario that is forked.
+     *
+     * @return the number of leaves of each tree of forks.
+     */
+    public long getNumLeaves() {
+        long leaves = 1;
+        for (int i = 0; i < this.depths.size(); i++) {
+            leaves = Math.multiplyExact(leaves, this.width);
+        }
+        return leaves;
+    }
+
+    /**
+     * Checks that the depths are positive and increasing, and the width is positive.
+     *
+     * @throws IllegalArgumentException if the configuration is invalid.
+     */
+    public void validate() {
+        if (this.width < 1) {
+            throw new IllegalArgumentException("Fork width must be positive");
+        }
+        int previous = 0;
+        for (int depth : this.depths) {
+            if (depth <= previous) {
+                throw new IllegalArgumentException("Fork depths must be positive and increasing: " + this.depths);
+            }
+            previous = depth;
+        }
+    }
+}
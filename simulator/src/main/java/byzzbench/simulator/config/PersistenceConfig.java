@@ -0,0 +1,40 @@
+package byzzbench.simulator.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the persistence of schedules and campaign results
+ */
+@Data
+public class PersistenceConfig implements Serializable {
+    /**
+     * Whether to persist schedules in the background. If false, schedules are persisted
+     * synchronously by the thread storing them.
+     */
+    private boolean writeBehind = true;
+
+    /**
+     * The maximum number of schedules waiting to be persisted. Once reached, storing a
+     * schedule blocks until the background writer catches up.
+     */
+    private int queueCapacity = 1024;
+
+    /**
+     * The maximum number of schedules persisted in a single transaction.
+     */
+    private int batchSize = 64;
+
+    /**
+     * The number of times a batch of schedules that failed to persist is retried before the
+     * schedules are given up on.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Whether to persist the payloads of the messages delivered or dropped by the schedules.
+     * They are not needed to replay a schedule.
+     */
+    private boolean storePayloads = false;
+}
@@ -0,0 +1,22 @@
+package byzzbench.simulator.config;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Configuration for the cache of materialized schedules
+ */
+@Data
+public class ScheduleCacheConfig implements Serializable {
+    /**
+     * The maximum number of materialized schedules kept in memory. If 0, unbounded.
+     */
+    private int maxSchedules = 256;
+
+    /**
+     * The maximum total weight (number of transport events) of the materialized schedules
+     * kept in memory. If 0, unbounded.
+     */
+    private long maxWeight = 0;
+}
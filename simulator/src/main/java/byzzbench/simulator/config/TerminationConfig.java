@@ -1,5 +1,6 @@
 package byzzbench.simulator.config;
 
+import byzzbench.simulator.ScenarioPredicate;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -20,11 +21,11 @@ public class TerminationConfig implements Serializable {
     //private long minRounds = 2;
 
     /**
-     * Frequency of checking termination conditions.
-     * Setting it to "1" means check every round, 2 means check every other round, etc.
-     * The default is 1 (check every round).
+     * Frequency of evaluating expensive invariants (see {@link ScenarioPredicate#isExpensive()}).
+     * Setting it to "1" means evaluate after every action, 2 means every other action, etc.
+     * The default is 1 (evaluate after every action).
      */
-    //private long samplingFrequency = 1;
+    private long samplingFrequency = 1;
 
     /**
      * Grace period after Global Stabilization Time
@@ -5,15 +5,16 @@ import byzzbench.simulator.domain.Campaign;
 import byzzbench.simulator.repository.CampaignRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
-import java.util.stream.StreamSupport;
 
 /**
  * REST controller for CRUD operations on {@link Campaign}.
@@ -31,9 +32,21 @@ public class CampaignController {
      */
     @GetMapping("/campaigns")
     public List<Long> getCampaigns() {
-        return StreamSupport.stream(campaignRepository.findAll().spliterator(), false)
-                .map(Campaign::getCampaignId)
-                .toList();
+        return campaignRepository.findAllCampaignIds();
+    }
+
+    /**
+     * Get a page of the ids of the campaigns.
+     *
+     * @param after the cursor: only campaigns with a greater id are included
+     * @param limit the maximum number of ids
+     * @return the page of campaign ids
+     */
+    @GetMapping("/campaigns/page")
+    public CursorPage getCampaignPage(@RequestParam(required = false, defaultValue = "0") long after,
+                                      @RequestParam(required = false, defaultValue = CursorPage.DEFAULT_LIMIT + "") int limit) {
+        CursorPage.checkLimit(limit);
+        return CursorPage.of(campaignRepository.findCampaignIds(after, PageRequest.of(0, limit)), limit);
     }
 
     /**
@@ -0,0 +1,50 @@
+package byzzbench.simulator.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * A page of ids, in ascending order, from a cursor-paginated query.
+ *
+ * @param items      the ids in the page
+ * @param nextCursor the cursor of the next page (the last id in this page), or null if this is the last page
+ */
+public record CursorPage(List<Long> items, Long nextCursor) {
+    /**
+     * The number of items in a page, if not specified.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * The maximum number of items in a page.
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * Creates a page from the result of a query for at most {@code limit} ids.
+     *
+     * @param items the ids returned by the query
+     * @param limit the maximum number of ids requested
+     * @return the page
+     */
+    public static CursorPage of(List<Long> items, int limit) {
+        return new CursorPage(items, items.size() < limit || items.isEmpty() ? null : items.getLast());
+    }
+
+    /**
+     * Checks the size of a requested page.
+     *
+     * @param limit the maximum number of ids requested
+     * @return the limit
+     * @throws ResponseStatusException if the limit is out of bounds
+     */
+    public static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_LIMIT + ": " + limit);
+        }
+        return limit;
+    }
+}
@@ -7,15 +7,17 @@ import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
 import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
 import byzzbench.simulator.service.ExplorationStrategyService;
 import byzzbench.simulator.service.ScenarioService;
+import byzzbench.simulator.service.ScenarioStepService;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * REST controller for schedulers
@@ -25,6 +27,7 @@ import java.util.Optional;
 public class ExplorationStrategyController {
     private final ExplorationStrategyService explorationStrategyService;
     private final ScenarioService scenarioService;
+    private final ScenarioStepService scenarioStepService;
 
 
     /**
@@ -82,6 +85,35 @@ public class ExplorationStrategyController {
         return explorationStrategy.scheduleNext(scenario);
     }
 
+    /**
+     * Execute a batch of actions chosen by the exploration strategy in the scenario, until
+     * the given number of steps is taken, no action is enabled, or one of the given
+     * conditions holds.
+     *
+     * @param schedulerId  The ID of the exploration strategy to use.
+     * @param scenarioId   The ID of the scenario to use.
+     * @param steps        The maximum number of actions to execute.
+     * @param until        The conditions on which to stop early.
+     * @param commitHeight The commit height at which to stop, with the COMMIT_HEIGHT condition.
+     * @return The summary of the actions that were executed.
+     */
+    @PostMapping("/schedulers/{schedulerId}/scenario/{scenarioId}/run")
+    public ScenarioStepService.StepSummary runSchedulerActions(@NonNull @PathVariable("schedulerId") String schedulerId,
+                                                               @PathVariable("scenarioId") long scenarioId,
+                                                               @RequestParam(required = false, defaultValue = "1") long steps,
+                                                               @RequestParam(required = false) Set<ScenarioStepService.StopCondition> until,
+                                                               @RequestParam(required = false, defaultValue = "0") long commitHeight) {
+        Set<ScenarioStepService.StopCondition> conditions = EnumSet.noneOf(ScenarioStepService.StopCondition.class);
+        if (until != null) {
+            conditions.addAll(until);
+        }
+        try {
+            return scenarioStepService.step(scenarioId, schedulerId, steps, conditions, commitHeight);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     /**
      * Execute a specific action in the scenario
      *
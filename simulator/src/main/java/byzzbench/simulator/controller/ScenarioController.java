@@ -3,24 +3,35 @@ package byzzbench.simulator.controller;
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.ScenarioPredicate;
 import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.ScenarioParameters;
 import byzzbench.simulator.domain.Schedule;
 import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.faults.faults.MessageMutationFault;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Node;
 import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.service.MaterializedScheduleCache;
 import byzzbench.simulator.service.MessageMutatorService;
+import byzzbench.simulator.service.ModelCheckingService;
 import byzzbench.simulator.service.ScenarioService;
+import byzzbench.simulator.service.ScheduleCodecService;
 import byzzbench.simulator.state.CommitLog;
 import byzzbench.simulator.state.adob.AdobCache;
 import byzzbench.simulator.state.adob.AdobDistributedState;
+import byzzbench.simulator.transport.ArchivedEvent;
 import byzzbench.simulator.transport.Event;
+import byzzbench.simulator.transport.EventQuery;
 import byzzbench.simulator.transport.MailboxEvent;
+import byzzbench.simulator.transport.Transport;
+import byzzbench.simulator.utils.serialization.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -33,7 +44,10 @@ import java.util.stream.Collectors;
 @Log
 public class ScenarioController {
     private final MessageMutatorService messageMutatorService;
+    private final ModelCheckingService modelCheckingService;
     private final ScenarioService scenarioService;
+    private final ScheduleCodecService scheduleCodecService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Get a given scenario
@@ -56,6 +70,16 @@ public class ScenarioController {
         return scenarioService.getMaterializedScheduleIds();
     }
 
+    /**
+     * Get the usage statistics of the cache of materialized scenarios
+     *
+     * @return the number of cached scenarios, their weight, and the hit/miss/eviction counters
+     */
+    @GetMapping("/scenarios/cache")
+    public MaterializedScheduleCache.Stats getScenarioCacheStats() {
+        return scenarioService.getCacheStats();
+    }
+
     /**
      * Get the list of all currently materialized scenarios
      *
@@ -77,6 +101,28 @@ public class ScenarioController {
         return scenarioService.getScenarioById(scenarioId).getSchedule();
     }
 
+    /**
+     * Stream a range of the actions in the schedule of a given scenario as newline-delimited
+     * JSON, one action per line, as they are appended.
+     *
+     * @param scenarioId The ID of the scenario.
+     * @param from       The index of the first action.
+     * @param limit      The maximum number of actions, or all actions so far if absent.
+     * @return The actions in the range.
+     */
+    @GetMapping(value = "/scenarios/{scenarioId}/schedule/ndjson", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamScenarioSchedule(@PathVariable long scenarioId,
+                                                                        @RequestParam(required = false, defaultValue = "0") long from,
+                                                                        @RequestParam(required = false) Long limit) {
+        Schedule schedule = scenarioService.getScenarioById(scenarioId).getSchedule();
+        try {
+            Iterator<Action> actions = scheduleCodecService.iterateActions(schedule, from, limit == null ? Long.MAX_VALUE : limit);
+            return ResponseEntity.ok().body(out -> ScheduleController.writeNdjson(objectMapper, actions, out));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/scenarios/{scenarioId}/nodes")
     public SortedSet<String> getScenarioNodes(@PathVariable long scenarioId) {
         return scenarioService.getScenarioById(scenarioId)
@@ -216,12 +262,7 @@ public class ScenarioController {
      */
     @GetMapping("/scenarios/{scenarioId}/adob")
     public AdobCache getAdob(@PathVariable long scenarioId) {
-        return scenarioService.getScenarioById(scenarioId).getObservers().stream()
-                .filter(AdobDistributedState.class::isInstance)
-                .map(o -> (AdobDistributedState) o)
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("ADoB oracle not found"))
-                .getRoot();
+        return this.getAdobState(scenarioId).getRoot();
     }
 
     /**
@@ -231,12 +272,7 @@ public class ScenarioController {
      */
     @GetMapping("/scenarios/{scenarioId}/adob/caches")
     public Collection<AdobCache> getAllAdobCaches(@PathVariable long scenarioId) {
-        AdobDistributedState adob = scenarioService.getScenarioById(scenarioId).getObservers().stream()
-                .filter(AdobDistributedState.class::isInstance)
-                .map(o -> (AdobDistributedState) o)
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("ADoB oracle not found"));
-        return adob.getCaches().values();
+        return this.getAdobState(scenarioId).getCaches().values();
     }
 
     /**
@@ -247,12 +283,23 @@ public class ScenarioController {
      */
     @GetMapping("/scenarios/{scenarioId}/adob/caches/{cacheId}")
     public AdobCache getAdobCache(@PathVariable long scenarioId, @PathVariable Long cacheId) {
-        AdobDistributedState adob = scenarioService.getScenarioById(scenarioId).getObservers().stream()
+        return this.getAdobState(scenarioId).getCaches().get(cacheId);
+    }
+
+    /**
+     * Get the ADoB oracle of a scenario, once it has processed all pending callbacks.
+     *
+     * @param scenarioId The ID of the scenario.
+     * @return The ADoB oracle of the scenario.
+     */
+    private AdobDistributedState getAdobState(long scenarioId) {
+        Scenario scenario = scenarioService.getScenarioById(scenarioId);
+        scenario.getObserverLane().flush();
+        return scenario.getObservers().stream()
                 .filter(AdobDistributedState.class::isInstance)
                 .map(o -> (AdobDistributedState) o)
                 .findFirst()
                 .orElseThrow(() -> new IllegalStateException("ADoB oracle not found"));
-        return adob.getCaches().get(cacheId);
     }
 
     /**
@@ -303,12 +350,68 @@ public class ScenarioController {
     public List<Long> getEvents(@PathVariable long scenarioId) {
         return scenarioService.getScenarioById(scenarioId)
                 .getTransport()
-                .getEvents()
-                .keySet()
+                .getEventIds()
                 .stream()
                 .toList();
     }
 
+    /**
+     * Get a page of the IDs of the live events of the scenario matching the given filters.
+     * In bounded-memory mode, events retired into the archive are not included.
+     *
+     * @param scenarioId  The ID of the scenario.
+     * @param after       The cursor: only events with a greater ID are included.
+     * @param limit       The maximum number of IDs.
+     * @param type        The type of the events.
+     * @param senderId    The ID of the node that sent the events.
+     * @param recipientId The ID of the node that receives the events.
+     * @param status      The state of the events.
+     * @return The page of event IDs.
+     */
+    @GetMapping("/scenarios/{scenarioId}/events/page")
+    public CursorPage getEventPage(@PathVariable long scenarioId,
+                                   @RequestParam(required = false, defaultValue = "-1") long after,
+                                   @RequestParam(required = false, defaultValue = CursorPage.DEFAULT_LIMIT + "") int limit,
+                                   @RequestParam(required = false) String type,
+                                   @RequestParam(required = false, name = "sender") String senderId,
+                                   @RequestParam(required = false, name = "recipient") String recipientId,
+                                   @RequestParam(required = false) Event.Status status) {
+        CursorPage.checkLimit(limit);
+        EventQuery query = new EventQuery(type, senderId, recipientId, status);
+        return CursorPage.of(scenarioService.getScenarioById(scenarioId)
+                .getTransport()
+                .queryEventIds(query, after, limit), limit);
+    }
+
+    /**
+     * Stream the events of the scenario as newline-delimited JSON, one event per line, in the
+     * order of their IDs. Events retired in bounded-memory mode are written as their compact
+     * {@link ArchivedEvent records}: their payloads are in the actions of the schedule.
+     *
+     * @param scenarioId The ID of the scenario.
+     * @param from       The lowest event ID to include.
+     * @param limit      The maximum number of events, or all events if absent.
+     * @return The events in the range.
+     */
+    @GetMapping(value = "/scenarios/{scenarioId}/events/ndjson", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamEvents(@PathVariable long scenarioId,
+                                                              @RequestParam(required = false, defaultValue = "0") long from,
+                                                              @RequestParam(required = false) Long limit) {
+        if (limit != null && limit < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit: " + limit);
+        }
+        Transport transport = scenarioService.getScenarioById(scenarioId).getTransport();
+        Iterator<?> events = transport.getEventIds().tailSet(from).stream()
+                .limit(limit == null ? Long.MAX_VALUE : limit)
+                .map(eventId -> {
+                    Optional<ArchivedEvent> archived = transport.getArchivedEvent(eventId);
+                    return archived.isPresent() ? archived.get() : transport.getEvent(eventId);
+                })
+                .filter(Objects::nonNull)
+                .iterator();
+        return ResponseEntity.ok().body(out -> ScheduleController.writeNdjson(objectMapper, events, out));
+    }
+
     /**
      * Get the event with the given ID.
      *
@@ -319,8 +422,7 @@ public class ScenarioController {
     public Event getEvent(@PathVariable long scenarioId, @PathVariable Long eventId) {
         return scenarioService.getScenarioById(scenarioId)
                 .getTransport()
-                .getEvents()
-                .get(eventId);
+                .getEvent(eventId);
     }
 
     /**
@@ -347,9 +449,8 @@ public class ScenarioController {
     public List<Long> getDroppedMessages(@PathVariable long scenarioId) {
         return scenarioService.getScenarioById(scenarioId)
                 .getTransport()
-                .getEventsInState(Event.Status.DROPPED)
+                .getEventIdsInState(Event.Status.DROPPED)
                 .stream()
-                .map(Event::getEventId)
                 .toList();
     }
 
@@ -362,9 +463,8 @@ public class ScenarioController {
     public List<Long> getDeliveredMessages(@PathVariable long scenarioId) {
         return scenarioService.getScenarioById(scenarioId)
                 .getTransport()
-                .getEventsInState(Event.Status.DELIVERED)
+                .getEventIdsInState(Event.Status.DELIVERED)
                 .stream()
-                .map(Event::getEventId)
                 .toList();
     }
 
@@ -378,8 +478,7 @@ public class ScenarioController {
     public Event getMessage(@PathVariable long scenarioId, @PathVariable Long eventId) {
         return scenarioService.getScenarioById(scenarioId)
                 .getTransport()
-                .getEvents()
-                .get(eventId);
+                .getEvent(eventId);
     }
 
     /**
@@ -392,8 +491,7 @@ public class ScenarioController {
     public List<String> getMessageMutators(@PathVariable long scenarioId, @PathVariable Long eventId) {
         Event e = scenarioService.getScenarioById(scenarioId)
                 .getTransport()
-                .getEvents()
-                .get(eventId);
+                .getEvent(eventId);
 
         // if the event is not found, throw an exception
         if (e == null) {
@@ -414,7 +512,9 @@ public class ScenarioController {
      */
     @PostMapping("/scenarios/{scenarioId}/event/{eventId}/deliver")
     public void deliverMessage(@PathVariable long scenarioId, @PathVariable Long eventId) throws Exception {
-        scenarioService.getScenarioById(scenarioId).getTransport().deliverEvent(eventId, true);
+        Scenario scenario = scenarioService.getScenarioById(scenarioId);
+        scenario.getCheckpoints().checkpointIfDue();
+        scenario.getTransport().deliverEvent(eventId, true);
     }
 
     /**
@@ -424,7 +524,9 @@ public class ScenarioController {
      */
     @PostMapping("/scenarios/{scenarioId}/event/{eventId}/drop")
     public void dropMessage(@PathVariable long scenarioId, @PathVariable Long eventId) {
-        scenarioService.getScenarioById(scenarioId).getTransport().dropEvent(eventId);
+        Scenario scenario = scenarioService.getScenarioById(scenarioId);
+        scenario.getCheckpoints().checkpointIfDue();
+        scenario.getTransport().dropEvent(eventId);
     }
 
     /**
@@ -436,7 +538,9 @@ public class ScenarioController {
     @PostMapping("/scenarios/{scenarioId}/event/{eventId}/mutate/{mutatorId}")
     public void mutateMessage(@PathVariable long scenarioId, @PathVariable Long eventId, @PathVariable String mutatorId) {
         MessageMutationFault mutator = this.messageMutatorService.getMutator(mutatorId);
-        scenarioService.getScenarioById(scenarioId).getTransport().applyMutation(eventId, mutator);
+        Scenario scenario = scenarioService.getScenarioById(scenarioId);
+        scenario.getCheckpoints().checkpointIfDue();
+        scenario.getTransport().applyMutation(eventId, mutator);
     }
 
     /**
@@ -446,7 +550,29 @@ public class ScenarioController {
      */
     @PostMapping("/scenarios/{scenarioId}/reset")
     public void resetScenario(@PathVariable long scenarioId) {
-        throw new UnsupportedOperationException("Not implemented yet");
+        scenarioService.resetScenario(scenarioId);
+    }
+
+    /**
+     * Restore the scenario to its state after the given number of actions of its schedule.
+     *
+     * @param scenarioId The ID of the scenario to restore.
+     * @param step       The number of actions of the schedule to keep.
+     */
+    @PostMapping("/scenarios/{scenarioId}/restore")
+    public void restoreScenario(@PathVariable long scenarioId, @RequestParam int step) {
+        scenarioService.restoreScenario(scenarioId, step);
+    }
+
+    /**
+     * Get the steps at which the scenario was checkpointed.
+     *
+     * @param scenarioId The ID of the scenario.
+     * @return The steps of the checkpoints, in ascending order.
+     */
+    @GetMapping("/scenarios/{scenarioId}/checkpoints")
+    public SortedSet<Integer> getScenarioCheckpoints(@PathVariable long scenarioId) {
+        return scenarioService.getScenarioById(scenarioId).getCheckpoints().getSteps();
     }
 
     /**
@@ -472,4 +598,33 @@ public class ScenarioController {
         return actions;
     }
 
+    /**
+     * Exhaustively explore the schedules of a new scenario, up to a given depth. If a schedule
+     * violates an invariant, it is stored as a new schedule.
+     *
+     * @param parameters     The parameters of the scenario.
+     * @param order          The order in which states are explored: BFS or DFS.
+     * @param maxDepth       The maximum number of steps from the initial state.
+     * @param maxStates      The maximum number of distinct states to visit.
+     * @param expectedStates The number of states the visited-state table is sized for.
+     * @return The result of the search.
+     */
+    @PostMapping("/scenarios/model-check")
+    public ModelCheckingService.ModelCheckingResult modelCheckScenario(@RequestBody ScenarioParameters parameters,
+                                                                       @RequestParam(required = false, defaultValue = "DFS") ModelCheckingService.SearchOrder order,
+                                                                       @RequestParam(required = false, defaultValue = "32") int maxDepth,
+                                                                       @RequestParam(required = false, defaultValue = "1000000") long maxStates,
+                                                                       @RequestParam(required = false, defaultValue = "65536") long expectedStates) {
+        ModelCheckingService.Options options = ModelCheckingService.Options.builder()
+                .order(order)
+                .maxDepth(maxDepth)
+                .maxStates(maxStates)
+                .expectedStates(expectedStates)
+                .build();
+        try {
+            return modelCheckingService.check(parameters, options);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
@@ -1,24 +1,45 @@
 package byzzbench.simulator.controller;
 
 
+import byzzbench.simulator.domain.Action;
 import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.service.ReplayService;
 import byzzbench.simulator.service.ScenarioService;
+import byzzbench.simulator.service.ScheduleCodecService;
+import byzzbench.simulator.service.ScheduleMinimizerService;
+import byzzbench.simulator.utils.serialization.NdjsonWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.stream.StreamSupport;
 
 @RestController
 @RequiredArgsConstructor
 public class ScheduleController {
     private final ScenarioService scenarioService;
+    private final ReplayService replayService;
+    private final ScheduleCodecService scheduleCodecService;
+    private final ScheduleMinimizerService scheduleMinimizerService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Get the list of all schedules.
@@ -27,9 +48,43 @@ public class ScheduleController {
      */
     @GetMapping("/schedules")
     public List<Long> getSchedules() {
-        return StreamSupport.stream(scenarioService.getScheduleRepository().findAll().spliterator(), false)
-                .map(Schedule::getScheduleId)
-                .toList();
+        return scenarioService.getScheduleRepository().findAllScheduleIds();
+    }
+
+    /**
+     * Get a page of the ids of the schedules matching the given filters.
+     *
+     * @param after      the cursor: only schedules with a greater id are included
+     * @param limit      the maximum number of ids
+     * @param campaignId the id of the campaign of the schedules
+     * @param buggy      whether the schedules violate some invariant
+     * @param invariant  the id of an invariant the schedules violate
+     * @return the page of schedule ids
+     */
+    @GetMapping("/schedules/page")
+    public CursorPage getSchedulePage(@RequestParam(required = false, defaultValue = "0") long after,
+                                      @RequestParam(required = false, defaultValue = CursorPage.DEFAULT_LIMIT + "") int limit,
+                                      @RequestParam(required = false) Long campaignId,
+                                      @RequestParam(required = false) Boolean buggy,
+                                      @RequestParam(required = false) String invariant) {
+        CursorPage.checkLimit(limit);
+        return CursorPage.of(scenarioService.getScheduleRepository()
+                .findScheduleIds(after, campaignId, buggy, invariant, PageRequest.of(0, limit)), limit);
+    }
+
+    /**
+     * Count the schedules matching the given filters.
+     *
+     * @param campaignId the id of the campaign of the schedules
+     * @param buggy      whether the schedules violate some invariant
+     * @param invariant  the id of an invariant the schedules violate
+     * @return the number of schedules
+     */
+    @GetMapping("/schedules/count")
+    public long countSchedules(@RequestParam(required = false) Long campaignId,
+                               @RequestParam(required = false) Boolean buggy,
+                               @RequestParam(required = false) String invariant) {
+        return scenarioService.getScheduleRepository().countSchedules(campaignId, buggy, invariant);
     }
 
     /**
@@ -47,6 +102,44 @@ public class ScheduleController {
         }
     }
 
+    /**
+     * Stream a range of the actions of a schedule as newline-delimited JSON, one action per line.
+     *
+     * @param scheduleId the id of the schedule
+     * @param from       the index of the first action
+     * @param limit      the maximum number of actions, or all remaining actions if absent
+     * @return the actions in the range
+     */
+    @GetMapping(value = "/schedules/{scheduleId}/ndjson", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamScheduleActions(@PathVariable Long scheduleId,
+                                                                       @RequestParam(required = false, defaultValue = "0") long from,
+                                                                       @RequestParam(required = false) Long limit) {
+        try {
+            Iterator<Action> actions = scheduleCodecService.iterateActions(scenarioService.getScheduleById(scheduleId), from, limit == null ? Long.MAX_VALUE : limit);
+            return ResponseEntity.ok().body(out -> writeNdjson(objectMapper, actions, out));
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Schedule not found");
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Write values as newline-delimited JSON.
+     *
+     * @param objectMapper the mapper used to serialize the values
+     * @param values       the values
+     * @param out          the output stream
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeNdjson(ObjectMapper objectMapper, Iterator<?> values, OutputStream out) throws IOException {
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+            while (values.hasNext()) {
+                writer.write(values.next());
+            }
+        }
+    }
+
     /**
      * Materialize the scenario for a given schedule.
      *
@@ -63,4 +156,123 @@ public class ScheduleController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Schedule not found");
         }
     }
+
+    /**
+     * Replay a stored schedule headlessly, checking whether it reproduces its recorded outcome.
+     *
+     * @param scheduleId the id of the schedule
+     * @param checkSteps the steps at which to also test the invariants
+     * @return the result of the replay
+     */
+    @PostMapping("/schedules/{scheduleId}/replay")
+    public ReplayService.ReplayResult replaySchedule(@PathVariable Long scheduleId,
+                                                     @RequestParam(required = false, defaultValue = "") Set<Integer> checkSteps) {
+        try {
+            return replayService.replay(scenarioService.getScheduleById(scheduleId), checkSteps);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Schedule not found");
+        }
+    }
+
+    /**
+     * Minimize a stored schedule that violates an invariant, and store the minimized schedule.
+     *
+     * @param scheduleId  the id of the schedule
+     * @param invariantId the id of the invariant to keep violating, or the first one violated if absent
+     * @param maxReplays  the maximum number of candidate schedules to replay
+     * @return the result of the minimization
+     */
+    @PostMapping("/schedules/{scheduleId}/minimize")
+    public ScheduleMinimizerService.MinimizationResult minimizeSchedule(@PathVariable Long scheduleId,
+                                                                        @RequestParam(required = false) String invariantId,
+                                                                        @RequestParam(required = false, defaultValue = "1000") int maxReplays) {
+        try {
+            return scheduleMinimizerService.minimizeAndStore(scenarioService.getScheduleById(scheduleId), invariantId, maxReplays);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Schedule not found");
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Replay stored schedules headlessly and in parallel.
+     *
+     * @param scheduleIds the ids of the schedules, or all stored schedules if absent
+     * @param checkSteps  the steps at which to also test the invariants
+     * @return the report of the replays
+     */
+    @PostMapping("/schedules/replay")
+    public ReplayService.ReplayReport replaySchedules(@RequestBody(required = false) List<Long> scheduleIds,
+                                                      @RequestParam(required = false, defaultValue = "") Set<Integer> checkSteps) {
+        Iterable<Schedule> schedules = scheduleIds == null
+                ? scenarioService.getScheduleRepository().findAll()
+                : scenarioService.getScheduleRepository().findAllById(scheduleIds);
+        return replayService.replayAll(StreamSupport.stream(schedules.spliterator(), false).toList(), checkSteps);
+    }
+
+    /**
+     * Replay schedules given in JSON headlessly and in parallel, without storing them.
+     *
+     * @param schedules  the schedules
+     * @param checkSteps the steps at which to also test the invariants
+     * @return the report of the replays
+     */
+    @PostMapping("/schedules/replay/json")
+    public ReplayService.ReplayReport replayScheduleJson(@RequestBody List<Schedule> schedules,
+                                                         @RequestParam(required = false, defaultValue = "") Set<Integer> checkSteps) {
+        return replayService.replayAll(schedules, checkSteps);
+    }
+
+    /**
+     * Export a schedule in the compact binary encoding, streaming its actions.
+     *
+     * @param scheduleId the id of the schedule
+     * @param payloads   whether to include the payloads of the messages, if available
+     * @return the encoded schedule
+     */
+    @GetMapping(value = "/schedules/{scheduleId}/binary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSchedule(@PathVariable Long scheduleId,
+                                                                @RequestParam(required = false, defaultValue = "false") boolean payloads) {
+        try {
+            Schedule schedule = scenarioService.getScheduleById(scheduleId);
+            return ResponseEntity.ok()
+                    .header("Content-Disposition", "attachment; filename=\"schedule-" + scheduleId + ".bzsc\"")
+                    .body(out -> scheduleCodecService.exportSchedule(schedule, payloads, out));
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Schedule not found");
+        }
+    }
+
+    /**
+     * Import a schedule in the compact binary encoding, streaming its actions.
+     *
+     * @param body the encoded schedule
+     * @return the id of the stored schedule
+     */
+    @PostMapping(value = "/schedules/binary", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public long importSchedule(InputStream body) throws IOException {
+        try {
+            return scheduleCodecService.importSchedule(body).getScheduleId();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Compare the size and encoding throughput of a schedule in the binary encoding and in JSON.
+     *
+     * @param scheduleId the id of the schedule
+     * @param iterations the number of times each encoding is measured
+     * @return the comparison
+     */
+    @GetMapping("/schedules/{scheduleId}/encoding")
+    public ScheduleCodecService.EncodingComparison compareEncodings(@PathVariable Long scheduleId,
+                                                                    @RequestParam(required = false, defaultValue = "10") int iterations) {
+        try {
+            return scheduleCodecService.compare(scenarioService.getScheduleById(scheduleId), iterations);
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Schedule not found");
+        }
+    }
 }
@@ -1,12 +1,9 @@
 package byzzbench.simulator.domain;
 
 import byzzbench.simulator.Scenario;
-import byzzbench.simulator.utils.NonNull;
-import byzzbench.simulator.utils.serialization.ScheduleJsonConverter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
@@ -15,9 +12,10 @@ import lombok.experimental.SuperBuilder;
 import java.io.Serializable;
 import java.util.function.Consumer;
 
-@Entity
-@Inheritance(strategy = InheritanceType.SINGLE_TABLE)
-@DiscriminatorColumn(name = "action_type")
+/**
+ * A deterministic step of a {@link Schedule}. Actions are persisted as part of their schedule,
+ * in its {@link byzzbench.simulator.utils.serialization.BinaryScheduleCodec binary encoding}.
+ */
 @Data
 @SuperBuilder
 @NoArgsConstructor
@@ -31,15 +29,6 @@ import java.util.function.Consumer;
 })
 @ToString
 public abstract class Action implements Consumer<Scenario>, Serializable {
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    @NonNull
-    @JsonIgnore // this only makes sense in the database context. Don't send it to the client.
-    private long actionId;
-
-    @ManyToOne
-    //@JoinColumn(name = "schedule_id")
-    @Convert(converter = ScheduleJsonConverter.class)
     @JsonIgnore
     @ToString.Exclude
     private Schedule schedule;
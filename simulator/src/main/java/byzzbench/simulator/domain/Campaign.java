@@ -1,6 +1,7 @@
 package byzzbench.simulator.domain;
 
 import byzzbench.simulator.config.CampaignConfig;
+import byzzbench.simulator.config.ForkConfig;
 import byzzbench.simulator.config.TerminationConfig;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
@@ -20,6 +21,7 @@ import java.io.Serializable;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 
 /**
@@ -91,6 +93,12 @@ public class Campaign implements Serializable {
     @Embedded
     private TerminationConfig termination;
 
+    /**
+     * The fork configuration for this campaign.
+     */
+    @Column(length = 2048)
+    private ForkConfig fork = new ForkConfig();
+
     /**
      * How many schedules were aborted due to correctness violations (invariant violations)
      */
@@ -133,6 +141,10 @@ public class Campaign implements Serializable {
         campaign.setRandom(new Random(config.getInitialRandomSeed()));
         campaign.setTermination(config.getTermination());
         campaign.setExplorationStrategyParameters(config.getExplorationStrategyParameters());
+        if (config.getFork() != null) {
+            config.getFork().validate();
+            campaign.setFork(config.getFork());
+        }
         return campaign;
     }
 
@@ -147,10 +159,11 @@ public class Campaign implements Serializable {
 
     /**
      * Generate the parameters for the next scenario in this campaign.
+     * The n-th call always yields the same random seed for a given initial random seed.
      *
      * @return the parameters for the next scenario
      */
-    public ScenarioParameters generateScenarioParameters() {
+    public synchronized ScenarioParameters generateScenarioParameters() {
         return this.getScenarioParameters().withRandomSeed(this.random.nextLong());
     }
 
@@ -159,7 +172,7 @@ public class Campaign implements Serializable {
      *
      * @param result the result
      */
-    public void processScenarioResult(CampaignService.ScenarioExecutionResult result) {
+    public synchronized void processScenarioResult(CampaignService.ScenarioExecutionResult result) {
         switch (result) {
             case CampaignService.ScenarioExecutionResult.CORRECT -> numMaxedOut++;
             case CampaignService.ScenarioExecutionResult.TERMINATED -> numTerm++;
@@ -176,6 +189,16 @@ public class Campaign implements Serializable {
         return "campaign-" + getCampaignId();
     }
 
+    /**
+     * Retrieve the exploration strategy of the campaign, without creating it
+     *
+     * @return the exploration strategy instance, or empty if it was not created yet
+     */
+    @JsonIgnore
+    public Optional<ExplorationStrategy> getCreatedExplorationStrategy() {
+        return Optional.ofNullable(this.explorationStrategy);
+    }
+
     /**
      * Retrieve the exploration strategy used for deciding actions on scenarios in the campaign
      *
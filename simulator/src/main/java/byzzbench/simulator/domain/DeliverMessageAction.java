@@ -4,9 +4,6 @@ import byzzbench.simulator.Scenario;
 import byzzbench.simulator.transport.MessageEvent;
 import byzzbench.simulator.transport.MessagePayload;
 import byzzbench.simulator.utils.NonNull;
-import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
-import jakarta.persistence.Transient;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -15,7 +12,6 @@ import lombok.experimental.SuperBuilder;
 
 import java.time.Instant;
 
-@Entity
 @EqualsAndHashCode(callSuper = true)
 @Data
 @SuperBuilder
@@ -50,8 +46,6 @@ public class DeliverMessageAction extends Action {
      * The payload of the message.
      */
     @NonNull
-    @Column(columnDefinition = "bytea")
-    @Transient // Marked as Transient to avoid JPA persistence issues
     private MessagePayload payload;
 
     /**
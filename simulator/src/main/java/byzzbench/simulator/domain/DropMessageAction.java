@@ -5,14 +5,12 @@ import byzzbench.simulator.transport.Event;
 import byzzbench.simulator.transport.MessageEvent;
 import byzzbench.simulator.transport.MessagePayload;
 import byzzbench.simulator.utils.NonNull;
-import jakarta.persistence.Entity;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 import lombok.extern.java.Log;
 
 import java.time.Instant;
 
-@Entity
 @EqualsAndHashCode(callSuper = true)
 @Data
 @SuperBuilder
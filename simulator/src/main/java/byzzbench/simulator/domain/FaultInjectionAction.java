@@ -7,7 +7,6 @@ import byzzbench.simulator.service.ApplicationContextProvider;
 import byzzbench.simulator.service.MessageMutatorService;
 import byzzbench.simulator.transport.Event;
 import byzzbench.simulator.utils.NonNull;
-import jakarta.persistence.Entity;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -20,7 +19,6 @@ import lombok.extern.java.Log;
  * <p>
  * This uses reflection to locate the specified field and applies a transformation function to it.
  */
-@Entity
 @EqualsAndHashCode(callSuper = true)
 @Data
 @SuperBuilder
@@ -45,7 +43,7 @@ public class FaultInjectionAction extends Action {
         Event e = scenario.getTransport().getEvent(this.messageId);
         ScenarioContext context = new ScenarioContext(scenario, e);
 
-        log.info("Applying mutator " + mutatorId + " to message " + messageId);
+        log.fine(() -> "Applying mutator " + mutatorId + " to message " + messageId);
         MessageMutatorService messageMutatorService = ApplicationContextProvider.getMessageMutatorService();
         MessageMutationFault fault = messageMutatorService.getMutator(mutatorId);
         fault.accept(context);
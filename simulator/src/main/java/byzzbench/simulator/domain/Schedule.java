@@ -6,13 +6,21 @@ import byzzbench.simulator.transport.Event;
 import byzzbench.simulator.transport.MessageEvent;
 import byzzbench.simulator.transport.TimeoutEvent;
 import byzzbench.simulator.utils.NonNull;
+import byzzbench.simulator.utils.serialization.BinaryScheduleCodec;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.hypersistence.utils.hibernate.type.json.JsonType;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
 
 import java.io.Serializable;
 import java.util.*;
@@ -22,14 +30,14 @@ import java.util.*;
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Entity
+@Table(indexes = @Index(name = "idx_schedule_campaign", columnList = "campaign_campaign_id"))
 @NoArgsConstructor
 @Data
-public class Schedule implements Serializable {
+public class Schedule implements Serializable, Persistable<Long> {
     /**
-     * The unique identifier of the schedule.
+     * The unique identifier of the schedule, assigned before it is first persisted.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long scheduleId;
 
     /**
@@ -45,16 +53,40 @@ public class Schedule implements Serializable {
     private ScenarioParameters parameters;
 
     /**
-     * The list of actions in the schedule
+     * The list of actions in the schedule, or null if they were not decoded yet.
      */
-    @NonNull
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, mappedBy = "schedule")
+    @Transient
     private List<Action> actions = new ArrayList<>();
 
+    /**
+     * The persisted actions of the schedule, in the {@link BinaryScheduleCodec binary encoding}.
+     * The actions are decoded on first access.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Column(columnDefinition = "bytea")
+    private byte[] encodedActions;
+
     @ManyToOne
     @JsonIgnore
     private Campaign campaign;
 
+    /**
+     * The schedule this schedule was forked from, if any. The first {@link #prefixLength}
+     * actions are shared with it: they are the same {@link Action} objects, not copies.
+     */
+    @ManyToOne
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Schedule parent;
+
+    /**
+     * The number of actions shared with the {@link #parent} schedule.
+     */
+    private int prefixLength;
+
     /**
      * The set of invariants that are violated by this schedule.
      */
@@ -63,6 +95,51 @@ public class Schedule implements Serializable {
     @Column(columnDefinition = "json")
     private SortedSet<ScenarioPredicate> brokenInvariants = new TreeSet<>();
 
+    /**
+     * The ids of the {@link #brokenInvariants}, in an indexed table to query schedules by the
+     * invariants they violate.
+     */
+    @NonNull
+    @JsonIgnore
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "schedule_broken_invariant",
+            indexes = @Index(name = "idx_broken_invariant", columnList = "invariant_id"))
+    @Column(name = "invariant_id")
+    private Set<String> brokenInvariantIds = new TreeSet<>();
+
+    /**
+     * The number of {@link DeliverMessageAction}s among the first {@link #countedActions}
+     * actions, so {@link #getLength()} only counts the actions appended since its last call.
+     */
+    @JsonIgnore
+    @Transient
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int cachedLength;
+
+    /**
+     * The number of actions counted in {@link #cachedLength}.
+     */
+    @JsonIgnore
+    @Transient
+    @ToString.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int countedActions;
+
+    /**
+     * Whether the schedule was persisted already, so saving it again updates it instead of
+     * inserting it.
+     */
+    @JsonIgnore
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient boolean persisted;
+
     /**
      * The scenario generated by this schedule (may be null if not generated).
      */
@@ -79,6 +156,93 @@ public class Schedule implements Serializable {
         this.parameters = parameters;
     }
 
+    /**
+     * Creates a new schedule that continues the given one: it shares the actions of the
+     * parent schedule so far, and appends its own actions after them.
+     *
+     * @param parent the schedule to continue.
+     * @return the new schedule.
+     */
+    public static Schedule forkOf(Schedule parent) {
+        Schedule schedule = new Schedule(parent.getParameters());
+        schedule.setCampaign(parent.getCampaign());
+        schedule.setParent(parent);
+        schedule.setPrefixLength(parent.getActions().size());
+        return schedule;
+    }
+
+    /**
+     * Returns the list of actions in the schedule, decoding the persisted actions if needed.
+     * The actions of a forked schedule start with the prefix it shares with its parent.
+     *
+     * @return the list of actions
+     */
+    @JsonProperty("actions")
+    public @NonNull List<Action> getActions() {
+        if (this.actions == null) {
+            // only the actions a forked schedule owns are persisted
+            List<Action> decoded = BinaryScheduleCodec.decodeActions(this.encodedActions, this);
+            if (this.parent != null) {
+                decoded.addAll(0, this.parent.getActions().subList(0, this.prefixLength));
+            }
+            this.actions = decoded;
+        }
+        return this.actions;
+    }
+
+    /**
+     * Replaces the actions of the schedule.
+     *
+     * @param actions the actions
+     */
+    public void setActions(List<Action> actions) {
+        this.actions = actions;
+        this.resetLength();
+    }
+
+    /**
+     * Replaces the actions of the schedule with their binary encoding, to be decoded on first access.
+     *
+     * @param encodedActions the encoded actions
+     */
+    public void setEncodedActions(byte[] encodedActions) {
+        this.encodedActions = encodedActions;
+        this.actions = null;
+        this.resetLength();
+    }
+
+    /**
+     * Replaces the actions of the schedule in place, e.g. when a scenario is restored to an
+     * earlier state.
+     *
+     * @param actions the new actions
+     */
+    public void replaceActions(List<Action> actions) {
+        List<Action> replaced = List.copyOf(actions);
+        this.getActions().clear();
+        this.getActions().addAll(replaced);
+        this.resetLength();
+    }
+
+    /**
+     * Checks whether the actions of the schedule are only available in their binary encoding.
+     *
+     * @return true if the actions were not decoded yet
+     */
+    @JsonIgnore
+    public boolean isEncoded() {
+        return this.actions == null;
+    }
+
+    /**
+     * Returns the id of the schedule this schedule was forked from.
+     *
+     * @return the id of the parent schedule, or null if it was not forked.
+     */
+    public Long getParentScheduleId() {
+        return this.parent == null ? null : this.parent.getScheduleId();
+    }
+
     /**
      * Appends an event to the schedule, converting it to the corresponding action.
      *
@@ -86,7 +250,7 @@ public class Schedule implements Serializable {
      */
     public void appendEvent(Event event) {
         switch (event) {
-            case MessageEvent messageEvent -> actions.add(DeliverMessageAction.builder()
+            case MessageEvent messageEvent -> this.getActions().add(DeliverMessageAction.builder()
                     .messageEventId(event.getEventId())
                     .recipientId(messageEvent.getRecipientId())
                     .senderId(messageEvent.getSenderId())
@@ -94,7 +258,7 @@ public class Schedule implements Serializable {
                     .payload(messageEvent.getPayload())
                     .schedule(this)
                     .build());
-            case TimeoutEvent timeoutEvent -> actions.add(TriggerTimeoutAction.builder()
+            case TimeoutEvent timeoutEvent -> this.getActions().add(TriggerTimeoutAction.builder()
                     .timeoutEventId(timeoutEvent.getEventId())
                     .timeout(timeoutEvent.getTimeout())
                     .schedule(this)
@@ -113,7 +277,7 @@ public class Schedule implements Serializable {
      */
     public void appendAction(Action action) {
         action.setSchedule(this);
-        this.actions.add(action);
+        this.getActions().add(action);
     }
 
     /**
@@ -123,6 +287,7 @@ public class Schedule implements Serializable {
      */
     public void finalizeSchedule(Set<ScenarioPredicate> brokenInvariants) {
         this.brokenInvariants.addAll(brokenInvariants);
+        brokenInvariants.forEach(invariant -> this.brokenInvariantIds.add(invariant.getId()));
     }
 
     /**
@@ -153,11 +318,23 @@ public class Schedule implements Serializable {
      * @return the length of the schedule.
      */
     public int getLength() {
-        // count only deliver messages
-        return this.actions.stream()
-                .filter(DeliverMessageAction.class::isInstance)
-                .toList()
-                .size();
+        // count only deliver messages, starting from the actions counted by the last call
+        List<Action> actions = this.getActions();
+        if (actions.size() < this.countedActions) {
+            this.resetLength();
+        }
+        for (int i = this.countedActions; i < actions.size(); i++) {
+            if (actions.get(i) instanceof DeliverMessageAction) {
+                this.cachedLength++;
+            }
+        }
+        this.countedActions = actions.size();
+        return this.cachedLength;
+    }
+
+    private void resetLength() {
+        this.cachedLength = 0;
+        this.countedActions = 0;
     }
 
     public boolean isMaterialized() {
@@ -168,6 +345,36 @@ public class Schedule implements Serializable {
         this.scenario = null;
     }
 
+    /**
+     * Defers decoding the persisted actions until they are accessed.
+     */
+    @PostLoad
+    private void onLoad() {
+        this.actions = null;
+        this.resetLength();
+        this.persisted = true;
+    }
+
+    /**
+     * Marks the schedule as persisted, so saving it again updates it instead of inserting it.
+     */
+    @PostPersist
+    public void markPersisted() {
+        this.persisted = true;
+    }
+
+    @Override
+    @JsonIgnore
+    public Long getId() {
+        return this.scheduleId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !this.persisted;
+    }
+
     /**
      * Method executed after the entity is loaded into the persistence context.
      * This method attempts to initialize the `scenario` field by fetching the
@@ -2,7 +2,6 @@ package byzzbench.simulator.domain;
 
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.transport.TimeoutEvent;
-import jakarta.persistence.Entity;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -15,7 +14,6 @@ import java.time.Instant;
 /**
  * Represents the triggering of a timeout event.
  */
-@Entity
 @EqualsAndHashCode(callSuper = true)
 @Data
 @SuperBuilder
@@ -1,5 +1,6 @@
 package byzzbench.simulator.exploration_strategy;
 
+import byzzbench.simulator.ExecutionMode;
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.domain.Action;
 import byzzbench.simulator.domain.DeliverMessageAction;
@@ -7,15 +8,14 @@ import byzzbench.simulator.domain.DropMessageAction;
 import byzzbench.simulator.domain.TriggerTimeoutAction;
 import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.faults.ScenarioContext;
+import byzzbench.simulator.transport.EnabledEvents;
 import byzzbench.simulator.transport.Event;
 import byzzbench.simulator.transport.MessageEvent;
 import byzzbench.simulator.transport.TimeoutEvent;
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -24,30 +24,7 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 @Getter
 public abstract class ExplorationStrategy {
-    /**
-     * The remaining number of drop messages for each scenario.
-     * If the number of remaining drop messages is 0, the exploration_strategy will not drop messages.
-     */
-    @JsonIgnore
-    protected final Map<Scenario, Integer> remainingDropMessages = new HashMap<>();
-
-    /**
-     * The remaining number of mutate messages for each scenario.
-     * If the number of remaining mutate messages is 0, the exploration_strategy will not mutate messages.
-     */
-    @JsonIgnore
-    protected final Map<Scenario, Integer> remainingMutateMessages = new HashMap<>();
-
-    /**
-     * Set of scenarios that have been initialized
-     */
-    @JsonIgnore
-    private final Set<Scenario> initializedScenarios = new HashSet<>();
     public long randomSeed;
-    /**
-     * Random number generator
-     */
-    private Random rand;
     /**
      * The weight assigned to the action of delivering a message within the exploration strategy.
      * This value is used to prioritize or influence the likelihood of delivering a message
@@ -88,12 +65,85 @@ public abstract class ExplorationStrategy {
      * @param scenario the scenario to ensure is initialized
      */
     public void ensureScenarioInitialized(Scenario scenario) {
-        if (!initializedScenarios.contains(scenario)) {
+        StrategyContext context = this.getContext(scenario);
+        if (!context.isInitialized()) {
             this.initializeScenario(scenario);
-            initializedScenarios.add(scenario);
+            context.setInitialized(true);
         }
     }
 
+    /**
+     * Returns the state of this exploration strategy for a scenario, creating it on first use.
+     *
+     * @param scenario the scenario
+     * @return the context of the scenario
+     */
+    public StrategyContext getContext(Scenario scenario) {
+        return scenario.getStrategyContext(this, this::newContext);
+    }
+
+    /**
+     * Releases the state of this exploration strategy for a scenario that is no longer explored.
+     *
+     * @param scenario the scenario
+     */
+    public void releaseContext(Scenario scenario) {
+        scenario.releaseStrategyContext(this);
+    }
+
+    /**
+     * Creates an empty context for a scenario. Strategies keeping per-scenario state of their
+     * own override this method to return a subclass of {@link StrategyContext}.
+     *
+     * @param scenario the scenario
+     * @return the new context
+     */
+    protected StrategyContext createContext(Scenario scenario) {
+        return new StrategyContext();
+    }
+
+    private StrategyContext newContext(Scenario scenario) {
+        StrategyContext context = this.createContext(scenario);
+        context.setRand(new Random(scenarioSeed(scenario)));
+        context.setRemainingDropMessages(this.getMaxDropMessages());
+        context.setRemainingMutateMessages(this.getMaxMutateMessages());
+        return context;
+    }
+
+    /**
+     * Returns the random number generator of a scenario. It is seeded from both the
+     * exploration strategy's seed and the scenario's seed, so the same pair of seeds always
+     * yields the same stream regardless of which other scenarios are being explored.
+     *
+     * @param scenario the scenario
+     * @return the random number generator of the scenario
+     */
+    public Random getRand(Scenario scenario) {
+        return this.getContext(scenario).getRand();
+    }
+
+    /**
+     * Restarts the random number generator of a scenario with a new stream, e.g. so that
+     * the forks of a scenario explore different schedules.
+     *
+     * @param scenario the scenario
+     * @param seed     the seed of the new stream
+     */
+    public void reseed(Scenario scenario, long seed) {
+        this.getContext(scenario).setRand(new Random(31 * this.randomSeed + seed));
+    }
+
+    /**
+     * Computes the seed of the random number generator of a scenario.
+     *
+     * @param scenario the scenario
+     * @return the seed
+     */
+    private long scenarioSeed(Scenario scenario) {
+        Long seed = scenario.getSchedule() != null ? scenario.getSchedule().getParameters().getRandomSeed() : null;
+        return 31 * this.randomSeed + (seed != null ? seed : 0L);
+    }
+
     /**
      * Called whenever this exploration_strategy has been assigned a new scenario.
      * This allows for schedulers like ByzzFuzz to pre-schedule faults.
@@ -110,7 +160,6 @@ public abstract class ExplorationStrategy {
     public final void loadParameters(ExplorationStrategyParameters parameters) {
         System.out.println("Creating Random with seed: " + parameters.getRandomSeed());
         this.randomSeed = parameters.getRandomSeed();
-        this.rand = new Random(parameters.getRandomSeed());
         this.deliverMessageWeight = parameters.getDeliverMessageWeight();
         this.deliverTimeoutWeight = parameters.getDeliverTimeoutWeight();
         this.dropMessageWeight = parameters.getDropMessageWeight();
@@ -147,31 +196,14 @@ public abstract class ExplorationStrategy {
     }
 
     /**
-     * Returns the queued message events in the scenario
+     * Returns the queued message events in the scenario that can be delivered.
+     * In {@link ExecutionMode#SYNC}, this is the first message in each mailbox.
      *
      * @param scenario The scenario
-     * @return The list of message events
+     * @return The list of message events, ordered by event ID
      */
     public List<MessageEvent> getQueuedMessageEvents(Scenario scenario) {
-        List<MessageEvent> queuedMessages = getQueuedEventsOfType(scenario, MessageEvent.class);
-
-        switch (scenario.getExecutionMode()) {
-            case SYNC -> {
-                // retrieve the first message in the mailbox for each replica
-                Map<String, MessageEvent> firstMessageForEachReplica = new HashMap<>();
-                for (MessageEvent message : queuedMessages) {
-                    firstMessageForEachReplica.putIfAbsent(message.getRecipientId(), message);
-                }
-                return firstMessageForEachReplica.values().stream().toList();
-            }
-            case ASYNC -> {
-                // in async mode, all queued messages can be delivered
-                return queuedMessages;
-            }
-            default -> throw new IllegalStateException("Unknown execution mode: " + scenario.getExecutionMode());
-        }
-
-
+        return scenario.getTransport().getEnabledEvents().getDeliverableMessages(scenario.getExecutionMode());
     }
 
     /**
@@ -188,42 +220,15 @@ public abstract class ExplorationStrategy {
     }
 
     /**
-     * Returns the timeout events in the scenario that can be delivered.
+     * Returns the timeout events in the scenario that can be delivered: the earliest-expiring
+     * timeout of each replica. In {@link ExecutionMode#SYNC}, timeouts can only be delivered
+     * once every mailbox is empty.
      *
      * @param scenario The scenario
-     * @return The list of timeout events
+     * @return The list of timeout events, earliest-expiring first
      */
     public List<TimeoutEvent> getQueuedTimeoutEvents(Scenario scenario) {
-        // get all time out events in order of expiration (earliest first)
-        List<TimeoutEvent> events = getQueuedEventsOfType(scenario, TimeoutEvent.class).stream()
-                .sorted(Comparator.comparing(TimeoutEvent::getExpiresAt))
-                .toList();
-        // get the first (earliest-expiring) timeout event for each replica
-        Map<String, TimeoutEvent> firstTimeoutForEachReplica = new HashMap<>();
-        for (TimeoutEvent event : events) {
-            firstTimeoutForEachReplica.putIfAbsent(event.getRecipientId(), event);
-        }
-
-        switch (scenario.getExecutionMode()) {
-            case SYNC -> {
-                // if some replicas have messages in their mailbox, no timeouts!
-                if (!getQueuedMessageEvents(scenario).isEmpty()) {
-                    return Collections.emptyList();
-                }
-                // get the set of replica IDs with messages in their mailbox
-                SortedSet<String> replicasWithQueuedMessagesInMailbox = getQueuedMessageEvents(scenario).stream()
-                        .map(MessageEvent::getRecipientId)
-                        .collect(Collectors.toCollection(TreeSet::new));
-                // return only timeouts for replicas without messages in their mailbox
-                return firstTimeoutForEachReplica.values().stream()
-                        .filter(event -> !replicasWithQueuedMessagesInMailbox.contains(event.getRecipientId()))
-                        .toList();
-            }
-            case ASYNC -> {
-                return firstTimeoutForEachReplica.values().stream().toList();
-            }
-            default -> throw new IllegalStateException("Unknown execution mode: " + scenario.getExecutionMode());
-        }
+        return scenario.getTransport().getEnabledEvents().getTriggerableTimeouts(scenario.getExecutionMode());
     }
 
     /**
@@ -245,7 +250,7 @@ public abstract class ExplorationStrategy {
                 return messageEvents.stream().min(Comparator.comparing(Event::getEventId)).orElseThrow();
             }
             case ASYNC -> {
-                return messageEvents.get(rand.nextInt(messageEvents.size()));
+                return messageEvents.get(this.getRand(scenario).nextInt(messageEvents.size()));
             }
             default -> throw new IllegalStateException("Unknown execution mode: " + scenario.getExecutionMode());
         }
@@ -262,7 +267,7 @@ public abstract class ExplorationStrategy {
             return 0;
         }
 
-        int remaining = remainingDropMessages.computeIfAbsent(scenario, s -> this.getMaxDropMessages());
+        int remaining = this.getContext(scenario).getRemainingDropMessages();
         return remaining > 0 ? this.getDropMessageWeight() : 0;
     }
 
@@ -272,7 +277,7 @@ public abstract class ExplorationStrategy {
      * @return The weight of mutating and delivering a message
      */
     public int mutateMessageWeight(Scenario scenario) {
-        int remaining = remainingMutateMessages.computeIfAbsent(scenario, s -> this.getMaxMutateMessages());
+        int remaining = this.getContext(scenario).getRemainingMutateMessages();
         return remaining > 0 ? this.getMutateMessageWeight() : 0;
     }
 
@@ -321,6 +326,37 @@ public abstract class ExplorationStrategy {
         return Stream.concat(Stream.concat(messageEvents, timeoutEvents), faultEvents).toList();
     }
 
+    /**
+     * Picks one of the available actions (deliver message, timeouts and faults) uniformly at
+     * random. Messages and timeouts are sampled directly from the transport's
+     * {@link EnabledEvents}, without materializing the list
+     * returned by {@link #getAvailableActions(Scenario)}.
+     *
+     * @param scenario The scenario to pick the action for
+     * @return The picked action, or empty if there are no available actions
+     */
+    public Optional<Action> sampleAvailableAction(Scenario scenario) {
+        EnabledEvents enabledEvents = scenario.getTransport().getEnabledEvents();
+        ExecutionMode mode = scenario.getExecutionMode();
+        int numEvents = enabledEvents.size(mode);
+        List<Fault> faults = this.getEnabledFaultActions(scenario);
+
+        if (numEvents + faults.size() == 0) {
+            return Optional.empty();
+        }
+
+        int index = this.getRand(scenario).nextInt(numEvents + faults.size());
+        if (index >= numEvents) {
+            return Optional.of(faults.get(index - numEvents).toAction(new ScenarioContext(scenario)));
+        }
+
+        return switch (enabledEvents.get(mode, index)) {
+            case MessageEvent messageEvent -> Optional.of(DeliverMessageAction.fromEvent(messageEvent));
+            case TimeoutEvent timeoutEvent -> Optional.of(TriggerTimeoutAction.fromEvent(timeoutEvent));
+            default -> throw new IllegalStateException("Unexpected enabled event at index " + index);
+        };
+    }
+
     /**
      * Retrieves the exploration-strategy-specific data for the scenario.
      *
@@ -328,10 +364,11 @@ public abstract class ExplorationStrategy {
      * @return The exploration-strategy-specific data for the scenario.
      */
     public ScenarioStrategyData getScenarioStrategyData(Scenario scenario) {
+        StrategyContext context = this.getContext(scenario);
         return ScenarioStrategyData.builder()
-                .remainingDropMessages(this.getMaxDropMessages())
-                .remainingMutateMessages(this.getMaxMutateMessages())
-                .initializedByStrategy(this.getInitializedScenarios().contains(scenario))
+                .remainingDropMessages(context.getRemainingDropMessages())
+                .remainingMutateMessages(context.getRemainingMutateMessages())
+                .initializedByStrategy(context.isInitialized())
                 .build();
     }
 }
@@ -0,0 +1,11 @@
+package byzzbench.simulator.exploration_strategy;
+
+/**
+ * Marks state of an {@link ExplorationStrategy} for one scenario that is shared, rather than
+ * copied, by the {@link byzzbench.simulator.ScenarioSnapshot snapshots} of the scenario: it
+ * survives restoring the scenario to an earlier checkpoint. Strategies that backtrack by
+ * restoring checkpoints keep their search state in such objects, referenced from their
+ * {@link StrategyContext}. Forks of the scenario still get a copy of their own.
+ */
+public interface SharedStrategyState {
+}
@@ -0,0 +1,42 @@
+package byzzbench.simulator.exploration_strategy;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Random;
+
+/**
+ * The state of an {@link ExplorationStrategy} for one scenario.
+ * <p>
+ * Contexts are created by the strategy and owned by the {@link byzzbench.simulator.Scenario}:
+ * they are snapshotted, restored and forked along with the rest of the scenario state, and
+ * released once the scenario is no longer explored. Strategies keeping per-scenario state
+ * extend this class and override {@link ExplorationStrategy#createContext}.
+ */
+@Getter
+@Setter
+public class StrategyContext {
+    /**
+     * The random number generator of the scenario.
+     * Each scenario draws from its own stream, so that its execution does not depend on
+     * how it is interleaved with other scenarios running concurrently.
+     */
+    private Random rand;
+
+    /**
+     * Whether the strategy has initialized the scenario.
+     */
+    private boolean initialized;
+
+    /**
+     * The remaining number of drop messages.
+     * If the number of remaining drop messages is 0, the exploration_strategy will not drop messages.
+     */
+    private int remainingDropMessages;
+
+    /**
+     * The remaining number of mutate messages.
+     * If the number of remaining mutate messages is 0, the exploration_strategy will not mutate messages.
+     */
+    private int remainingMutateMessages;
+}
@@ -6,6 +6,7 @@ import byzzbench.simulator.domain.DeliverMessageAction;
 import byzzbench.simulator.domain.DropMessageAction;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
 import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
 import byzzbench.simulator.exploration_strategy.random.RandomExplorationStrategy;
 import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.faults.ScenarioContext;
@@ -30,16 +31,6 @@ import java.util.stream.Stream;
 @Log
 @Getter
 public class ByzzFuzzExplorationStrategy extends RandomExplorationStrategy {
-    /**
-     * Scenario-specific faults
-     */
-    private final Map<Scenario, List<Fault>> scenarioFaults = new HashMap<>();
-
-    /**
-     * Counter of mutated messages per scenario
-     */
-    private final Map<Scenario, Map<Long, Long>> scenarioMutatedMessages = new HashMap<>();
-
     /**
      * Number of protocol rounds with process faults
      */
@@ -77,6 +68,16 @@ public class ByzzFuzzExplorationStrategy extends RandomExplorationStrategy {
         }
     }
 
+    @Override
+    protected StrategyContext createContext(Scenario scenario) {
+        return new ByzzFuzzStrategyContext();
+    }
+
+    @Override
+    public ByzzFuzzStrategyContext getContext(Scenario scenario) {
+        return (ByzzFuzzStrategyContext) super.getContext(scenario);
+    }
+
     @Override
     public void initializeScenario(Scenario scenario) {
         if (!(scenario instanceof ByzzFuzzScenario byzzFuzzScenario)) {
@@ -104,28 +105,28 @@ public class ByzzFuzzExplorationStrategy extends RandomExplorationStrategy {
 
         // Create network faults
         for (int i = 0; i < d; i++) {
-            int round = this.getRand().nextInt(r) + 1;
-            Set<String> partition = SetSubsets.getRandomNonEmptySubset(replicaIds, this.getRand());
+            int round = this.getRand(scenario).nextInt(r) + 1;
+            Set<String> partition = SetSubsets.getRandomNonEmptySubset(replicaIds, this.getRand(scenario));
             Fault networkFault = new ByzzFuzzNetworkFault(partition, round, oracle);
             faults.add(networkFault);
         }
 
         // Create process faults
         for (int i = 0; i < c; i++) {
-            int round = this.getRand().nextInt(r) + 1;
-            String sender = faultyReplicaIds.stream().skip(this.getRand().nextInt(faultyReplicaIds.size())).findFirst().orElseThrow();
-            Set<String> recipientIds = SetSubsets.getRandomNonEmptySubset(replicaIds, this.getRand());
+            int round = this.getRand(scenario).nextInt(r) + 1;
+            String sender = faultyReplicaIds.stream().skip(this.getRand(scenario).nextInt(faultyReplicaIds.size())).findFirst().orElseThrow();
+            Set<String> recipientIds = SetSubsets.getRandomNonEmptySubset(replicaIds, this.getRand(scenario));
             Fault processFault = new ByzzFuzzProcessFault(recipientIds, sender, round);
             faults.add(processFault);
         }
 
         // Faults
         log.info("ByzzFuzz initialized scenario with " + faults.size() + " faults.");
-        this.scenarioFaults.put(scenario, faults);
+        this.getContext(scenario).setFaults(faults);
     }
 
     @Override
-    public synchronized Optional<Action> scheduleNext(Scenario scenario) {
+    public Optional<Action> scheduleNext(Scenario scenario) {
         // ensure scenario is initialized!
         this.ensureScenarioInitialized(scenario);
 
@@ -139,7 +140,7 @@ public class ByzzFuzzExplorationStrategy extends RandomExplorationStrategy {
             return action;
         }
 
-        List<Fault> faults = this.scenarioFaults.get(scenario);
+        List<Fault> faults = this.getContext(scenario).getFaults();
         Event messageEvent = scenario.getTransport().getEvent(deliverAction.getMessageEventId());
         ScenarioContext context = new ScenarioContext(scenario, messageEvent);
 
@@ -158,11 +159,39 @@ public class ByzzFuzzExplorationStrategy extends RandomExplorationStrategy {
 
     @Override
     public List<Action> getAvailableActions(Scenario scenario) {
+        // if some of the existing network faults can be applied to a queued message, do it!
+        Optional<Action> faultAction = this.getApplicableFaultAction(scenario);
+        if (faultAction.isPresent()) {
+            return List.of(faultAction.get());
+        }
+
+        // otherwise, return the available actions from the random exploration strategy
+        return super.getAvailableActions(scenario);
+    }
+
+    @Override
+    public Optional<Action> sampleAvailableAction(Scenario scenario) {
+        // if some of the existing network faults can be applied to a queued message, do it!
+        Optional<Action> faultAction = this.getApplicableFaultAction(scenario);
+        if (faultAction.isPresent()) {
+            return faultAction;
+        }
+
+        // otherwise, sample from the available actions of the random exploration strategy
+        return super.sampleAvailableAction(scenario);
+    }
+
+    /**
+     * Finds a network fault of the scenario that can be applied to one of the queued messages.
+     *
+     * @param scenario The scenario
+     * @return The action applying the fault, or empty if no fault can be applied
+     */
+    private Optional<Action> getApplicableFaultAction(Scenario scenario) {
         // ensure scenario is initialized!
         this.ensureScenarioInitialized(scenario);
 
-        // if some of the existing network faults can be applied to a queued message, do it!
-        List<Fault> faults = this.scenarioFaults.get(scenario);
+        List<Fault> faults = this.getContext(scenario).getFaults();
 
         // if one of the faults can be applied to the message, apply it
         for (Event messageEvent : this.getQueuedMessageEvents(scenario)) {
@@ -170,13 +199,12 @@ public class ByzzFuzzExplorationStrategy extends RandomExplorationStrategy {
             for (Fault fault : faults) {
                 //System.out.println("can " + fault.getId() + " be applied to event " + messageEvent.getEventId() + ": " + fault.test(context));
                 if (fault.test(context)) {
-                    return List.of(fault.toAction(context));
+                    return Optional.of(fault.toAction(context));
                 }
             }
         }
 
-        // otherwise, return the available actions from the random exploration strategy
-        return super.getAvailableActions(scenario);
+        return Optional.empty();
     }
 
     @Override
@@ -197,13 +225,14 @@ public class ByzzFuzzExplorationStrategy extends RandomExplorationStrategy {
             throw new UnsupportedOperationException("Scenario is not a ByzzFuzzScenario");
         }
 
+        ByzzFuzzStrategyContext context = this.getContext(scenario);
         return ByzzFuzzScenarioStrategyData.builder()
-                .remainingDropMessages(super.getScenarioStrategyData(scenario).getRemainingDropMessages())
-                .remainingMutateMessages(super.getScenarioStrategyData(scenario).getRemainingMutateMessages())
-                .initializedByStrategy(this.getInitializedScenarios().contains(scenario))
+                .remainingDropMessages(context.getRemainingDropMessages())
+                .remainingMutateMessages(context.getRemainingMutateMessages())
+                .initializedByStrategy(context.isInitialized())
                 .roundInfos(byzzFuzzScenario.getRoundInfoOracle().getReplicasRoundInfo())
                 .replicaRounds(byzzFuzzScenario.getRoundInfoOracle().getReplicaRounds())
-                .faults(this.scenarioFaults.get(scenario))
+                .faults(context.getFaults())
                 .messageRound(byzzFuzzScenario.getRoundInfoOracle().getMessageRounds())
                 .build();
     }
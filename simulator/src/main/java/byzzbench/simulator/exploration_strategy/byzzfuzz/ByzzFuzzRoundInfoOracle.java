@@ -2,7 +2,6 @@ package byzzbench.simulator.exploration_strategy.byzzfuzz;
 
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.ScenarioObserver;
-import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Node;
 import byzzbench.simulator.nodes.Replica;
@@ -242,16 +241,6 @@ public abstract class ByzzFuzzRoundInfoOracle implements Serializable, Transport
         this.messageRounds.put(messageEvent.getEventId(), this.replicaRounds.get(messageEvent.getSenderId()));
     }
 
-    @Override
-    public void onEventDropped(Event event) {
-        // Do nothing
-    }
-
-    @Override
-    public void onEventRequeued(Event event) {
-        // Do nothing
-    }
-
     @Override
     public void onEventDelivered(Event event) {
         // ensure it is a message
@@ -276,26 +265,6 @@ public abstract class ByzzFuzzRoundInfoOracle implements Serializable, Transport
         this.updateReplicaRoundInfo(receiverId, messageRoundInfo);
     }
 
-    @Override
-    public void onMessageMutation(MutateMessageEventPayload payload) {
-        // Do nothing
-    }
-
-    @Override
-    public void onFault(Fault fault) {
-        // Do nothing
-    }
-
-    @Override
-    public void onTimeout(TimeoutEvent event) {
-        // Do nothing
-    }
-
-    @Override
-    public void onGlobalStabilizationTime() {
-        // Do nothing
-    }
-
     /**
      * Get the protocol message verb index for the given message.
      * If the returned value is zero, the message is considered not part of the protocol rounds.
@@ -317,9 +286,4 @@ public abstract class ByzzFuzzRoundInfoOracle implements Serializable, Transport
         this.replicasRoundInfo.put(replica.getId(), new ByzzFuzzRoundInfo(0, 0, 0));
         this.replicaRounds.put(replica.getId(), 0L);
     }
-
-    @Override
-    public void onClientAdded(Client client) {
-        // do nothing
-    }
 }
@@ -0,0 +1,27 @@
+package byzzbench.simulator.exploration_strategy.byzzfuzz;
+
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import byzzbench.simulator.faults.Fault;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state of the {@link ByzzFuzzExplorationStrategy} for one scenario.
+ */
+@Getter
+@Setter
+public class ByzzFuzzStrategyContext extends StrategyContext {
+    /**
+     * The faults to be injected during the execution of the scenario
+     */
+    private List<Fault> faults = List.of();
+
+    /**
+     * Counter of mutated messages
+     */
+    private final Map<Long, Long> mutatedMessages = new HashMap<>();
+}
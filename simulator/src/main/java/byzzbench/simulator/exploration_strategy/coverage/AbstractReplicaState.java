@@ -0,0 +1,55 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.state.CommitLog;
+
+import java.util.Objects;
+
+/**
+ * The abstract state of a replica, as tracked by the {@link CoverageGuidedExplorationStrategy}:
+ * the protocol-level progress of the replica, without the details (such as the contents of its
+ * message logs) that would make almost every state unique.
+ *
+ * @param viewNumber     the view (or round) the replica is in
+ * @param sequenceNumber the sequence number (or height) of the instance the replica is working on
+ * @param phase          the phase of that instance, or -1 if the replica is not working on any
+ * @param commitHead     the hash of the last entry in the commit log of the replica, or 0 if it is empty
+ */
+public record AbstractReplicaState(long viewNumber, long sequenceNumber, int phase, long commitHead) {
+    /**
+     * Gets the hash of the last entry in the commit log of a replica.
+     *
+     * @param replica the replica
+     * @return the hash of the last committed entry, or 0 if the commit log is empty
+     */
+    public static long commitHead(Replica replica) {
+        CommitLog commitLog = replica.getCommitLog();
+        if (commitLog.isEmpty()) {
+            return 0;
+        }
+        return mix(commitLog.getHighestSequenceNumber(), Objects.hashCode(commitLog.get(commitLog.getHighestSequenceNumber())));
+    }
+
+    /**
+     * Mixes a value into a 64-bit hash.
+     *
+     * @param hash  the hash so far
+     * @param value the value to mix in
+     * @return the new hash
+     */
+    public static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Gets a 64-bit fingerprint of this state.
+     *
+     * @return the fingerprint
+     */
+    public long fingerprint() {
+        return mix(mix(mix(mix(0, this.viewNumber), this.sequenceNumber), this.phase), this.commitHead);
+    }
+}
@@ -0,0 +1,179 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * The corpus of the {@link CoverageGuidedExplorationStrategy}: the schedule prefixes that
+ * reached new states, and how productive each of them has been.
+ * <p>
+ * As in AFL, entries are chosen with a probability proportional to their score: the number of
+ * new states they reached, relative to the number of times they were already chosen. Once the
+ * corpus is full, the entry with the lowest score is replaced.
+ * Thread-safe: the corpus is shared by all scenarios explored by the strategy.
+ */
+public class CoverageCorpus {
+    private final int maxSize;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Creates an empty corpus.
+     *
+     * @param maxSize the maximum number of entries
+     * @throws IllegalArgumentException if the maximum number of entries is not positive
+     */
+    public CoverageCorpus(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Corpus size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds a schedule prefix that reached a new state.
+     *
+     * @param steps the steps of the prefix
+     * @return the new entry
+     */
+    public synchronized Entry add(List<ScheduleStep> steps) {
+        Entry entry = new Entry(List.copyOf(steps));
+        entry.numNewStates = 1;
+        if (this.entries.size() >= this.maxSize) {
+            int lowest = 0;
+            for (int i = 1; i < this.entries.size(); i++) {
+                if (this.entries.get(i).getScore() < this.entries.get(lowest).getScore()) {
+                    lowest = i;
+                }
+            }
+            this.entries.set(lowest, entry);
+        } else {
+            this.entries.add(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Extends an entry with a longer prefix of the same schedule, which reached another new state.
+     *
+     * @param entry the entry
+     * @param steps the steps of the longer prefix
+     */
+    public synchronized void extend(Entry entry, List<ScheduleStep> steps) {
+        entry.steps = List.copyOf(steps);
+        entry.numNewStates++;
+    }
+
+    /**
+     * Credits an entry with a new state reached by a schedule mutated from it.
+     *
+     * @param entry the entry
+     */
+    public synchronized void credit(Entry entry) {
+        entry.numNewStates++;
+    }
+
+    /**
+     * Chooses an entry with a probability proportional to its score, and counts it as chosen.
+     *
+     * @param rand the random number generator
+     * @return the entry, or empty if the corpus is empty
+     */
+    public synchronized Optional<Entry> select(Random rand) {
+        if (this.entries.isEmpty()) {
+            return Optional.empty();
+        }
+
+        double total = 0;
+        for (Entry entry : this.entries) {
+            total += entry.getScore();
+        }
+        double target = rand.nextDouble() * total;
+        Entry selected = this.entries.getLast();
+        for (Entry entry : this.entries) {
+            target -= entry.getScore();
+            if (target < 0) {
+                selected = entry;
+                break;
+            }
+        }
+        selected.timesChosen++;
+        return Optional.of(selected);
+    }
+
+    /**
+     * Mutates the steps of an entry, by stacking between one and the given number of random
+     * mutations: deleting a step, swapping two adjacent steps, truncating the prefix, or
+     * splicing it with another entry.
+     *
+     * @param entry        the entry
+     * @param rand         the random number generator
+     * @param maxMutations the maximum number of mutations
+     * @return the mutated steps
+     */
+    public synchronized List<ScheduleStep> mutate(Entry entry, Random rand, int maxMutations) {
+        List<ScheduleStep> steps = new ArrayList<>(entry.steps);
+        int numMutations = 1 + rand.nextInt(Math.max(1, maxMutations));
+        for (int i = 0; i < numMutations && !steps.isEmpty(); i++) {
+            int index = rand.nextInt(steps.size());
+            switch (rand.nextInt(4)) {
+                case 0 -> steps.remove(index);
+                case 1 -> {
+                    if (index + 1 < steps.size()) {
+                        steps.add(index + 1, steps.remove(index));
+                    }
+                }
+                case 2 -> steps.subList(index + 1, steps.size()).clear();
+                default -> {
+                    List<ScheduleStep> other = this.entries.get(rand.nextInt(this.entries.size())).steps;
+                    steps.subList(index, steps.size()).clear();
+                    steps.addAll(other.subList(Math.min(index, other.size()), other.size()));
+                }
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Gets the number of entries in the corpus.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Removes all entries from the corpus.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+    /**
+     * A schedule prefix in the corpus.
+     */
+    @Getter
+    public static class Entry {
+        private List<ScheduleStep> steps;
+        private int numNewStates;
+        private int timesChosen;
+
+        private Entry(List<ScheduleStep> steps) {
+            this.steps = steps;
+        }
+
+        /**
+         * Gets the score of the entry: the number of new states it reached, relative to the
+         * number of times it was already chosen.
+         *
+         * @return the score
+         */
+        public double getScore() {
+            return (1.0 + this.numNewStates) / (1.0 + this.timesChosen);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import byzzbench.simulator.exploration_strategy.random.RandomExplorationStrategy;
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.utils.LongHashSet;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * A coverage-guided exploration strategy, in the style of AFL.
+ * <p>
+ * After each step, the {@link AbstractReplicaState abstract state} of every replica is extracted
+ * by the {@link ReplicaStateExtractor} of the scenario, and the states of all replicas are hashed
+ * into a 64-bit fingerprint. Schedules that reach a fingerprint that was never visited are added
+ * to a {@link CoverageCorpus corpus}, as the prefix up to their last new state.
+ * <p>
+ * Each new scenario starts, with probability {@code corpusProbability}, by replaying a mutated
+ * prefix of a corpus entry chosen by its score, and then explores at random like the
+ * {@link RandomExplorationStrategy}. The visited states and the corpus are shared by all the
+ * scenarios explored by the strategy.
+ * <p>
+ * Parameters (in {@link ExplorationStrategyParameters#getParams()}): {@code corpusProbability}
+ * (default 0.9), {@code maxCorpusSize} (default 1000) and {@code maxMutations} (default 4).
+ */
+@Component
+@Log
+@Getter
+public class CoverageGuidedExplorationStrategy extends RandomExplorationStrategy {
+    /**
+     * The probability of starting a scenario from a mutated corpus entry, if the corpus is not empty
+     */
+    private double corpusProbability = 0.9;
+
+    /**
+     * The maximum number of entries in the corpus
+     */
+    private int maxCorpusSize = 1000;
+
+    /**
+     * The maximum number of mutations stacked on a corpus entry
+     */
+    private int maxMutations = 4;
+
+    /**
+     * The fingerprints of the states visited so far
+     */
+    @JsonIgnore
+    private final LongHashSet visitedStates = new LongHashSet();
+
+    /**
+     * The schedule prefixes that reached new states
+     */
+    @JsonIgnore
+    private CoverageCorpus corpus = new CoverageCorpus(this.maxCorpusSize);
+
+    @Override
+    public void loadSchedulerParameters(ExplorationStrategyParameters parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("parameters are null");
+        }
+
+        if (parameters.getParams() != null) {
+            if (parameters.getParams().containsKey("corpusProbability")) {
+                this.corpusProbability = Double.parseDouble(parameters.getParams().get("corpusProbability"));
+            }
+
+            if (parameters.getParams().containsKey("maxCorpusSize")) {
+                this.maxCorpusSize = Integer.parseInt(parameters.getParams().get("maxCorpusSize"));
+            }
+
+            if (parameters.getParams().containsKey("maxMutations")) {
+                this.maxMutations = Integer.parseInt(parameters.getParams().get("maxMutations"));
+            }
+        }
+
+        if (this.corpusProbability < 0 || this.corpusProbability > 1) {
+            throw new IllegalArgumentException("corpusProbability must be between 0 and 1: " + this.corpusProbability);
+        }
+        this.corpus = new CoverageCorpus(this.maxCorpusSize);
+    }
+
+    @Override
+    protected StrategyContext createContext(Scenario scenario) {
+        return new CoverageStrategyContext();
+    }
+
+    @Override
+    public CoverageStrategyContext getContext(Scenario scenario) {
+        return (CoverageStrategyContext) super.getContext(scenario);
+    }
+
+    @Override
+    public void initializeScenario(Scenario scenario) {
+        CoverageStrategyContext context = this.getContext(scenario);
+        // generators with nearby seeds draw nearly the same first values: scramble the seed,
+        // so the scenarios do not all make the same corpus decisions
+        context.setRand(new Random(new SplittableRandom(context.getRand().nextLong()).nextLong()));
+        this.visit(scenario, context);
+
+        // favour mutating the corpus over starting from scratch
+        if (context.getRand().nextDouble() >= this.corpusProbability) {
+            return;
+        }
+        this.corpus.select(context.getRand()).ifPresent(seed -> {
+            context.setSeed(seed);
+            context.getPlannedSteps().addAll(this.corpus.mutate(seed, context.getRand(), this.maxMutations));
+        });
+    }
+
+    @Override
+    public Optional<Action> scheduleNext(Scenario scenario) {
+        this.ensureScenarioInitialized(scenario);
+        CoverageStrategyContext context = this.getContext(scenario);
+
+        // replay the planned steps that are enabled, then explore at random
+        Optional<Action> action = Optional.empty();
+        while (action.isEmpty() && !context.getPlannedSteps().isEmpty()) {
+            action = context.getPlannedSteps().poll().findAction(this, scenario);
+            action.ifPresent(planned -> planned.accept(scenario));
+        }
+        if (action.isEmpty()) {
+            action = super.scheduleNext(scenario);
+        }
+
+        action.flatMap(ScheduleStep::of).ifPresent(context.getSteps()::add);
+        if (action.isPresent()) {
+            this.visit(scenario, context);
+        }
+        return action;
+    }
+
+    /**
+     * Records the current state of a scenario as visited. If it was never visited, adds the
+     * schedule so far to the corpus, and credits the corpus entry it was mutated from.
+     */
+    private void visit(Scenario scenario, CoverageStrategyContext context) {
+        long fingerprint = fingerprint(scenario);
+        boolean isNew;
+        synchronized (this.visitedStates) {
+            isNew = this.visitedStates.add(fingerprint);
+        }
+        if (!isNew) {
+            return;
+        }
+
+        context.setNumNewStates(context.getNumNewStates() + 1);
+        if (context.getSeed() != null) {
+            this.corpus.credit(context.getSeed());
+        }
+        if (context.getEntry() == null) {
+            context.setEntry(this.corpus.add(context.getSteps()));
+        } else {
+            this.corpus.extend(context.getEntry(), context.getSteps());
+        }
+    }
+
+    /**
+     * Computes the fingerprint of the abstract state of the replicas of a scenario.
+     *
+     * @param scenario the scenario
+     * @return the fingerprint
+     */
+    public static long fingerprint(Scenario scenario) {
+        ReplicaStateExtractor extractor = scenario instanceof CoverageScenario coverageScenario
+                ? coverageScenario.getStateExtractor()
+                : ReplicaStateExtractor.DEFAULT;
+        long fingerprint = 0;
+        for (Replica replica : scenario.getReplicas().values()) {
+            fingerprint = AbstractReplicaState.mix(fingerprint, replica.getId().hashCode());
+            fingerprint = AbstractReplicaState.mix(fingerprint, extractor.extract(replica).fingerprint());
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Get the number of distinct states visited so far
+     *
+     * @return the number of visited states
+     */
+    @JsonProperty("numVisitedStates")
+    public int getNumVisitedStates() {
+        synchronized (this.visitedStates) {
+            return this.visitedStates.size();
+        }
+    }
+
+    /**
+     * Get the number of schedule prefixes in the corpus
+     *
+     * @return the size of the corpus
+     */
+    @JsonProperty("corpusSize")
+    public int getCorpusSize() {
+        return this.corpus.size();
+    }
+
+    @Override
+    public void reset() {
+        synchronized (this.visitedStates) {
+            this.visitedStates.clear();
+        }
+        this.corpus.clear();
+    }
+
+    @Override
+    public ScenarioStrategyData getScenarioStrategyData(Scenario scenario) {
+        CoverageStrategyContext context = this.getContext(scenario);
+        return CoverageScenarioStrategyData.builder()
+                .remainingDropMessages(context.getRemainingDropMessages())
+                .remainingMutateMessages(context.getRemainingMutateMessages())
+                .initializedByStrategy(context.isInitialized())
+                .numNewStates(context.getNumNewStates())
+                .numPlannedSteps(context.getPlannedSteps().size())
+                .fromCorpus(context.getSeed() != null)
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+/**
+ * A Scenario that provides a protocol-specific {@link ReplicaStateExtractor} to the
+ * {@link CoverageGuidedExplorationStrategy}. Other scenarios use {@link ReplicaStateExtractor#DEFAULT}.
+ */
+public interface CoverageScenario {
+    /**
+     * Get the extractor of the abstract state of the replicas of the scenario
+     *
+     * @return The state extractor
+     */
+    ReplicaStateExtractor getStateExtractor();
+}
@@ -0,0 +1,24 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+@Getter
+@SuperBuilder
+public class CoverageScenarioStrategyData extends ScenarioStrategyData {
+    /**
+     * The number of new states reached by the schedule of the scenario
+     */
+    private final int numNewStates;
+
+    /**
+     * The number of mutated corpus steps still to be replayed
+     */
+    private final int numPlannedSteps;
+
+    /**
+     * Whether the schedule was mutated from a corpus entry
+     */
+    private final boolean fromCorpus;
+}
@@ -0,0 +1,42 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The state of the {@link CoverageGuidedExplorationStrategy} for one scenario.
+ */
+@Getter
+@Setter
+public class CoverageStrategyContext extends StrategyContext {
+    /**
+     * The mutated corpus steps still to be replayed, before exploring at random
+     */
+    private final Deque<ScheduleStep> plannedSteps = new ArrayDeque<>();
+
+    /**
+     * The steps taken so far
+     */
+    private final List<ScheduleStep> steps = new ArrayList<>();
+
+    /**
+     * The corpus entry the planned steps were mutated from, if any
+     */
+    private CoverageCorpus.Entry seed;
+
+    /**
+     * The corpus entry holding the prefix of this schedule, once it reached a new state
+     */
+    private CoverageCorpus.Entry entry;
+
+    /**
+     * The number of new states reached by this schedule
+     */
+    private int numNewStates;
+}
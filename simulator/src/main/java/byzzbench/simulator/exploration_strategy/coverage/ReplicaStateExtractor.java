@@ -0,0 +1,28 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import byzzbench.simulator.nodes.LeaderBasedProtocolReplica;
+import byzzbench.simulator.nodes.Replica;
+
+/**
+ * Extracts the {@link AbstractReplicaState abstract state} of the replicas of a protocol.
+ */
+@FunctionalInterface
+public interface ReplicaStateExtractor {
+    /**
+     * The extractor for protocols without one of their own: the view number of leader-based
+     * replicas, and the head of the commit log.
+     */
+    ReplicaStateExtractor DEFAULT = replica -> new AbstractReplicaState(
+            replica instanceof LeaderBasedProtocolReplica leaderBased ? leaderBased.getViewNumber() : 0,
+            replica.getCommitLog().getHighestSequenceNumber(),
+            -1,
+            AbstractReplicaState.commitHead(replica));
+
+    /**
+     * Extracts the abstract state of a replica.
+     *
+     * @param replica the replica
+     * @return the abstract state of the replica
+     */
+    AbstractReplicaState extract(Replica replica);
+}
@@ -0,0 +1,62 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.TriggerTimeoutAction;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * A step of a schedule in the corpus of the {@link CoverageGuidedExplorationStrategy}.
+ * <p>
+ * Steps describe an action by what it does rather than by the ids of its events, so a mutated
+ * prefix can be replayed on a new scenario: a step is replayed by taking the first enabled
+ * action it matches, and skipped if there is none.
+ *
+ * @param timeout     whether the step triggers a timeout, rather than delivering a message
+ * @param senderId    the id of the sender of the message, or null for a timeout
+ * @param recipientId the id of the recipient of the message, or of the node of the timeout
+ * @param label       the type of the message, or the description of the timeout
+ */
+public record ScheduleStep(boolean timeout, String senderId, String recipientId, String label) implements Serializable {
+    /**
+     * Describes an action as a step.
+     *
+     * @param action the action
+     * @return the step, or empty if the action cannot be replayed as a step (such as a fault)
+     */
+    public static Optional<ScheduleStep> of(Action action) {
+        return switch (action) {
+            case DeliverMessageAction deliver -> Optional.of(new ScheduleStep(false, deliver.getSenderId(),
+                    deliver.getRecipientId(), deliver.getPayload().getType()));
+            case TriggerTimeoutAction trigger -> Optional.of(new ScheduleStep(true, null, trigger.getNodeId(),
+                    trigger.getDescription()));
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * Finds the first enabled action of a scenario that matches this step.
+     *
+     * @param strategy the exploration strategy
+     * @param scenario the scenario
+     * @return the action, or empty if no enabled action matches this step
+     */
+    public Optional<Action> findAction(ExplorationStrategy strategy, Scenario scenario) {
+        if (this.timeout) {
+            return strategy.getQueuedTimeoutEvents(scenario).stream()
+                    .filter(event -> this.recipientId.equals(event.getNodeId()) && this.label.equals(event.getDescription()))
+                    .findFirst()
+                    .map(TriggerTimeoutAction::fromEvent);
+        }
+        return strategy.getQueuedMessageEvents(scenario).stream()
+                .filter(event -> this.senderId.equals(event.getSenderId())
+                        && this.recipientId.equals(event.getRecipientId())
+                        && this.label.equals(event.getPayload().getType()))
+                .findFirst()
+                .map(DeliverMessageAction::fromEvent);
+    }
+}
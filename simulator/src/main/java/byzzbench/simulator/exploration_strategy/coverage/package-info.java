@@ -0,0 +1,6 @@
+/**
+ * Implementation of a coverage-guided exploration strategy, which fingerprints the abstract
+ * state of the replicas after each step and favours mutating the schedule prefixes that
+ * reached new states.
+ */
+package byzzbench.simulator.exploration_strategy.coverage;
@@ -0,0 +1,291 @@
+package byzzbench.simulator.exploration_strategy.dpor;
+
+import byzzbench.simulator.ExecutionMode;
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.TriggerTimeoutAction;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import byzzbench.simulator.transport.MessageEvent;
+import byzzbench.simulator.transport.TimeoutEvent;
+import byzzbench.simulator.transport.Transport;
+import byzzbench.simulator.versioning.VectorClock;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * A systematic exploration strategy based on dynamic partial-order reduction (DPOR).
+ * <p>
+ * The strategy explores the schedules of a scenario depth-first, up to {@code maxDepth} steps,
+ * one per equivalence class (Mazurkiewicz trace) of schedules. Each step accesses the state of
+ * the node it delivers to, and the mailboxes of the nodes it sends messages to: two steps are
+ * dependent if they access the same object, and steps at different nodes sending to different
+ * mailboxes commute. The happens-before order of the steps is tracked with
+ * {@link VectorClock vector clocks}: each step happens after the step that sent its event, after
+ * the earlier steps accessing the same objects and, in {@link ExecutionMode#SYNC}, where each
+ * mailbox is delivered in order, after the previous step at the same node.
+ * <p>
+ * Whenever a step races with an earlier step accessing the same object, i.e. the earlier step
+ * does not happen before the step's event was enabled, the step's event is added to the
+ * backtrack set of the state before the earlier step, as in Flanagan and Godefroid's algorithm.
+ * Sleep sets prune the schedules that only reorder independent steps of a schedule already
+ * explored.
+ * <p>
+ * Once a path is fully explored, the strategy backtracks by restoring the scenario to the
+ * state with events left to explore, from the latest checkpoint before it. Checkpoints are taken
+ * every {@code checkpointInterval} steps along the path. Once every path was explored, the
+ * strategy has no further action.
+ * <p>
+ * Only the delivery of messages and timeouts is explored: faults, drops and mutations are not.
+ * {@code maxDepth} should be lower than the minimum number of events of the termination
+ * condition, so that the scenario is not terminated in the middle of the search.
+ * <p>
+ * Parameters (in {@link ExplorationStrategyParameters#getParams()}): {@code maxDepth} (default
+ * 16), {@code checkpointInterval} (default 4) and {@code exploreTimeouts} (default true).
+ */
+@Component
+@Log
+@Getter
+public class DporExplorationStrategy extends ExplorationStrategy {
+    /**
+     * The maximum number of steps of the explored schedules
+     */
+    private int maxDepth = 16;
+
+    /**
+     * The number of steps between checkpoints along the explored path
+     */
+    private int checkpointInterval = 4;
+
+    /**
+     * Whether to explore the delivery of timeouts, in addition to messages
+     */
+    private boolean exploreTimeouts = true;
+
+    @Override
+    public void loadSchedulerParameters(ExplorationStrategyParameters parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("parameters are null");
+        }
+
+        if (parameters.getParams() != null) {
+            if (parameters.getParams().containsKey("maxDepth")) {
+                this.maxDepth = Integer.parseInt(parameters.getParams().get("maxDepth"));
+            }
+
+            if (parameters.getParams().containsKey("checkpointInterval")) {
+                this.checkpointInterval = Integer.parseInt(parameters.getParams().get("checkpointInterval"));
+            }
+
+            if (parameters.getParams().containsKey("exploreTimeouts")) {
+                this.exploreTimeouts = Boolean.parseBoolean(parameters.getParams().get("exploreTimeouts"));
+            }
+        }
+
+        if (this.maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be positive: " + this.maxDepth);
+        }
+        if (this.checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be positive: " + this.checkpointInterval);
+        }
+    }
+
+    @Override
+    protected StrategyContext createContext(Scenario scenario) {
+        return new DporStrategyContext();
+    }
+
+    @Override
+    public DporStrategyContext getContext(Scenario scenario) {
+        return (DporStrategyContext) super.getContext(scenario);
+    }
+
+    @Override
+    public void initializeScenario(Scenario scenario) {
+        // backtracking restores the scenario from its checkpoints
+        if (scenario.getCheckpoints().getInitial().isEmpty()) {
+            scenario.getCheckpoints().checkpoint();
+        }
+        SortedSet<Long> eventIds = scenario.getTransport().getEventIds();
+        this.getContext(scenario).setSearch(new DporSearch(
+                scenario.getSchedule().getActions().size(), eventIds.isEmpty() ? -1 : eventIds.last()));
+    }
+
+    @Override
+    public Optional<Action> scheduleNext(Scenario scenario) {
+        this.ensureScenarioInitialized(scenario);
+        DporSearch search = this.getContext(scenario).getSearch();
+        if (search.isComplete()) {
+            return Optional.empty();
+        }
+
+        DporSearch.Frame frame = this.expand(scenario, search);
+        Optional<Long> next = this.choose(search, frame);
+        if (next.isPresent()) {
+            return Optional.of(this.execute(scenario, search, frame, next.get()));
+        }
+
+        // end of the path: backtrack to the deepest state with events left to explore
+        search.traceExplored(!frame.enabled.isEmpty() && search.size() <= this.maxDepth);
+        search.pop();
+        while (search.size() > 0) {
+            DporSearch.Frame previous = search.top();
+            Optional<Long> alternative = previous.nextUnexplored();
+            if (alternative.isPresent()) {
+                this.backtrack(scenario, search, previous);
+                return Optional.of(this.execute(scenario, search, previous, alternative.get()));
+            }
+            search.pop();
+        }
+
+        log.info("DPOR exploration complete: " + search.getNumTraces() + " traces");
+        search.setComplete(true);
+        return Optional.empty();
+    }
+
+    /**
+     * Pushes the current state of the scenario on the path, with its enabled events and its
+     * sleep set.
+     */
+    private DporSearch.Frame expand(Scenario scenario, DporSearch search) {
+        DporSearch.Frame parent = search.top();
+        DporSearch.Frame frame = new DporSearch.Frame(scenario.getSchedule().getActions().size(), search.getLastEventId());
+        this.getQueuedMessageEvents(scenario).forEach(event -> frame.enabled.put(event.getEventId(), event.getRecipientId()));
+        if (this.exploreTimeouts) {
+            this.getQueuedTimeoutEvents(scenario).forEach(event -> frame.enabled.put(event.getEventId(), event.getRecipientId()));
+        }
+
+        // events asleep in the parent, or explored from it, stay asleep unless the step taken depends on them
+        if (parent != null) {
+            parent.sleep.forEach((eventId, objects) -> {
+                if (Collections.disjoint(objects, parent.objects)) {
+                    frame.sleep.put(eventId, objects);
+                }
+            });
+            parent.done.forEach((eventId, objects) -> {
+                if (eventId != parent.eventId && Collections.disjoint(objects, parent.objects)) {
+                    frame.sleep.put(eventId, objects);
+                }
+            });
+        }
+
+        search.push(frame);
+        return frame;
+    }
+
+    /**
+     * Chooses the event to deliver from a new state, unless the path is at its maximum depth.
+     */
+    private Optional<Long> choose(DporSearch search, DporSearch.Frame frame) {
+        if (search.size() > this.maxDepth) {
+            return Optional.empty();
+        }
+        if (frame.backtrack.isEmpty()) {
+            frame.enabled.keySet().stream()
+                    .filter(eventId -> !frame.sleep.containsKey(eventId))
+                    .findFirst()
+                    .ifPresent(frame.backtrack::add);
+        }
+        return frame.nextUnexplored();
+    }
+
+    /**
+     * Restores the scenario to a state on the path, to explore another event from it.
+     */
+    private void backtrack(Scenario scenario, DporSearch search, DporSearch.Frame frame) {
+        search.backtrackTo(frame);
+        scenario.restoreToStep(frame.step);
+
+        // the restored context may predate the search, if restored from the initial checkpoint
+        DporStrategyContext context = this.getContext(scenario);
+        context.setSearch(search);
+        context.setInitialized(true);
+    }
+
+    /**
+     * Delivers an event from a state on the path. Records the objects accessed by the step, adds
+     * backtrack points for the earlier steps it races with, and records the clocks of the step
+     * and of the events it created.
+     */
+    private Action execute(Scenario scenario, DporSearch search, DporSearch.Frame frame, long eventId) {
+        if ((frame.step - search.getRootStep()) % this.checkpointInterval == 0
+                && !scenario.getCheckpoints().getSteps().contains(frame.step)) {
+            scenario.getCheckpoints().checkpoint();
+        }
+
+        Transport transport = scenario.getTransport();
+        Action action = switch (transport.getEvent(eventId)) {
+            case MessageEvent messageEvent -> DeliverMessageAction.fromEvent(messageEvent);
+            case TimeoutEvent timeoutEvent -> TriggerTimeoutAction.fromEvent(timeoutEvent);
+            default -> throw new IllegalStateException("Unexpected event: " + eventId);
+        };
+        action.accept(scenario);
+
+        // the step accesses the state of its recipient, and the mailboxes it sends to
+        SortedSet<Long> created = new TreeSet<>(transport.getEventIds().tailSet(search.getLastEventId() + 1));
+        Set<String> objects = new HashSet<>();
+        objects.add(DporSearch.nodeObject(frame.enabled.get(eventId)));
+        for (long createdId : created) {
+            if (transport.getEvent(createdId) instanceof MessageEvent message) {
+                objects.add(DporSearch.mailboxObject(message.getRecipientId()));
+            }
+        }
+        frame.eventId = eventId;
+        frame.recipientId = frame.enabled.get(eventId);
+        frame.objects = objects;
+        frame.done.put(eventId, objects);
+
+        // an earlier step accessing the same object races with this one, unless it happens before it
+        VectorClock causal = search.causalClock(frame, scenario.getExecutionMode() == ExecutionMode.SYNC);
+        VectorClock clock = causal;
+        for (String object : objects) {
+            DporSearch.Frame previous = search.lastAccess(object, frame);
+            if (previous == null) {
+                continue;
+            }
+            if (!DporSearch.happensBefore(previous, causal)) {
+                if (previous.enabled.containsKey(eventId)) {
+                    previous.backtrack.add(eventId);
+                } else {
+                    previous.backtrack.addAll(previous.enabled.keySet());
+                }
+            }
+            clock = clock.merge(previous.clock);
+        }
+        clock.incrementVersion(frame.recipientId);
+        frame.clock = clock;
+
+        search.recordSent(created, clock);
+        return action;
+    }
+
+    @Override
+    public void reset() {
+        // the search state is kept in the context of each scenario
+    }
+
+    @Override
+    public ScenarioStrategyData getScenarioStrategyData(Scenario scenario) {
+        DporStrategyContext context = this.getContext(scenario);
+        DporSearch search = context.getSearch();
+        DporScenarioStrategyData.DporScenarioStrategyDataBuilder<?, ?> data = DporScenarioStrategyData.builder()
+                .remainingDropMessages(context.getRemainingDropMessages())
+                .remainingMutateMessages(context.getRemainingMutateMessages())
+                .initializedByStrategy(context.isInitialized());
+        if (search != null) {
+            data.depth(search.getDepth())
+                    .numTraces(search.getNumTraces())
+                    .numSleepBlocked(search.getNumSleepBlocked())
+                    .numBacktracks(search.getNumBacktracks())
+                    .numPendingBacktrackPoints(search.getNumPendingBacktrackPoints())
+                    .complete(search.isComplete());
+        }
+        return data.build();
+    }
+}
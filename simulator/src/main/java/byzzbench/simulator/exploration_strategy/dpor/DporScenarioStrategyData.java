@@ -0,0 +1,39 @@
+package byzzbench.simulator.exploration_strategy.dpor;
+
+import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+@Getter
+@SuperBuilder
+public class DporScenarioStrategyData extends ScenarioStrategyData {
+    /**
+     * The number of steps on the path being explored
+     */
+    private final int depth;
+
+    /**
+     * The number of paths explored, one per equivalence class of schedules
+     */
+    private final long numTraces;
+
+    /**
+     * The number of paths cut short because all the enabled events were asleep
+     */
+    private final long numSleepBlocked;
+
+    /**
+     * The number of times the scenario was restored to an earlier state
+     */
+    private final long numBacktracks;
+
+    /**
+     * The number of states on the path with events left to explore
+     */
+    private final int numPendingBacktrackPoints;
+
+    /**
+     * Whether every path was explored
+     */
+    private final boolean complete;
+}
@@ -0,0 +1,266 @@
+package byzzbench.simulator.exploration_strategy.dpor;
+
+import byzzbench.simulator.exploration_strategy.SharedStrategyState;
+import byzzbench.simulator.versioning.Occurred;
+import byzzbench.simulator.versioning.VectorClock;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.*;
+
+/**
+ * The search state of the {@link DporExplorationStrategy} for one scenario: the stack of states
+ * along the path being explored, with their backtrack and sleep sets, and the vector clocks of
+ * the steps and events along that path.
+ * <p>
+ * The search is {@link SharedStrategyState shared} by the snapshots of the scenario, so it
+ * survives restoring the scenario to the checkpoints it backtracks to.
+ */
+@Getter
+public class DporSearch implements SharedStrategyState {
+    /**
+     * The number of actions in the schedule when the search started
+     */
+    private final int rootStep;
+
+    /**
+     * The states along the path being explored, from the root
+     */
+    @Getter(AccessLevel.NONE)
+    private final List<Frame> stack = new ArrayList<>();
+
+    /**
+     * The vector clock of the step during which each event on the path was created, by event ID.
+     * Events created during setup have no clock: no step happens before them.
+     */
+    @Getter(AccessLevel.NONE)
+    private final NavigableMap<Long, VectorClock> sendClocks = new TreeMap<>();
+
+    /**
+     * The highest event ID seen on the path
+     */
+    @Setter(AccessLevel.PACKAGE)
+    private long lastEventId;
+
+    /**
+     * The number of maximal (or depth-bounded) paths explored
+     */
+    private long numTraces;
+
+    /**
+     * The number of paths cut short because all the enabled events were asleep
+     */
+    private long numSleepBlocked;
+
+    /**
+     * The number of times the scenario was restored to an earlier state
+     */
+    private long numBacktracks;
+
+    /**
+     * Whether every path was explored
+     */
+    @Setter(AccessLevel.PACKAGE)
+    private boolean complete;
+
+    DporSearch(int rootStep, long lastEventId) {
+        this.rootStep = rootStep;
+        this.lastEventId = lastEventId;
+    }
+
+    /**
+     * Gets the number of steps on the path being explored.
+     *
+     * @return the depth of the path
+     */
+    public int getDepth() {
+        Frame top = this.top();
+        return top == null ? 0 : this.stack.size() - (top.isExecuted() ? 0 : 1);
+    }
+
+    /**
+     * Gets the number of states on the path with events left to explore.
+     *
+     * @return the number of pending backtrack points
+     */
+    public int getNumPendingBacktrackPoints() {
+        int pending = 0;
+        for (Frame frame : this.stack) {
+            pending += frame.hasUnexplored() ? 1 : 0;
+        }
+        return pending;
+    }
+
+    Frame top() {
+        return this.stack.isEmpty() ? null : this.stack.getLast();
+    }
+
+    void push(Frame frame) {
+        this.stack.add(frame);
+    }
+
+    void pop() {
+        this.stack.removeLast();
+    }
+
+    int size() {
+        return this.stack.size();
+    }
+
+    /**
+     * Gets the last executed state on the path whose step accessed the given object.
+     *
+     * @param object the object, as returned by {@link #nodeObject} or {@link #mailboxObject}
+     * @param before the state before which to search
+     * @return the state, or null if no earlier step on the path accessed the object
+     */
+    Frame lastAccess(String object, Frame before) {
+        for (int i = this.stack.indexOf(before) - 1; i >= 0; i--) {
+            Frame frame = this.stack.get(i);
+            if (frame.isExecuted() && frame.objects.contains(object)) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the step of a state happens before the given clock.
+     */
+    static boolean happensBefore(Frame frame, VectorClock clock) {
+        Occurred occurred = frame.clock.compare(clock);
+        return occurred == Occurred.BEFORE || occurred == Occurred.EQUAL;
+    }
+
+    /**
+     * Gets the vector clock of the steps the step of a state causally depends on: the step that
+     * created its event and, if mailboxes are delivered in order, the previous step at its
+     * recipient, which enabled it.
+     */
+    VectorClock causalClock(Frame frame, boolean inOrder) {
+        VectorClock clock = this.sendClocks.getOrDefault(frame.eventId, new VectorClock());
+        Frame previous = inOrder ? this.lastAccess(nodeObject(frame.recipientId), frame) : null;
+        return previous == null ? clock.clone() : clock.merge(previous.clock);
+    }
+
+    /**
+     * Gets the object standing for the state of a node, accessed by the steps delivering to it.
+     */
+    static String nodeObject(String nodeId) {
+        return "node:" + nodeId;
+    }
+
+    /**
+     * Gets the object standing for the mailbox of a node, accessed by the steps sending to it.
+     */
+    static String mailboxObject(String nodeId) {
+        return "mailbox:" + nodeId;
+    }
+
+    /**
+     * Records the clock of the step during which the given events were created.
+     */
+    void recordSent(Collection<Long> eventIds, VectorClock clock) {
+        for (long eventId : eventIds) {
+            this.sendClocks.put(eventId, clock);
+            this.lastEventId = Math.max(this.lastEventId, eventId);
+        }
+    }
+
+    /**
+     * Discards the states above the given one, and the events created after it, so that the
+     * search continues from that state.
+     */
+    void backtrackTo(Frame frame) {
+        while (this.top() != frame) {
+            this.pop();
+        }
+        this.sendClocks.tailMap(frame.lastEventId, false).clear();
+        this.lastEventId = frame.lastEventId;
+        frame.eventId = -1;
+        frame.recipientId = null;
+        frame.objects = Set.of();
+        frame.clock = null;
+        this.numBacktracks++;
+    }
+
+    void traceExplored(boolean sleepBlocked) {
+        this.numTraces++;
+        if (sleepBlocked) {
+            this.numSleepBlocked++;
+        }
+    }
+
+    /**
+     * A state along the path being explored, and the step taken from it.
+     */
+    static class Frame {
+        /**
+         * The number of actions in the schedule in this state
+         */
+        final int step;
+
+        /**
+         * The highest event ID in this state
+         */
+        final long lastEventId;
+
+        /**
+         * The IDs of the enabled events, and their recipients
+         */
+        final Map<Long, String> enabled = new LinkedHashMap<>();
+
+        /**
+         * The IDs of the events to explore from this state
+         */
+        final SortedSet<Long> backtrack = new TreeSet<>();
+
+        /**
+         * The IDs of the events already explored from this state, and the objects their steps accessed
+         */
+        final Map<Long, Set<String>> done = new HashMap<>();
+
+        /**
+         * The IDs of the events that need not be explored from this state, and the objects their
+         * steps access: exploring them leads to paths equivalent to ones explored already
+         */
+        final Map<Long, Set<String>> sleep = new HashMap<>();
+
+        /**
+         * The step taken from this state: the ID of the event, its recipient, the objects it
+         * accessed and its vector clock
+         */
+        long eventId = -1;
+        String recipientId;
+        Set<String> objects = Set.of();
+        VectorClock clock;
+
+        Frame(int step, long lastEventId) {
+            this.step = step;
+            this.lastEventId = lastEventId;
+        }
+
+        boolean isExecuted() {
+            return this.eventId >= 0;
+        }
+
+        /**
+         * Gets the next event to explore from this state.
+         *
+         * @return the ID of the event, or empty if every event to explore was explored
+         */
+        Optional<Long> nextUnexplored() {
+            for (long eventId : this.backtrack) {
+                if (!this.done.containsKey(eventId) && !this.sleep.containsKey(eventId) && this.enabled.containsKey(eventId)) {
+                    return Optional.of(eventId);
+                }
+            }
+            return Optional.empty();
+        }
+
+        boolean hasUnexplored() {
+            return this.nextUnexplored().isPresent();
+        }
+    }
+}
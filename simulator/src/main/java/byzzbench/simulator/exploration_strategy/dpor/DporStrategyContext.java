@@ -0,0 +1,17 @@
+package byzzbench.simulator.exploration_strategy.dpor;
+
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The state of the {@link DporExplorationStrategy} for one scenario.
+ */
+@Getter
+@Setter
+public class DporStrategyContext extends StrategyContext {
+    /**
+     * The search over the schedules of the scenario, shared by its snapshots
+     */
+    private DporSearch search;
+}
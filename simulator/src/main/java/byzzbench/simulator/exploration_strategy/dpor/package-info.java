@@ -0,0 +1,8 @@
+/**
+ * Implementation of a systematic exploration strategy based on dynamic partial-order reduction
+ * (DPOR), from "Dynamic Partial-Order Reduction for Model Checking Software" by Cormac Flanagan
+ * and Patrice Godefroid.
+ * <p>
+ * <a href="https://dl.acm.org/doi/10.1145/1040305.1040315">Link to publication</a>
+ */
+package byzzbench.simulator.exploration_strategy.dpor;
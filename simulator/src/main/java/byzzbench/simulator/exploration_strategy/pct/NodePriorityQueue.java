@@ -0,0 +1,164 @@
+package byzzbench.simulator.exploration_strategy.pct;
+
+import byzzbench.simulator.transport.Event;
+import byzzbench.simulator.transport.MessageEvent;
+import byzzbench.simulator.transport.Transport;
+import byzzbench.simulator.transport.TransportObserver;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The nodes of a scenario with messages queued in their mailbox, ordered by priority.
+ * <p>
+ * Each node has a distinct priority. The queue observes the {@link Transport}, and re-checks
+ * the mailbox of the recipient of every message that is queued, delivered, dropped or
+ * re-queued, so it is always in sync with the transport: finding the node with the highest
+ * priority, and updating a node, take O(log n) time.
+ */
+public class NodePriorityQueue implements TransportObserver, Serializable {
+    /**
+     * The transport whose mailboxes are tracked
+     */
+    @JsonIgnore
+    private final Transport transport;
+
+    /**
+     * The priority of each node
+     */
+    private final Map<String, Long> priorities = new HashMap<>();
+
+    /**
+     * The node with each priority
+     */
+    private final Map<Long, String> nodes = new HashMap<>();
+
+    /**
+     * The nodes with queued messages, by priority
+     */
+    private final TreeMap<Long, String> ready = new TreeMap<>();
+
+    /**
+     * The highest priority assigned so far
+     */
+    private long maxPriority = Long.MIN_VALUE;
+
+    /**
+     * Creates a queue tracking the mailboxes of a transport, and subscribes it to the transport.
+     *
+     * @param transport  the transport
+     * @param priorities the initial priority of each node, all distinct
+     * @throws IllegalArgumentException if two nodes have the same priority
+     */
+    public NodePriorityQueue(Transport transport, Map<String, Long> priorities) {
+        this.transport = transport;
+        priorities.forEach(this::setPriority);
+        transport.addObserver(this);
+    }
+
+    /**
+     * Gets the node with queued messages that has the highest priority.
+     *
+     * @return the ID of the node, or empty if every mailbox is empty
+     */
+    public Optional<String> highest() {
+        return this.ready.isEmpty() ? Optional.empty() : Optional.of(this.ready.lastEntry().getValue());
+    }
+
+    /**
+     * Gets the priority of a node. Nodes seen for the first time get a priority higher than all
+     * the others, like new threads in PCT.
+     *
+     * @param nodeId the ID of the node
+     * @return the priority of the node
+     */
+    public long getPriority(String nodeId) {
+        Long priority = this.priorities.get(nodeId);
+        if (priority == null) {
+            priority = this.maxPriority == Long.MIN_VALUE ? 0 : this.maxPriority + 1;
+            this.setPriority(nodeId, priority);
+        }
+        return priority;
+    }
+
+    /**
+     * Changes the priority of a node.
+     *
+     * @param nodeId   the ID of the node
+     * @param priority the new priority, distinct from the priority of every other node
+     * @throws IllegalArgumentException if another node has the same priority
+     */
+    public void setPriority(String nodeId, long priority) {
+        String other = this.nodes.get(priority);
+        if (other != null && !other.equals(nodeId)) {
+            throw new IllegalArgumentException("Nodes " + other + " and " + nodeId + " have the same priority: " + priority);
+        }
+        Long previous = this.priorities.put(nodeId, priority);
+        if (previous != null) {
+            this.nodes.remove(previous);
+            this.ready.remove(previous);
+        }
+        this.nodes.put(priority, nodeId);
+        this.maxPriority = Math.max(this.maxPriority, priority);
+        this.refresh(nodeId);
+    }
+
+    /**
+     * Gets the priority of every node.
+     *
+     * @return the priority of each node, by node ID
+     */
+    public SortedMap<String, Long> getPriorities() {
+        return new TreeMap<>(this.priorities);
+    }
+
+    /**
+     * Gets the nodes with queued messages.
+     *
+     * @return the IDs of the nodes, from the highest priority to the lowest
+     */
+    public List<String> getReadyNodes() {
+        return List.copyOf(this.ready.descendingMap().values());
+    }
+
+    /**
+     * Re-checks whether a node has queued messages.
+     *
+     * @param nodeId the ID of the node
+     */
+    public void refresh(String nodeId) {
+        long priority = this.getPriority(nodeId);
+        if (this.transport.getMailboxHead(nodeId).isPresent()) {
+            this.ready.put(priority, nodeId);
+        } else {
+            this.ready.remove(priority);
+        }
+    }
+
+    private void refresh(Event event) {
+        if (event instanceof MessageEvent message) {
+            this.refresh(message.getRecipientId());
+        }
+    }
+
+    @Override
+    public void onEventAdded(Event event) {
+        this.refresh(event);
+    }
+
+    @Override
+    public void onEventDropped(Event event) {
+        this.refresh(event);
+    }
+
+    @Override
+    public void onEventRequeued(Event event) {
+        this.refresh(event);
+    }
+
+    @Override
+    public void onEventDelivered(Event event) {
+        this.refresh(event);
+    }
+}
@@ -0,0 +1,204 @@
+package byzzbench.simulator.exploration_strategy.pct;
+
+import byzzbench.simulator.ExecutionMode;
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.TriggerTimeoutAction;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import byzzbench.simulator.transport.MessageEvent;
+import byzzbench.simulator.transport.TimeoutEvent;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * A probabilistic concurrency testing (PCT) exploration strategy.
+ * <p>
+ * Each node of the scenario plays the role of a thread: when a scenario is initialized, the
+ * nodes get distinct random priorities, and {@code priorityChangePoints} steps are picked
+ * uniformly at random among the first {@code expectedLength} steps. The strategy always
+ * delivers a message to the node with the highest priority among the nodes with queued
+ * messages; at the i-th change point, the priority of that node is first lowered below the
+ * initial priorities of all nodes (and below the priorities set at earlier change points), so
+ * another node may be scheduled instead. A schedule with an ordering bug of depth d + 1 is then
+ * found with probability at least 1 / (n * k^d), for n nodes, k steps and d change points.
+ * <p>
+ * The nodes with queued messages are kept in a {@link NodePriorityQueue}, in sync with the
+ * transport, so each step is scheduled in O(log n) time. In {@link ExecutionMode#SYNC}, the
+ * first message of the mailbox of the node is delivered; in {@link ExecutionMode#ASYNC}, one
+ * of its queued messages is picked by {@link #getNextMessageEvent}. Timeouts are only
+ * triggered once every mailbox is empty, on the node with the highest priority. Faults, drops
+ * and mutations are not scheduled.
+ * <p>
+ * Parameters (in {@link ExplorationStrategyParameters#getParams()}): {@code priorityChangePoints}
+ * (default 2) and {@code expectedLength} (by default, the minimum number of events of the
+ * termination condition of the campaign, or 100 if there is none).
+ */
+@Component
+@Log
+@Getter
+public class PctExplorationStrategy extends ExplorationStrategy {
+    /**
+     * The expected number of steps, if the campaign does not set a minimum number of events
+     */
+    private static final long DEFAULT_EXPECTED_LENGTH = 100;
+
+    /**
+     * The number of steps at which the priority of the scheduled node is lowered
+     */
+    private int priorityChangePoints = 2;
+
+    /**
+     * The number of steps over which the change points are picked, or 0 to use the minimum
+     * number of events of the termination condition of the campaign
+     */
+    private long expectedLength = 0;
+
+    @Override
+    public void loadSchedulerParameters(ExplorationStrategyParameters parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("parameters are null");
+        }
+
+        if (parameters.getParams() != null) {
+            if (parameters.getParams().containsKey("priorityChangePoints")) {
+                this.priorityChangePoints = Integer.parseInt(parameters.getParams().get("priorityChangePoints"));
+            }
+
+            if (parameters.getParams().containsKey("expectedLength")) {
+                this.expectedLength = Long.parseLong(parameters.getParams().get("expectedLength"));
+            }
+        }
+
+        if (this.priorityChangePoints < 0) {
+            throw new IllegalArgumentException("priorityChangePoints must not be negative: " + this.priorityChangePoints);
+        }
+        if (this.expectedLength < 0) {
+            throw new IllegalArgumentException("expectedLength must not be negative: " + this.expectedLength);
+        }
+    }
+
+    @Override
+    protected StrategyContext createContext(Scenario scenario) {
+        return new PctStrategyContext();
+    }
+
+    @Override
+    public PctStrategyContext getContext(Scenario scenario) {
+        return (PctStrategyContext) super.getContext(scenario);
+    }
+
+    /**
+     * Gets the number of steps over which the change points of a scenario are picked.
+     *
+     * @param scenario the scenario
+     * @return the expected number of steps of the scenario
+     */
+    public long getExpectedLength(Scenario scenario) {
+        if (this.expectedLength > 0) {
+            return this.expectedLength;
+        }
+        if (scenario.getSchedule().getCampaign() != null
+                && scenario.getSchedule().getCampaign().getTermination() != null
+                && scenario.getSchedule().getCampaign().getTermination().getMinEvents() > 0) {
+            return scenario.getSchedule().getCampaign().getTermination().getMinEvents();
+        }
+        return DEFAULT_EXPECTED_LENGTH;
+    }
+
+    @Override
+    public void initializeScenario(Scenario scenario) {
+        PctStrategyContext context = this.getContext(scenario);
+        Random rand = context.getRand();
+
+        // the initial priorities are a random permutation above the priorities of the change points
+        List<String> nodeIds = new ArrayList<>(scenario.getNodes().keySet());
+        Collections.shuffle(nodeIds, rand);
+        Map<String, Long> priorities = new HashMap<>();
+        for (int i = 0; i < nodeIds.size(); i++) {
+            priorities.put(nodeIds.get(i), (long) this.priorityChangePoints + i + 1);
+        }
+        context.setQueue(new NodePriorityQueue(scenario.getTransport(), priorities));
+
+        long length = this.getExpectedLength(scenario);
+        List<Long> changePoints = new ArrayList<>();
+        for (int i = 0; i < this.priorityChangePoints; i++) {
+            changePoints.add(1 + rand.nextLong(length));
+        }
+        Collections.sort(changePoints);
+        context.setChangePoints(changePoints);
+    }
+
+    @Override
+    public Optional<Action> scheduleNext(Scenario scenario) {
+        this.ensureScenarioInitialized(scenario);
+        PctStrategyContext context = this.getContext(scenario);
+        NodePriorityQueue queue = context.getQueue();
+        long step = context.getNumSteps() + 1;
+
+        Optional<String> nodeId = queue.highest();
+        if (nodeId.isPresent()) {
+            // lower the priority of the node at each change point, and schedule the new highest
+            while (context.getNumChanges() < context.getChangePoints().size()
+                    && context.getChangePoints().get(context.getNumChanges()) <= step) {
+                queue.setPriority(nodeId.get(), this.priorityChangePoints - context.getNumChanges());
+                context.setNumChanges(context.getNumChanges() + 1);
+                nodeId = queue.highest();
+            }
+
+            MessageEvent message = this.nextMessage(scenario, nodeId.orElseThrow());
+            Action action = DeliverMessageAction.fromEvent(message);
+            action.accept(scenario);
+            // a message delivered across a partition is dropped without notifying observers
+            queue.refresh(message.getRecipientId());
+            context.setNumSteps(step);
+            return Optional.of(action);
+        }
+
+        Optional<TimeoutEvent> timeout = this.getQueuedTimeoutEvents(scenario).stream()
+                .max(Comparator.comparingLong(event -> queue.getPriority(event.getNodeId())));
+        if (timeout.isEmpty()) {
+            log.warning("No available actions!");
+            return Optional.empty();
+        }
+        Action action = TriggerTimeoutAction.fromEvent(timeout.get());
+        action.accept(scenario);
+        context.setNumSteps(step);
+        return Optional.of(action);
+    }
+
+    /**
+     * Picks the message to deliver to a node with queued messages.
+     */
+    private MessageEvent nextMessage(Scenario scenario, String nodeId) {
+        return switch (scenario.getExecutionMode()) {
+            case SYNC -> scenario.getTransport().getMailboxHead(nodeId).orElseThrow();
+            case ASYNC -> this.getNextMessageEvent(scenario, scenario.getTransport().getQueuedMessages(nodeId));
+        };
+    }
+
+    @Override
+    public void reset() {
+        // nothing to do: the state of each scenario is kept in its context
+    }
+
+    @Override
+    public ScenarioStrategyData getScenarioStrategyData(Scenario scenario) {
+        PctStrategyContext context = this.getContext(scenario);
+        return PctScenarioStrategyData.builder()
+                .remainingDropMessages(context.getRemainingDropMessages())
+                .remainingMutateMessages(context.getRemainingMutateMessages())
+                .initializedByStrategy(context.isInitialized())
+                .priorities(context.getQueue() == null ? new TreeMap<>() : context.getQueue().getPriorities())
+                .changePoints(List.copyOf(context.getChangePoints()))
+                .numChanges(context.getNumChanges())
+                .numSteps(context.getNumSteps())
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package byzzbench.simulator.exploration_strategy.pct;
+
+import byzzbench.simulator.exploration_strategy.ScenarioStrategyData;
+import lombok.Getter;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+import java.util.SortedMap;
+
+@Getter
+@SuperBuilder
+public class PctScenarioStrategyData extends ScenarioStrategyData {
+    /**
+     * The current priority of each node: the higher, the sooner it is scheduled
+     */
+    private final SortedMap<String, Long> priorities;
+
+    /**
+     * The steps at which the priority of the scheduled node is lowered
+     */
+    private final List<Long> changePoints;
+
+    /**
+     * The number of priority changes applied so far
+     */
+    private final int numChanges;
+
+    /**
+     * The number of steps scheduled by the strategy so far
+     */
+    private final long numSteps;
+}
@@ -0,0 +1,35 @@
+package byzzbench.simulator.exploration_strategy.pct;
+
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The state of the {@link PctExplorationStrategy} for one scenario.
+ */
+@Getter
+@Setter
+public class PctStrategyContext extends StrategyContext {
+    /**
+     * The nodes with messages to deliver, by priority
+     */
+    private NodePriorityQueue queue;
+
+    /**
+     * The steps at which the priority of the scheduled node is lowered, in ascending order
+     */
+    private List<Long> changePoints = new ArrayList<>();
+
+    /**
+     * The number of priority changes applied so far
+     */
+    private int numChanges;
+
+    /**
+     * The number of steps scheduled by the strategy so far
+     */
+    private long numSteps;
+}
@@ -0,0 +1,8 @@
+/**
+ * Implementation of the probabilistic concurrency testing (PCT) exploration strategy, from
+ * "A Randomized Scheduler with Probabilistic Guarantees of Finding Bugs" by Sebastian Burckhardt,
+ * Pravesh Kothari, Madanlal Musuvathi and Santosh Nagarakatte.
+ * <p>
+ * <a href="https://dl.acm.org/doi/10.1145/1736020.1736040">Link to publication</a>
+ */
+package byzzbench.simulator.exploration_strategy.pct;
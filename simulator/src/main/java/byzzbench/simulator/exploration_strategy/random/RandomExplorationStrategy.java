@@ -5,6 +5,7 @@ import byzzbench.simulator.domain.Action;
 import byzzbench.simulator.domain.DeliverMessageAction;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
 import lombok.extern.java.Log;
 import org.springframework.stereotype.Component;
 
@@ -17,8 +18,8 @@ import java.util.Optional;
 @Component
 @Log
 public class RandomExplorationStrategy extends ExplorationStrategy {
-    public <T> T getRandomElement(List<T> list) {
-        return list.get(this.getRand().nextInt(list.size()));
+    public <T> T getRandomElement(Scenario scenario, List<T> list) {
+        return list.get(this.getRand(scenario).nextInt(list.size()));
     }
 
     @Override
@@ -27,22 +28,22 @@ public class RandomExplorationStrategy extends ExplorationStrategy {
     }
 
     @Override
-    public synchronized Optional<Action> scheduleNext(Scenario scenario) {
-        List<Action> actions = this.getAvailableActions(scenario);
-
+    public Optional<Action> scheduleNext(Scenario scenario) {
         // pick a random action
-        if (actions.isEmpty()) {
+        Optional<Action> sampledAction = this.sampleAvailableAction(scenario);
+        if (sampledAction.isEmpty()) {
             log.warning("No available actions!");
             return Optional.empty();
         }
 
-        Action action = getRandomElement(actions);
+        Action action = sampledAction.get();
         action.accept(scenario);
 
         // update metadata
         switch (action) {
             case DeliverMessageAction ignored -> {
-                this.remainingDropMessages.compute(scenario, (k, v) -> v != null && v > 0 ? v - 1 : 0);
+                StrategyContext context = this.getContext(scenario);
+                context.setRemainingDropMessages(Math.max(context.getRemainingDropMessages() - 1, 0));
             }
             default -> {
             }
@@ -70,12 +71,12 @@ public class RandomExplorationStrategy extends ExplorationStrategy {
         int deliverMessageWeight = messageEvents.size() * this.getDeliverMessageWeight();
         int dropMessageWeight = (messageEvents.size() * this.dropMessageWeight(scenario));
         int mutateMessageWeight = (mutateableMessageEvents.size() * this.mutateMessageWeight(scenario));
-        int dieRoll = this.getRand().nextInt(timeoutWeight + deliverMessageWeight + dropMessageWeight + mutateMessageWeight);
+        int dieRoll = this.getRand(scenario).nextInt(timeoutWeight + deliverMessageWeight + dropMessageWeight + mutateMessageWeight);
 
         // check if we should trigger a timeout
         dieRoll -= timeoutWeight;
         if (dieRoll < 0) {
-            Event timeout = getRandomElement(timeoutEvents);
+            Event timeout = getRandomElement(scenario, timeoutEvents);
             scenario.getTransport().deliverEvent(timeout.getEventId());
             Action decision = TriggerTimeoutAction.builder().timeoutEventId(timeout.getEventId()).build();
             return Optional.of(decision);
@@ -93,7 +94,7 @@ public class RandomExplorationStrategy extends ExplorationStrategy {
         // check if we should drop a message sent between nodes
         dieRoll -= dropMessageWeight;
         if (dieRoll < 0) {
-            Event message = getRandomElement(messageEvents);
+            Event message = getRandomElement(scenario, messageEvents);
             scenario.getTransport().dropEvent(message.getEventId());
             //Action decision = FaultInjectionAction.builder().faultBehaviorId("drop-message").eventId(message.getEventId()).build();
             //return Optional.of(decision);
@@ -103,7 +104,7 @@ public class RandomExplorationStrategy extends ExplorationStrategy {
         // check if we should mutate-and-deliver a message sent between nodes
         dieRoll -= mutateMessageWeight;
         if (dieRoll < 0) {
-            Event message = getRandomElement(mutateableMessageEvents);
+            Event message = getRandomElement(scenario, mutateableMessageEvents);
             List<MessageMutationFault> mutators = ApplicationContextProvider.getMessageMutatorService().getMutatorsForEvent(message);
 
             if (mutators.isEmpty()) {
@@ -113,7 +114,7 @@ public class RandomExplorationStrategy extends ExplorationStrategy {
             }
             scenario.getTransport().applyMutation(
                     message.getEventId(),
-                    getRandomElement(mutators));
+                    getRandomElement(scenario, mutators));
             scenario.getTransport().deliverEvent(message.getEventId());
 
             throw new UnsupportedOperationException("not implemented yet!!!");
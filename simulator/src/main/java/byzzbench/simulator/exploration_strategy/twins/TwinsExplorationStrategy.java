@@ -2,15 +2,14 @@ package byzzbench.simulator.exploration_strategy.twins;
 
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
 import byzzbench.simulator.exploration_strategy.random.RandomExplorationStrategy;
 import byzzbench.simulator.nodes.Replica;
 import lombok.Getter;
 import lombok.extern.java.Log;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The Twins exploration_strategy from "Twins: BFT Systems Made Robust" by Shehar Bano,
@@ -22,10 +21,15 @@ import java.util.Map;
 @Log
 @Getter
 public class TwinsExplorationStrategy extends RandomExplorationStrategy {
-    /**
-     * Scenario-specific strategy data
-     */
-    private final Map<Scenario, TwinsScenarioStrategyData> scenarioData = new HashMap<>();
+    @Override
+    protected StrategyContext createContext(Scenario scenario) {
+        return new TwinsStrategyContext();
+    }
+
+    @Override
+    public TwinsStrategyContext getContext(Scenario scenario) {
+        return (TwinsStrategyContext) super.getContext(scenario);
+    }
 
     @Override
     public void initializeScenario(Scenario scenario) {
@@ -37,7 +41,7 @@ public class TwinsExplorationStrategy extends RandomExplorationStrategy {
                 .numRounds(Integer.parseInt(config.getParams().get("numRounds")))
                 .build();
 
-        this.scenarioData.put(scenario, scenarioParams);
+        this.getContext(scenario).setData(scenarioParams);
 
         // Get the IDs of the replicas
         List<String> replicaIds = scenario.getFaultyReplicaIds().stream().toList();
@@ -0,0 +1,17 @@
+package byzzbench.simulator.exploration_strategy.twins;
+
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The state of the {@link TwinsExplorationStrategy} for one scenario.
+ */
+@Getter
+@Setter
+public class TwinsStrategyContext extends StrategyContext {
+    /**
+     * The parameters of the twins created in the scenario
+     */
+    private TwinsScenarioStrategyData data;
+}
@@ -6,6 +6,8 @@ import byzzbench.simulator.state.LogEntry;
 import byzzbench.simulator.transport.DefaultClientReplyPayload;
 import byzzbench.simulator.transport.MessagePayload;
 import byzzbench.simulator.transport.Transport;
+import byzzbench.simulator.utils.AsyncLane;
+import byzzbench.simulator.utils.ObserverBus;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
@@ -32,18 +34,17 @@ import java.util.TreeSet;
 @ToString
 public abstract class Replica extends Node {
     /**
-     * The message digest algorithm to use for hashing messages.
+     * The message digest algorithm to use for hashing messages. One instance per thread,
+     * as {@link MessageDigest} is not thread-safe and scenarios may run concurrently.
      */
     @JsonIgnore
-    static MessageDigest md;
-
-    static {
+    static final ThreadLocal<MessageDigest> md = ThreadLocal.withInitial(() -> {
         try {
-            md = MessageDigest.getInstance("SHA-1");
+            return MessageDigest.getInstance("SHA-1");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
-    }
+    });
 
     /**
      * The commit log for this replica.
@@ -65,7 +66,8 @@ public abstract class Replica extends Node {
      * The observers of this replica.
      */
     @JsonIgnore
-    private final transient List<ReplicaObserver> observers = new java.util.ArrayList<>();
+    private final transient ObserverBus<ReplicaObserver, ReplicaObserver.Kind> observers =
+            new ObserverBus<>(ReplicaObserver.class, ReplicaObserver.Kind.class);
     /**
      * The Transport object this Replica should use to send and receive messages.
      */
@@ -139,7 +141,7 @@ public abstract class Replica extends Node {
      * @return the digest of the message
      */
     public byte[] digest(Serializable message) {
-        return md.digest(message.toString().getBytes());
+        return md.get().digest(message.toString().getBytes());
     }
 
     /**
@@ -170,6 +172,7 @@ public abstract class Replica extends Node {
     public void commitOperation(long sequenceNumber, LogEntry operation) {
         if (this.commitLog.get(sequenceNumber) == null) {
             this.commitLog.add(sequenceNumber, operation);
+            this.notifyObserversCommitLogEntry(sequenceNumber, operation);
             this.notifyObserversLocalCommit(operation);
         }
     }
@@ -182,6 +185,7 @@ public abstract class Replica extends Node {
      */
     public void commitOperation(LogEntry operation) {
         this.commitLog.add(operation);
+        this.notifyObserversCommitLogEntry(this.commitLog.getHighestSequenceNumber(), operation);
         this.notifyObserversLocalCommit(operation);
     }
 
@@ -217,7 +221,27 @@ public abstract class Replica extends Node {
      * @param observer the observer to add
      */
     public void addObserver(ReplicaObserver observer) {
-        this.observers.add(observer);
+        this.observers.subscribe(observer);
+    }
+
+    /**
+     * Remove an observer from this replica.
+     *
+     * @param observer the observer to remove
+     */
+    public void removeObserver(ReplicaObserver observer) {
+        this.observers.unsubscribe(observer);
+    }
+
+    /**
+     * Add an observer to this replica, whose callbacks run in order on the given lane
+     * instead of inline.
+     *
+     * @param observer the observer to add
+     * @param lane     the lane on which to run the observer's callbacks
+     */
+    public void addAsyncObserver(ReplicaObserver observer, AsyncLane lane) {
+        this.observers.subscribeAsync(observer, lane);
     }
 
     /**
@@ -226,7 +250,9 @@ public abstract class Replica extends Node {
      * @param newLeaderId the new leader ID
      */
     public void notifyObserversLeaderChange(String newLeaderId) {
-        this.observers.forEach(observer -> observer.onLeaderChange(this, newLeaderId));
+        for (ReplicaObserver observer : this.observers.get(ReplicaObserver.Kind.LEADER_CHANGE)) {
+            observer.onLeaderChange(this, newLeaderId);
+        }
     }
 
     /**
@@ -235,14 +261,30 @@ public abstract class Replica extends Node {
      * @param operation the operation that was committed
      */
     public void notifyObserversLocalCommit(Serializable operation) {
-        this.observers.forEach(observer -> observer.onLocalCommit(this, operation));
+        for (ReplicaObserver observer : this.observers.get(ReplicaObserver.Kind.LOCAL_COMMIT)) {
+            observer.onLocalCommit(this, operation);
+        }
+    }
+
+    /**
+     * Notify all observers that an entry was added to the commit log.
+     *
+     * @param sequenceNumber the sequence number of the entry
+     * @param entry          the entry that was committed
+     */
+    public void notifyObserversCommitLogEntry(long sequenceNumber, LogEntry entry) {
+        for (ReplicaObserver observer : this.observers.get(ReplicaObserver.Kind.COMMIT_LOG_ENTRY)) {
+            observer.onCommitLogEntry(this, sequenceNumber, entry);
+        }
     }
 
     /**
      * Notify all observers that a timeout has occurred.
      */
     public void notifyObserversTimeout() {
-        this.observers.forEach(observer -> observer.onTimeout(this));
+        for (ReplicaObserver observer : this.observers.get(ReplicaObserver.Kind.TIMEOUT)) {
+            observer.onTimeout(this);
+        }
     }
 
     /**
@@ -1,11 +1,73 @@
 package byzzbench.simulator.nodes;
 
+import byzzbench.simulator.state.LogEntry;
+import byzzbench.simulator.utils.ObserverBus;
+
 import java.io.Serializable;
+import java.util.List;
 
+/**
+ * An observer that listens to changes in the state of a replica.
+ * <p>
+ * All callbacks are no-ops by default: observers are only dispatched the kinds of
+ * callbacks they implement (see {@link ObserverBus}).
+ */
 public interface ReplicaObserver {
-    void onLeaderChange(Replica r, String newLeaderId);
+    /**
+     * Called when the replica changes its leader.
+     *
+     * @param r           The replica.
+     * @param newLeaderId The ID of the new leader.
+     */
+    default void onLeaderChange(Replica r, String newLeaderId) {
+    }
+
+    /**
+     * Called when the replica commits an operation.
+     *
+     * @param r         The replica.
+     * @param operation The operation that was committed.
+     */
+    default void onLocalCommit(Replica r, Serializable operation) {
+    }
+
+    /**
+     * Called when the replica adds an entry to its commit log through
+     * {@link Replica#commitOperation}. Called before {@link #onLocalCommit}.
+     *
+     * @param r              The replica.
+     * @param sequenceNumber The sequence number at which the entry was committed.
+     * @param entry          The entry that was committed.
+     */
+    default void onCommitLogEntry(Replica r, long sequenceNumber, LogEntry entry) {
+    }
+
+    /**
+     * Called when the replica times out.
+     *
+     * @param r The replica.
+     */
+    default void onTimeout(Replica r) {
+    }
+
+    /**
+     * The kinds of callbacks of a {@link ReplicaObserver}.
+     */
+    enum Kind implements ObserverBus.Kind {
+        LEADER_CHANGE("onLeaderChange"),
+        LOCAL_COMMIT("onLocalCommit"),
+        COMMIT_LOG_ENTRY("onCommitLogEntry"),
+        TIMEOUT("onTimeout");
+
+        private final List<String> methodNames;
 
-    void onLocalCommit(Replica r, Serializable operation);
+        Kind(String... methodNames) {
+            this.methodNames = List.of(methodNames);
+        }
 
-    void onTimeout(Replica r);
+        @Override
+        public List<String> getMethodNames() {
+            return this.methodNames;
+        }
+    }
 }
@@ -3,6 +3,8 @@ package byzzbench.simulator.protocols.fasthotstuff;
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.domain.ScenarioParameters;
 import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.coverage.CoverageScenario;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Replica;
 import lombok.extern.java.Log;
@@ -14,7 +16,8 @@ import java.util.TreeSet;
  * A scenario for running the <a href="https://arxiv.org/abs/2010.11454">Fast-HotStuff protocol</a>
  */
 @Log
-public class FastHotStuffScenario extends Scenario {
+public class FastHotStuffScenario extends Scenario implements CoverageScenario {
+    private static final ReplicaStateExtractor STATE_EXTRACTOR = new FastHotStuffStateExtractor();
     private final int NUM_NODES = 4;
 
     /**
@@ -69,4 +72,9 @@ public class FastHotStuffScenario extends Scenario {
         // FIXME: no clients for this protocol!!
         return null;
     }
+
+    @Override
+    public ReplicaStateExtractor getStateExtractor() {
+        return STATE_EXTRACTOR;
+    }
 }
@@ -0,0 +1,25 @@
+package byzzbench.simulator.protocols.fasthotstuff;
+
+import byzzbench.simulator.exploration_strategy.coverage.AbstractReplicaState;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
+import byzzbench.simulator.nodes.Replica;
+
+/**
+ * Extracts the abstract state of a {@link FastHotStuffReplica}: its round, the round of its
+ * highest quorum certificate, and whether it already voted in its round.
+ */
+public class FastHotStuffStateExtractor implements ReplicaStateExtractor {
+    @Override
+    public AbstractReplicaState extract(Replica replica) {
+        if (!(replica instanceof FastHotStuffReplica hotStuffReplica)) {
+            return DEFAULT.extract(replica);
+        }
+
+        long round = hotStuffReplica.getRound().get();
+        return new AbstractReplicaState(
+                round,
+                hotStuffReplica.getHighestQcRound().get(),
+                hotStuffReplica.getLastVotedRound().get() >= round ? 1 : 0,
+                AbstractReplicaState.commitHead(replica));
+    }
+}
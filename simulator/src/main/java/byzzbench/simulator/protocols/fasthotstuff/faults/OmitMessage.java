@@ -46,7 +46,7 @@ public class OmitMessage extends Fault {
                 && message.getPayload() instanceof Block blockMessage &&
                 blockMessage.getRound() == round) {
             System.out.println("DROPPING MESSAGE");
-            message.setStatus(Event.Status.DROPPED);
+            ctx.getScenario().getTransport().dropEvent(message.getEventId());
         }
     }
 
@@ -33,7 +33,7 @@ public class FaultySafetyReplica extends Replica {
             if (!seenOperations.contains(clientRequestMessage.getOperation())) {
                 System.out.println("Replica " + this.getId()
                         + " broadcasting operation: " + clientRequestMessage.getOperation());
-                this.getCommitLog().add(new SerializableLogEntry(clientRequestMessage.getOperation()));
+                this.commitOperation(new SerializableLogEntry(clientRequestMessage.getOperation()));
                 this.broadcastMessage(m);
                 seenOperations.add(clientRequestMessage.getOperation());
             }
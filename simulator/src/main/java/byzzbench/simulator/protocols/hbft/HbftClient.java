@@ -24,18 +24,17 @@ import java.util.*;
 @Getter
 public class HbftClient extends Client {
     /**
-     * The message digest algorithm to use for hashing messages.
+     * The message digest algorithm to use for hashing messages. One instance per thread,
+     * as {@link MessageDigest} is not thread-safe and scenarios may run concurrently.
      */
     @JsonIgnore
-    static MessageDigest md;
-
-    static {
+    static final ThreadLocal<MessageDigest> md = ThreadLocal.withInitial(() -> {
         try {
-            md = MessageDigest.getInstance("SHA-1");
+            return MessageDigest.getInstance("SHA-1");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
-    }
+    });
 
     /**
      * The replies received by the client.
@@ -202,7 +201,7 @@ public class HbftClient extends Client {
      * @return the digest of the message
      */
     public byte[] digest(Serializable message) {
-        return md.digest(message.toString().getBytes());
+        return md.get().digest(message.toString().getBytes());
     }
 
 }
@@ -5,6 +5,8 @@ import byzzbench.simulator.domain.ScenarioParameters;
 import byzzbench.simulator.domain.Schedule;
 import byzzbench.simulator.exploration_strategy.byzzfuzz.ByzzFuzzRoundInfoOracle;
 import byzzbench.simulator.exploration_strategy.byzzfuzz.ByzzFuzzScenario;
+import byzzbench.simulator.exploration_strategy.coverage.CoverageScenario;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Replica;
 import lombok.Getter;
@@ -15,7 +17,8 @@ import java.util.TreeSet;
 
 @Getter
 @Log
-public class HbftJavaScenario extends Scenario implements ByzzFuzzScenario {
+public class HbftJavaScenario extends Scenario implements ByzzFuzzScenario, CoverageScenario {
+    private static final ReplicaStateExtractor STATE_EXTRACTOR = new HbftJavaStateExtractor();
     private final int NUM_NODES = 4;
     private final HbftJavaByzzFuzzRoundInfoOracle roundInfoOracle;
     private SortedSet<String> nodeIds;
@@ -99,4 +102,9 @@ public class HbftJavaScenario extends Scenario implements ByzzFuzzScenario {
     public ByzzFuzzRoundInfoOracle getRoundInfoOracle() {
         return this.roundInfoOracle;
     }
+
+    @Override
+    public ReplicaStateExtractor getStateExtractor() {
+        return STATE_EXTRACTOR;
+    }
 }
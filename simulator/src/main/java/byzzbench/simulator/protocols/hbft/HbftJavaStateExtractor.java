@@ -0,0 +1,33 @@
+package byzzbench.simulator.protocols.hbft;
+
+import byzzbench.simulator.exploration_strategy.coverage.AbstractReplicaState;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.protocols.hbft.pojo.TicketKey;
+
+import java.util.SortedMap;
+
+/**
+ * Extracts the abstract state of a {@link HbftJavaReplica}: its view, and the sequence number
+ * and phase of its latest ticket, distinguishing replicas that are in a view change.
+ */
+public class HbftJavaStateExtractor implements ReplicaStateExtractor {
+    @Override
+    public AbstractReplicaState extract(Replica replica) {
+        if (!(replica instanceof HbftJavaReplica<?, ?> hbftReplica)) {
+            return DEFAULT.extract(replica);
+        }
+
+        SortedMap<TicketKey, Ticket<?, ?>> tickets = hbftReplica.getMessageLog().getTickets();
+        Ticket<?, ?> latest = tickets.isEmpty() ? null : tickets.get(tickets.lastKey());
+        int phase = latest == null || latest.getPhase() == null ? -1 : latest.getPhase().ordinal();
+        if (hbftReplica.isDisgruntled()) {
+            phase += 1 << 8;
+        }
+        return new AbstractReplicaState(
+                hbftReplica.getViewNumber(),
+                latest == null ? replica.getCommitLog().getHighestSequenceNumber() : latest.getSeqNumber(),
+                phase,
+                AbstractReplicaState.commitHead(replica));
+    }
+}
@@ -93,8 +93,7 @@ public class PbftJavaReplica<O extends Serializable, R extends Serializable> ext
         LinearBackoff backoff = this.timeouts.get(key);
         if (backoff == null) {
             log.warning(this.getId() + " found no timer for request " + key);
-            log.info(this.getId() + " " + this.timeouts.size() + " active timers:");
-            this.timeouts.keySet().forEach(k -> System.out.println("Active request timer: " + k));
+            log.fine(() -> this.getId() + " " + this.timeouts.size() + " active timers: " + this.timeouts.keySet());
             return;
             //throw new IllegalStateException(this.getId() + " found no timer for request " + key);
             //return Duration.ZERO;
@@ -197,8 +196,7 @@ public class PbftJavaReplica<O extends Serializable, R extends Serializable> ext
                 new LinearBackoff(this, this.getViewNumber(), this.timeout, String.format("Request %s", k), () -> this.handleRequestTimeout(key)));
 
         // print keys in timeouts
-        log.info(this.getId() + " " + this.timeouts.size() + " active timers:");
-        this.timeouts.keySet().forEach(k -> System.out.println("Active request timer: " + k));
+        log.fine(() -> this.getId() + " " + this.timeouts.size() + " active timers: " + this.timeouts.keySet());
 
         String primaryId = this.getRoundRobinPrimaryId();
 
@@ -501,8 +499,7 @@ public class PbftJavaReplica<O extends Serializable, R extends Serializable> ext
                     messageLog.completeTicket(key, currentViewNumber, seqNumber);
                     this.sendReply(clientId, timestamp, reply);
 
-                    log.info(this.getId() + " " + this.timeouts.size() + " active timers:");
-                    this.timeouts.keySet().forEach(k -> System.out.println("Active request timer: " + k));
+                    log.fine(() -> this.getId() + " " + this.timeouts.size() + " active timers: " + this.timeouts.keySet());
 
                     if (this.timeouts.containsKey(key)) {
                         this.timeouts.get(key).stop();
@@ -5,6 +5,8 @@ import byzzbench.simulator.domain.ScenarioParameters;
 import byzzbench.simulator.domain.Schedule;
 import byzzbench.simulator.exploration_strategy.byzzfuzz.ByzzFuzzRoundInfoOracle;
 import byzzbench.simulator.exploration_strategy.byzzfuzz.ByzzFuzzScenario;
+import byzzbench.simulator.exploration_strategy.coverage.CoverageScenario;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Replica;
 import lombok.extern.java.Log;
@@ -16,7 +18,8 @@ import java.time.Duration;
  * of the PBFT protocol in Java.
  */
 @Log
-public class PbftJavaScenario extends Scenario implements ByzzFuzzScenario {
+public class PbftJavaScenario extends Scenario implements ByzzFuzzScenario, CoverageScenario {
+    private static final ReplicaStateExtractor STATE_EXTRACTOR = new PbftJavaStateExtractor();
     private final int numReplicas = 4;
     private final PbftJavaByzzFuzzRoundInfoOracle roundInfoOracle;
 
@@ -82,4 +85,9 @@ public class PbftJavaScenario extends Scenario implements ByzzFuzzScenario {
     public ByzzFuzzRoundInfoOracle getRoundInfoOracle() {
         return this.roundInfoOracle;
     }
+
+    @Override
+    public ReplicaStateExtractor getStateExtractor() {
+        return STATE_EXTRACTOR;
+    }
 }
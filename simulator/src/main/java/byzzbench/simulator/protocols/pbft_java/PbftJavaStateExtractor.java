@@ -0,0 +1,28 @@
+package byzzbench.simulator.protocols.pbft_java;
+
+import byzzbench.simulator.exploration_strategy.coverage.AbstractReplicaState;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
+import byzzbench.simulator.nodes.Replica;
+
+import java.util.SortedMap;
+
+/**
+ * Extracts the abstract state of a {@link PbftJavaReplica}: its view, and the sequence number
+ * and phase of its latest ticket.
+ */
+public class PbftJavaStateExtractor implements ReplicaStateExtractor {
+    @Override
+    public AbstractReplicaState extract(Replica replica) {
+        if (!(replica instanceof PbftJavaReplica<?, ?> pbftReplica)) {
+            return DEFAULT.extract(replica);
+        }
+
+        SortedMap<TicketKey, Ticket<?, ?>> tickets = pbftReplica.getMessageLog().getTickets();
+        Ticket<?, ?> latest = tickets.isEmpty() ? null : tickets.get(tickets.lastKey());
+        return new AbstractReplicaState(
+                pbftReplica.getViewNumber(),
+                latest == null ? replica.getCommitLog().getHighestSequenceNumber() : latest.getSeqNumber(),
+                latest == null || latest.getPhase() == null ? -1 : latest.getPhase().ordinal(),
+                AbstractReplicaState.commitHead(replica));
+    }
+}
@@ -3,6 +3,8 @@ package byzzbench.simulator.protocols.tendermint;
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.domain.ScenarioParameters;
 import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.coverage.CoverageScenario;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Replica;
 import byzzbench.simulator.protocols.pbft_java.PbftClient;
@@ -12,7 +14,8 @@ import java.util.SortedSet;
 import java.util.TreeSet;
 
 @Log
-public class TendermintScenarioExecutor extends Scenario {
+public class TendermintScenarioExecutor extends Scenario implements CoverageScenario {
+    private static final ReplicaStateExtractor STATE_EXTRACTOR = new TendermintStateExtractor();
     private final int NUM_NODES = 4;
 
     public TendermintScenarioExecutor(Schedule schedule) {
@@ -77,4 +80,9 @@ public class TendermintScenarioExecutor extends Scenario {
     public Class<? extends Client> getClientClass() {
         return PbftClient.class;
     }
+
+    @Override
+    public ReplicaStateExtractor getStateExtractor() {
+        return STATE_EXTRACTOR;
+    }
 }
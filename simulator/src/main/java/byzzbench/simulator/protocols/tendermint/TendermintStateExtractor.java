@@ -0,0 +1,23 @@
+package byzzbench.simulator.protocols.tendermint;
+
+import byzzbench.simulator.exploration_strategy.coverage.AbstractReplicaState;
+import byzzbench.simulator.exploration_strategy.coverage.ReplicaStateExtractor;
+import byzzbench.simulator.nodes.Replica;
+
+/**
+ * Extracts the abstract state of a {@link TendermintReplica}: its round, height and step.
+ */
+public class TendermintStateExtractor implements ReplicaStateExtractor {
+    @Override
+    public AbstractReplicaState extract(Replica replica) {
+        if (!(replica instanceof TendermintReplica tendermintReplica)) {
+            return DEFAULT.extract(replica);
+        }
+
+        return new AbstractReplicaState(
+                tendermintReplica.getSequence(),
+                tendermintReplica.getHeight(),
+                tendermintReplica.getStep() == null ? -1 : tendermintReplica.getStep().ordinal(),
+                AbstractReplicaState.commitHead(replica));
+    }
+}
@@ -1,10 +1,50 @@
 package byzzbench.simulator.repository;
 
 import byzzbench.simulator.domain.Campaign;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CampaignRepository extends CrudRepository<Campaign, Long> {
     Optional<Campaign> findByCampaignId(Long campaignId);
+
+    /**
+     * Gets the ids of all campaigns, without loading them and their schedules.
+     *
+     * @return the ids of the campaigns, in ascending order
+     */
+    @Query("select c.campaignId from Campaign c order by c.campaignId")
+    List<Long> findAllCampaignIds();
+
+    /**
+     * Gets a page of the ids of the campaigns, in ascending order.
+     *
+     * @param after only campaigns with a greater id are included
+     * @param page  the size of the page
+     * @return the ids of the campaigns
+     */
+    @Query("select c.campaignId from Campaign c where c.campaignId > :after order by c.campaignId")
+    List<Long> findCampaignIds(@Param("after") long after, Pageable page);
+
+    /**
+     * Adds scenario results to the counters of a campaign, without loading the campaign.
+     *
+     * @param campaignId  the id of the campaign
+     * @param numTerm     the number of scenarios that terminated with an invariant violation
+     * @param numErr      the number of scenarios that errored
+     * @param numMaxedOut the number of scenarios that reached their maximum length
+     * @return the number of updated campaigns
+     */
+    @Modifying
+    @Transactional
+    @Query("update Campaign c set c.numTerm = c.numTerm + :numTerm, c.numErr = c.numErr + :numErr, "
+            + "c.numMaxedOut = c.numMaxedOut + :numMaxedOut where c.campaignId = :campaignId")
+    int addResults(@Param("campaignId") long campaignId, @Param("numTerm") long numTerm,
+                   @Param("numErr") long numErr, @Param("numMaxedOut") long numMaxedOut);
 }
@@ -0,0 +1,18 @@
+package byzzbench.simulator.repository;
+
+import byzzbench.simulator.domain.Schedule;
+import org.hibernate.Interceptor;
+
+/**
+ * Tells Hibernate whether a schedule was persisted already. Schedule ids are assigned before
+ * the schedules are persisted, so Hibernate cannot tell from the id, and would otherwise query
+ * the database for each schedule a new schedule refers to.
+ * <p>
+ * Registered in the {@code hibernate.session_factory.interceptor} property.
+ */
+public class ScheduleInterceptor implements Interceptor {
+    @Override
+    public Boolean isTransient(Object entity) {
+        return entity instanceof Schedule schedule ? schedule.isNew() : null;
+    }
+}
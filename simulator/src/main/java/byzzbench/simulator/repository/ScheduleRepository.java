@@ -1,10 +1,65 @@
 package byzzbench.simulator.repository;
 
 import byzzbench.simulator.domain.Schedule;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ScheduleRepository extends CrudRepository<Schedule, Long> {
     Optional<Schedule> findByScheduleId(Long scheduleId);
+
+    /**
+     * Gets the greatest schedule id in use.
+     *
+     * @return the greatest schedule id, or 0 if there are no schedules
+     */
+    @Query("select coalesce(max(s.scheduleId), 0) from Schedule s")
+    long findMaxScheduleId();
+
+    /**
+     * Gets the ids of all schedules, without loading them.
+     *
+     * @return the ids of the schedules, in ascending order
+     */
+    @Query("select s.scheduleId from Schedule s order by s.scheduleId")
+    List<Long> findAllScheduleIds();
+
+    /**
+     * Gets a page of the ids of the schedules matching the given filters, in ascending order.
+     *
+     * @param after      only schedules with a greater id are included
+     * @param campaignId the id of the campaign of the schedules, or null for any campaign
+     * @param buggy      whether the schedules violate some invariant, or null for any schedule
+     * @param invariant  the id of an invariant the schedules violate, or null for any invariant
+     * @param page       the size of the page
+     * @return the ids of the matching schedules
+     */
+    @Query("select s.scheduleId from Schedule s left join s.campaign c where s.scheduleId > :after"
+            + " and (:campaignId is null or c.campaignId = :campaignId)"
+            + " and (:buggy is null or (:buggy = true and s.brokenInvariantIds is not empty)"
+            + " or (:buggy = false and s.brokenInvariantIds is empty))"
+            + " and (:invariant is null or :invariant member of s.brokenInvariantIds)"
+            + " order by s.scheduleId")
+    List<Long> findScheduleIds(@Param("after") long after, @Param("campaignId") Long campaignId,
+                               @Param("buggy") Boolean buggy, @Param("invariant") String invariant, Pageable page);
+
+    /**
+     * Counts the schedules matching the given filters.
+     *
+     * @param campaignId the id of the campaign of the schedules, or null for any campaign
+     * @param buggy      whether the schedules violate some invariant, or null for any schedule
+     * @param invariant  the id of an invariant the schedules violate, or null for any invariant
+     * @return the number of matching schedules
+     */
+    @Query("select count(s) from Schedule s left join s.campaign c where"
+            + " (:campaignId is null or c.campaignId = :campaignId)"
+            + " and (:buggy is null or (:buggy = true and s.brokenInvariantIds is not empty)"
+            + " or (:buggy = false and s.brokenInvariantIds is empty))"
+            + " and (:invariant is null or :invariant member of s.brokenInvariantIds)")
+    long countSchedules(@Param("campaignId") Long campaignId, @Param("buggy") Boolean buggy,
+                        @Param("invariant") String invariant);
 }
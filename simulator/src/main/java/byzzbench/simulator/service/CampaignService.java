@@ -3,6 +3,7 @@ package byzzbench.simulator.service;
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.ScenarioPredicate;
 import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.config.ForkConfig;
 import byzzbench.simulator.domain.Action;
 import byzzbench.simulator.domain.Campaign;
 import byzzbench.simulator.domain.ScenarioParameters;
@@ -18,8 +19,10 @@ import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
 @RequiredArgsConstructor
@@ -31,9 +34,15 @@ public class CampaignService {
     private final CampaignRepository campaignRepository;
     private final ScenarioService scenarioService;
     private final ExplorationStrategyService explorationStrategyService;
+    private final PersistenceService persistenceService;
 
     private final Map<Long, Campaign> activeCampaigns = new HashMap<>();
 
+    /**
+     * Worker pool on which the scenarios of the campaigns are run.
+     */
+    private ExecutorService scenarioExecutor;
+
     /**
      * Register a new campaign in the database
      *
@@ -66,6 +75,8 @@ public class CampaignService {
 
     @PostConstruct
     public void init() {
+        this.scenarioExecutor = Executors.newFixedThreadPool(Math.max(1, byzzBenchConfig.getScenarioWorkers()));
+
         // read campaign configs from application.yml and run them
         for (var campaignConfig : byzzBenchConfig.getCampaigns()) {
             Campaign cfgCampaign = Campaign.fromConfig(campaignConfig);
@@ -92,30 +103,88 @@ public class CampaignService {
     }
 
     /**
-     * Thread class to run a campaign
+     * Thread class to run a campaign.
+     * <p>
+     * The parameters of the scenarios are generated up front, in order, so each scenario
+     * gets the same random seed regardless of how many scenarios run concurrently. The
+     * scenarios are then run on the scenario worker pool.
+     * <p>
+     * If the campaign forks its scenarios (see {@link ForkConfig}), each generated scenario
+     * is run up to the first fork depth and then forked into children, which run in parallel
+     * on the pool and are forked again at the next depth. Only the leaves run until
+     * termination, and count towards the number of scenarios of the campaign.
      */
     @RequiredArgsConstructor
     public class CampaignRunner implements Runnable {
         private final Campaign campaign;
 
+        /**
+         * The tasks submitted to the scenario worker pool.
+         */
+        private final Queue<Future<?>> tasks = new ConcurrentLinkedQueue<>();
+
+        private ForkConfig getFork() {
+            return campaign.getFork() == null ? new ForkConfig() : campaign.getFork();
+        }
+
+        /**
+         * Runs a scenario until the fork depth of its level, then forks it and submits its
+         * children to the pool. Scenarios past the last depth run until termination.
+         *
+         * @param scenario the scenario to run
+         * @param level    the number of times the scenario was forked
+         */
+        private void explore(Scenario scenario, int level) {
+            ExplorationStrategy explorationStrategy = campaign.getExplorationStrategy();
+            explorationStrategy.ensureScenarioInitialized(scenario);
+            ScenarioRunner runner = new ScenarioRunner(campaign, scenario, explorationStrategy);
+            List<Integer> depths = this.getFork().getDepths();
+            if (level == depths.size()) {
+                runner.run();
+                return;
+            }
+
+            // scenarios that terminate before the fork depth are not forked
+            if (runner.run(depths.get(level))) {
+                return;
+            }
+
+            // each child explores with its own random stream, drawn from the parent's
+            int width = this.getFork().getWidth();
+            for (int i = 0; i < width; i++) {
+                long seed = explorationStrategy.getRand(scenario).nextLong();
+                Scenario child = scenarioService.forkScenario(scenario);
+                explorationStrategy.reseed(child, seed);
+                this.tasks.add(scenarioExecutor.submit(() -> this.explore(child, level + 1)));
+            }
+            if (byzzBenchConfig.isRemoveCompletedSimulations()) {
+                scenario.getSchedule().clearScenario();
+            }
+            explorationStrategy.releaseContext(scenario);
+            scenarioService.releaseSchedule(scenario.getSchedule().getScheduleId());
+        }
+
         @Override
         public void run() {
             log.info(String.format("Starting campaign %d with %d scenarios%n",
                     campaign.getCampaignId(), campaign.getNumScenarios()));
-            boolean running = true;
             try {
-                long numScenarios = campaign.getNumScenarios();
-                ExplorationStrategy explorationStrategy = campaign.getExplorationStrategy();
-
-                // run the scenario until the stop flag is set
-                for (int i = 0; running && i < numScenarios; i++) {
-                    log.info(String.format("Running scenario %d/%d%n", i + 1, numScenarios));
+                long numRoots = Math.ceilDiv(campaign.getNumScenarios(), this.getFork().getNumLeaves());
 
+                for (int i = 0; i < numRoots; i++) {
+                    int scenarioNumber = i + 1;
                     ScenarioParameters scenarioParams = campaign.generateScenarioParameters();
-                    Scenario scenario = scenarioService.generateScenario(scenarioParams, this.campaign);
-                    explorationStrategy.ensureScenarioInitialized(scenario);
-                    ScenarioRunner r = new ScenarioRunner(campaign, scenario, explorationStrategy);
-                    r.run();
+                    this.tasks.add(scenarioExecutor.submit(() -> {
+                        log.info(String.format("Running scenario %d/%d%n", scenarioNumber, numRoots));
+                        Scenario scenario = scenarioService.generateScenario(scenarioParams, this.campaign);
+                        this.explore(scenario, 0);
+                    }));
+                }
+
+                // wait for all scenarios to finish: forks are submitted before their parent's task completes
+                Future<?> task;
+                while ((task = this.tasks.poll()) != null) {
+                    task.get();
                 }
             } catch (Exception e) {
                 log.severe("Error running campaign: " + e);
@@ -123,9 +192,7 @@ public class CampaignService {
             } finally {
                 log.info(String.format("Campaign %d finished: %d terminated, %d maxed out, %d errored%n",
                         campaign.getCampaignId(), this.campaign.getNumTerm(), this.campaign.getNumMaxedOut(), this.campaign.getNumErr()));
-                running = false;
             }
-
         }
     }
 
@@ -155,16 +222,38 @@ public class CampaignService {
                 scenario.getSchedule().clearScenario();
             }
 
+            // the schedule is no longer running: it can be evicted from memory
+            explorationStrategy.releaseContext(scenario);
+            scenarioService.releaseSchedule(scenario.getSchedule().getScheduleId());
         }
 
         @Override
         public void run() {
+            this.run(Long.MAX_VALUE);
+        }
+
+        /**
+         * Runs the scenario until it terminates, or until its schedule holds the given
+         * number of actions. A scenario that is paused before terminating is not finalized.
+         *
+         * @param maxActions the number of actions at which to pause the scenario
+         * @return true if the scenario terminated, false if it was paused
+         */
+        public boolean run(long maxActions) {
+            boolean paused = false;
             try {
                 // initialize the exploration_strategy with the scenario
                 explorationStrategy.ensureScenarioInitialized(currentScenario);
 
                 // main scheduling loop
                 while (true) {
+                    currentScenario.getCheckpoints().checkpointIfDue();
+
+                    if (currentScenario.getSchedule().getActions().size() >= maxActions) {
+                        paused = true;
+                        break;
+                    }
+
                     // if reached max actions, trigger GST
                     if (!currentScenario.getTransport().isGlobalStabilizationTime()
                             && currentScenario.getSchedule().getLength() >= campaign.getTermination().getMinEvents()) {
@@ -185,16 +274,13 @@ public class CampaignService {
                     // if the exploration_strategy did not make a decision, and we're after GST, terminate the run
                     if (decision.isEmpty()) {
                         log.info("We're after GST and still no events!!");
-                        currentScenario.getSchedule().finalizeSchedule(Set.of(new DeadlockPredicate(currentScenario)));
                         currentScenario.getSchedule().setCampaign(campaign);
-                        scenarioService.storeSchedule(currentScenario.getSchedule().getScheduleId());
                         this.result = ScenarioExecutionResult.TERMINATED;
+                        this.finalizeSchedule(currentScenario, Set.of(new DeadlockPredicate(currentScenario)));
                         break;
                     }
 
                     long numEvents = currentScenario.getSchedule().getLength();
-                    //long terminationSamplingFreq = this.getCampaign().getTermination().getSamplingFrequency();
-                    boolean shouldCheckTermination = true;//(numEvents % terminationSamplingFreq) == 0;
 
                     // if the invariants do not hold, terminate the run
                     if (!currentScenario.invariantsHold()) {
@@ -204,41 +290,44 @@ public class CampaignService {
                         break;
                     }
 
-                    //log.info("Decision: " + decision.get());
-                    //log.info("Num events: " + numEvents);
-                    //log.info("Should check termination: " + shouldCheckTermination);
-
-                    if (shouldCheckTermination) {
-                        /*
-                        OptionalLong maxDeliveredRound = currentScenario.getTransport()
-                                .getEventsInState(Event.Status.DELIVERED)
-                                .stream()
-                                .filter(MessageWithRound.class::isInstance)
-                                .map(MessageWithRound.class::cast)
-                                .mapToLong(MessageWithRound::getByzzFuzzRound)
-                                .max();
-
-                        OptionalLong minQueuedRound = currentScenario.getTransport()
-                                .getEventsInState(Event.Status.QUEUED)
-                                .stream()
-                                .filter(MessageWithRound.class::isInstance)
-                                .map(MessageWithRound.class::cast)
-                                .mapToLong(MessageWithRound::getByzzFuzzRound)
-                                .min();
-                        long currentRound = minQueuedRound.orElse(maxDeliveredRound.orElse(0));
-                        */
-
-                        //log.info("Current round: " + currentRound);
-                        //log.info("Max round: " + maxDeliveredRound.orElse(0));
-                        //log.info("Min round: " + this.getCampaign().getTermination().getMinRounds());
-
-                        if (numEvents >= this.getCampaign().getTermination().getMinEvents() + this.getCampaign().getTermination().getGstGracePeriod()
-                            /*&& currentRound >= this.getCampaign().getTermination().getMinRounds()*/) {
-                            log.info("Reached min # of events or rounds for this run, terminating. . .");
-                            this.result = ScenarioExecutionResult.CORRECT;
-                            this.finalizeSchedule(currentScenario, Collections.emptySet());
+                    /*
+                    OptionalLong maxDeliveredRound = currentScenario.getTransport()
+                            .getEventsInState(Event.Status.DELIVERED)
+                            .stream()
+                            .filter(MessageWithRound.class::isInstance)
+                            .map(MessageWithRound.class::cast)
+                            .mapToLong(MessageWithRound::getByzzFuzzRound)
+                            .max();
+
+                    OptionalLong minQueuedRound = currentScenario.getTransport()
+                            .getEventsInState(Event.Status.QUEUED)
+                            .stream()
+                            .filter(MessageWithRound.class::isInstance)
+                            .map(MessageWithRound.class::cast)
+                            .mapToLong(MessageWithRound::getByzzFuzzRound)
+                            .min();
+                    long currentRound = minQueuedRound.orElse(maxDeliveredRound.orElse(0));
+                    */
+
+                    //log.info("Current round: " + currentRound);
+                    //log.info("Max round: " + maxDeliveredRound.orElse(0));
+                    //log.info("Min round: " + this.getCampaign().getTermination().getMinRounds());
+
+                    if (numEvents >= this.getCampaign().getTermination().getMinEvents() + this.getCampaign().getTermination().getGstGracePeriod()
+                        /*&& currentRound >= this.getCampaign().getTermination().getMinRounds()*/) {
+                        // expensive invariants may not have been evaluated at this step: check them all
+                        Set<ScenarioPredicate> unsatisfied = currentScenario.unsatisfiedInvariants();
+                        if (!unsatisfied.isEmpty()) {
+                            log.info("Invariants do not hold, terminating. . .");
+                            this.result = ScenarioExecutionResult.TERMINATED;
+                            this.finalizeSchedule(currentScenario, unsatisfied);
                             break;
                         }
+
+                        log.info("Reached min # of events or rounds for this run, terminating. . .");
+                        this.result = ScenarioExecutionResult.CORRECT;
+                        this.finalizeSchedule(currentScenario, Collections.emptySet());
+                        break;
                     }
                 }
             } catch (Exception e) {
@@ -247,9 +336,12 @@ public class CampaignService {
                 this.finalizeSchedule(currentScenario, Set.of(new ErroredPredicate(currentScenario)));
                 this.result = ScenarioExecutionResult.ERRORED;
             } finally {
-                this.campaign.processScenarioResult(this.result);
-                campaignRepository.save(campaign);
+                if (!paused) {
+                    this.campaign.processScenarioResult(this.result);
+                    persistenceService.recordResult(campaign, this.result);
+                }
             }
+            return !paused;
         }
     }
 }
@@ -0,0 +1,295 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.config.ScheduleCacheConfig;
+import byzzbench.simulator.domain.Schedule;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A bounded cache of the schedules with a materialized scenario, in least-recently-used order.
+ * <p>
+ * When there are more than {@link ScheduleCacheConfig#getMaxSchedules()} schedules, or their
+ * total weight (number of transport events) exceeds {@link ScheduleCacheConfig#getMaxWeight()},
+ * the least recently used ones are evicted: they are handed to the spill callback, which
+ * persists them, and dropped from memory. Evicted schedules are remembered, so they can be
+ * re-materialized when accessed again.
+ * <p>
+ * Pinned schedules (e.g. those being run by a campaign) are never evicted.
+ */
+public class MaterializedScheduleCache {
+    /**
+     * The cached schedules, by id, from least to most recently used.
+     */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The ids of the schedules that were evicted and not re-materialized since.
+     */
+    private final Set<Long> evictedIds = new HashSet<>();
+
+    /**
+     * The cache configuration.
+     */
+    private final ScheduleCacheConfig config;
+
+    /**
+     * Persists an evicted schedule.
+     */
+    private final Consumer<Schedule> spill;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param config The cache configuration.
+     * @param spill  Persists the evicted schedules.
+     */
+    public MaterializedScheduleCache(ScheduleCacheConfig config, Consumer<Schedule> spill) {
+        if (config.getMaxSchedules() < 0 || config.getMaxWeight() < 0) {
+            throw new IllegalArgumentException("Invalid schedule cache configuration: " + config);
+        }
+        this.config = config;
+        this.spill = spill;
+    }
+
+    /**
+     * The weight of a schedule: the number of events of its scenario.
+     */
+    private static long weight(Schedule schedule) {
+        return schedule.isMaterialized() ? schedule.getScenario().getTransport().getEvents().size() : 0;
+    }
+
+    /**
+     * Adds a schedule to the cache, evicting the least recently used schedules if the cache is full.
+     *
+     * @param schedule The schedule.
+     * @param pinned   Whether the schedule must not be evicted until it is {@link #unpin unpinned}.
+     */
+    public void put(Schedule schedule, boolean pinned) {
+        List<Schedule> evicted;
+        synchronized (this) {
+            this.entries.put(schedule.getScheduleId(), new Entry(schedule, pinned));
+            this.evictedIds.remove(schedule.getScheduleId());
+            evicted = this.evictIfFull();
+        }
+        evicted.forEach(this.spill);
+    }
+
+    /**
+     * Gets a cached schedule, marking it as the most recently used.
+     *
+     * @param scheduleId The id of the schedule.
+     * @return The schedule, or null if it is not cached.
+     */
+    public synchronized Schedule get(long scheduleId) {
+        Entry entry = this.entries.get(scheduleId);
+        if (entry != null) {
+            this.hits++;
+            return entry.schedule;
+        }
+        if (this.evictedIds.contains(scheduleId)) {
+            this.misses++;
+        }
+        return null;
+    }
+
+    /**
+     * Gets a cached schedule, without marking it as used or counting the access.
+     *
+     * @param scheduleId The id of the schedule.
+     * @return The schedule, or null if it is not cached.
+     */
+    public synchronized Schedule peek(long scheduleId) {
+        Entry entry = this.entries.get(scheduleId);
+        return entry == null ? null : entry.schedule;
+    }
+
+    /**
+     * Removes a schedule from the cache, without spilling it.
+     *
+     * @param scheduleId The id of the schedule.
+     * @return The removed schedule, or null if it was not cached.
+     */
+    public synchronized Schedule remove(long scheduleId) {
+        Entry entry = this.entries.remove(scheduleId);
+        return entry == null ? null : entry.schedule;
+    }
+
+    /**
+     * Allows a cached schedule to be evicted, evicting schedules if the cache is full.
+     *
+     * @param scheduleId The id of the schedule.
+     */
+    public void unpin(long scheduleId) {
+        List<Schedule> evicted;
+        synchronized (this) {
+            Entry entry = this.entries.get(scheduleId);
+            if (entry == null || !entry.pinned) {
+                return;
+            }
+            entry.pinned = false;
+            evicted = this.evictIfFull();
+        }
+        evicted.forEach(this.spill);
+    }
+
+    /**
+     * Checks whether a cached schedule is pinned.
+     *
+     * @param scheduleId The id of the schedule.
+     * @return True if the schedule is cached and pinned.
+     */
+    public synchronized boolean isPinned(long scheduleId) {
+        Entry entry = this.entries.get(scheduleId);
+        return entry != null && entry.pinned;
+    }
+
+    /**
+     * Checks whether a schedule was evicted from the cache, and not re-materialized since.
+     *
+     * @param scheduleId The id of the schedule.
+     * @return True if the schedule was evicted.
+     */
+    public synchronized boolean isEvicted(long scheduleId) {
+        return this.evictedIds.contains(scheduleId);
+    }
+
+    /**
+     * Evicts all schedules that are not pinned.
+     */
+    public void evictAll() {
+        List<Schedule> evicted = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> it = this.entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (!entry.pinned) {
+                    it.remove();
+                    evicted.add(this.evicted(entry.schedule));
+                }
+            }
+        }
+        evicted.forEach(this.spill);
+    }
+
+    /**
+     * Gets the cached schedules, by id.
+     *
+     * @return A copy of the cached schedules, from least to most recently used.
+     */
+    public synchronized Map<Long, Schedule> asMap() {
+        Map<Long, Schedule> schedules = new LinkedHashMap<>();
+        this.entries.forEach((id, entry) -> schedules.put(id, entry.schedule));
+        return schedules;
+    }
+
+    /**
+     * Removes all schedules from the cache, without spilling them.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.evictedIds.clear();
+    }
+
+    /**
+     * Gets the usage statistics of the cache.
+     *
+     * @return The statistics.
+     */
+    public synchronized Stats getStats() {
+        long weight = this.entries.values().stream().mapToLong(entry -> weight(entry.schedule)).sum();
+        int pinned = (int) this.entries.values().stream().filter(entry -> entry.pinned).count();
+        return new Stats(this.entries.size(), pinned, weight, this.evictedIds.size(), this.hits, this.misses, this.evictions);
+    }
+
+    /**
+     * Evicts the least recently used schedules that are not pinned, until the cache is within its bounds.
+     *
+     * @return The evicted schedules, to spill.
+     */
+    private List<Schedule> evictIfFull() {
+        int maxSchedules = this.config.getMaxSchedules();
+        long maxWeight = this.config.getMaxWeight();
+        long weight = maxWeight == 0 ? 0 : this.entries.values().stream().mapToLong(entry -> weight(entry.schedule)).sum();
+
+        List<Schedule> evicted = new ArrayList<>();
+        Iterator<Entry> it = this.entries.values().iterator();
+        while (it.hasNext()
+                && ((maxSchedules > 0 && this.entries.size() > maxSchedules) || (maxWeight > 0 && weight > maxWeight))) {
+            Entry entry = it.next();
+            if (!entry.pinned) {
+                weight -= weight(entry.schedule);
+                it.remove();
+                evicted.add(this.evicted(entry.schedule));
+            }
+        }
+        return evicted;
+    }
+
+    private Schedule evicted(Schedule schedule) {
+        this.evictions++;
+        this.evictedIds.add(schedule.getScheduleId());
+        return schedule;
+    }
+
+    /**
+     * A cached schedule.
+     */
+    private static class Entry {
+        private final Schedule schedule;
+        private boolean pinned;
+
+        Entry(Schedule schedule, boolean pinned) {
+            this.schedule = schedule;
+            this.pinned = pinned;
+        }
+    }
+
+    /**
+     * Usage statistics of the cache.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Stats {
+        /**
+         * The number of cached schedules.
+         */
+        private final int size;
+
+        /**
+         * The number of cached schedules that are pinned.
+         */
+        private final int pinned;
+
+        /**
+         * The total weight (number of transport events) of the cached schedules.
+         */
+        private final long weight;
+
+        /**
+         * The number of evicted schedules that were not re-materialized.
+         */
+        private final int evicted;
+
+        /**
+         * The number of accesses to cached schedules.
+         */
+        private final long hits;
+
+        /**
+         * The number of accesses to evicted schedules.
+         */
+        private final long misses;
+
+        /**
+         * The number of schedules evicted.
+         */
+        private final long evictions;
+    }
+}
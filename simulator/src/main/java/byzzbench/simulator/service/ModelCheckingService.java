@@ -0,0 +1,392 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.ScenarioFingerprinter;
+import byzzbench.simulator.ScenarioPredicate;
+import byzzbench.simulator.config.CheckpointConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.domain.TriggerTimeoutAction;
+import byzzbench.simulator.transport.EnabledEvents;
+import byzzbench.simulator.utils.OffHeapLongHashSet;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Exhaustive, stateful exploration of the schedules of small scenarios.
+ * <p>
+ * Starting right after the setup of a scenario, every enabled message delivery and timeout is
+ * explored, breadth-first or depth-first, up to a maximum depth. The state reached by each step
+ * is hashed into a 64-bit {@link ScenarioFingerprinter fingerprint}: states whose fingerprint
+ * was already visited are not explored again. The fingerprints are kept in an
+ * {@link OffHeapLongHashSet off-heap table}, which can hold hundreds of millions of states.
+ * The scenario backtracks by restoring its checkpoints.
+ * <p>
+ * The search stops at the first state that violates an invariant: the schedule that reached
+ * it is stored as a regular {@link Schedule}, which can be replayed like any other. Faults,
+ * drops and mutations are not explored.
+ */
+@Service
+@RequiredArgsConstructor
+@Log
+public class ModelCheckingService {
+    private final ScenarioService scenarioService;
+    private final PersistenceService persistenceService;
+
+    /**
+     * Explores the schedules of a new scenario, and stores the counterexample, if any.
+     *
+     * @param parameters the parameters of the scenario
+     * @param options    the options of the search
+     * @return the result of the search
+     * @throws IllegalArgumentException if the scenario id is unknown, or the options are invalid
+     */
+    public ModelCheckingResult check(ScenarioParameters parameters, Options options) {
+        Scenario scenario = this.scenarioService.createScenario(new Schedule(parameters));
+        ModelCheckingResult result = check(scenario, options);
+        Schedule counterexample = result.getCounterexample();
+        if (counterexample != null) {
+            this.persistenceService.storeSchedule(this.persistenceService.assignScheduleId(counterexample));
+            log.info("Stored counterexample as schedule " + counterexample.getScheduleId());
+        }
+        return result;
+    }
+
+    /**
+     * Explores the schedules of a scenario, from its current state.
+     *
+     * @param scenario the scenario
+     * @param options  the options of the search
+     * @return the result of the search, with the counterexample not yet stored
+     * @throws IllegalArgumentException if the options are invalid
+     */
+    public static ModelCheckingResult check(Scenario scenario, Options options) {
+        if (options.getMaxDepth() < 1 || options.getMaxStates() < 1 || options.getCheckpointInterval() < 1) {
+            throw new IllegalArgumentException("Invalid model checking options: " + options);
+        }
+
+        CheckpointConfig checkpoints = new CheckpointConfig();
+        checkpoints.setInterval(options.getCheckpointInterval());
+        checkpoints.setMaxCheckpoints(Math.max(checkpoints.getMaxCheckpoints(), options.getMaxDepth() / options.getCheckpointInterval() + 2));
+        scenario.getCheckpoints().configure(checkpoints);
+        scenario.getCheckpoints().checkpoint();
+
+        Search search = new Search(scenario, options);
+        long start = System.nanoTime();
+        boolean complete = switch (options.getOrder()) {
+            case BFS -> search.breadthFirst();
+            case DFS -> search.depthFirst();
+        };
+
+        Schedule counterexample = search.counterexample();
+        return ModelCheckingResult.builder()
+                .order(options.getOrder())
+                .maxDepth(options.getMaxDepth())
+                .complete(complete && counterexample == null)
+                .numStates(search.visited.size())
+                .numTransitions(search.numTransitions)
+                .numRevisits(search.numRevisits)
+                .depthReached(search.depthReached)
+                .counterexample(counterexample)
+                .counterexampleLength(counterexample == null ? 0 : counterexample.getActions().size())
+                .violatedInvariants(search.violated)
+                .tableMemoryBytes(search.visited.getMemoryBytes())
+                .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                .build();
+    }
+
+    /**
+     * The state of a search over the schedules of a scenario.
+     */
+    private static class Search {
+        private final Scenario scenario;
+        private final Options options;
+        private final OffHeapLongHashSet visited;
+        private final int rootStep;
+        private long numTransitions;
+        private long numRevisits;
+        private int depthReached;
+        private SortedSet<String> violated = new TreeSet<>();
+        private Set<ScenarioPredicate> violatedInvariants = Set.of();
+
+        private Search(Scenario scenario, Options options) {
+            this.scenario = scenario;
+            this.options = options;
+            this.visited = new OffHeapLongHashSet(options.getExpectedStates());
+            this.rootStep = scenario.getSchedule().getActions().size();
+        }
+
+        /**
+         * Explores the states level by level. Each state of the frontier is kept as the path that
+         * reaches it, and re-reached by replaying that path from the latest checkpoint.
+         *
+         * @return true if every state up to the maximum depth was explored
+         */
+        private boolean breadthFirst() {
+            if (!this.visitRoot()) {
+                return true;
+            }
+            Deque<List<Action>> frontier = new ArrayDeque<>();
+            frontier.add(List.of());
+            while (!frontier.isEmpty()) {
+                List<Action> path = frontier.poll();
+                if (path.size() >= this.options.getMaxDepth()) {
+                    continue;
+                }
+                this.restore(path);
+                int step = this.scenario.getSchedule().getActions().size();
+                this.scenario.getCheckpoints().checkpoint();
+                for (Action action : this.enabledActions()) {
+                    if (this.visited.size() >= this.options.getMaxStates()) {
+                        return false;
+                    }
+                    if (this.scenario.getSchedule().getActions().size() != step) {
+                        this.scenario.restoreToStep(step);
+                    }
+                    List<Action> next = new ArrayList<>(path);
+                    next.add(action);
+                    switch (this.step(action, next.size())) {
+                        case NEW -> frontier.add(next);
+                        case VIOLATION -> {
+                            return true;
+                        }
+                        case REVISIT -> {
+                            // already explored
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Explores the states depth-first, backtracking to the checkpoint before each alternative.
+         *
+         * @return true if every state up to the maximum depth was explored
+         */
+        private boolean depthFirst() {
+            if (!this.visitRoot()) {
+                return true;
+            }
+            Deque<Frame> stack = new ArrayDeque<>();
+            stack.push(new Frame(this.rootStep, this.enabledActions().iterator()));
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                int depth = frame.step - this.rootStep;
+                if (depth >= this.options.getMaxDepth() || !frame.actions.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                if (this.visited.size() >= this.options.getMaxStates()) {
+                    return false;
+                }
+
+                Action action = frame.actions.next();
+                if (this.scenario.getSchedule().getActions().size() != frame.step) {
+                    this.scenario.restoreToStep(frame.step);
+                }
+                this.scenario.getCheckpoints().checkpointIfDue();
+                switch (this.step(action, depth + 1)) {
+                    case NEW -> stack.push(new Frame(frame.step + 1, this.enabledActions().iterator()));
+                    case VIOLATION -> {
+                        return true;
+                    }
+                    case REVISIT -> {
+                        // already explored
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Visits the initial state.
+         *
+         * @return true if the initial state satisfies the invariants
+         */
+        private boolean visitRoot() {
+            this.visited.add(ScenarioFingerprinter.fingerprint(this.scenario));
+            return this.checkInvariants();
+        }
+
+        /**
+         * Applies an action, and visits the state it reaches.
+         */
+        private Outcome step(Action action, int depth) {
+            action.accept(this.scenario);
+            this.numTransitions++;
+            if (!this.visited.add(ScenarioFingerprinter.fingerprint(this.scenario))) {
+                this.numRevisits++;
+                return Outcome.REVISIT;
+            }
+            this.depthReached = Math.max(this.depthReached, depth);
+            return this.checkInvariants() ? Outcome.NEW : Outcome.VIOLATION;
+        }
+
+        private boolean checkInvariants() {
+            if (this.scenario.invariantsHold()) {
+                return true;
+            }
+            this.violatedInvariants = this.scenario.unsatisfiedInvariants();
+            this.violatedInvariants.forEach(invariant -> this.violated.add(invariant.getId()));
+            return false;
+        }
+
+        /**
+         * Restores the scenario to the state reached by a path from the initial state.
+         */
+        private void restore(List<Action> path) {
+            this.scenario.restoreToStep(this.rootStep);
+            for (Action action : path) {
+                this.scenario.getCheckpoints().checkpointIfDue();
+                action.accept(this.scenario);
+            }
+        }
+
+        /**
+         * Gets the actions enabled in the current state: the message deliveries and timeouts.
+         */
+        private List<Action> enabledActions() {
+            EnabledEvents enabled = this.scenario.getTransport().getEnabledEvents();
+            List<Action> actions = new ArrayList<>();
+            enabled.getDeliverableMessages(this.scenario.getExecutionMode()).forEach(event -> actions.add(DeliverMessageAction.fromEvent(event)));
+            enabled.getTriggerableTimeouts(this.scenario.getExecutionMode()).forEach(event -> actions.add(TriggerTimeoutAction.fromEvent(event)));
+            return actions;
+        }
+
+        /**
+         * Builds the schedule that reached the violation, from the setup of the scenario.
+         */
+        private Schedule counterexample() {
+            if (this.violated.isEmpty()) {
+                return null;
+            }
+            Schedule schedule = new Schedule(this.scenario.getSchedule().getParameters());
+            schedule.setCampaign(this.scenario.getSchedule().getCampaign());
+            List.copyOf(this.scenario.getSchedule().getActions()).forEach(schedule::appendAction);
+            schedule.finalizeSchedule(this.violatedInvariants);
+            return schedule;
+        }
+    }
+
+    private record Frame(int step, Iterator<Action> actions) {
+    }
+
+    private enum Outcome {
+        NEW, REVISIT, VIOLATION
+    }
+
+    /**
+     * The order in which states are explored.
+     */
+    public enum SearchOrder {
+        /**
+         * Breadth-first: finds the shortest counterexample, but keeps the whole frontier in memory.
+         */
+        BFS,
+        /**
+         * Depth-first: only keeps the current path in memory. With a depth bound, a state first
+         * reached by a longer path is not explored again from a shorter one, so states near the
+         * bound may be missed.
+         */
+        DFS
+    }
+
+    /**
+     * The options of a search.
+     */
+    @Getter
+    @Builder
+    public static class Options {
+        @Builder.Default
+        private final SearchOrder order = SearchOrder.DFS;
+
+        /**
+         * The maximum number of steps from the initial state.
+         */
+        @Builder.Default
+        private final int maxDepth = 32;
+
+        /**
+         * The maximum number of distinct states to visit.
+         */
+        @Builder.Default
+        private final long maxStates = 1_000_000;
+
+        /**
+         * The number of states the visited-state table is sized for, before growing.
+         */
+        @Builder.Default
+        private final long expectedStates = 1 << 16;
+
+        /**
+         * The number of steps between checkpoints along the explored paths.
+         */
+        @Builder.Default
+        private final int checkpointInterval = 4;
+
+        @Override
+        public String toString() {
+            return "Options(order=" + this.order + ", maxDepth=" + this.maxDepth + ", maxStates=" + this.maxStates
+                    + ", expectedStates=" + this.expectedStates + ", checkpointInterval=" + this.checkpointInterval + ")";
+        }
+    }
+
+    /**
+     * The result of a search.
+     */
+    @Getter
+    @Builder
+    public static class ModelCheckingResult {
+        private final SearchOrder order;
+        private final int maxDepth;
+
+        /**
+         * Whether every state up to the maximum depth was explored without finding a violation.
+         */
+        private final boolean complete;
+
+        /**
+         * The number of distinct states visited, including the initial state.
+         */
+        private final long numStates;
+
+        /**
+         * The number of steps taken, and how many of them reached a state already visited.
+         */
+        private final long numTransitions;
+        private final long numRevisits;
+        private final int depthReached;
+
+        /**
+         * The ids of the invariants violated by the counterexample, if any.
+         */
+        private final SortedSet<String> violatedInvariants;
+
+        /**
+         * The schedule that reached the violation, if any.
+         */
+        @JsonIgnore
+        private final Schedule counterexample;
+        private final int counterexampleLength;
+        private final long tableMemoryBytes;
+        private final long elapsedMillis;
+
+        /**
+         * Gets the id of the stored counterexample.
+         *
+         * @return the id of the schedule, or null if there is no counterexample
+         */
+        public Long getCounterexampleScheduleId() {
+            return this.counterexample == null ? null : this.counterexample.getScheduleId();
+        }
+    }
+}
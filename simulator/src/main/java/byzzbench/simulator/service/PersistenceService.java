@@ -0,0 +1,388 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.config.PersistenceConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.Campaign;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.repository.CampaignRepository;
+import byzzbench.simulator.repository.ScheduleRepository;
+import byzzbench.simulator.utils.serialization.BinaryScheduleCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence of schedules and campaign results.
+ * <p>
+ * Schedule ids are assigned in memory, so a new schedule needs no database round-trip before
+ * it is stored. Stored schedules are put in a bounded queue, which a background writer drains
+ * in batches: each batch is saved in a single transaction, and new schedules are inserted
+ * rather than merged, so the inserts of a batch go out as JDBC batches. The actions of a schedule
+ * are written as a single column, in their {@link BinaryScheduleCodec binary encoding}. Only the
+ * actions a schedule owns are written: the prefix a forked schedule shares with its parent is
+ * persisted once, with the parent. The fork ancestors of a schedule are stored along with the
+ * first of their descendants that is stored, so every persisted schedule can be rebuilt.
+ * <p>
+ * Campaign results are accumulated in memory, and added to the campaign counters with a
+ * single update, without loading the campaign and its schedules.
+ * <p>
+ * A batch that fails to persist is retried a bounded number of times, waiting longer after
+ * each attempt. Schedules that still fail are given up on, and counted as failed.
+ * <p>
+ * Everything pending is written before the application shuts down.
+ */
+@Service
+@RequiredArgsConstructor
+@Log
+public class PersistenceService {
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final ByzzBenchConfig byzzBenchConfig;
+    private final ScheduleRepository scheduleRepository;
+    private final CampaignRepository campaignRepository;
+
+    /**
+     * The results of each campaign not persisted yet, by campaign id.
+     */
+    private final Map<Long, long[]> pendingResults = new ConcurrentHashMap<>();
+
+    /**
+     * The schedules not persisted yet, by id.
+     */
+    private final Map<Long, Schedule> pendingSchedules = new ConcurrentHashMap<>();
+
+    /**
+     * The ids of the fork ancestors stored so far, so each is stored once.
+     */
+    private final Set<Long> storedAncestors = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The number of schedules stored, the number of schedules persisted, and the number of
+     * schedules that could not be persisted.
+     */
+    private final AtomicLong numStored = new AtomicLong();
+    private final AtomicLong numPersisted = new AtomicLong();
+    private final AtomicLong numFailed = new AtomicLong();
+
+    /**
+     * The last schedule id assigned.
+     */
+    private final AtomicLong lastScheduleId = new AtomicLong();
+
+    /**
+     * The schedules waiting to be persisted.
+     */
+    private BlockingQueue<Schedule> queue;
+
+    /**
+     * The background writer, or null if schedules are persisted synchronously.
+     */
+    private Thread writer;
+
+    private volatile boolean running = false;
+
+    @PostConstruct
+    public void start() {
+        PersistenceConfig config = this.byzzBenchConfig.getPersistence();
+        if (config.getQueueCapacity() < 1 || config.getBatchSize() < 1 || config.getMaxRetries() < 0) {
+            throw new IllegalArgumentException("Invalid persistence configuration: " + config);
+        }
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.lastScheduleId.set(this.scheduleRepository.findMaxScheduleId());
+        if (config.isWriteBehind()) {
+            this.running = true;
+            this.writer = new Thread(this::drain, "schedule-writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Writes everything pending, and stops the background writer.
+     */
+    @PreDestroy
+    public void shutdown() {
+        this.running = false;
+        if (this.writer != null) {
+            try {
+                this.writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.writeQueued();
+        this.writeResults();
+        log.info("Persisted " + this.numPersisted.get() + " schedules, failed to persist " + this.numFailed.get());
+    }
+
+    /**
+     * Assigns a new id to a schedule, without a database round-trip.
+     *
+     * @param schedule the schedule
+     * @return the schedule
+     */
+    public Schedule assignScheduleId(Schedule schedule) {
+        schedule.setScheduleId(this.lastScheduleId.incrementAndGet());
+        return schedule;
+    }
+
+    /**
+     * Persists a schedule, in the background if write-behind is enabled. Blocks while the
+     * queue of schedules waiting to be persisted is full.
+     * <p>
+     * The schedules it was forked from are persisted too, unless they already were: a forked
+     * schedule only persists its own actions, and is rebuilt from the actions of its ancestors.
+     *
+     * @param schedule the schedule
+     */
+    public void storeSchedule(Schedule schedule) {
+        Deque<Schedule> ancestors = new ArrayDeque<>();
+        for (Schedule ancestor = schedule.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            // the ancestors of a stored ancestor were stored with it
+            if (!this.storedAncestors.add(ancestor.getScheduleId())) {
+                break;
+            }
+            ancestors.push(ancestor);
+        }
+        // parents first, so each row is inserted after the row it refers to
+        ancestors.forEach(this::enqueue);
+        this.enqueue(schedule);
+    }
+
+    /**
+     * Persists a single schedule, in the background if write-behind is enabled.
+     *
+     * @param schedule the schedule
+     */
+    private void enqueue(Schedule schedule) {
+        this.numStored.incrementAndGet();
+        if (!this.running) {
+            this.write(List.of(schedule));
+            return;
+        }
+
+        this.pendingSchedules.put(schedule.getScheduleId(), schedule);
+        try {
+            this.queue.put(schedule);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.write(List.of(schedule));
+        }
+    }
+
+    /**
+     * Records the result of a scenario of a campaign, to be added to the campaign counters.
+     *
+     * @param campaign the campaign
+     * @param result   the result of the scenario
+     */
+    public void recordResult(Campaign campaign, CampaignService.ScenarioExecutionResult result) {
+        this.pendingResults.compute(campaign.getCampaignId(), (id, counts) -> {
+            long[] updated = counts == null ? new long[3] : counts;
+            switch (result) {
+                case TERMINATED -> updated[0]++;
+                case ERRORED -> updated[1]++;
+                case CORRECT -> updated[2]++;
+            }
+            return updated;
+        });
+        if (!this.running) {
+            this.writeResults();
+        }
+    }
+
+    /**
+     * Gets a schedule that was stored but is not persisted yet.
+     *
+     * @param scheduleId the id of the schedule
+     * @return the schedule, or empty if it is not pending
+     */
+    public Optional<Schedule> getPendingSchedule(long scheduleId) {
+        return Optional.ofNullable(this.pendingSchedules.get(scheduleId));
+    }
+
+    /**
+     * Blocks until everything stored so far is persisted, or given up on.
+     *
+     * @return the number of schedules that could not be persisted so far
+     */
+    public long flush() {
+        long target = this.numStored.get();
+        synchronized (this) {
+            while (this.running && this.numPersisted.get() + this.numFailed.get() < target) {
+                try {
+                    this.wait(POLL_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return this.numFailed.get();
+                }
+            }
+        }
+        this.writeQueued();
+        this.writeResults();
+        return this.numFailed.get();
+    }
+
+    /**
+     * Gets the number of schedules stored but neither persisted nor given up on yet.
+     *
+     * @return the number of pending schedules
+     */
+    public long getNumPending() {
+        return this.numStored.get() - this.numPersisted.get() - this.numFailed.get();
+    }
+
+    /**
+     * Gets the number of schedules that could not be persisted, after retrying.
+     *
+     * @return the number of failed schedules
+     */
+    public long getNumFailed() {
+        return this.numFailed.get();
+    }
+
+    /**
+     * The background writer loop: persists the queued schedules in batches, and the
+     * campaign results accumulated in the meantime.
+     */
+    private void drain() {
+        int batchSize = this.byzzBenchConfig.getPersistence().getBatchSize();
+        List<Schedule> batch = new ArrayList<>(batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                Schedule first = this.queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    this.queue.drainTo(batch, batchSize - 1);
+                    this.write(batch);
+                    batch.clear();
+                }
+                this.writeResults();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.severe("Failed to persist campaign results: " + e);
+            }
+        }
+    }
+
+    /**
+     * Persists the queued schedules on the calling thread.
+     */
+    private void writeQueued() {
+        int batchSize = this.byzzBenchConfig.getPersistence().getBatchSize();
+        List<Schedule> batch = new ArrayList<>(batchSize);
+        while (this.queue.drainTo(batch, batchSize) > 0) {
+            this.write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Persists a batch of schedules, retrying a bounded number of times if it fails. The
+     * schedules of a batch that still fails are counted as failed.
+     */
+    private void write(List<Schedule> batch) {
+        int maxRetries = this.byzzBenchConfig.getPersistence().getMaxRetries();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                this.writeBatch(batch);
+                batch.forEach(Schedule::markPersisted);
+                this.done(batch, this.numPersisted);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    log.severe("Failed to persist " + batch.size() + " schedules after " + (attempt + 1) + " attempts: " + e);
+                    this.done(batch, this.numFailed);
+                    return;
+                }
+                log.warning("Failed to persist " + batch.size() + " schedules, retrying: " + e);
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS * (attempt + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.severe("Interrupted while retrying to persist " + batch.size() + " schedules");
+                this.done(batch, this.numFailed);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Persists a batch of schedules in a single transaction. A schedule stored more than once
+     * is written once, and the views of forks refer to the views of their parents in the batch.
+     */
+    private void writeBatch(List<Schedule> batch) {
+        boolean payloads = this.byzzBenchConfig.getPersistence().isStorePayloads();
+        Map<Long, Schedule> views = new LinkedHashMap<>();
+        for (Schedule schedule : batch) {
+            views.put(schedule.getScheduleId(), ownView(schedule, payloads));
+        }
+        for (Schedule view : views.values()) {
+            if (view.getParent() != null) {
+                view.setParent(views.getOrDefault(view.getParent().getScheduleId(), view.getParent()));
+            }
+        }
+        this.scheduleRepository.saveAll(views.values());
+    }
+
+    /**
+     * Stops tracking a batch of schedules that was persisted or given up on.
+     *
+     * @param batch   the schedules
+     * @param counter the counter of the outcome of the batch
+     */
+    private void done(List<Schedule> batch, AtomicLong counter) {
+        batch.forEach(schedule -> this.pendingSchedules.remove(schedule.getScheduleId(), schedule));
+        counter.addAndGet(batch.size());
+        synchronized (this) {
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * Adds the accumulated results to the campaign counters.
+     */
+    private void writeResults() {
+        for (Long campaignId : List.copyOf(this.pendingResults.keySet())) {
+            long[] counts = this.pendingResults.remove(campaignId);
+            if (counts != null) {
+                this.campaignRepository.addResults(campaignId, counts[0], counts[1], counts[2]);
+            }
+        }
+    }
+
+    /**
+     * Creates a detached copy of a schedule holding only the encoding of the actions it owns,
+     * i.e. without the prefix shared with the schedule it was forked from.
+     */
+    private static Schedule ownView(Schedule schedule, boolean payloads) {
+        Schedule view = new Schedule(schedule.getParameters());
+        view.setScheduleId(schedule.getScheduleId());
+        if (!schedule.isNew()) {
+            view.markPersisted();
+        }
+        view.setName(schedule.getName());
+        view.setCampaign(schedule.getCampaign());
+        view.setParent(schedule.getParent());
+        view.setPrefixLength(schedule.getPrefixLength());
+        view.setBrokenInvariants(new TreeSet<>(schedule.getBrokenInvariants()));
+        schedule.getBrokenInvariants().forEach(invariant -> view.getBrokenInvariantIds().add(invariant.getId()));
+        List<Action> actions = List.copyOf(schedule.getActions());
+        int from = schedule.getParent() == null ? 0 : Math.min(schedule.getPrefixLength(), actions.size());
+        view.setEncodedActions(BinaryScheduleCodec.encodeActions(actions.subList(from, actions.size()), payloads));
+        return view;
+    }
+}
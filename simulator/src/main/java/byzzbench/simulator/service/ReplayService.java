@@ -0,0 +1,281 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.ScenarioPredicate;
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.state.ErroredPredicate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Headless replay engine, to re-validate stored schedules quickly.
+ * <p>
+ * Unlike {@link ScenarioService#generateScenario(Schedule)}, a replay does not persist or
+ * register anything, does not take checkpoints, and detaches the observers that only
+ * instrument the scenario (see {@link Scenario#detachInstrumentation()}). The invariants are
+ * only tested at the end of the schedule, and at the requested steps. Schedules are replayed
+ * concurrently on a pool of {@link ByzzBenchConfig#getReplayWorkers()} workers.
+ */
+@Service
+@RequiredArgsConstructor
+@Log
+public class ReplayService {
+    private final ByzzBenchConfig byzzBenchConfig;
+    private final ScenarioService scenarioService;
+
+    /**
+     * Worker pool on which the schedules are replayed.
+     */
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        int workers = byzzBenchConfig.getReplayWorkers() > 0
+                ? byzzBenchConfig.getReplayWorkers()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Replay a schedule, testing the invariants at the end and at the given steps.
+     *
+     * @param schedule   the schedule to replay
+     * @param checkSteps the steps (number of actions applied) at which to also test the invariants
+     * @return the result of the replay
+     */
+    public ReplayResult replay(Schedule schedule, Set<Integer> checkSteps) {
+        List<Action> actions = List.copyOf(schedule.getActions());
+        SortedSet<String> expected = schedule.getBrokenInvariants().stream()
+                .map(ScenarioPredicate::getId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        SortedMap<Integer, SortedSet<String>> violations = new TreeMap<>();
+        ReplayResult.ReplayResultBuilder result = ReplayResult.builder()
+                .scheduleId(schedule.getScheduleId())
+                .expectedInvariants(expected)
+                .violations(violations);
+
+        long start = System.nanoTime();
+        int step = 0;
+        try {
+            // replay onto a fresh schedule, so the replayed schedule is left untouched
+            Schedule replaySchedule = new Schedule(schedule.getParameters());
+            replaySchedule.setCampaign(schedule.getCampaign());
+            Scenario scenario = scenarioService.createScenario(replaySchedule);
+            scenario.detachInstrumentation();
+
+            for (; step < actions.size(); step++) {
+                if (checkSteps.contains(step)) {
+                    this.testInvariants(scenario, step, violations);
+                }
+                actions.get(step).accept(scenario);
+            }
+            SortedSet<String> violated = this.testInvariants(scenario, step, violations);
+            result.violatedInvariants(violated)
+                    .status(violated.equals(expected) ? ReplayStatus.REPRODUCED : ReplayStatus.NOT_REPRODUCED);
+        } catch (RuntimeException e) {
+            log.fine(() -> "Replay of schedule " + schedule.getScheduleId() + " failed: " + e);
+            SortedSet<String> violated = new TreeSet<>(Set.of(new ErroredPredicate(null).getId()));
+            result.violatedInvariants(violated)
+                    .error(e.toString())
+                    .status(violated.equals(expected) ? ReplayStatus.REPRODUCED : ReplayStatus.ERRORED);
+        }
+        return result.numActions(step)
+                .durationNanos(System.nanoTime() - start)
+                .build();
+    }
+
+    /**
+     * Replay schedules concurrently, testing the invariants at the end of each schedule and at
+     * the given steps.
+     *
+     * @param schedules  the schedules to replay
+     * @param checkSteps the steps (number of actions applied) at which to also test the invariants
+     * @return the report of the replays, with the results in the order of the schedules
+     */
+    public ReplayReport replayAll(Collection<Schedule> schedules, Set<Integer> checkSteps) {
+        long start = System.nanoTime();
+        List<Future<ReplayResult>> futures = schedules.stream()
+                .map(schedule -> this.executor.submit(() -> this.replay(schedule, checkSteps)))
+                .toList();
+
+        List<ReplayResult> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<ReplayResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while replaying schedules", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to replay schedules", e.getCause());
+        }
+        return new ReplayReport(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Tests each invariant of the scenario, recording the violated ones at the given step.
+     *
+     * @return the ids of the violated invariants
+     */
+    private SortedSet<String> testInvariants(Scenario scenario, int step, SortedMap<Integer, SortedSet<String>> violations) {
+        SortedSet<String> violated = new TreeSet<>();
+        for (ScenarioPredicate invariant : scenario.getInvariants()) {
+            if (!invariant.test(scenario)) {
+                violated.add(invariant.getId());
+            }
+        }
+        if (!violated.isEmpty()) {
+            violations.put(step, violated);
+        }
+        return violated;
+    }
+
+    public enum ReplayStatus {
+        /**
+         * The replay violated exactly the invariants recorded in the schedule.
+         */
+        REPRODUCED,
+        /**
+         * The replay violated different invariants than those recorded in the schedule.
+         */
+        NOT_REPRODUCED,
+        /**
+         * The replay failed with an error that was not recorded in the schedule.
+         */
+        ERRORED
+    }
+
+    /**
+     * The result of replaying a schedule.
+     */
+    @Getter
+    @Builder
+    public static class ReplayResult {
+        /**
+         * The id of the replayed schedule.
+         */
+        private final long scheduleId;
+
+        /**
+         * Whether the replay reproduced the outcome recorded in the schedule.
+         */
+        private final ReplayStatus status;
+
+        /**
+         * The ids of the invariants recorded as broken in the schedule.
+         */
+        private final SortedSet<String> expectedInvariants;
+
+        /**
+         * The ids of the invariants violated at the end of the replay.
+         */
+        private final SortedSet<String> violatedInvariants;
+
+        /**
+         * The ids of the violated invariants at each tested step where some were violated.
+         */
+        private final SortedMap<Integer, SortedSet<String>> violations;
+
+        /**
+         * The error that interrupted the replay, if any.
+         */
+        private final String error;
+
+        /**
+         * The number of actions replayed.
+         */
+        private final int numActions;
+
+        /**
+         * The time taken by the replay, in nanoseconds.
+         */
+        private final long durationNanos;
+
+        /**
+         * Get the replay throughput.
+         *
+         * @return the number of actions replayed per second
+         */
+        public double getActionsPerSecond() {
+            return durationNanos == 0 ? 0 : numActions * 1e9 / durationNanos;
+        }
+    }
+
+    /**
+     * The results of replaying several schedules.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class ReplayReport {
+        /**
+         * The result of each replay.
+         */
+        private final List<ReplayResult> results;
+
+        /**
+         * The wall-clock time taken by all the replays, in nanoseconds.
+         */
+        private final long durationNanos;
+
+        /**
+         * Get the number of replays with the given status.
+         *
+         * @param status the status
+         * @return the number of replays with that status
+         */
+        public long count(ReplayStatus status) {
+            return results.stream().filter(result -> result.getStatus() == status).count();
+        }
+
+        /**
+         * Get the number of replays with each status.
+         *
+         * @return the number of replays by status
+         */
+        public Map<ReplayStatus, Long> getStatusCounts() {
+            Map<ReplayStatus, Long> counts = new EnumMap<>(ReplayStatus.class);
+            for (ReplayStatus status : ReplayStatus.values()) {
+                counts.put(status, this.count(status));
+            }
+            return counts;
+        }
+
+        /**
+         * Get the total number of actions replayed.
+         *
+         * @return the number of actions
+         */
+        public long getNumActions() {
+            return results.stream().mapToLong(ReplayResult::getNumActions).sum();
+        }
+
+        /**
+         * Get the overall replay throughput, across all workers.
+         *
+         * @return the number of actions replayed per second of wall-clock time
+         */
+        public double getActionsPerSecond() {
+            return durationNanos == 0 ? 0 : this.getNumActions() * 1e9 / durationNanos;
+        }
+    }
+}
@@ -2,13 +2,14 @@ package byzzbench.simulator.service;
 
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.config.EventArchiveConfig;
 import byzzbench.simulator.domain.Action;
 import byzzbench.simulator.domain.Campaign;
 import byzzbench.simulator.domain.ScenarioParameters;
 import byzzbench.simulator.domain.Schedule;
 import byzzbench.simulator.repository.ScheduleRepository;
+import byzzbench.simulator.transport.EventArchive;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
@@ -18,6 +19,7 @@ import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.stereotype.Service;
 
 import java.lang.reflect.Constructor;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -39,6 +41,11 @@ public class ScenarioService {
      */
     private final ScheduleRepository scheduleRepository;
 
+    /**
+     * Background persistence of schedules
+     */
+    private final PersistenceService persistenceService;
+
     /**
      * Map of scenario classnames to their respective classes
      */
@@ -47,11 +54,12 @@ public class ScenarioService {
     /**
      * The schedules that are currently active (with an active simulation in memory)
      */
-    @Getter
-    private final Map<Long, Schedule> activeSchedules = new HashMap<>();
+    private MaterializedScheduleCache activeSchedules;
 
     @PostConstruct
     public void onStartup() {
+        this.activeSchedules = new MaterializedScheduleCache(this.byzzBenchConfig.getScheduleCache(), this::spillSchedule);
+
         ClassPathScanningCandidateComponentProvider provider =
                 new ClassPathScanningCandidateComponentProvider(false);
         provider.addIncludeFilter(new AssignableTypeFilter(Scenario.class));
@@ -68,19 +76,44 @@ public class ScenarioService {
     }
 
     /**
-     * Save all schedules to the database on shutdown
+     * Get the schedules that are currently active (with an active simulation in memory)
+     *
+     * @return the active schedules, by id
+     */
+    public Map<Long, Schedule> getActiveSchedules() {
+        return this.activeSchedules.asMap();
+    }
+
+    /**
+     * Get the usage statistics of the cache of materialized schedules
+     *
+     * @return the cache statistics
+     */
+    public MaterializedScheduleCache.Stats getCacheStats() {
+        return this.activeSchedules.getStats();
+    }
+
+    /**
+     * Persist a schedule evicted from the cache, and release its scenario
+     *
+     * @param schedule the evicted schedule
      */
-    @PreDestroy
-    public void onShutdown() {
-        this.saveAllSchedules();
+    private void spillSchedule(Schedule schedule) {
+        log.fine(() -> "Evicting schedule " + schedule.getScheduleId());
+        persistenceService.storeSchedule(schedule);
+        if (schedule.isMaterialized()) {
+            schedule.getScenario().getTransport().closeEventArchive();
+            schedule.clearScenario();
+        }
     }
 
     /**
-     * Save all schedules to the database and clear the in-memory cache
+     * Allow a schedule to be evicted from memory, once it is no longer being run
+     *
+     * @param scheduleId the id of the schedule
      */
-    public synchronized void saveAllSchedules() {
-        scheduleRepository.saveAll(activeSchedules.values());
-        this.activeSchedules.clear();
+    public void releaseSchedule(long scheduleId) {
+        this.activeSchedules.unpin(scheduleId);
     }
 
     /**
@@ -88,12 +121,15 @@ public class ScenarioService {
      *
      * @param scheduleId the id of the schedule to save
      */
-    public synchronized void storeSchedule(long scheduleId) {
-        Schedule schedule = this.activeSchedules.get(scheduleId);
+    public void storeSchedule(long scheduleId) {
+        Schedule schedule = this.activeSchedules.peek(scheduleId);
         if (schedule != null) {
-            scheduleRepository.save(schedule);
+            persistenceService.storeSchedule(schedule);
             if (byzzBenchConfig.isRemoveCompletedSimulations()) {
                 this.activeSchedules.remove(scheduleId);
+                if (schedule.isMaterialized()) {
+                    schedule.getScenario().getTransport().closeEventArchive();
+                }
             }
         }
     }
@@ -107,11 +143,11 @@ public class ScenarioService {
      * @throws IllegalArgumentException if the scenario id is unknown
      * @throws IllegalStateException    if the schedule is already materialized
      */
-    public synchronized Scenario generateScenario(ScenarioParameters parameters, Campaign campaign) {
+    public Scenario generateScenario(ScenarioParameters parameters, Campaign campaign) {
         Schedule schedule = new Schedule(parameters);
         schedule.setCampaign(campaign);
-        scheduleRepository.save(schedule);
-        return this.generateScenario(schedule);
+        persistenceService.assignScheduleId(schedule);
+        return this.materialize(schedule, true);
     }
 
     /**
@@ -122,42 +158,51 @@ public class ScenarioService {
      * @throws IllegalArgumentException if the scenario id is unknown
      * @throws IllegalStateException    if the schedule is already materialized
      */
-    public synchronized Scenario generateScenario(Schedule schedule) {
+    public Scenario generateScenario(Schedule schedule) {
+        return this.materialize(schedule, false);
+    }
+
+    /**
+     * Generate a scenario from a schedule, and add it to the active schedules.
+     *
+     * @param schedule the schedule that describes the scenario to generate
+     * @param pinned   whether the schedule is being run, and must be kept in memory until released
+     * @return the generated scenario
+     */
+    private Scenario materialize(Schedule schedule, boolean pinned) {
         if (schedule.isMaterialized()) {
             throw new IllegalStateException("Schedule is already materialized");
         }
 
         try {
-            // find the scenario class by its id
-            ScenarioParameters parameters = schedule.getParameters();
-            Class<? extends Scenario> scenarioClass = this.scenarioClasses.get(parameters.getScenarioId());
-
-            // if not found, throw an exception
-            if (scenarioClass == null) {
-                log.severe("Unknown scenario: " + parameters.getScenarioId());
-                log.severe("Available scenarios:");
-                for (String scenarioClassName : scenarioClasses.keySet()) {
-                    log.severe("- " + scenarioClassName);
-                }
-                throw new IllegalArgumentException("Unknown scenario id: " + parameters.getScenarioId());
+            Scenario scenario = this.createScenario(schedule);
+
+            // in bounded-memory mode, retire delivered events into an archive
+            EventArchiveConfig archiveConfig = this.byzzBenchConfig.getEventArchive();
+            if (archiveConfig.isEnabled()) {
+                Path directory = archiveConfig.getDirectory() == null ? null : Path.of(archiveConfig.getDirectory());
+                scenario.getTransport().enableEventArchive(new EventArchive(archiveConfig.getMaxInMemory(), directory));
             }
 
-            // instantiate the scenario and initialize it with the schedule parameters
-            Class[] constructorParams = new Class[]{Schedule.class};
-            Constructor<? extends Scenario> cons = scenarioClass.getConstructor(constructorParams);
-            Scenario scenario = cons.newInstance(schedule);
-            scenario.loadParameters(schedule.getParameters());
+            // if enabled, checkpoint the state right after setup, so the scenario can be reset to it
+            List<Action> actions = List.copyOf(schedule.getActions());
+            schedule.replaceActions(List.of());
+            if (!archiveConfig.isEnabled() && this.byzzBenchConfig.getCheckpoints().isEnabled()) {
+                scenario.getCheckpoints().configure(this.byzzBenchConfig.getCheckpoints());
+                scenario.getCheckpoints().checkpoint();
+            }
 
             // apply each action in order
-            for (Action action : schedule.getActions()) {
+            for (Action action : actions) {
+                scenario.getCheckpoints().checkpointIfDue();
                 action.accept(scenario);
             }
 
             // mark the schedule as materialized
             schedule.setScenario(scenario);
 
-            this.activeSchedules.put(schedule.getScheduleId(), schedule);
-            System.out.println("Active schedules: " + this.activeSchedules.keySet());
+            this.activeSchedules.put(schedule, pinned);
+            log.fine(() -> "Active schedules: " + this.activeSchedules.asMap().keySet());
             return scenario;
         } catch (Exception e) {
             log.severe("Failed to generate scenario: " + e.getMessage());
@@ -165,6 +210,63 @@ public class ScenarioService {
         }
     }
 
+    /**
+     * Instantiate the scenario of a schedule, initialized with the schedule parameters, but
+     * without applying the actions of the schedule or registering it as materialized.
+     *
+     * @param schedule the schedule of the scenario
+     * @return the scenario, right after setup
+     * @throws IllegalArgumentException if the scenario id is unknown
+     */
+    public Scenario createScenario(Schedule schedule) {
+        // find the scenario class by its id
+        ScenarioParameters parameters = schedule.getParameters();
+        Class<? extends Scenario> scenarioClass = this.scenarioClasses.get(parameters.getScenarioId());
+
+        // if not found, throw an exception
+        if (scenarioClass == null) {
+            log.severe("Unknown scenario: " + parameters.getScenarioId());
+            log.severe("Available scenarios:");
+            for (String scenarioClassName : scenarioClasses.keySet()) {
+                log.severe("- " + scenarioClassName);
+            }
+            throw new IllegalArgumentException("Unknown scenario id: " + parameters.getScenarioId());
+        }
+
+        // instantiate the scenario and initialize it with the schedule parameters
+        try {
+            Constructor<? extends Scenario> cons = scenarioClass.getConstructor(Schedule.class);
+            Scenario scenario = cons.newInstance(schedule);
+            scenario.loadParameters(schedule.getParameters());
+            return scenario;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to instantiate scenario " + parameters.getScenarioId(), e);
+        }
+    }
+
+    /**
+     * Fork a materialized scenario: create a new scenario in the same state, with a new
+     * schedule that shares the actions of the original schedule so far.
+     *
+     * @param scenario the scenario to fork
+     * @return the fork
+     * @throws IllegalStateException if bounded-memory mode is enabled
+     */
+    public Scenario forkScenario(Scenario scenario) {
+        Schedule schedule = persistenceService.assignScheduleId(Schedule.forkOf(scenario.getSchedule()));
+        schedule.getActions().addAll(scenario.getSchedule().getActions());
+
+        Scenario fork = scenario.fork(schedule);
+        if (this.byzzBenchConfig.getCheckpoints().isEnabled()) {
+            fork.getCheckpoints().configure(this.byzzBenchConfig.getCheckpoints());
+            fork.getCheckpoints().checkpoint();
+        }
+        schedule.setScenario(fork);
+
+        this.activeSchedules.put(schedule, true);
+        return fork;
+    }
+
     /**
      * Get the ids of all registered scenarios
      *
@@ -181,9 +283,14 @@ public class ScenarioService {
      * @return the scenario that matches the specified identifier
      * @throws NoSuchElementException if no scenario with the specified identifier is found
      */
-    public synchronized Scenario getScenarioById(long scenarioId) {
+    public Scenario getScenarioById(long scenarioId) {
         Schedule schedule = this.getScheduleById(scenarioId);
 
+        // re-materialize schedules evicted from memory
+        if (!schedule.isMaterialized() && this.activeSchedules.isEvicted(scenarioId)) {
+            return this.rematerialize(scenarioId);
+        }
+
         if (!schedule.isMaterialized()) {
             throw new IllegalStateException("Schedule " + scenarioId + " is not materialized");
         }
@@ -196,8 +303,78 @@ public class ScenarioService {
      *
      * @return the ids of all materialized schedules
      */
-    public synchronized Set<Long> getMaterializedScheduleIds() {
-        return this.getActiveSchedules().keySet();
+    public Set<Long> getMaterializedScheduleIds() {
+        return Set.copyOf(this.getActiveSchedules().keySet());
+    }
+
+    /**
+     * Reset a scenario to its state right after setup, or right after it was forked.
+     *
+     * @param scenarioId the id of the scenario
+     * @return the reset scenario, which is a new scenario if it had no checkpoint to restore
+     * @throws NoSuchElementException if no scenario with the specified identifier is found
+     */
+    public synchronized Scenario resetScenario(long scenarioId) {
+        Scenario scenario = this.getScenarioById(scenarioId);
+        if (scenario.getCheckpoints().getInitial().isPresent()) {
+            scenario.reset();
+            return scenario;
+        }
+        return this.restoreScenario(scenarioId, scenario.getSchedule().getPrefixLength());
+    }
+
+    /**
+     * Restore a scenario to its state after the given number of actions of its schedule: from
+     * its latest checkpoint at or before that step if there is one, or by replaying the first
+     * actions of its schedule in a new scenario otherwise.
+     *
+     * @param scenarioId the id of the scenario
+     * @param step       the number of actions of the schedule to keep
+     * @return the restored scenario, which is a new scenario if it had no checkpoint to restore
+     * @throws NoSuchElementException   if no scenario with the specified identifier is found
+     * @throws IllegalArgumentException if the step is outside the schedule
+     */
+    public synchronized Scenario restoreScenario(long scenarioId, int step) {
+        Scenario scenario = this.getScenarioById(scenarioId);
+        Schedule schedule = scenario.getSchedule();
+        int numActions = schedule.getActions().size();
+        if (step < 0 || step > numActions) {
+            throw new IllegalArgumentException("Step " + step + " is outside the schedule (0-" + numActions + ")");
+        }
+
+        if (scenario.getCheckpoints().getLatest(step).isPresent()) {
+            scenario.restoreToStep(step);
+            return scenario;
+        }
+
+        log.fine(() -> "No checkpoint at or before step " + step + " of schedule " + scenarioId + ": replaying it");
+        boolean pinned = this.activeSchedules.isPinned(scenarioId);
+        List<Action> actions = List.copyOf(schedule.getActions().subList(0, step));
+        scenario.getTransport().closeEventArchive();
+        schedule.clearScenario();
+        schedule.replaceActions(actions);
+        return this.materialize(schedule, pinned);
+    }
+
+    /**
+     * Re-materialize a schedule that was evicted from memory, by replaying its persisted actions
+     *
+     * @param scheduleId the id of the evicted schedule
+     * @return the re-materialized scenario
+     */
+    private synchronized Scenario rematerialize(long scheduleId) {
+        // another thread may have re-materialized it in the meantime
+        Schedule active = this.activeSchedules.peek(scheduleId);
+        if (active != null && active.isMaterialized()) {
+            return active.getScenario();
+        }
+
+        log.fine(() -> "Re-materializing schedule " + scheduleId);
+        this.persistenceService.flush();
+        Schedule schedule = this.scheduleRepository.findByScheduleId(scheduleId)
+                .orElseThrow(() -> new NoSuchElementException("No schedule found with id: " + scheduleId));
+        schedule.clearScenario();
+        return this.generateScenario(schedule);
     }
 
     /**
@@ -208,10 +385,17 @@ public class ScenarioService {
      * @return the schedule that matches the specified identifier
      * @throws NoSuchElementException if no schedule with the specified identifier is found
      */
-    public synchronized Schedule getScheduleById(long scheduleId) {
+    public Schedule getScheduleById(long scheduleId) {
         // If the schedule is already active, return it
-        if (this.activeSchedules.containsKey(scheduleId)) {
-            return this.activeSchedules.get(scheduleId);
+        Schedule activeSchedule = this.activeSchedules.get(scheduleId);
+        if (activeSchedule != null) {
+            return activeSchedule;
+        }
+
+        // If it is being persisted, return it
+        Optional<Schedule> pendingSchedule = this.persistenceService.getPendingSchedule(scheduleId);
+        if (pendingSchedule.isPresent()) {
+            return pendingSchedule.get();
         }
 
         // If not, fetch it from the repository.
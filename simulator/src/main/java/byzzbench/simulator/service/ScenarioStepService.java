@@ -0,0 +1,228 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.ScenarioPredicate;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.nodes.Replica;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Advances a materialized scenario by a batch of steps chosen by an exploration strategy,
+ * instead of one request per step.
+ * <p>
+ * Each step asks the strategy for its next action, which the strategy applies to the scenario.
+ * A batch stops after the given number of steps, when no action is enabled, or as soon as one
+ * of the requested {@link StopCondition conditions} holds, and is summarized without listing
+ * its actions: they are appended to the schedule, from {@link StepSummary#getFromStep()}.
+ */
+@Service
+@RequiredArgsConstructor
+@Log
+public class ScenarioStepService {
+    private final ScenarioService scenarioService;
+    private final ExplorationStrategyService explorationStrategyService;
+
+    /**
+     * Advances a materialized scenario.
+     *
+     * @param scenarioId   the id of the scenario
+     * @param strategyId   the id of the exploration strategy choosing the actions
+     * @param maxSteps     the maximum number of steps
+     * @param until        the conditions on which to stop early
+     * @param commitHeight the commit height at which to stop, if {@link StopCondition#COMMIT_HEIGHT} is requested
+     * @return the summary of the steps
+     * @throws IllegalArgumentException if the strategy is unknown, or the number of steps is not positive
+     */
+    public StepSummary step(long scenarioId, String strategyId, long maxSteps, Set<StopCondition> until, long commitHeight) {
+        ExplorationStrategy strategy = this.explorationStrategyService.getExplorationStrategy(strategyId);
+        return this.step(this.scenarioService.getScenarioById(scenarioId), strategy, maxSteps, until, commitHeight);
+    }
+
+    /**
+     * Advances a scenario.
+     *
+     * @param scenario     the scenario
+     * @param strategy     the exploration strategy choosing the actions
+     * @param maxSteps     the maximum number of steps
+     * @param until        the conditions on which to stop early
+     * @param commitHeight the commit height at which to stop, if {@link StopCondition#COMMIT_HEIGHT} is requested
+     * @return the summary of the steps
+     * @throws IllegalArgumentException if the number of steps is not positive
+     */
+    public StepSummary step(Scenario scenario, ExplorationStrategy strategy, long maxSteps, Set<StopCondition> until, long commitHeight) {
+        if (maxSteps < 1) {
+            throw new IllegalArgumentException("Number of steps must be positive: " + maxSteps);
+        }
+
+        synchronized (scenario) {
+            long start = System.nanoTime();
+            int fromStep = scenario.getSchedule().getActions().size();
+            SortedMap<String, Long> actionCounts = new TreeMap<>();
+            long steps = 0;
+            StopReason reason = StopReason.STEPS;
+            String error = null;
+
+            try {
+                strategy.ensureScenarioInitialized(scenario);
+                while (true) {
+                    // conditions that already hold stop the batch before any step
+                    StopReason holds = this.checkConditions(scenario, until, commitHeight);
+                    if (holds != null) {
+                        reason = holds;
+                        break;
+                    }
+                    if (steps >= maxSteps) {
+                        break;
+                    }
+
+                    scenario.getCheckpoints().checkpointIfDue();
+                    Optional<Action> action = strategy.scheduleNext(scenario);
+                    if (action.isEmpty()) {
+                        reason = StopReason.QUIESCENCE;
+                        break;
+                    }
+                    actionCounts.merge(action.get().getClass().getSimpleName(), 1L, Long::sum);
+                    steps++;
+                }
+            } catch (RuntimeException e) {
+                log.warning("Failed to step scenario " + scenario.getScheduleId() + ": " + e);
+                reason = StopReason.ERROR;
+                error = String.valueOf(e.getMessage());
+            }
+
+            return StepSummary.builder()
+                    .scenarioId(scenario.getScheduleId())
+                    .numSteps(steps)
+                    .stopReason(reason)
+                    .error(error)
+                    .fromStep(fromStep)
+                    .toStep(scenario.getSchedule().getActions().size())
+                    .actionCounts(actionCounts)
+                    .globalStabilizationTime(scenario.getTransport().isGlobalStabilizationTime())
+                    .commitHeight(getCommitHeight(scenario))
+                    .unsatisfiedInvariants(invariantIds(scenario.unsatisfiedInvariants()))
+                    .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        }
+    }
+
+    /**
+     * Gets the first of the requested conditions that holds in the current state of a scenario.
+     *
+     * @return the reason to stop, or null if none of the conditions holds
+     */
+    private StopReason checkConditions(Scenario scenario, Set<StopCondition> until, long commitHeight) {
+        for (StopCondition condition : until) {
+            boolean holds = switch (condition) {
+                case GST -> scenario.getTransport().isGlobalStabilizationTime();
+                case INVARIANT_VIOLATION -> !scenario.invariantsHold();
+                case COMMIT_HEIGHT -> getCommitHeight(scenario) >= commitHeight;
+            };
+            if (holds) {
+                return condition.getReason();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the commit height of a scenario: the length of the longest commit log of its replicas.
+     *
+     * @param scenario the scenario
+     * @return the commit height
+     */
+    public static long getCommitHeight(Scenario scenario) {
+        long height = 0;
+        for (Replica replica : scenario.getReplicas().values()) {
+            height = Math.max(height, replica.getCommitLog().getLength());
+        }
+        return height;
+    }
+
+    private static SortedSet<String> invariantIds(Set<ScenarioPredicate> invariants) {
+        SortedSet<String> ids = new TreeSet<>();
+        invariants.forEach(invariant -> ids.add(invariant.getId()));
+        return ids;
+    }
+
+    /**
+     * A condition on which a batch of steps stops early.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum StopCondition {
+        /**
+         * The global stabilization time was reached.
+         */
+        GST(StopReason.GST),
+        /**
+         * An invariant of the scenario does not hold.
+         */
+        INVARIANT_VIOLATION(StopReason.INVARIANT_VIOLATION),
+        /**
+         * A replica committed at least the requested number of entries.
+         */
+        COMMIT_HEIGHT(StopReason.COMMIT_HEIGHT);
+
+        private final StopReason reason;
+    }
+
+    /**
+     * The reason a batch of steps stopped.
+     */
+    public enum StopReason {
+        /**
+         * The requested number of steps was taken.
+         */
+        STEPS,
+        /**
+         * The exploration strategy had no enabled action to take.
+         */
+        QUIESCENCE,
+        GST,
+        INVARIANT_VIOLATION,
+        COMMIT_HEIGHT,
+        /**
+         * A step failed.
+         */
+        ERROR
+    }
+
+    /**
+     * The summary of a batch of steps.
+     */
+    @Getter
+    @Builder
+    public static class StepSummary {
+        private final long scenarioId;
+        private final long numSteps;
+        private final StopReason stopReason;
+        /**
+         * The message of the failure, if a step failed.
+         */
+        private final String error;
+        /**
+         * The number of actions in the schedule before and after the steps.
+         */
+        private final int fromStep;
+        private final int toStep;
+        /**
+         * The number of steps of each type of action.
+         */
+        private final SortedMap<String, Long> actionCounts;
+        private final boolean globalStabilizationTime;
+        private final long commitHeight;
+        /**
+         * The ids of the invariants that do not hold after the steps.
+         */
+        private final SortedSet<String> unsatisfiedInvariants;
+        private final long elapsedMillis;
+    }
+}
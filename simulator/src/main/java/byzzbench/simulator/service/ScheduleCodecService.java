@@ -0,0 +1,267 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.utils.serialization.BinaryScheduleCodec;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Exports and imports schedules in their {@link BinaryScheduleCodec binary encoding}, iterates
+ * over their actions for streaming exports, and compares the encoding with their JSON representation.
+ * <p>
+ * Schedules are streamed one action at a time: a persisted schedule is exported by copying its
+ * encoded actions as they are, and an imported schedule is stored without decoding all its
+ * actions at once.
+ */
+@Service
+@RequiredArgsConstructor
+@Log
+public class ScheduleCodecService {
+    private final ByzzBenchConfig byzzBenchConfig;
+    private final ScenarioService scenarioService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes a schedule in the binary encoding, including the actions it shares with the
+     * schedule it was forked from.
+     *
+     * @param schedule the schedule
+     * @param payloads whether to include the payloads of the messages, if available
+     * @param out      the output stream
+     * @throws IOException if the stream cannot be written
+     */
+    public void exportSchedule(Schedule schedule, boolean payloads, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        BinaryScheduleCodec.writeHeader(schedule, buffered);
+
+        // a persisted schedule that was not decoded and owns all its actions: copy them as they are
+        byte[] encoded = schedule.getEncodedActions();
+        if (schedule.isEncoded() && schedule.getParent() == null && encoded != null
+                && (payloads || (encoded[1] & BinaryScheduleCodec.FLAG_PAYLOADS) == 0)) {
+            buffered.write(encoded);
+            buffered.flush();
+            return;
+        }
+
+        try (BinaryScheduleCodec.ActionWriter writer = new BinaryScheduleCodec.ActionWriter(buffered, payloads)) {
+            for (Action action : schedule.getActions()) {
+                writer.write(action);
+            }
+        }
+    }
+
+    /**
+     * Reads a schedule in the binary encoding, and stores it.
+     *
+     * @param in the input stream
+     * @return the stored schedule, whose actions are decoded on first access
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the stream is not a valid encoded schedule
+     */
+    public Schedule importSchedule(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        Schedule schedule = BinaryScheduleCodec.readHeader(buffered);
+
+        // validate the actions one at a time, re-encoding them with the configured payload policy
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        BinaryScheduleCodec.ActionReader reader = new BinaryScheduleCodec.ActionReader(buffered);
+        try (BinaryScheduleCodec.ActionWriter writer = new BinaryScheduleCodec.ActionWriter(
+                encoded, this.byzzBenchConfig.getPersistence().isStorePayloads())) {
+            while (reader.hasNext()) {
+                writer.write(reader.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        schedule.setEncodedActions(encoded.toByteArray());
+        this.scenarioService.getPersistenceService().assignScheduleId(schedule);
+        Schedule saved = this.scenarioService.getScheduleRepository().save(schedule);
+        log.info("Imported schedule " + saved.getScheduleId() + " with " + reader.getNumActions() + " actions");
+        return saved;
+    }
+
+    /**
+     * Iterates over a range of the actions of a schedule, including the actions it shares with
+     * the schedule it was forked from. The actions of a persisted schedule that was not decoded
+     * are decoded one at a time, and the actions of a live schedule are read as they are
+     * appended, so a schedule of any length is iterated in constant memory.
+     *
+     * @param schedule the schedule
+     * @param from     the index of the first action
+     * @param limit    the maximum number of actions
+     * @return the actions in the range
+     * @throws IllegalArgumentException if the range is invalid
+     */
+    public Iterator<Action> iterateActions(Schedule schedule, long from, long limit) {
+        if (from < 0 || limit < 0) {
+            throw new IllegalArgumentException("Invalid range: from=" + from + ", limit=" + limit);
+        }
+
+        byte[] encoded = schedule.getEncodedActions();
+        if (schedule.isEncoded() && schedule.getParent() == null && encoded != null) {
+            BinaryScheduleCodec.ActionReader reader = new BinaryScheduleCodec.ActionReader(new ByteArrayInputStream(encoded));
+            for (long i = 0; i < from && reader.hasNext(); i++) {
+                reader.next();
+            }
+            return new Iterator<>() {
+                private long remaining = limit;
+
+                @Override
+                public boolean hasNext() {
+                    return this.remaining > 0 && reader.hasNext();
+                }
+
+                @Override
+                public Action next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    this.remaining--;
+                    return reader.next();
+                }
+            };
+        }
+
+        List<Action> actions = schedule.getActions();
+        long end = from + Math.min(limit, Long.MAX_VALUE - from);
+        return new Iterator<>() {
+            private long index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < end && this.index < actions.size();
+            }
+
+            @Override
+            public Action next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return actions.get((int) this.index++);
+            }
+        };
+    }
+
+    /**
+     * Compares the size of a schedule and the throughput of its encoding and decoding in the
+     * binary encoding and in JSON, as served by the API.
+     *
+     * @param schedule   the schedule
+     * @param iterations the number of times each encoding is measured
+     * @return the comparison
+     * @throws IllegalArgumentException if the number of iterations is not positive
+     */
+    public EncodingComparison compare(Schedule schedule, int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Number of iterations must be positive: " + iterations);
+        }
+
+        List<Action> actions = schedule.getActions();
+        JavaType listType = this.objectMapper.getTypeFactory().constructCollectionType(List.class, Action.class);
+        EncodingComparison.EncodingComparisonBuilder comparison = EncodingComparison.builder()
+                .numActions(actions.size())
+                .iterations(iterations);
+        try {
+            ObjectWriter writer = this.objectMapper.writerFor(listType);
+            ObjectReader reader = this.objectMapper.readerFor(listType)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+            byte[] json = null;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                json = writer.writeValueAsBytes(actions);
+            }
+            comparison.jsonEncodeNanos(System.nanoTime() - start);
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                reader.readValue(json);
+            }
+            comparison.jsonDecodeNanos(System.nanoTime() - start).jsonBytes(json.length);
+        } catch (IOException e) {
+            // payloads that cannot be read back from JSON
+            log.warning("Cannot measure JSON encoding of schedule " + schedule.getScheduleId() + ": " + e);
+            comparison.jsonBytes(-1);
+        }
+
+        byte[] binary = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            binary = BinaryScheduleCodec.encodeActions(actions, false);
+        }
+        comparison.binaryEncodeNanos(System.nanoTime() - start).binaryBytes(binary.length);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            BinaryScheduleCodec.decodeActions(binary, schedule);
+        }
+        comparison.binaryDecodeNanos(System.nanoTime() - start);
+
+        try {
+            comparison.binaryWithPayloadsBytes(BinaryScheduleCodec.encodeActions(actions, true).length);
+        } catch (IllegalArgumentException e) {
+            // payloads that cannot be serialized
+            log.warning("Cannot encode payloads of schedule " + schedule.getScheduleId() + ": " + e.getMessage());
+            comparison.binaryWithPayloadsBytes(-1);
+        }
+        return comparison.build();
+    }
+
+    /**
+     * The comparison of the binary encoding of a schedule with its JSON representation.
+     * Sizes are -1 if the schedule could not be represented in that encoding.
+     */
+    @Getter
+    @Builder
+    public static class EncodingComparison {
+        private final int numActions;
+        private final int iterations;
+        private final long jsonBytes;
+        private final long binaryBytes;
+        private final long binaryWithPayloadsBytes;
+        private final long jsonEncodeNanos;
+        private final long jsonDecodeNanos;
+        private final long binaryEncodeNanos;
+        private final long binaryDecodeNanos;
+
+        /**
+         * The size of the JSON representation relative to the binary encoding, without payloads.
+         */
+        public double getCompressionRatio() {
+            return this.jsonBytes <= 0 || this.binaryBytes == 0 ? 0 : (double) this.jsonBytes / this.binaryBytes;
+        }
+
+        public double getJsonEncodeActionsPerSecond() {
+            return perSecond(this.jsonEncodeNanos);
+        }
+
+        public double getJsonDecodeActionsPerSecond() {
+            return perSecond(this.jsonDecodeNanos);
+        }
+
+        public double getBinaryEncodeActionsPerSecond() {
+            return perSecond(this.binaryEncodeNanos);
+        }
+
+        public double getBinaryDecodeActionsPerSecond() {
+            return perSecond(this.binaryDecodeNanos);
+        }
+
+        private double perSecond(long nanos) {
+            return nanos == 0 ? 0 : this.numActions * (double) this.iterations * 1e9 / nanos;
+        }
+    }
+}
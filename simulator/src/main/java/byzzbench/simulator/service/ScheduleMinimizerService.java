@@ -0,0 +1,575 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.ScenarioPredicate;
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.domain.*;
+import byzzbench.simulator.transport.Event;
+import byzzbench.simulator.transport.MessageEvent;
+import byzzbench.simulator.transport.MessagePayload;
+import byzzbench.simulator.transport.TimeoutEvent;
+import byzzbench.simulator.transport.Transport;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Shrinks schedules that violate an invariant into short schedules that still violate it.
+ * <p>
+ * The schedule is first replayed in full, recording which step created each event: a step that
+ * delivers, drops, mutates or triggers an event depends on the step that created it. The steps
+ * are then minimized with the ddmin algorithm of Zeller and Hildebrandt: at each granularity,
+ * the chunks of steps and their complements are replayed concurrently, on a pool of
+ * {@link ByzzBenchConfig#getReplayWorkers()} workers, and the first candidate that still
+ * violates the invariant is kept. Removing a step also removes the steps that depend on it,
+ * whose events would no longer exist.
+ * <p>
+ * Candidates are replayed headlessly, like in the {@link ReplayService}, testing the invariant
+ * after each step, and are cut short at the first violation. As removing steps changes the ids
+ * of the events created afterward, each step is replayed on the queued event that matches its
+ * original event: the same sender, recipient and payload (or message type) for messages, and
+ * the same node and description for timeouts. Steps with no matching event are skipped. The
+ * minimized schedule is made of the actions actually replayed, so it replays as-is.
+ */
+@Service
+@RequiredArgsConstructor
+@Log
+public class ScheduleMinimizerService {
+    private final ByzzBenchConfig byzzBenchConfig;
+    private final ScenarioService scenarioService;
+    private final PersistenceService persistenceService;
+
+    /**
+     * Worker pool on which the candidates are replayed.
+     */
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        int workers = byzzBenchConfig.getReplayWorkers() > 0
+                ? byzzBenchConfig.getReplayWorkers()
+                : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Minimizes a schedule, and stores the minimized schedule.
+     *
+     * @param schedule    the schedule to minimize
+     * @param invariantId the id of the invariant to keep violating, or null for the first
+     *                    invariant violated by the schedule
+     * @param maxReplays  the maximum number of candidates to replay
+     * @return the result of the minimization
+     * @throws IllegalArgumentException if the schedule does not violate the invariant
+     */
+    public MinimizationResult minimizeAndStore(Schedule schedule, String invariantId, int maxReplays) {
+        MinimizationResult result = this.minimize(schedule, invariantId, maxReplays);
+        Schedule minimized = result.getMinimizedSchedule();
+        this.persistenceService.storeSchedule(this.persistenceService.assignScheduleId(minimized));
+        log.info("Minimized schedule " + schedule.getScheduleId() + " from " + result.getOriginalLength()
+                + " to " + result.getMinimizedLength() + " actions, stored as schedule " + minimized.getScheduleId());
+        return result;
+    }
+
+    /**
+     * Minimizes a schedule.
+     *
+     * @param schedule    the schedule to minimize
+     * @param invariantId the id of the invariant to keep violating, or null for the first
+     *                    invariant violated by the schedule
+     * @param maxReplays  the maximum number of candidates to replay
+     * @return the result of the minimization, with the minimized schedule not yet stored
+     * @throws IllegalArgumentException if the schedule does not violate the invariant
+     */
+    public MinimizationResult minimize(Schedule schedule, String invariantId, int maxReplays) {
+        if (maxReplays < 1) {
+            throw new IllegalArgumentException("maxReplays must be positive: " + maxReplays);
+        }
+        long start = System.nanoTime();
+        List<Action> actions = List.copyOf(schedule.getActions());
+
+        // replay the whole schedule, recording the event of each step and the step that created it
+        Original original = this.record(schedule, actions);
+        String target = invariantId != null ? invariantId : original.violated.isEmpty() ? null : original.violated.first();
+        if (target == null || !original.violated.contains(target)) {
+            throw new IllegalArgumentException("Schedule " + schedule.getScheduleId() + " does not violate "
+                    + (target == null ? "any invariant" : "invariant " + target));
+        }
+
+        Minimization minimization = new Minimization(schedule, actions, original, target, maxReplays);
+        Candidate best = minimization.run();
+
+        Schedule minimized = new Schedule(schedule.getParameters());
+        minimized.setCampaign(schedule.getCampaign());
+        best.replayed.forEach(minimized::appendAction);
+        minimized.finalizeSchedule(best.violatedInvariants);
+
+        long elapsed = System.nanoTime() - start;
+        return MinimizationResult.builder()
+                .scheduleId(schedule.getScheduleId())
+                .invariantId(target)
+                .originalLength(actions.size())
+                .minimizedLength(best.replayed.size())
+                .numReplays(minimization.numReplays)
+                .numDependentStepsPruned(minimization.numDependentStepsPruned)
+                .budgetExhausted(minimization.numReplays >= maxReplays)
+                .reproduced(this.reproduces(minimized, target))
+                .minimizedSchedule(minimized)
+                .durationNanos(elapsed)
+                .build();
+    }
+
+    /**
+     * Replays a schedule in full, recording the original event of each step, and the step that
+     * created each event.
+     */
+    private Original record(Schedule schedule, List<Action> actions) {
+        Scenario scenario = this.newScenario(schedule);
+        Transport transport = scenario.getTransport();
+        Original original = new Original(actions.size());
+        long lastEventId = transport.getEventIds().isEmpty() ? -1 : transport.getEventIds().last();
+        for (int step = 0; step < actions.size(); step++) {
+            Action action = actions.get(step);
+            Long eventId = eventId(action);
+            if (eventId != null) {
+                original.events[step] = transport.getEvent(eventId);
+                original.dependencies[step] = original.creators.getOrDefault(eventId, -1);
+            }
+            action.accept(scenario);
+            for (long id : transport.getEventIds().tailSet(lastEventId + 1)) {
+                original.creators.put(id, step);
+                lastEventId = id;
+            }
+        }
+        original.violated.addAll(violatedInvariants(scenario));
+        return original;
+    }
+
+    /**
+     * Checks whether a schedule violates an invariant when replayed as-is.
+     */
+    private boolean reproduces(Schedule schedule, String invariantId) {
+        try {
+            Scenario scenario = this.newScenario(schedule);
+            for (Action action : List.copyOf(schedule.getActions())) {
+                action.accept(scenario);
+            }
+            return violatedInvariants(scenario).contains(invariantId);
+        } catch (RuntimeException e) {
+            log.fine(() -> "Replay of minimized schedule failed: " + e);
+            return false;
+        }
+    }
+
+    private Scenario newScenario(Schedule schedule) {
+        Schedule replaySchedule = new Schedule(schedule.getParameters());
+        replaySchedule.setCampaign(schedule.getCampaign());
+        Scenario scenario = this.scenarioService.createScenario(replaySchedule);
+        scenario.detachInstrumentation();
+        return scenario;
+    }
+
+    private static SortedSet<String> violatedInvariants(Scenario scenario) {
+        SortedSet<String> violated = new TreeSet<>();
+        for (ScenarioPredicate invariant : scenario.getInvariants()) {
+            if (!invariant.test(scenario)) {
+                violated.add(invariant.getId());
+            }
+        }
+        return violated;
+    }
+
+    /**
+     * Gets the id of the event an action applies to.
+     *
+     * @return the id of the event, or null if the action does not apply to an event
+     */
+    private static Long eventId(Action action) {
+        return switch (action) {
+            case DeliverMessageAction deliver -> deliver.getMessageEventId();
+            case DropMessageAction drop -> drop.getEventId();
+            case TriggerTimeoutAction trigger -> trigger.getTimeoutEventId();
+            case FaultInjectionAction fault -> fault.getMessageId();
+            default -> null;
+        };
+    }
+
+    /**
+     * The outcome of replaying the original schedule.
+     */
+    private static class Original {
+        /**
+         * The event each step applies to, as it was before the step, or null
+         */
+        private final Event[] events;
+
+        /**
+         * The step that created the event of each step, or -1
+         */
+        private final int[] dependencies;
+
+        /**
+         * The step that created each event, by event id
+         */
+        private final Map<Long, Integer> creators = new HashMap<>();
+
+        /**
+         * The invariants violated at the end of the schedule
+         */
+        private final SortedSet<String> violated = new TreeSet<>();
+
+        private Original(int length) {
+            this.events = new Event[length];
+            this.dependencies = new int[length];
+        }
+    }
+
+    /**
+     * The outcome of replaying a candidate: the steps actually replayed, out of the requested
+     * steps, up to the first violation of the invariant.
+     */
+    private record Candidate(List<Integer> requested, boolean violates, List<Integer> steps, List<Action> replayed,
+                             Set<ScenarioPredicate> violatedInvariants) {
+    }
+
+    /**
+     * The state of the minimization of a schedule.
+     */
+    private class Minimization {
+        private final Schedule schedule;
+        private final List<Action> actions;
+        private final Original original;
+        private final String target;
+        private final int maxReplays;
+        private int numReplays;
+        private long numDependentStepsPruned;
+
+        private Minimization(Schedule schedule, List<Action> actions, Original original, String target, int maxReplays) {
+            this.schedule = schedule;
+            this.actions = actions;
+            this.original = original;
+            this.target = target;
+            this.maxReplays = maxReplays;
+        }
+
+        /**
+         * Runs ddmin over the steps of the schedule.
+         *
+         * @return the smallest candidate found that violates the invariant
+         */
+        private Candidate run() {
+            List<Integer> all = new ArrayList<>();
+            for (int step = 0; step < this.actions.size(); step++) {
+                all.add(step);
+            }
+            Candidate best = this.replay(all);
+            if (!best.violates) {
+                throw new IllegalArgumentException("Schedule " + this.schedule.getScheduleId()
+                        + " does not violate invariant " + this.target + " when replayed");
+            }
+
+            int granularity = 2;
+            while (best.steps.size() >= 2 && this.numReplays < this.maxReplays) {
+                List<Integer> steps = best.steps;
+                List<List<Integer>> chunks = split(steps, Math.min(granularity, steps.size()));
+                List<List<Integer>> candidates = new ArrayList<>();
+                for (List<Integer> chunk : chunks) {
+                    candidates.add(this.keep(steps, chunk));
+                }
+                if (chunks.size() > 2) {
+                    for (List<Integer> chunk : chunks) {
+                        List<Integer> complement = new ArrayList<>(steps);
+                        complement.removeAll(chunk);
+                        candidates.add(this.keep(steps, complement));
+                    }
+                }
+
+                Optional<Candidate> reduced = this.firstViolating(candidates);
+                if (reduced.isPresent() && reduced.get().steps.size() < best.steps.size()) {
+                    boolean fromChunk = candidates.indexOf(reduced.get().requested) < chunks.size();
+                    best = reduced.get();
+                    granularity = fromChunk ? 2 : Math.max(granularity - 1, 2);
+                } else if (granularity < best.steps.size()) {
+                    granularity = Math.min(granularity * 2, best.steps.size());
+                } else {
+                    break;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Keeps the given steps of a candidate, dropping the steps that depend on removed steps.
+         */
+        private List<Integer> keep(List<Integer> steps, List<Integer> kept) {
+            Set<Integer> keptSet = new HashSet<>(kept);
+            Set<Integer> removed = new HashSet<>();
+            List<Integer> result = new ArrayList<>();
+            for (int step : steps) {
+                int dependency = this.original.dependencies[step];
+                if (!keptSet.contains(step)) {
+                    removed.add(step);
+                } else if (dependency >= 0 && removed.contains(dependency)) {
+                    removed.add(step);
+                    this.numDependentStepsPruned++;
+                } else {
+                    result.add(step);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Replays candidates concurrently.
+         *
+         * @return the first candidate, in order, that violates the invariant
+         */
+        private Optional<Candidate> firstViolating(List<List<Integer>> candidates) {
+            List<List<Integer>> distinct = candidates.stream().distinct()
+                    .limit(Math.max(0, this.maxReplays - this.numReplays))
+                    .toList();
+            this.numReplays += distinct.size();
+            List<Future<Candidate>> futures = distinct.stream()
+                    .map(steps -> executor.submit(() -> this.replay(steps)))
+                    .toList();
+
+            try {
+                for (Future<Candidate> future : futures) {
+                    Candidate candidate = future.get();
+                    if (candidate.violates) {
+                        futures.forEach(f -> f.cancel(true));
+                        return Optional.of(candidate);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Interrupted while minimizing schedule", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to replay candidate", e.getCause());
+            }
+            return Optional.empty();
+        }
+
+        /**
+         * Replays the given steps of the schedule, up to the first violation of the invariant.
+         */
+        private Candidate replay(List<Integer> steps) {
+            List<Integer> replayedSteps = new ArrayList<>();
+            List<Action> replayed = new ArrayList<>();
+            try {
+                Scenario scenario = newScenario(this.schedule);
+                ScenarioPredicate invariant = scenario.getInvariants().stream()
+                        .filter(predicate -> predicate.getId().equals(this.target))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown invariant: " + this.target));
+                for (int step : steps) {
+                    Optional<Action> action = this.retarget(scenario, step);
+                    if (action.isEmpty()) {
+                        continue;
+                    }
+                    action.get().accept(scenario);
+                    replayedSteps.add(step);
+                    replayed.add(action.get());
+                    if (!invariant.test(scenario)) {
+                        Set<ScenarioPredicate> violated = new HashSet<>();
+                        scenario.getInvariants().stream().filter(predicate -> !predicate.test(scenario)).forEach(violated::add);
+                        return new Candidate(steps, true, replayedSteps, replayed, violated);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.fine(() -> "Replay of candidate failed: " + e);
+            }
+            return new Candidate(steps, false, replayedSteps, replayed, Set.of());
+        }
+
+        /**
+         * Builds the action of a step on the queued event of a scenario that matches its
+         * original event.
+         *
+         * @return the action, or empty if no queued event matches
+         */
+        private Optional<Action> retarget(Scenario scenario, int step) {
+            Action action = this.actions.get(step);
+            Event event = this.original.events[step];
+            Transport transport = scenario.getTransport();
+            return switch (action) {
+                case DeliverMessageAction ignored -> findMessage(transport, event).map(DeliverMessageAction::fromEvent);
+                case DropMessageAction ignored -> findMessage(transport, event).map(DropMessageAction::fromEvent);
+                case FaultInjectionAction fault -> findMessage(transport, event).map(message -> FaultInjectionAction.builder()
+                        .messageId(message.getEventId())
+                        .mutatorId(fault.getMutatorId())
+                        .build());
+                case TriggerTimeoutAction ignored -> findTimeout(scenario, event).map(TriggerTimeoutAction::fromEvent);
+                default -> Optional.of(action);
+            };
+        }
+    }
+
+    /**
+     * Finds the queued message that matches an original message: the same event if it is still
+     * queued, otherwise the first queued message with the same sender and payload, or with the
+     * same sender and type of payload.
+     */
+    private static Optional<MessageEvent> findMessage(Transport transport, Event event) {
+        if (!(event instanceof MessageEvent original)) {
+            return Optional.empty();
+        }
+        List<MessageEvent> queued = transport.getQueuedMessages(original.getRecipientId());
+        Optional<MessageEvent> same = queued.stream()
+                .filter(message -> message.getEventId() == original.getEventId()
+                        && message.getSenderId().equals(original.getSenderId())
+                        && samePayload(message.getPayload(), original.getPayload()))
+                .findFirst();
+        if (same.isPresent()) {
+            return same;
+        }
+        Optional<MessageEvent> equal = queued.stream()
+                .filter(message -> message.getSenderId().equals(original.getSenderId())
+                        && samePayload(message.getPayload(), original.getPayload()))
+                .findFirst();
+        if (equal.isPresent()) {
+            return equal;
+        }
+        return queued.stream()
+                .filter(message -> message.getSenderId().equals(original.getSenderId())
+                        && message.getPayload().getType().equals(original.getPayload().getType()))
+                .findFirst();
+    }
+
+    private static boolean samePayload(MessagePayload payload, MessagePayload original) {
+        return payload.getType().equals(original.getType()) && payload.equals(original);
+    }
+
+    /**
+     * Finds the queued timeout that matches an original timeout: the same event if it is still
+     * queued, otherwise the first queued timeout of the same node with the same description.
+     */
+    private static Optional<TimeoutEvent> findTimeout(Scenario scenario, Event event) {
+        if (!(event instanceof TimeoutEvent original)) {
+            return Optional.empty();
+        }
+        Transport transport = scenario.getTransport();
+        List<TimeoutEvent> queued = transport.getQueuedTimeouts(scenario.getNode(original.getNodeId())).stream()
+                .map(transport::getEvent)
+                .filter(TimeoutEvent.class::isInstance)
+                .map(TimeoutEvent.class::cast)
+                .filter(timeout -> timeout.getDescription().equals(original.getDescription()))
+                .toList();
+        return queued.stream()
+                .filter(timeout -> timeout.getEventId() == original.getEventId())
+                .findFirst()
+                .or(() -> queued.stream().findFirst());
+    }
+
+    /**
+     * Splits a list into the given number of chunks of nearly equal sizes.
+     */
+    private static List<List<Integer>> split(List<Integer> steps, int numChunks) {
+        List<List<Integer>> chunks = new ArrayList<>(numChunks);
+        int start = 0;
+        for (int i = 0; i < numChunks; i++) {
+            int end = start + (steps.size() - start) / (numChunks - i);
+            chunks.add(List.copyOf(steps.subList(start, end)));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * The result of minimizing a schedule.
+     */
+    @Getter
+    @Builder
+    public static class MinimizationResult {
+        /**
+         * The id of the original schedule.
+         */
+        private final long scheduleId;
+
+        /**
+         * The id of the invariant that the minimized schedule still violates.
+         */
+        private final String invariantId;
+
+        /**
+         * The number of actions of the schedule, before and after the minimization.
+         */
+        private final int originalLength;
+        private final int minimizedLength;
+
+        /**
+         * The number of candidates replayed.
+         */
+        private final int numReplays;
+
+        /**
+         * The number of steps removed from candidates because they depended on removed steps.
+         */
+        private final long numDependentStepsPruned;
+
+        /**
+         * Whether the minimization stopped because it reached the maximum number of replays.
+         */
+        private final boolean budgetExhausted;
+
+        /**
+         * Whether the minimized schedule violates the invariant when replayed as-is.
+         */
+        private final boolean reproduced;
+
+        /**
+         * The minimized schedule.
+         */
+        @JsonIgnore
+        private final Schedule minimizedSchedule;
+
+        /**
+         * The time taken by the minimization, in nanoseconds.
+         */
+        private final long durationNanos;
+
+        /**
+         * Get the id of the stored minimized schedule.
+         *
+         * @return the id of the minimized schedule, or null if it was not stored
+         */
+        public Long getMinimizedScheduleId() {
+            return minimizedSchedule == null ? null : minimizedSchedule.getScheduleId();
+        }
+
+        /**
+         * Get the fraction of the actions removed by the minimization.
+         *
+         * @return the reduction ratio, between 0 and 1
+         */
+        public double getReductionRatio() {
+            return originalLength == 0 ? 0 : 1 - (double) minimizedLength / originalLength;
+        }
+
+        /**
+         * Get the replay throughput.
+         *
+         * @return the number of candidates replayed per second
+         */
+        public double getReplaysPerSecond() {
+            return durationNanos == 0 ? 0 : numReplays * 1e9 / durationNanos;
+        }
+    }
+}
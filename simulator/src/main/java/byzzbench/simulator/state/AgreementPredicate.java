@@ -1,16 +1,55 @@
 package byzzbench.simulator.state;
 
 import byzzbench.simulator.Scenario;
+import byzzbench.simulator.ScenarioObserver;
 import byzzbench.simulator.ScenarioPredicate;
 import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.nodes.ReplicaObserver;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+
+/**
+ * Checks that correct replicas agree on the entries of their commit logs: no correct
+ * replica commits the same entry twice, and no two correct replicas commit different
+ * entries at the same sequence number.
+ * <p>
+ * The check is incremental. Every entry committed through {@link Replica#commitOperation}
+ * is indexed as it lands, in O(1): the first entry committed at each sequence number, and
+ * the sequence number of each entry in each replica's log. The first conflicting commit is
+ * recorded as the violation. Commit logs written to directly (bypassing
+ * {@link Replica#commitOperation}) are detected by their length and re-indexed from scratch.
+ */
+public class AgreementPredicate extends ScenarioPredicate implements ScenarioObserver, ReplicaObserver {
+    /**
+     * The first entry committed at each sequence number by a correct replica.
+     */
+    private final Map<Long, LogEntry> firstCommittedEntries = new HashMap<>();
+
+    /**
+     * For each correct replica, the sequence number at which each entry was committed.
+     */
+    private final Map<String, Map<LogEntry, Long>> committedSequenceNumbers = new HashMap<>();
+
+    /**
+     * The number of commit log entries of each replica that have been indexed.
+     */
+    private final Map<String, Integer> indexedLengths = new HashMap<>();
+
+    /**
+     * The faulty replicas when the index was built. Their commits are not indexed.
+     */
+    private Set<String> indexedFaultyReplicaIds = Set.of();
+
+    /**
+     * The first violation found, or null if the correct replicas agree.
+     */
+    private Violation violation;
 
-public class AgreementPredicate extends ScenarioPredicate {
     public AgreementPredicate(Scenario scenario) {
         super(scenario);
+        scenario.addObserver(this);
+        scenario.getReplicas().values().forEach(replica -> replica.addObserver(this));
+        this.rebuildIndex(scenario);
     }
 
     @Override
@@ -19,65 +58,168 @@ public class AgreementPredicate extends ScenarioPredicate {
     }
 
     @Override
-    public boolean test(Scenario scenarioExecutor) {
-        Collection<Replica> replicas = scenarioExecutor.getReplicas().values().stream()
-                .filter(node -> !scenarioExecutor.isFaultyReplica(node.getId()))
-                .toList();
+    public Set<Input> getInputs() {
+        return EnumSet.of(Input.COMMIT_LOG);
+    }
+
+    /**
+     * Agreement re-checks the commit log of every replica, and re-indexes them when written to
+     * directly. A violation is never undone by later commits, so sampling only delays its
+     * detection.
+     */
+    @Override
+    public boolean isExpensive() {
+        return true;
+    }
+
+    @Override
+    public synchronized boolean test(Scenario scenarioExecutor) {
+        if (!this.isIndexUpToDate(scenarioExecutor)) {
+            this.rebuildIndex(scenarioExecutor);
+        }
+
+        if (this.violation == null) {
+            return true;
+        }
+
+        this.violation.print(this.correctReplicas(scenarioExecutor));
+        return false;
+    }
+
+    @Override
+    public synchronized String getExplanation() {
+        return this.test() ? "OK" : this.violation.toString();
+    }
+
+    @Override
+    public void onReplicaAdded(Replica replica) {
+        replica.addObserver(this);
+    }
+
+    @Override
+    public synchronized void onCommitLogEntry(Replica r, long sequenceNumber, LogEntry entry) {
+        this.indexedLengths.merge(r.getId(), 1, Integer::sum);
+        if (!this.indexedFaultyReplicaIds.contains(r.getId())) {
+            this.index(r.getId(), sequenceNumber, entry);
+        }
+    }
+
+    /**
+     * Indexes an entry committed by a correct replica, recording the first violation.
+     */
+    private void index(String replicaId, long sequenceNumber, LogEntry entry) {
+        if (entry == null) {
+            return;
+        }
 
-        // get the max length of the commit logs of all replicas
-        long lowestSequenceNumber = replicas.stream()
-                .map(replica -> replica.getCommitLog().getLowestSequenceNumber())
-                .min(Long::compareTo)
-                .orElse(0L);
-        long highestSequenceNumber = replicas.stream()
-                .map(replica -> replica.getCommitLog().getHighestSequenceNumber())
-                .max(Long::compareTo)
-                .orElse(0L);
-
-        // check for duplicate entries in each replica's commit log
-        for (Replica replica : replicas) {
+        Long previousSequenceNumber = this.committedSequenceNumbers
+                .computeIfAbsent(replicaId, k -> new HashMap<>())
+                .putIfAbsent(entry, sequenceNumber);
+        if (previousSequenceNumber != null && previousSequenceNumber != sequenceNumber && this.violation == null) {
+            this.violation = new DuplicateEntry(replicaId,
+                    Math.min(previousSequenceNumber, sequenceNumber),
+                    Math.max(previousSequenceNumber, sequenceNumber));
+        }
+
+        LogEntry firstEntry = this.firstCommittedEntries.putIfAbsent(sequenceNumber, entry);
+        if (firstEntry != null && !firstEntry.equals(entry) && this.violation == null) {
+            this.violation = new Disagreement(sequenceNumber);
+        }
+    }
+
+    /**
+     * Checks that the faulty replicas did not change and that every commit log entry has
+     * been indexed.
+     */
+    private boolean isIndexUpToDate(Scenario scenario) {
+        if (!this.indexedFaultyReplicaIds.equals(scenario.getFaultyReplicaIds())) {
+            return false;
+        }
+        for (Replica replica : scenario.getReplicas().values()) {
+            if (replica.getCommitLog().getLength() != this.indexedLengths.getOrDefault(replica.getId(), 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Re-indexes the commit logs of all replicas from scratch.
+     */
+    private void rebuildIndex(Scenario scenario) {
+        this.firstCommittedEntries.clear();
+        this.committedSequenceNumbers.clear();
+        this.indexedLengths.clear();
+        this.indexedFaultyReplicaIds = Set.copyOf(scenario.getFaultyReplicaIds());
+        this.violation = null;
+
+        for (Replica replica : scenario.getReplicas().values()) {
             CommitLog commitLog = replica.getCommitLog();
-            for (int i = 0; i < commitLog.getLength(); i++) {
-                for (int j = i + 1; j < commitLog.getLength(); j++) {
-                    if (commitLog.get(i) == null || commitLog.get(j) == null) {
-                        continue;
-                    }
-                    if (commitLog.get(i).equals(commitLog.get(j))) {
-                        System.out.println("Replica " + replica.getId() + " has duplicate entries at indices " + i + " and " + j);
-                        return false;
-                    }
-                }
+            this.indexedLengths.put(replica.getId(), commitLog.getLength());
+            if (this.indexedFaultyReplicaIds.contains(replica.getId()) || commitLog.isEmpty()) {
+                continue;
+            }
+            for (long i = commitLog.getLowestSequenceNumber(); i <= commitLog.getHighestSequenceNumber(); i++) {
+                this.index(replica.getId(), i, commitLog.get(i));
             }
         }
+    }
+
+    private List<Replica> correctReplicas(Scenario scenario) {
+        return scenario.getReplicas().values().stream()
+                .filter(node -> !scenario.isFaultyReplica(node.getId()))
+                .toList();
+    }
+
+    /**
+     * A violation of agreement.
+     */
+    private interface Violation {
+        /**
+         * Prints the diagnostic output of the violation.
+         *
+         * @param replicas The correct replicas of the scenario.
+         */
+        void print(List<Replica> replicas);
+    }
+
+    /**
+     * A correct replica committed the same entry at two sequence numbers.
+     */
+    private record DuplicateEntry(String replicaId, long i, long j) implements Violation {
+        @Override
+        public void print(List<Replica> replicas) {
+            System.out.println(this);
+        }
 
-        // check if the Nth entry in the commit log of each replica is the same
-        for (long i = lowestSequenceNumber; i <= highestSequenceNumber; i++) {
-            final long index = i;
-            List<LogEntry> distinctIthEntries = replicas.stream()
-                    .map(Replica::getCommitLog)
-                    .map(log -> log.get(index))
+        @Override
+        public String toString() {
+            return "Replica " + replicaId + " has duplicate entries at indices " + i + " and " + j;
+        }
+    }
+
+    /**
+     * Two correct replicas committed different entries at the same sequence number.
+     */
+    private record Disagreement(long index) implements Violation {
+        @Override
+        public void print(List<Replica> replicas) {
+            System.out.println(this);
+            System.out.println("REPLICAS:");
+            for (Replica replica : replicas) {
+                System.out.println(replica.getId() + ": " + replica.getCommitLog().get(index));
+            }
+            System.out.println("DISTINCT ENTRIES:");
+            replicas.stream()
+                    .map(replica -> replica.getCommitLog().get(index))
                     .filter(Objects::nonNull)
                     .distinct()
-                    .toList();
-
-            if (distinctIthEntries.size() > 1) {
-                System.out.println("AgreementPredicate: Disagreement at index " + i);
-                System.out.println("REPLICAS:");
-                for (Replica replica : replicas) {
-                    try {
-                        System.out.println(replica.getId() + ": " + replica.getCommitLog().get(index));
-                    } catch (Exception e) {
-                        //e.printStackTrace();
-                    }
-                }
-                System.out.println("DISTINCT ENTRIES:");
-                for (LogEntry entry : distinctIthEntries) {
-                    System.out.println(entry);
-                }
-                return false;
-            }
+                    .forEach(System.out::println);
         }
 
-        return true;
+        @Override
+        public String toString() {
+            return "AgreementPredicate: Disagreement at index " + index;
+        }
     }
 }
@@ -3,16 +3,14 @@ package byzzbench.simulator.state;
 import byzzbench.simulator.Scenario;
 import byzzbench.simulator.ScenarioObserver;
 import byzzbench.simulator.ScenarioPredicate;
-import byzzbench.simulator.faults.Fault;
-import byzzbench.simulator.nodes.Client;
-import byzzbench.simulator.nodes.Node;
 import byzzbench.simulator.nodes.Replica;
 import byzzbench.simulator.nodes.ReplicaObserver;
 import byzzbench.simulator.transport.*;
 import lombok.extern.java.Log;
 
 import java.io.Serializable;
-import java.util.SortedSet;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Predicate that checks if the scenario satisfies the liveness property.
@@ -55,6 +53,11 @@ public class BoundedLivenessPredicate extends ScenarioPredicate implements Scena
         return scenario.getSchedule().getLength() - this.gstEventIndex;
     }
 
+    @Override
+    public Set<Input> getInputs() {
+        return EnumSet.of(Input.GST, Input.COMMIT_LOG, Input.SCHEDULE);
+    }
+
     @Override
     public boolean test(Scenario scenario) {
         // If we are before GST, the scenario is considered live
@@ -83,11 +86,6 @@ public class BoundedLivenessPredicate extends ScenarioPredicate implements Scena
         return true;
     }
 
-    @Override
-    public void onLeaderChange(Replica r, String newLeaderId) {
-        // no action needed
-    }
-
     @Override
     public void onLocalCommit(Replica r, Serializable operation) {
         if (this.gstReached) {
@@ -97,64 +95,14 @@ public class BoundedLivenessPredicate extends ScenarioPredicate implements Scena
         }
     }
 
-    @Override
-    public void onTimeout(Replica r) {
-        // no action needed
-    }
-
     @Override
     public void onReplicaAdded(Replica replica) {
         replica.addObserver(this);
     }
 
-    @Override
-    public void onClientAdded(Client client) {
-        // no action needed
-    }
-
-    @Override
-    public void onMulticast(Node sender, SortedSet<String> recipients, MessagePayload payload) {
-        // no action needed
-    }
-
-    @Override
-    public void onEventAdded(Event event) {
-        // no action needed
-    }
-
-    @Override
-    public void onEventDropped(Event event) {
-        // no action needed
-    }
-
-    @Override
-    public void onEventRequeued(Event event) {
-        // no action needed
-    }
-
-    @Override
-    public void onEventDelivered(Event event) {
-        // no action needed
-    }
-
-    @Override
-    public void onMessageMutation(MutateMessageEventPayload payload) {
-        // no action needed
-    }
-
-    @Override
-    public void onFault(Fault fault) {
-        // no action needed
-    }
-
-    @Override
-    public void onTimeout(TimeoutEvent event) {
-        // no action needed
-    }
-
     @Override
     public void onGlobalStabilizationTime() {
-        log.fine("GST Reached at event index: " + this.getScenario().getSchedule().getLength());
+        log.fine(() -> "GST Reached at event index: " + this.getScenario().getSchedule().getLength());
         this.gstReached = true;
         this.gstEventIndex = this.getScenario().getSchedule().getLength();
     }
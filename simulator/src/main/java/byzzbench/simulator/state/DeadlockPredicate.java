@@ -5,6 +5,9 @@ import byzzbench.simulator.ScenarioPredicate;
 import byzzbench.simulator.transport.Event;
 import lombok.extern.java.Log;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Predicate that checks if the scenario satisfies the liveness property.
  */
@@ -19,9 +22,14 @@ public class DeadlockPredicate extends ScenarioPredicate {
         return "Deadlock";
     }
 
+    @Override
+    public Set<Input> getInputs() {
+        return EnumSet.of(Input.QUEUE);
+    }
+
     @Override
     public boolean test(Scenario scenarioExecutor) {
-        boolean hasQueuedEvents = !(scenarioExecutor.getTransport().getEventsInState(Event.Status.QUEUED).isEmpty());
+        boolean hasQueuedEvents = scenarioExecutor.getTransport().countEventsInState(Event.Status.QUEUED) > 0;
         if (!hasQueuedEvents) {
             log.info("LivenessPredicate: No events in the QUEUED state");
         }
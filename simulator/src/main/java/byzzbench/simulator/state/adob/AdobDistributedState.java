@@ -1,7 +1,6 @@
 package byzzbench.simulator.state.adob;
 
 import byzzbench.simulator.ScenarioObserver;
-import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Replica;
 import byzzbench.simulator.nodes.ReplicaObserver;
 import byzzbench.simulator.versioning.VectorClock;
@@ -179,16 +178,17 @@ public class AdobDistributedState implements ScenarioObserver, ReplicaObserver,
         caches.put(0L, root);
     }
 
+    /**
+     * Whenever a replica is added, create its initial CCache and observe it. The replica's
+     * callbacks are run on the scenario's observer lane, off the simulation thread.
+     *
+     * @param r the replica that was added
+     */
     @Override
-    public void onReplicaAdded(Replica r) {
-        r.addObserver(this);
+    public synchronized void onReplicaAdded(Replica r) {
+        r.addAsyncObserver(this, r.getScenario().getObserverLane());
         log.info("Replica added: " + r.getId());
         CommitCache cCache = new CommitCache(r.getScenario().getReplicas().navigableKeySet().stream().sorted().toList().indexOf(r.getId()), root);
         caches.put(cCache.getId(), cCache);
     }
-
-    @Override
-    public void onClientAdded(Client c) {
-        // do nothing
-    }
 }
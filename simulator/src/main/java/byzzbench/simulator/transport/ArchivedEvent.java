@@ -0,0 +1,29 @@
+package byzzbench.simulator.transport;
+
+import java.io.Serializable;
+
+/**
+ * Compact record of an {@link Event} that has been retired from the live {@link EventStore}.
+ * <p>
+ * Only the identifying fields are kept: the payload of the event can be rehydrated from
+ * the corresponding action in the {@link byzzbench.simulator.domain.Schedule}.
+ *
+ * @param eventId     The unique identifier of the event.
+ * @param type        The type of the event (see {@link Event#getType()}).
+ * @param senderId    The ID of the sender node, or null if the event has no sender.
+ * @param recipientId The ID of the recipient node, or null if the event has no recipient.
+ * @param status      The status of the event when it was retired.
+ */
+public record ArchivedEvent(long eventId, String type, String senderId, String recipientId,
+                            Event.Status status) implements Serializable {
+    /**
+     * Creates the compact record of an event.
+     *
+     * @param event The event to archive.
+     * @return The archived event.
+     */
+    public static ArchivedEvent of(Event event) {
+        return new ArchivedEvent(event.getEventId(), event.getType(),
+                EventQuery.senderOf(event), EventQuery.recipientOf(event), event.getStatus());
+    }
+}
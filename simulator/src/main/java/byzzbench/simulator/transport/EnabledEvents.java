@@ -0,0 +1,212 @@
+package byzzbench.simulator.transport;
+
+import byzzbench.simulator.ExecutionMode;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Incrementally maintained set of the queued events that can be scheduled next.
+ * <p>
+ * The set is kept up to date by the {@link EventStore} whenever a message or timeout is
+ * queued or leaves the queue (added, delivered, dropped, re-queued at GST), so reading it
+ * never rescans the queue. It tracks:
+ * <ul>
+ *     <li>every queued message (enabled in {@link ExecutionMode#ASYNC});</li>
+ *     <li>the first queued message in each mailbox (enabled in {@link ExecutionMode#SYNC});</li>
+ *     <li>the earliest-expiring queued timeout of each node (enabled in {@link ExecutionMode#ASYNC},
+ *     and in {@link ExecutionMode#SYNC} only while every mailbox is empty).</li>
+ * </ul>
+ * Each of them is an array-backed set with O(1) insertion, removal and indexed access, so
+ * strategies can {@link #sample(ExecutionMode, Random) sample} an enabled event directly.
+ */
+public class EnabledEvents implements Serializable {
+    /**
+     * All queued messages.
+     */
+    private final IndexedEventSet<MessageEvent> messages = new IndexedEventSet<>();
+
+    /**
+     * The first queued message in each non-empty mailbox.
+     */
+    private final IndexedEventSet<MessageEvent> mailboxHeads = new IndexedEventSet<>();
+
+    /**
+     * The earliest-expiring queued timeout of each node with queued timeouts.
+     */
+    private final IndexedEventSet<TimeoutEvent> timeoutHeads = new IndexedEventSet<>();
+
+    /**
+     * Records that a message was queued.
+     *
+     * @param message     The queued message.
+     * @param mailboxHead The first queued message in its mailbox after queuing it.
+     * @param previous    The first queued message in its mailbox before queuing it, or null.
+     */
+    synchronized void messageQueued(MessageEvent message, MessageEvent mailboxHead, MessageEvent previous) {
+        this.messages.add(message);
+        this.replaceHead(this.mailboxHeads, previous, mailboxHead);
+    }
+
+    /**
+     * Records that a message left the queue.
+     *
+     * @param message     The message that left the queue.
+     * @param mailboxHead The first queued message in its mailbox after removing it, or null.
+     * @param previous    The first queued message in its mailbox before removing it.
+     */
+    synchronized void messageUnqueued(MessageEvent message, MessageEvent mailboxHead, MessageEvent previous) {
+        this.messages.remove(message);
+        this.replaceHead(this.mailboxHeads, previous, mailboxHead);
+    }
+
+    /**
+     * Records that the earliest-expiring queued timeout of a node may have changed.
+     *
+     * @param head     The earliest-expiring queued timeout of the node, or null.
+     * @param previous The earliest-expiring queued timeout of the node before the change, or null.
+     */
+    synchronized void timeoutHeadChanged(TimeoutEvent head, TimeoutEvent previous) {
+        this.replaceHead(this.timeoutHeads, previous, head);
+    }
+
+    /**
+     * Gets the messages that can be delivered next, ordered by event ID.
+     *
+     * @param mode The execution mode.
+     * @return The deliverable messages.
+     */
+    public synchronized List<MessageEvent> getDeliverableMessages(ExecutionMode mode) {
+        List<MessageEvent> deliverable = new ArrayList<>(this.messagesFor(mode).elements);
+        deliverable.sort(Comparator.comparingLong(Event::getEventId));
+        return deliverable;
+    }
+
+    /**
+     * Gets the timeouts that can be triggered next, earliest-expiring first.
+     *
+     * @param mode The execution mode.
+     * @return The triggerable timeouts, at most one per node.
+     */
+    public synchronized List<TimeoutEvent> getTriggerableTimeouts(ExecutionMode mode) {
+        if (!this.timeoutsEnabled(mode)) {
+            return List.of();
+        }
+        List<TimeoutEvent> triggerable = new ArrayList<>(this.timeoutHeads.elements);
+        triggerable.sort(TimeoutQueue.EXPIRY_ORDER);
+        return triggerable;
+    }
+
+    /**
+     * Gets the number of events that can be scheduled next.
+     *
+     * @param mode The execution mode.
+     * @return The number of deliverable messages plus triggerable timeouts.
+     */
+    public synchronized int size(ExecutionMode mode) {
+        return this.messagesFor(mode).size() + (this.timeoutsEnabled(mode) ? this.timeoutHeads.size() : 0);
+    }
+
+    /**
+     * Gets the i-th event that can be scheduled next: deliverable messages come first, then
+     * triggerable timeouts. The order within each group is unspecified but deterministic.
+     *
+     * @param mode  The execution mode.
+     * @param index The index of the event, between 0 (inclusive) and {@link #size(ExecutionMode)} (exclusive).
+     * @return The event at the given index.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public synchronized Event get(ExecutionMode mode, int index) {
+        IndexedEventSet<MessageEvent> deliverable = this.messagesFor(mode);
+        if (index < deliverable.size()) {
+            return deliverable.get(index);
+        }
+        if (!this.timeoutsEnabled(mode)) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return this.timeoutHeads.get(index - deliverable.size());
+    }
+
+    /**
+     * Picks an event that can be scheduled next uniformly at random.
+     *
+     * @param mode   The execution mode.
+     * @param random The source of randomness.
+     * @return The picked event, or empty if no event is enabled.
+     */
+    public synchronized Optional<Event> sample(ExecutionMode mode, Random random) {
+        int size = this.size(mode);
+        return size == 0 ? Optional.empty() : Optional.of(this.get(mode, random.nextInt(size)));
+    }
+
+    private IndexedEventSet<MessageEvent> messagesFor(ExecutionMode mode) {
+        return switch (mode) {
+            case SYNC -> this.mailboxHeads;
+            case ASYNC -> this.messages;
+        };
+    }
+
+    private boolean timeoutsEnabled(ExecutionMode mode) {
+        return switch (mode) {
+            // timeouts are only enabled once every mailbox is empty
+            case SYNC -> this.mailboxHeads.size() == 0;
+            case ASYNC -> true;
+        };
+    }
+
+    private <E extends Event> void replaceHead(IndexedEventSet<E> heads, E previous, E head) {
+        if (previous == head) {
+            return;
+        }
+        if (previous != null) {
+            heads.remove(previous);
+        }
+        if (head != null) {
+            heads.add(head);
+        }
+    }
+
+    /**
+     * Set of events with O(1) insertion, removal and indexed access. Removal moves the
+     * last element into the removed slot.
+     *
+     * @param <E> The type of events.
+     */
+    private static class IndexedEventSet<E extends Event> implements Serializable {
+        /**
+         * The events in the set.
+         */
+        private final List<E> elements = new ArrayList<>();
+
+        /**
+         * Map of event ID to the position of the event in {@link #elements}.
+         */
+        private final Map<Long, Integer> positions = new HashMap<>();
+
+        void add(E event) {
+            if (this.positions.putIfAbsent(event.getEventId(), this.elements.size()) == null) {
+                this.elements.add(event);
+            }
+        }
+
+        void remove(E event) {
+            Integer position = this.positions.remove(event.getEventId());
+            if (position == null) {
+                return;
+            }
+            E last = this.elements.removeLast();
+            if (position < this.elements.size()) {
+                this.elements.set(position, last);
+                this.positions.put(last.getEventId(), position);
+            }
+        }
+
+        E get(int index) {
+            return this.elements.get(index);
+        }
+
+        int size() {
+            return this.elements.size();
+        }
+    }
+}
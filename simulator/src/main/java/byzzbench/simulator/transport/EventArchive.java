@@ -0,0 +1,247 @@
+package byzzbench.simulator.transport;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Archive of the events retired from the live {@link EventStore} in bounded-memory mode.
+ * <p>
+ * Archived events are kept as {@link ArchivedEvent} records. Once more than
+ * {@link #getMaxInMemory()} records are held in memory, they are evicted to a spill
+ * file on disk as a single segment, and read back on demand.
+ */
+@Log
+public class EventArchive implements Closeable {
+    /**
+     * The maximum number of archived events to keep in memory before evicting them to disk.
+     */
+    @Getter
+    private final int maxInMemory;
+
+    /**
+     * The directory for the spill file, or null for the default temporary-file directory.
+     */
+    private final Path directory;
+
+    /**
+     * The archived events currently held in memory, by event ID.
+     */
+    private final SortedMap<Long, ArchivedEvent> inMemory = new TreeMap<>();
+
+    /**
+     * The segments evicted to the spill file, in eviction order.
+     */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * The number of archived events in each state, including evicted ones.
+     */
+    private final Map<Event.Status, Integer> counts = new EnumMap<>(Event.Status.class);
+
+    /**
+     * The spill file (created on first eviction).
+     */
+    private Path spillFile;
+
+    /**
+     * The current length of the spill file.
+     */
+    private long spillFileLength = 0;
+
+    /**
+     * Creates a new event archive.
+     *
+     * @param maxInMemory The maximum number of archived events to keep in memory.
+     * @param directory   The directory for the spill file, or null for the default temporary-file directory.
+     */
+    public EventArchive(int maxInMemory, Path directory) {
+        if (maxInMemory <= 0) {
+            throw new IllegalArgumentException("maxInMemory must be positive: " + maxInMemory);
+        }
+        this.maxInMemory = maxInMemory;
+        this.directory = directory;
+    }
+
+    /**
+     * Adds an event to the archive, evicting the in-memory records to disk if needed.
+     *
+     * @param event The archived event.
+     */
+    public synchronized void add(ArchivedEvent event) {
+        this.inMemory.put(event.eventId(), event);
+        this.counts.merge(event.status(), 1, Integer::sum);
+        if (this.inMemory.size() > this.maxInMemory) {
+            this.evict();
+        }
+    }
+
+    /**
+     * Gets an archived event by ID, reading it back from disk if it was evicted.
+     *
+     * @param eventId The ID of the event.
+     * @return The archived event, or empty if the event is not in the archive.
+     */
+    public synchronized Optional<ArchivedEvent> get(long eventId) {
+        ArchivedEvent event = this.inMemory.get(eventId);
+        if (event != null) {
+            return Optional.of(event);
+        }
+        for (Segment segment : this.segments) {
+            if (segment.contains(eventId)) {
+                Optional<ArchivedEvent> found = this.readSegment(segment).stream()
+                        .filter(e -> e.eventId() == eventId)
+                        .findFirst();
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the IDs of all archived events in a given state, including evicted ones.
+     *
+     * @param status The state to filter by, or null for all events.
+     * @return The sorted set of event IDs.
+     */
+    public synchronized SortedSet<Long> getEventIds(Event.Status status) {
+        SortedSet<Long> ids = new TreeSet<>();
+        for (Segment segment : this.segments) {
+            this.readSegment(segment).stream()
+                    .filter(e -> status == null || e.status() == status)
+                    .forEach(e -> ids.add(e.eventId()));
+        }
+        this.inMemory.values().stream()
+                .filter(e -> status == null || e.status() == status)
+                .forEach(e -> ids.add(e.eventId()));
+        return ids;
+    }
+
+    /**
+     * Gets the number of archived events in a given state, including evicted ones.
+     *
+     * @param status The state to count.
+     * @return The number of archived events in the given state.
+     */
+    public synchronized int count(Event.Status status) {
+        return this.counts.getOrDefault(status, 0);
+    }
+
+    /**
+     * Gets the number of archived events currently held in memory.
+     *
+     * @return The number of in-memory archived events.
+     */
+    public synchronized int countInMemory() {
+        return this.inMemory.size();
+    }
+
+    /**
+     * Deletes the spill file, if any.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.spillFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(this.spillFile);
+        } catch (IOException e) {
+            log.warning("Failed to delete event archive spill file " + this.spillFile + ": " + e.getMessage());
+        }
+        this.spillFile = null;
+        this.segments.clear();
+        this.spillFileLength = 0;
+    }
+
+    private void evict() {
+        try {
+            if (this.spillFile == null) {
+                this.spillFile = this.directory == null
+                        ? Files.createTempFile("byzzbench-events-", ".bin")
+                        : Files.createTempFile(this.directory, "byzzbench-events-", ".bin");
+                this.spillFile.toFile().deleteOnExit();
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                for (ArchivedEvent event : this.inMemory.values()) {
+                    out.writeLong(event.eventId());
+                    writeNullableString(out, event.type());
+                    writeNullableString(out, event.senderId());
+                    writeNullableString(out, event.recipientId());
+                    out.writeByte(event.status().ordinal());
+                }
+            }
+
+            try (OutputStream out = Files.newOutputStream(this.spillFile, StandardOpenOption.APPEND)) {
+                bytes.writeTo(out);
+            }
+
+            this.segments.add(new Segment(this.inMemory.firstKey(), this.inMemory.lastKey(),
+                    this.spillFileLength, bytes.size(), this.inMemory.size()));
+            this.spillFileLength += bytes.size();
+            this.inMemory.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to evict archived events to disk", e);
+        }
+    }
+
+    private List<ArchivedEvent> readSegment(Segment segment) {
+        byte[] bytes = new byte[segment.length()];
+        try (RandomAccessFile file = new RandomAccessFile(this.spillFile.toFile(), "r")) {
+            file.seek(segment.offset());
+            file.readFully(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived events from disk", e);
+        }
+
+        List<ArchivedEvent> events = new ArrayList<>(segment.size());
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            for (int i = 0; i < segment.size(); i++) {
+                long eventId = in.readLong();
+                String type = readNullableString(in);
+                String senderId = readNullableString(in);
+                String recipientId = readNullableString(in);
+                Event.Status status = Event.Status.values()[in.readByte()];
+                events.add(new ArchivedEvent(eventId, type, senderId, recipientId, status));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupted event archive segment", e);
+        }
+        return events;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * A block of archived events evicted to the spill file, sorted by event ID.
+     *
+     * @param firstId The smallest event ID in the segment.
+     * @param lastId  The largest event ID in the segment.
+     * @param offset  The offset of the segment in the spill file.
+     * @param length  The length of the segment in bytes.
+     * @param size    The number of events in the segment.
+     */
+    private record Segment(long firstId, long lastId, long offset, int length, int size) {
+        boolean contains(long eventId) {
+            return eventId >= firstId && eventId <= lastId;
+        }
+    }
+}
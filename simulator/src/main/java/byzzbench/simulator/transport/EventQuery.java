@@ -0,0 +1,61 @@
+package byzzbench.simulator.transport;
+
+import java.io.Serializable;
+
+/**
+ * A filter over the {@link Event}s of a {@link Transport}. Null criteria match every event.
+ *
+ * @param type        The type of the events (see {@link Event#getType()}).
+ * @param senderId    The ID of the node that sent the events.
+ * @param recipientId The ID of the node that receives the events.
+ * @param status      The state of the events.
+ */
+public record EventQuery(String type, String senderId, String recipientId, Event.Status status) implements Serializable {
+    /**
+     * A query matching every event.
+     */
+    public static final EventQuery ALL = new EventQuery(null, null, null, null);
+
+    /**
+     * Gets the ID of the node that sent an event: the node that set it, for a timeout.
+     *
+     * @param event The event.
+     * @return The ID of the sender, or null if the event has no sender.
+     */
+    public static String senderOf(Event event) {
+        return switch (event) {
+            case BaseMessageEvent<?> m -> m.getSenderId();
+            case MutateMessageEvent m -> m.getSenderId();
+            case TimeoutEvent t -> t.getNodeId();
+            default -> null;
+        };
+    }
+
+    /**
+     * Gets the ID of the node that receives an event: the node that set it, for a timeout.
+     *
+     * @param event The event.
+     * @return The ID of the recipient, or null if the event has no recipient.
+     */
+    public static String recipientOf(Event event) {
+        return switch (event) {
+            case BaseMessageEvent<?> m -> m.getRecipientId();
+            case MutateMessageEvent m -> m.getRecipientId();
+            case TimeoutEvent t -> t.getNodeId();
+            default -> null;
+        };
+    }
+
+    /**
+     * Checks whether an event matches all the criteria of the query.
+     *
+     * @param event The event.
+     * @return True if the event matches.
+     */
+    public boolean matches(Event event) {
+        return (this.status == null || this.status == event.getStatus())
+                && (this.type == null || this.type.equals(event.getType()))
+                && (this.senderId == null || this.senderId.equals(senderOf(event)))
+                && (this.recipientId == null || this.recipientId.equals(recipientOf(event)));
+    }
+}
@@ -0,0 +1,434 @@
+package byzzbench.simulator.transport;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Storage for the {@link Event}s of a {@link Transport}.
+ * <p>
+ * Besides the map of all events ever created, the store keeps live indices of
+ * the events in each {@link Event.Status}, of the queued messages in each
+ * recipient's mailbox and of the queued timeouts of each node, as well as indices
+ * of the events sent and received by each node. Queries over queued events therefore
+ * cost O(result) instead of O(history), and {@link #queryEventIds filtered queries} scan
+ * the most selective index. The timeouts
+ * of each node are kept in a {@link TimeoutQueue}, so the earliest-expiring
+ * timeout of a node is available in O(1). The events that can be scheduled next are
+ * maintained incrementally in an {@link EnabledEvents} set.
+ * <p>
+ * Status changes of stored events must go through {@link #setStatus(Event, Event.Status)},
+ * otherwise the indices go stale.
+ * <p>
+ * In bounded-memory mode (see {@link #setArchive(EventArchive)}), events that are no longer
+ * queued can be {@link #retire(Event) retired} from the store into an {@link EventArchive}.
+ */
+public class EventStore implements Serializable {
+    /**
+     * Map of event ID to the {@link Event} object.
+     */
+    private final SortedMap<Long, Event> events = new TreeMap<>();
+
+    /**
+     * Index of the events in each state, ordered by event ID.
+     */
+    private final Map<Event.Status, SortedMap<Long, Event>> eventsByStatus = new EnumMap<>(Event.Status.class);
+
+    /**
+     * Index of the queued {@link MessageEvent}s, ordered by event ID.
+     */
+    private final SortedMap<Long, MessageEvent> queuedMessages = new TreeMap<>();
+
+    /**
+     * Index of the queued {@link MessageEvent}s in the mailbox of each recipient, ordered by event ID.
+     */
+    private final Map<String, SortedMap<Long, MessageEvent>> queuedMessagesByRecipient = new HashMap<>();
+
+    /**
+     * Index of the live events sent by each node, and received by each node, by event ID.
+     */
+    private final Map<String, SortedMap<Long, Event>> eventsBySender = new HashMap<>();
+    private final Map<String, SortedMap<Long, Event>> eventsByRecipient = new HashMap<>();
+
+    /**
+     * Index of the queued {@link TimeoutEvent}s of each node, ordered by expiry.
+     */
+    private final Map<String, TimeoutQueue> queuedTimeoutsByNode = new TreeMap<>();
+
+    /**
+     * The queued events that can be scheduled next, kept up to date with the indices above.
+     */
+    private final EnabledEvents enabledEvents = new EnabledEvents();
+
+    /**
+     * Archive of retired events, or null if events are never retired.
+     */
+    private transient EventArchive archive;
+
+    public EventStore() {
+        for (Event.Status status : Event.Status.values()) {
+            this.eventsByStatus.put(status, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Adds a new event to the store, indexing it under its current status.
+     *
+     * @param event The event to add.
+     */
+    public synchronized void add(Event event) {
+        this.events.put(event.getEventId(), event);
+        this.indexNodes(event);
+        this.index(event);
+    }
+
+    /**
+     * Adds a batch of new events to the store, indexing them under their current status.
+     *
+     * @param events The events to add.
+     */
+    public synchronized void addAll(Collection<? extends Event> events) {
+        for (Event event : events) {
+            this.events.put(event.getEventId(), event);
+            this.indexNodes(event);
+            this.index(event);
+        }
+    }
+
+    /**
+     * Changes the status of a stored event, keeping the indices up to date.
+     *
+     * @param event  The event to update.
+     * @param status The new status of the event.
+     */
+    public synchronized void setStatus(Event event, Event.Status status) {
+        if (this.events.get(event.getEventId()) == event) {
+            this.unindex(event);
+            event.setStatus(status);
+            this.index(event);
+        } else {
+            event.setStatus(status);
+        }
+    }
+
+    /**
+     * Enables bounded-memory mode, retiring events into the given archive.
+     *
+     * @param archive The archive for retired events.
+     */
+    public synchronized void setArchive(EventArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Gets the archive of retired events, if bounded-memory mode is enabled.
+     *
+     * @return The event archive, or empty if events are never retired.
+     */
+    public synchronized Optional<EventArchive> getArchive() {
+        return Optional.ofNullable(this.archive);
+    }
+
+    /**
+     * Moves a stored event that is no longer queued into the archive.
+     * Does nothing if bounded-memory mode is disabled.
+     *
+     * @param event The event to retire.
+     * @return True if the event was retired, false otherwise.
+     */
+    public synchronized boolean retire(Event event) {
+        if (this.archive == null
+                || event.getStatus() == Event.Status.QUEUED
+                || this.events.get(event.getEventId()) != event) {
+            return false;
+        }
+        this.unindex(event);
+        this.unindexNodes(event);
+        this.events.remove(event.getEventId());
+        this.archive.add(ArchivedEvent.of(event));
+        return true;
+    }
+
+    /**
+     * Gets the compact record of a retired event.
+     *
+     * @param eventId The ID of the event.
+     * @return The archived event, or empty if the event was not retired.
+     */
+    public synchronized Optional<ArchivedEvent> getArchived(long eventId) {
+        return this.archive == null ? Optional.empty() : this.archive.get(eventId);
+    }
+
+    /**
+     * Gets the IDs of all events, including retired ones.
+     *
+     * @return The sorted set of event IDs.
+     */
+    public synchronized SortedSet<Long> getEventIds() {
+        SortedSet<Long> ids = new TreeSet<>(this.events.keySet());
+        if (this.archive != null) {
+            ids.addAll(this.archive.getEventIds(null));
+        }
+        return ids;
+    }
+
+    /**
+     * Gets the IDs of all events in a given state, including retired ones.
+     *
+     * @param status The state to filter by.
+     * @return The sorted set of event IDs.
+     */
+    public synchronized SortedSet<Long> getEventIdsInState(Event.Status status) {
+        SortedSet<Long> ids = new TreeSet<>(this.eventsByStatus.get(status).keySet());
+        if (this.archive != null) {
+            ids.addAll(this.archive.getEventIds(status));
+        }
+        return ids;
+    }
+
+    /**
+     * Gets a page of the IDs of the live (non-retired) events matching a query, in ascending
+     * order. The events are scanned from the most selective index among those of the
+     * criteria of the query, so the cost is proportional to the size of the page and to the
+     * events of that index skipped, not to the number of events.
+     *
+     * @param query The query.
+     * @param after Only events with a greater ID are included, e.g. the last ID of the previous page.
+     * @param limit The maximum number of IDs.
+     * @return The IDs of the matching events.
+     */
+    public synchronized List<Long> queryEventIds(EventQuery query, long after, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+
+        SortedMap<Long, Event> candidates = this.events;
+        if (query.status() != null) {
+            candidates = smallest(candidates, this.eventsByStatus.get(query.status()));
+        }
+        if (query.senderId() != null) {
+            candidates = smallest(candidates, this.eventsBySender.getOrDefault(query.senderId(), Collections.emptySortedMap()));
+        }
+        if (query.recipientId() != null) {
+            candidates = smallest(candidates, this.eventsByRecipient.getOrDefault(query.recipientId(), Collections.emptySortedMap()));
+        }
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, 1024));
+        if (after == Long.MAX_VALUE) {
+            return ids;
+        }
+        for (Event event : candidates.tailMap(after + 1).values()) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            if (query.matches(event)) {
+                ids.add(event.getEventId());
+            }
+        }
+        return ids;
+    }
+
+    private static SortedMap<Long, Event> smallest(SortedMap<Long, Event> a, SortedMap<Long, Event> b) {
+        return b.size() < a.size() ? b : a;
+    }
+
+    /**
+     * Gets an event by ID.
+     *
+     * @param eventId The ID of the event.
+     * @return The event with the given ID, or null if there is no such event.
+     */
+    public synchronized Event get(long eventId) {
+        return this.events.get(eventId);
+    }
+
+    /**
+     * Gets a read-only view of all live (non-retired) events in the store, ordered by event ID.
+     *
+     * @return The map of event ID to event.
+     */
+    public SortedMap<Long, Event> getEvents() {
+        return Collections.unmodifiableSortedMap(this.events);
+    }
+
+    /**
+     * Gets all live (non-retired) events in a given state, ordered by event ID.
+     *
+     * @param status The state to filter by.
+     * @return A list of events in the given state.
+     */
+    public synchronized List<Event> getEventsInState(Event.Status status) {
+        return List.copyOf(this.eventsByStatus.get(status).values());
+    }
+
+    /**
+     * Gets the number of events in a given state, including retired ones.
+     *
+     * @param status The state to count.
+     * @return The number of events in the given state.
+     */
+    public synchronized int countEventsInState(Event.Status status) {
+        int archived = this.archive == null ? 0 : this.archive.count(status);
+        return this.eventsByStatus.get(status).size() + archived;
+    }
+
+    /**
+     * Gets all queued messages, ordered by event ID.
+     *
+     * @return A list of queued message events.
+     */
+    public synchronized List<MessageEvent> getQueuedMessages() {
+        return List.copyOf(this.queuedMessages.values());
+    }
+
+    /**
+     * Gets the queued messages in the mailbox of a given node, ordered by event ID.
+     *
+     * @param recipientId The ID of the recipient node.
+     * @return A list of queued message events for the node.
+     */
+    public synchronized List<MessageEvent> getQueuedMessages(String recipientId) {
+        SortedMap<Long, MessageEvent> mailbox = this.queuedMessagesByRecipient.get(recipientId);
+        return mailbox == null ? List.of() : List.copyOf(mailbox.values());
+    }
+
+    /**
+     * Gets the first queued message in the mailbox of a given node.
+     *
+     * @param recipientId The ID of the recipient node.
+     * @return The queued message with the lowest event ID, or empty if the mailbox is empty.
+     */
+    public synchronized Optional<MessageEvent> getMailboxHead(String recipientId) {
+        SortedMap<Long, MessageEvent> mailbox = this.queuedMessagesByRecipient.get(recipientId);
+        return mailbox == null || mailbox.isEmpty() ? Optional.empty() : Optional.of(mailbox.get(mailbox.firstKey()));
+    }
+
+    /**
+     * Gets the queued timeouts of a given node, ordered by event ID.
+     *
+     * @param nodeId The ID of the node.
+     * @return A list of queued timeout events for the node.
+     */
+    public synchronized List<TimeoutEvent> getQueuedTimeouts(String nodeId) {
+        TimeoutQueue timeouts = this.queuedTimeoutsByNode.get(nodeId);
+        return timeouts == null ? List.of() : timeouts.toList();
+    }
+
+    /**
+     * Gets the queued timeout of a given node that expires first.
+     *
+     * @param nodeId The ID of the node.
+     * @return The earliest-expiring queued timeout of the node, or empty if there is none.
+     */
+    public synchronized Optional<TimeoutEvent> getEarliestQueuedTimeout(String nodeId) {
+        TimeoutQueue timeouts = this.queuedTimeoutsByNode.get(nodeId);
+        return timeouts == null ? Optional.empty() : timeouts.peek();
+    }
+
+    /**
+     * Gets the incrementally maintained set of queued events that can be scheduled next.
+     *
+     * @return The enabled events.
+     */
+    public EnabledEvents getEnabledEvents() {
+        return this.enabledEvents;
+    }
+
+    /**
+     * Gets the earliest-expiring queued timeout of each node, ordered by expiry.
+     *
+     * @return A list with at most one timeout event per node.
+     */
+    public synchronized List<TimeoutEvent> getEarliestQueuedTimeouts() {
+        List<TimeoutEvent> earliest = new ArrayList<>();
+        for (TimeoutQueue timeouts : this.queuedTimeoutsByNode.values()) {
+            timeouts.peek().ifPresent(earliest::add);
+        }
+        earliest.sort(TimeoutQueue.EXPIRY_ORDER);
+        return earliest;
+    }
+
+    private void indexNodes(Event event) {
+        String senderId = EventQuery.senderOf(event);
+        if (senderId != null) {
+            this.eventsBySender.computeIfAbsent(senderId, k -> new TreeMap<>()).put(event.getEventId(), event);
+        }
+        String recipientId = EventQuery.recipientOf(event);
+        if (recipientId != null) {
+            this.eventsByRecipient.computeIfAbsent(recipientId, k -> new TreeMap<>()).put(event.getEventId(), event);
+        }
+    }
+
+    private void unindexNodes(Event event) {
+        String senderId = EventQuery.senderOf(event);
+        if (senderId != null && this.eventsBySender.containsKey(senderId)) {
+            this.eventsBySender.get(senderId).remove(event.getEventId());
+        }
+        String recipientId = EventQuery.recipientOf(event);
+        if (recipientId != null && this.eventsByRecipient.containsKey(recipientId)) {
+            this.eventsByRecipient.get(recipientId).remove(event.getEventId());
+        }
+    }
+
+    private void index(Event event) {
+        this.eventsByStatus.get(event.getStatus()).put(event.getEventId(), event);
+
+        if (event.getStatus() != Event.Status.QUEUED) {
+            return;
+        }
+
+        switch (event) {
+            case MessageEvent m -> {
+                this.queuedMessages.put(m.getEventId(), m);
+                SortedMap<Long, MessageEvent> mailbox = this.queuedMessagesByRecipient
+                        .computeIfAbsent(m.getRecipientId(), k -> new TreeMap<>());
+                MessageEvent previousHead = head(mailbox);
+                mailbox.put(m.getEventId(), m);
+                this.enabledEvents.messageQueued(m, head(mailbox), previousHead);
+            }
+            case TimeoutEvent t -> {
+                TimeoutQueue timeouts = this.queuedTimeoutsByNode.computeIfAbsent(t.getNodeId(), k -> new TimeoutQueue());
+                TimeoutEvent previousHead = timeouts.peek().orElse(null);
+                timeouts.add(t);
+                this.enabledEvents.timeoutHeadChanged(timeouts.peek().orElse(null), previousHead);
+            }
+            default -> {
+                // not indexed by mailbox
+            }
+        }
+    }
+
+    private void unindex(Event event) {
+        this.eventsByStatus.get(event.getStatus()).remove(event.getEventId());
+
+        if (event.getStatus() != Event.Status.QUEUED) {
+            return;
+        }
+
+        switch (event) {
+            case MessageEvent m -> {
+                this.queuedMessages.remove(m.getEventId());
+                SortedMap<Long, MessageEvent> mailbox = this.queuedMessagesByRecipient.get(m.getRecipientId());
+                if (mailbox != null) {
+                    MessageEvent previousHead = head(mailbox);
+                    mailbox.remove(m.getEventId());
+                    this.enabledEvents.messageUnqueued(m, head(mailbox), previousHead);
+                }
+            }
+            case TimeoutEvent t -> {
+                TimeoutQueue timeouts = this.queuedTimeoutsByNode.get(t.getNodeId());
+                if (timeouts != null) {
+                    TimeoutEvent previousHead = timeouts.peek().orElse(null);
+                    timeouts.remove(t.getEventId());
+                    this.enabledEvents.timeoutHeadChanged(timeouts.peek().orElse(null), previousHead);
+                }
+            }
+            default -> {
+                // not indexed by mailbox
+            }
+        }
+    }
+
+    private static MessageEvent head(SortedMap<Long, MessageEvent> mailbox) {
+        return mailbox.isEmpty() ? null : mailbox.get(mailbox.firstKey());
+    }
+}
@@ -10,6 +10,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * A router that manages partitions of nodes.
  * Nodes on different partitions cannot communicate with each other.
  * Nodes without partition IDs are in partition 0 and can communicate with each other.
+ * <p>
+ * Nodes are interned to dense integer indices (see {@link #registerNode(String)}), and
+ * connectivity between them is kept in an n&times;n bitset that is only recomputed when
+ * the partitions change. The String-keyed methods are a facade over the indexed ones.
  */
 public class Router implements Serializable {
     public static final int DEFAULT_PARTITION = 0;
@@ -28,6 +32,65 @@ public class Router implements Serializable {
     @Getter
     private final SortedMap<String, Integer> partitions = new TreeMap<>();
 
+    /**
+     * Map of Node ID to its dense index.
+     */
+    private final Map<String, Integer> nodeIndices = new HashMap<>();
+
+    /**
+     * The IDs of the registered nodes, by index.
+     */
+    private final List<String> nodeIds = new ArrayList<>();
+
+    /**
+     * The partition of each registered node, by index.
+     */
+    private int[] nodePartitions = new int[0];
+
+    /**
+     * Connectivity matrix: bit {@code j} of row {@code i} is set if nodes {@code i} and {@code j}
+     * are on the same partition.
+     */
+    private long[][] connectivity = new long[0][];
+
+    /**
+     * Interns a node to a dense index. Registering an already-registered node is a no-op.
+     *
+     * @param nodeId The ID of the node.
+     * @return The index of the node.
+     */
+    public int registerNode(String nodeId) {
+        Integer index = this.nodeIndices.get(nodeId);
+        if (index != null) {
+            return index;
+        }
+        int newIndex = this.nodeIds.size();
+        this.nodeIndices.put(nodeId, newIndex);
+        this.nodeIds.add(nodeId);
+        this.recomputeConnectivity();
+        return newIndex;
+    }
+
+    /**
+     * Gets the dense index of a node.
+     *
+     * @param nodeId The ID of the node.
+     * @return The index of the node, or -1 if the node is not registered.
+     */
+    public int getNodeIndex(String nodeId) {
+        return this.nodeIndices.getOrDefault(nodeId, -1);
+    }
+
+    /**
+     * Gets the ID of the node with a given index.
+     *
+     * @param index The index of the node.
+     * @return The ID of the node.
+     */
+    public String getNodeId(int index) {
+        return this.nodeIds.get(index);
+    }
+
     /**
      * Isolates a node from the rest of the network.
      *
@@ -46,7 +109,12 @@ public class Router implements Serializable {
         int newPartition = getUnusedPartitionId();
         for (String nodeId : nodeIds) {
             this.partitions.put(nodeId, newPartition);
+            if (!this.nodeIndices.containsKey(nodeId)) {
+                this.nodeIndices.put(nodeId, this.nodeIds.size());
+                this.nodeIds.add(nodeId);
+            }
         }
+        this.recomputeConnectivity();
     }
 
     /**
@@ -55,7 +123,9 @@ public class Router implements Serializable {
      * @param nodeId The ID of the node to re-join.
      */
     public void healNode(String nodeId) {
-        this.partitions.remove(nodeId);
+        if (this.partitions.remove(nodeId) != null) {
+            this.recomputeConnectivity();
+        }
     }
 
     /**
@@ -64,6 +134,7 @@ public class Router implements Serializable {
     public void resetPartitions() {
         this.partitions.clear();
         this.partitionSequenceNumber.set(1);
+        this.recomputeConnectivity();
     }
 
     /**
@@ -73,7 +144,8 @@ public class Router implements Serializable {
      * @return The partition ID of the node.
      */
     public int getNodePartition(String nodeId) {
-        return this.partitions.getOrDefault(nodeId, DEFAULT_PARTITION);
+        int index = this.getNodeIndex(nodeId);
+        return index < 0 ? DEFAULT_PARTITION : this.nodePartitions[index];
     }
 
     /**
@@ -84,7 +156,18 @@ public class Router implements Serializable {
      * @return True if the nodes are on the same partition, false otherwise.
      */
     public boolean haveConnectivity(String nodeId1, String nodeId2) {
-        return this.getNodePartition(nodeId1) == this.getNodePartition(nodeId2);
+        return this.haveConnectivity(this.registerNode(nodeId1), this.registerNode(nodeId2));
+    }
+
+    /**
+     * Checks if two registered nodes are on the same partition.
+     *
+     * @param node1 The index of the first node.
+     * @param node2 The index of the second node.
+     * @return True if the nodes are on the same partition, false otherwise.
+     */
+    public boolean haveConnectivity(int node1, int node2) {
+        return ((this.connectivity[node1][node2 >>> 6] >>> node2) & 1L) != 0;
     }
 
     /**
@@ -105,6 +188,30 @@ public class Router implements Serializable {
         return partitionSequenceNumber.getAndIncrement();
     }
 
+    /**
+     * Rebuilds the partition array and the connectivity matrix from the partitions map.
+     */
+    private void recomputeConnectivity() {
+        int n = this.nodeIds.size();
+        int words = (n + 63) >>> 6;
+        int[] newPartitions = new int[n];
+        for (int i = 0; i < n; i++) {
+            newPartitions[i] = this.partitions.getOrDefault(this.nodeIds.get(i), DEFAULT_PARTITION);
+        }
+
+        long[][] newConnectivity = new long[n][words];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (newPartitions[i] == newPartitions[j]) {
+                    newConnectivity[i][j >>> 6] |= 1L << j;
+                }
+            }
+        }
+
+        this.nodePartitions = newPartitions;
+        this.connectivity = newConnectivity;
+    }
+
     /**
      * Gets the reverse mapping of partition IDs to nodes.
      *
@@ -0,0 +1,145 @@
+package byzzbench.simulator.transport;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Indexed min-heap of the queued {@link TimeoutEvent}s of a single node, ordered by
+ * {@link TimeoutEvent#getExpiresAt()} (ties broken by event ID).
+ * <p>
+ * Supports O(log n) insertion and cancellation of arbitrary timeouts, and O(1) access
+ * to the earliest-expiring timeout.
+ */
+public class TimeoutQueue implements Serializable {
+    /**
+     * Order in which timeouts expire: earliest first, then by event ID.
+     */
+    public static final Comparator<TimeoutEvent> EXPIRY_ORDER = Comparator
+            .comparing(TimeoutEvent::getExpiresAt, Comparator.nullsLast(Comparator.<Instant>naturalOrder()))
+            .thenComparingLong(TimeoutEvent::getEventId);
+
+    /**
+     * The binary heap of timeouts.
+     */
+    private final List<TimeoutEvent> heap = new ArrayList<>();
+
+    /**
+     * Map of event ID to the position of the timeout in the heap.
+     */
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    /**
+     * Adds a timeout to the queue.
+     *
+     * @param timeout The timeout to add.
+     */
+    public void add(TimeoutEvent timeout) {
+        if (this.positions.containsKey(timeout.getEventId())) {
+            return;
+        }
+        this.heap.add(timeout);
+        this.positions.put(timeout.getEventId(), this.heap.size() - 1);
+        this.siftUp(this.heap.size() - 1);
+    }
+
+    /**
+     * Removes a timeout from the queue.
+     *
+     * @param eventId The ID of the timeout to remove.
+     * @return True if the timeout was in the queue, false otherwise.
+     */
+    public boolean remove(long eventId) {
+        Integer position = this.positions.remove(eventId);
+        if (position == null) {
+            return false;
+        }
+
+        TimeoutEvent last = this.heap.removeLast();
+        if (position < this.heap.size()) {
+            this.heap.set(position, last);
+            this.positions.put(last.getEventId(), position);
+            this.siftDown(position);
+            this.siftUp(position);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the earliest-expiring timeout in the queue.
+     *
+     * @return The earliest-expiring timeout, or empty if the queue is empty.
+     */
+    public Optional<TimeoutEvent> peek() {
+        return this.heap.isEmpty() ? Optional.empty() : Optional.of(this.heap.getFirst());
+    }
+
+    /**
+     * Checks if the queue is empty.
+     *
+     * @return True if there are no timeouts in the queue.
+     */
+    public boolean isEmpty() {
+        return this.heap.isEmpty();
+    }
+
+    /**
+     * Gets the number of timeouts in the queue.
+     *
+     * @return The number of timeouts.
+     */
+    public int size() {
+        return this.heap.size();
+    }
+
+    /**
+     * Gets the timeouts in the queue, ordered by event ID.
+     *
+     * @return The list of timeouts.
+     */
+    public List<TimeoutEvent> toList() {
+        return this.heap.stream()
+                .sorted(Comparator.comparingLong(TimeoutEvent::getEventId))
+                .toList();
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (EXPIRY_ORDER.compare(this.heap.get(position), this.heap.get(parent)) >= 0) {
+                return;
+            }
+            this.swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int size = this.heap.size();
+        while (true) {
+            int left = 2 * position + 1;
+            int right = left + 1;
+            int smallest = position;
+            if (left < size && EXPIRY_ORDER.compare(this.heap.get(left), this.heap.get(smallest)) < 0) {
+                smallest = left;
+            }
+            if (right < size && EXPIRY_ORDER.compare(this.heap.get(right), this.heap.get(smallest)) < 0) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            this.swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        TimeoutEvent a = this.heap.get(i);
+        TimeoutEvent b = this.heap.get(j);
+        this.heap.set(i, b);
+        this.heap.set(j, a);
+        this.positions.put(b.getEventId(), i);
+        this.positions.put(a.getEventId(), j);
+    }
+}
@@ -1,10 +1,15 @@
 package byzzbench.simulator.transport;
 
 import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.TriggerTimeoutAction;
 import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.faults.ScenarioContext;
 import byzzbench.simulator.nodes.Client;
 import byzzbench.simulator.nodes.Node;
+import byzzbench.simulator.utils.AsyncLane;
+import byzzbench.simulator.utils.ObserverBus;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -12,10 +17,10 @@ import lombok.Synchronized;
 import lombok.extern.java.Log;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Transport layer for the simulator.
@@ -41,11 +46,10 @@ public class Transport {
     private final AtomicLong eventSeqNum = new AtomicLong(1);
 
     /**
-     * Map of event ID to the {@link Event} object.
+     * Store of all {@link Event}s, indexed by status, mailbox and node.
      */
-    @Getter(onMethod_ = {@Synchronized})
     @JsonIgnore
-    private final SortedMap<Long, Event> events = new TreeMap<>();
+    private final EventStore eventStore = new EventStore();
 
     /**
      * Map of automatic fault id to the {@link Fault} object. This is used to
@@ -71,11 +75,11 @@ public class Transport {
     private final Router router = new Router();
 
     /**
-     * List of observers for the transport layer.
+     * Observers of the transport layer, by kind of callback.
      */
     @JsonIgnore
-    @Getter(onMethod_ = {@Synchronized})
-    private final List<TransportObserver> observers = new ArrayList<>();
+    private final ObserverBus<TransportObserver, TransportObserver.Kind> observers =
+            new ObserverBus<>(TransportObserver.class, TransportObserver.Kind.class);
     @Getter
     private boolean isGlobalStabilizationTime = false;
 
@@ -85,7 +89,18 @@ public class Transport {
      * @param observer The observer to add.
      */
     public synchronized void addObserver(TransportObserver observer) {
-        getObservers().add(observer);
+        this.observers.subscribe(observer);
+    }
+
+    /**
+     * Adds an observer to the transport layer, whose callbacks run on the given lane
+     * instead of inline.
+     *
+     * @param observer The observer to add.
+     * @param lane     The lane on which to run the callbacks.
+     */
+    public synchronized void addAsyncObserver(TransportObserver observer, AsyncLane lane) {
+        this.observers.subscribeAsync(observer, lane);
     }
 
     /**
@@ -94,7 +109,17 @@ public class Transport {
      * @param observer The observer to remove.
      */
     public synchronized void removeObserver(TransportObserver observer) {
-        getObservers().remove(observer);
+        this.observers.unsubscribe(observer);
+    }
+
+    /**
+     * Gets the observers of the transport layer.
+     *
+     * @return The list of observers, in the order they were added.
+     */
+    @JsonIgnore
+    public synchronized List<TransportObserver> getObservers() {
+        return this.observers.getListeners();
     }
 
     /**
@@ -146,16 +171,80 @@ public class Transport {
     }
 
     /**
-     * Gets all events in a given state.
+     * Gets a read-only view of all events, ordered by event ID.
+     *
+     * @return The map of event ID to the {@link Event} object.
+     */
+    @JsonIgnore
+    public synchronized SortedMap<Long, Event> getEvents() {
+        return this.eventStore.getEvents();
+    }
+
+    /**
+     * Gets all live events in a given state. In bounded-memory mode, this excludes retired events.
      *
      * @param status The state to filter by
      * @return A list of events in the given state
      */
     public synchronized List<Event> getEventsInState(Event.Status status) {
-        return this.getEvents().values()
-                .stream()
-                .filter(m -> m.getStatus() == status)
-                .toList();
+        return this.eventStore.getEventsInState(status);
+    }
+
+    /**
+     * Gets the number of events in a given state, including events retired in bounded-memory mode.
+     *
+     * @param status The state to count
+     * @return The number of events in the given state
+     */
+    public synchronized int countEventsInState(Event.Status status) {
+        return this.eventStore.countEventsInState(status);
+    }
+
+    /**
+     * Gets the IDs of all events, including events retired in bounded-memory mode.
+     *
+     * @return The sorted set of event IDs.
+     */
+    @JsonIgnore
+    public synchronized SortedSet<Long> getEventIds() {
+        return this.eventStore.getEventIds();
+    }
+
+    /**
+     * Gets the IDs of all events in a given state, including events retired in bounded-memory mode.
+     *
+     * @param status The state to filter by
+     * @return The sorted set of event IDs.
+     */
+    public synchronized SortedSet<Long> getEventIdsInState(Event.Status status) {
+        return this.eventStore.getEventIdsInState(status);
+    }
+
+    /**
+     * Enables bounded-memory mode: events that are delivered and appended to the
+     * {@link byzzbench.simulator.domain.Schedule} are retired into the given archive.
+     * Dropped events stay live until GST, so that they can be re-queued.
+     *
+     * @param archive The archive for retired events.
+     */
+    public synchronized void enableEventArchive(EventArchive archive) {
+        this.eventStore.setArchive(archive);
+    }
+
+    /**
+     * Checks whether bounded-memory mode is enabled.
+     *
+     * @return True if delivered events are retired into an archive, false otherwise.
+     */
+    public synchronized boolean isEventArchiveEnabled() {
+        return this.eventStore.getArchive().isPresent();
+    }
+
+    /**
+     * Releases the resources (spill file) held by the event archive, if any.
+     */
+    public synchronized void closeEventArchive() {
+        this.eventStore.getArchive().ifPresent(EventArchive::close);
     }
 
     /**
@@ -164,11 +253,8 @@ public class Transport {
      * @param event The event to append
      */
     private synchronized void appendEvent(Event event) {
-        // add the event to the map
-        this.getEvents().put(event.getEventId(), event);
-
-        // notify observers
-        this.observers.forEach(o -> o.onEventAdded(event));
+        // add the event to the store
+        this.eventStore.add(event);
 
         // FIXME: old behavior - apply automatic faults. delete me!
         /*
@@ -176,11 +262,18 @@ public class Transport {
                 .forEach(f -> f.testAndAccept(new ScenarioContext(this.scenario, event)));*/
 
         // notify observers
-        this.getObservers().forEach(o -> o.onEventAdded(event));
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.EVENT_ADDED)) {
+            o.onEventAdded(event);
+        }
     }
 
     /**
      * Multicasts a message to a set of recipients.
+     * <p>
+     * The payload and header (sender, creation time) are shared by the events created
+     * for each recipient, which only differ in their ID, recipient and status. A mutation
+     * fault rewriting one of the copies replaces the payload of that copy only (see
+     * {@link #applyMutation(long, Fault)}).
      *
      * @param sender     The sender node
      * @param recipients The set of recipient IDs
@@ -188,21 +281,32 @@ public class Transport {
      */
     public synchronized void multicast(Node sender, SortedSet<String> recipients,
                                        MessagePayload payload) {
-        this.observers.forEach(o -> o.onMulticast(sender, recipients, payload));
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.MULTICAST)) {
+            o.onMulticast(sender, recipients, payload);
+        }
 
+        String senderId = sender.getId();
+        Instant createdAt = Instant.now();
+        List<MessageEvent> messageEvents = new ArrayList<>(recipients.size());
         for (String recipient : recipients) {
-            long messageId = this.eventSeqNum.getAndIncrement();
-            MessageEvent messageEvent = MessageEvent.builder()
-                    .eventId(messageId)
-                    .senderId(sender.getId())
+            messageEvents.add(MessageEvent.builder()
+                    .eventId(this.eventSeqNum.getAndIncrement())
+                    .createdAt(createdAt)
+                    .senderId(senderId)
                     .recipientId(recipient)
                     .payload(payload)
-                    .build();
-            this.appendEvent(messageEvent);
+                    .build());
+        }
+        this.eventStore.addAll(messageEvents);
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.EVENTS_ADDED)) {
+            o.onEventsAdded(messageEvents);
+        }
 
-            // if they don't have connectivity, drop it directly
-            if (!router.haveConnectivity(sender.getId(), recipient)) {
-                this.dropEvent(messageId);
+        // if they don't have connectivity, drop them directly
+        int senderIndex = this.router.registerNode(senderId);
+        for (MessageEvent messageEvent : messageEvents) {
+            if (!this.router.haveConnectivity(senderIndex, this.router.registerNode(messageEvent.getRecipientId()))) {
+                this.dropEvent(messageEvent.getEventId());
             }
         }
     }
@@ -212,7 +316,7 @@ public class Transport {
     }
 
     public synchronized void deliverEvent(long eventId, boolean addToSchedule) {
-        Event e = this.getEvents().get(eventId);
+        Event e = this.eventStore.get(eventId);
 
         // check if null
         if (e == null) {
@@ -226,8 +330,8 @@ public class Transport {
 
         // if it is a MessageEvent and there is no connectivity between the nodes, drop it
         if (e instanceof MessageEvent m && !router.haveConnectivity(m.getSenderId(), m.getRecipientId())) {
-            log.fine("Dropped: " + m.getSenderId() + "->" + m.getRecipientId() + ": " + m.getPayload());
-            m.setStatus(Event.Status.DROPPED);
+            log.fine(() -> "Dropped: " + m.getSenderId() + "->" + m.getRecipientId() + ": " + m.getPayload());
+            this.eventStore.setStatus(m, Event.Status.DROPPED);
             return;
         }
 
@@ -235,10 +339,12 @@ public class Transport {
         if (addToSchedule) {
             this.scenario.getSchedule().appendEvent(e);
         }
-        e.setStatus(Event.Status.DELIVERED);
+        this.eventStore.setStatus(e, Event.Status.DELIVERED);
 
         // For timeouts, this should be called before, so the Replica time is updated
-        this.getObservers().forEach(o -> o.onEventDelivered(e));
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.EVENT_DELIVERED)) {
+            o.onEventDelivered(e);
+        }
 
         switch (e) {
             case MessageEvent m ->
@@ -247,7 +353,12 @@ public class Transport {
             default -> throw new IllegalArgumentException("Unknown event type");
         }
 
-        log.fine("Delivered " + e);
+        log.fine(() -> "Delivered " + e);
+
+        // in bounded-memory mode, the schedule now holds everything needed to rehydrate the event
+        if (addToSchedule) {
+            this.eventStore.retire(e);
+        }
     }
 
     /**
@@ -262,7 +373,7 @@ public class Transport {
         }
 
         // check if event is a message
-        Event e = this.getEvents().get(eventId);
+        Event e = this.eventStore.get(eventId);
 
         if (e instanceof TimeoutEvent) {
             throw new IllegalArgumentException("Cannot drop a timeout event");
@@ -273,29 +384,109 @@ public class Transport {
             throw new IllegalArgumentException("Event not found or not in QUEUED state");
         }
 
-        e.setStatus(Event.Status.DROPPED);
-        this.getObservers().forEach(o -> o.onEventDropped(e));
-        log.fine("Dropped: " + e);
+        this.eventStore.setStatus(e, Event.Status.DROPPED);
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.EVENT_DROPPED)) {
+            o.onEventDropped(e);
+        }
+        log.fine(() -> "Dropped: " + e);
     }
 
     /**
-     * Gets an event by ID.
+     * Gets an event by ID. Events retired in bounded-memory mode are rehydrated from the schedule.
      *
      * @param eventId The ID of the event to get.
-     * @return The event with the given ID.
+     * @return The event with the given ID, or null if there is no such event.
      */
     public synchronized Event getEvent(long eventId) {
-        return this.getEvents().get(eventId);
+        Event e = this.eventStore.get(eventId);
+        if (e != null) {
+            return e;
+        }
+        return this.eventStore.getArchived(eventId)
+                .map(this::rehydrate)
+                .orElse(null);
+    }
+
+    /**
+     * Gets a page of the IDs of the live events matching a query, in ascending order.
+     * In bounded-memory mode, this excludes retired events.
+     *
+     * @param query The query.
+     * @param after Only events with a greater ID are included.
+     * @param limit The maximum number of IDs.
+     * @return The IDs of the matching events.
+     */
+    public synchronized List<Long> queryEventIds(EventQuery query, long after, int limit) {
+        return this.eventStore.queryEventIds(query, after, limit);
+    }
+
+    /**
+     * Gets the compact record of an event retired in bounded-memory mode, without rehydrating it.
+     *
+     * @param eventId The ID of the event.
+     * @return The archived event, or empty if the event was not retired.
+     */
+    public synchronized Optional<ArchivedEvent> getArchivedEvent(long eventId) {
+        return this.eventStore.getArchived(eventId);
+    }
+
+    /**
+     * Rebuilds a retired event from its compact record and the corresponding schedule action.
+     *
+     * @param archived The compact record of the event.
+     * @return A detached copy of the event, including its payload.
+     */
+    private Event rehydrate(ArchivedEvent archived) {
+        List<Action> actions = this.scenario.getSchedule().getActions();
+        for (int i = actions.size() - 1; i >= 0; i--) {
+            switch (actions.get(i)) {
+                case DeliverMessageAction a when a.getMessageEventId() == archived.eventId() -> {
+                    return MessageEvent.builder()
+                            .eventId(archived.eventId())
+                            .senderId(a.getSenderId())
+                            .recipientId(a.getRecipientId())
+                            .timestamp(a.getTimestamp())
+                            .payload(a.getPayload())
+                            .status(archived.status())
+                            .build();
+                }
+                case TriggerTimeoutAction a when a.getTimeoutEventId() == archived.eventId() -> {
+                    return TimeoutEvent.builder()
+                            .eventId(archived.eventId())
+                            .nodeId(a.getNodeId())
+                            .description(a.getDescription())
+                            .timeout(a.getTimeout())
+                            .expiresAt(a.getExpiresAt())
+                            .status(archived.status())
+                            .build();
+                }
+                default -> {
+                    // not the action for this event
+                }
+            }
+        }
+        // cleared timeouts are not part of the schedule
+        if (archived.type().equals("Timeout")) {
+            return TimeoutEvent.builder()
+                    .eventId(archived.eventId())
+                    .nodeId(archived.recipientId())
+                    .status(archived.status())
+                    .build();
+        }
+        throw new IllegalStateException("No schedule action found for archived event " + archived.eventId());
     }
 
     /**
      * Applies a mutation to a message and appends the fault event to the schedule.
+     * <p>
+     * The payload of a multicast message is shared by all its copies: mutators must
+     * replace the payload of the targeted copy (copy-on-write) instead of modifying it in place.
      *
      * @param eventId The ID of the message to mutate.
      * @param fault   The fault to apply.
      */
     public synchronized void applyMutation(long eventId, Fault fault) {
-        Event e = this.getEvents().get(eventId);
+        Event e = this.eventStore.get(eventId);
 
         // check if the event does not exist
         if (e == null) {
@@ -351,11 +542,13 @@ public class Transport {
         this.appendEvent(mutateMessageEvent);
 
         // append the event to the schedule
-        mutateMessageEvent.setStatus(Event.Status.DELIVERED);
+        this.eventStore.setStatus(mutateMessageEvent, Event.Status.DELIVERED);
         this.scenario.getSchedule().appendEvent(mutateMessageEvent);
-        this.getObservers().forEach(o -> o.onMessageMutation(mutateMessageEvent.getPayload()));
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.MESSAGE_MUTATION)) {
+            o.onMessageMutation(mutateMessageEvent.getPayload());
+        }
 
-        log.fine("Mutated: " + m);
+        log.fine(() -> "Mutated: " + m);
     }
 
     public synchronized void applyFault(String faultId) {
@@ -385,7 +578,9 @@ public class Transport {
                 .build();
         faultEvent.setStatus(Event.Status.DELIVERED);
         this.scenario.getSchedule().appendEvent(faultEvent);
-        this.getObservers().forEach(o -> o.onFault(fault));
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.FAULT)) {
+            o.onFault(fault);
+        }
     }
 
     /**
@@ -409,8 +604,10 @@ public class Transport {
                 .task(runnable)
                 .build();
         this.appendEvent(timeoutEvent);
-        this.observers.forEach(o -> o.onTimeout(timeoutEvent));
-        log.fine(description + " timeout set for " + node.getId() + " in " + timeout + "ms: " + timeoutEvent);
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.TIMEOUT)) {
+            o.onTimeout(timeoutEvent);
+        }
+        log.fine(() -> description + " timeout set for " + node.getId() + " in " + timeout + "ms: " + timeoutEvent);
         return timeoutEvent.getEventId();
     }
 
@@ -420,7 +617,7 @@ public class Transport {
      * @param eventId The ID of the event to clear.
      */
     public synchronized void clearTimeout(Node node, long eventId) {
-        Event e = this.getEvents().get(eventId);
+        Event e = this.eventStore.get(eventId);
 
         if (e == null) {
             throw new IllegalArgumentException("Event not found: " + eventId);
@@ -434,8 +631,22 @@ public class Transport {
             throw new IllegalArgumentException("Timeout does not belong to this node!");
         }
 
-        timeoutEvent.setStatus(Event.Status.DROPPED);
-        this.getObservers().forEach(o -> o.onEventDropped(timeoutEvent));
+        this.eventStore.setStatus(timeoutEvent, Event.Status.DROPPED);
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.EVENT_DROPPED)) {
+            o.onEventDropped(timeoutEvent);
+        }
+        this.retireClearedTimeout(timeoutEvent);
+    }
+
+    /**
+     * In bounded-memory mode, retires a cleared timeout once it can no longer be re-queued (after GST).
+     *
+     * @param timeoutEvent The cleared timeout.
+     */
+    private void retireClearedTimeout(Event timeoutEvent) {
+        if (this.isGlobalStabilizationTime) {
+            this.eventStore.retire(timeoutEvent);
+        }
     }
 
     /**
@@ -445,20 +656,15 @@ public class Transport {
      * @param description The description of the timeout
      */
     public synchronized void clearTimeout(Node node, String description) {
-        // get all event IDs for timeouts from this replica
-        List<Long> eventIds =
-                this.events.values()
-                        .stream()
-                        .filter(
-                                e -> e instanceof TimeoutEvent t &&
-                                        t.getNodeId().equals(node.getId()) &&
-                                        t.getStatus() == Event.Status.QUEUED &&
-                                        t.getDescription().equals(description))
-                        .map(Event::getEventId)
-                        .toList();
+        // get all event IDs for queued timeouts from this replica with that description
+        List<Long> eventIds = this.eventStore.getQueuedTimeouts(node.getId())
+                .stream()
+                .filter(t -> t.getDescription().equals(description))
+                .map(Event::getEventId)
+                .toList();
 
         // clear the timeouts
-        eventIds.stream().sorted().forEachOrdered(eventId -> clearTimeout(node, eventId));
+        eventIds.forEach(eventId -> clearTimeout(node, eventId));
     }
 
     /**
@@ -468,25 +674,69 @@ public class Transport {
      * @return A list of event IDs of queued timeouts.
      */
     public synchronized List<Long> getQueuedTimeouts(Node node) {
-        return this.getEvents().values()
+        return this.eventStore.getQueuedTimeouts(node.getId())
                 .stream()
-                .filter(e -> e instanceof TimeoutEvent t &&
-                        t.getNodeId().equals(node.getId()) &&
-                        t.getStatus() == Event.Status.QUEUED)
                 .map(Event::getEventId)
                 .toList();
     }
 
+    /**
+     * Gets the queued timeout of a given node that expires first.
+     *
+     * @param nodeId The ID of the node.
+     * @return The earliest-expiring queued timeout of the node, or empty if there is none.
+     */
+    public synchronized Optional<TimeoutEvent> getEarliestQueuedTimeout(String nodeId) {
+        return this.eventStore.getEarliestQueuedTimeout(nodeId);
+    }
+
+    /**
+     * Gets the earliest-expiring queued timeout of each node, ordered by expiry.
+     *
+     * @return A list with at most one timeout event per node.
+     */
+    public synchronized List<TimeoutEvent> getEarliestQueuedTimeouts() {
+        return this.eventStore.getEarliestQueuedTimeouts();
+    }
+
+    /**
+     * Gets the incrementally maintained set of queued events that can be scheduled next.
+     *
+     * @return The enabled events.
+     */
+    @JsonIgnore
+    public EnabledEvents getEnabledEvents() {
+        return this.eventStore.getEnabledEvents();
+    }
+
     /**
      * Gets all queued messages in the transport layer.
      *
      * @return A list of queued message events.
      */
     public synchronized List<MessageEvent> getQueuedMessages() {
-        return this.getEventsInState(Event.Status.QUEUED).stream()
-                .filter(MessageEvent.class::isInstance)
-                .map(MessageEvent.class::cast)
-                .toList();
+        return this.eventStore.getQueuedMessages();
+    }
+
+    /**
+     * Gets the queued messages in the mailbox of a given node.
+     *
+     * @param recipientId The ID of the recipient node.
+     * @return A list of queued message events, ordered by event ID.
+     */
+    public synchronized List<MessageEvent> getQueuedMessages(String recipientId) {
+        return this.eventStore.getQueuedMessages(recipientId);
+    }
+
+    /**
+     * Gets the first queued message in the mailbox of a given node: the only one that can be
+     * delivered in {@link byzzbench.simulator.ExecutionMode#SYNC}.
+     *
+     * @param recipientId The ID of the recipient node.
+     * @return The first queued message, or empty if the mailbox is empty.
+     */
+    public synchronized Optional<MessageEvent> getMailboxHead(String recipientId) {
+        return this.eventStore.getMailboxHead(recipientId);
     }
 
     /**
@@ -500,9 +750,12 @@ public class Transport {
 
         // remove all event IDs
         for (Long eventId : eventIds) {
-            Event e = this.getEvents().get(eventId);
-            e.setStatus(Event.Status.DROPPED);
-            this.getObservers().forEach(o -> o.onEventDropped(e));
+            Event e = this.eventStore.get(eventId);
+            this.eventStore.setStatus(e, Event.Status.DROPPED);
+            for (TransportObserver o : this.observers.get(TransportObserver.Kind.EVENT_DROPPED)) {
+                o.onEventDropped(e);
+            }
+            this.retireClearedTimeout(e);
         }
     }
 
@@ -548,19 +801,18 @@ public class Transport {
         this.router.resetPartitions();
 
         // re-queue all dropped messages
-        Stream<Event> droppedEvents = this.getEvents().values().stream()
-                .filter(e -> e.getStatus() == Event.Status.DROPPED);
-
-        long numDroppedEvents = droppedEvents.count();
-        System.out.println("Events dropped that will be requeued: " + numDroppedEvents);
-        this.getEvents().values().stream()
-                .filter(e -> e.getStatus() == Event.Status.DROPPED)
-                .forEach(e -> {
-                    e.setStatus(Event.Status.QUEUED);
-                    this.getObservers().forEach(o -> o.onEventRequeued(e));
-                });
+        List<Event> droppedEvents = this.getEventsInState(Event.Status.DROPPED);
+        System.out.println("Events dropped that will be requeued: " + droppedEvents.size());
+        droppedEvents.forEach(e -> {
+            this.eventStore.setStatus(e, Event.Status.QUEUED);
+            for (TransportObserver o : this.observers.get(TransportObserver.Kind.EVENT_REQUEUED)) {
+                o.onEventRequeued(e);
+            }
+        });
 
         this.isGlobalStabilizationTime = true;
-        this.observers.forEach(TransportObserver::onGlobalStabilizationTime);
+        for (TransportObserver o : this.observers.get(TransportObserver.Kind.GLOBAL_STABILIZATION_TIME)) {
+            o.onGlobalStabilizationTime();
+        }
     }
 }
@@ -2,72 +2,126 @@ package byzzbench.simulator.transport;
 
 import byzzbench.simulator.faults.Fault;
 import byzzbench.simulator.nodes.Node;
+import byzzbench.simulator.utils.ObserverBus;
 
+import java.util.List;
 import java.util.SortedSet;
 
+/**
+ * An observer that listens to events in the transport layer.
+ * <p>
+ * All callbacks are no-ops by default: observers are only dispatched the kinds of
+ * callbacks they implement (see {@link ObserverBus}).
+ */
 public interface TransportObserver {
     /**
      * Called when a node unicasts a message to another node.
-     * onEventAdded is still invoked for each event created (one for each recipient).
+     * The events created for the recipients (one for each recipient) are then passed,
+     * in a single batch, to {@link #onEventsAdded(List)}.
      *
      * @param sender     The node sending the message.
      * @param recipients The nodes receiving the message.
      * @param payload    The payload of the message.
      */
-    void onMulticast(Node sender, SortedSet<String> recipients, MessagePayload payload);
+    default void onMulticast(Node sender, SortedSet<String> recipients, MessagePayload payload) {
+    }
 
     /**
      * Called when an event is added to the transport layer.
      *
      * @param event The event that was added.
      */
-    void onEventAdded(Event event);
+    default void onEventAdded(Event event) {
+    }
+
+    /**
+     * Called when a batch of events is added to the transport layer, e.g. the copies of a multicast.
+     * By default, calls {@link #onEventAdded(Event)} for each event.
+     *
+     * @param events The events that were added.
+     */
+    default void onEventsAdded(List<? extends Event> events) {
+        events.forEach(this::onEventAdded);
+    }
 
     /**
      * Called when the status of an event changes to {@link Event.Status#DROPPED}.
      *
      * @param event The event that was dropped.
      */
-    void onEventDropped(Event event);
+    default void onEventDropped(Event event) {
+    }
 
     /**
      * Called when the status of an event changes from {@link Event.Status#DROPPED} to {@link Event.Status#QUEUED}.
      *
      * @param event The event that was re-queued after being previously dropped.
      */
-    void onEventRequeued(Event event);
+    default void onEventRequeued(Event event) {
+    }
 
     /**
      * Called when the status of an event changes to {@link Event.Status#DELIVERED}.
      *
      * @param event The event that was delivered.
      */
-    void onEventDelivered(Event event);
+    default void onEventDelivered(Event event) {
+    }
 
     /**
      * Called when a message is mutated.
      *
      * @param payload The payload of the mutation.
      */
-    void onMessageMutation(MutateMessageEventPayload payload);
+    default void onMessageMutation(MutateMessageEventPayload payload) {
+    }
 
     /**
      * Called when a fault is injected.
      *
      * @param fault The fault that was injected.
      */
-    void onFault(Fault fault);
+    default void onFault(Fault fault) {
+    }
 
     /**
      * Called when a timeout event is created.
      *
      * @param event The timeout event that was created.
      */
-    void onTimeout(TimeoutEvent event);
+    default void onTimeout(TimeoutEvent event) {
+    }
 
     /**
      * Called when Global Stabilization Time is reached.
      */
-    void onGlobalStabilizationTime();
+    default void onGlobalStabilizationTime() {
+    }
+
+    /**
+     * The kinds of callbacks of a {@link TransportObserver}.
+     */
+    enum Kind implements ObserverBus.Kind {
+        MULTICAST("onMulticast"),
+        EVENT_ADDED("onEventAdded"),
+        EVENTS_ADDED("onEventsAdded", "onEventAdded"),
+        EVENT_DROPPED("onEventDropped"),
+        EVENT_REQUEUED("onEventRequeued"),
+        EVENT_DELIVERED("onEventDelivered"),
+        MESSAGE_MUTATION("onMessageMutation"),
+        FAULT("onFault"),
+        TIMEOUT("onTimeout"),
+        GLOBAL_STABILIZATION_TIME("onGlobalStabilizationTime");
+
+        private final List<String> methodNames;
+
+        Kind(String... methodNames) {
+            this.methodNames = List.of(methodNames);
+        }
 
+        @Override
+        public List<String> getMethodNames() {
+            return this.methodNames;
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package byzzbench.simulator.utils;
+
+import lombok.extern.java.Log;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * A lane of tasks that run in submission order (FIFO) off the calling thread.
+ * <p>
+ * Lanes share a pool of daemon threads, but at most one task of a given lane runs at a time.
+ * Used by {@link ObserverBus} for observers whose callbacks do not need to run inline.
+ */
+@Log
+public class AsyncLane {
+    private static final Executor executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "AsyncLane");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The tasks waiting to run.
+     */
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of submitted tasks that have not finished running.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Submits a task to run after all previously-submitted tasks.
+     *
+     * @param task The task to run.
+     */
+    public void submit(Runnable task) {
+        this.queue.add(task);
+        if (this.pending.getAndIncrement() == 0) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Blocks until all submitted tasks have run.
+     *
+     * @throws IllegalStateException if interrupted while waiting.
+     */
+    public synchronized void flush() {
+        while (this.pending.get() > 0) {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while flushing lane", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of tasks that have not finished running.
+     *
+     * @return The number of pending tasks.
+     */
+    public int getPending() {
+        return this.pending.get();
+    }
+
+    private void drain() {
+        do {
+            Runnable task = this.queue.poll();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Asynchronous observer failed", e);
+            }
+        } while (this.pending.decrementAndGet() > 0);
+
+        synchronized (this) {
+            this.notifyAll();
+        }
+    }
+}
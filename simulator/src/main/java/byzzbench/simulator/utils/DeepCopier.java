@@ -0,0 +1,541 @@
+package byzzbench.simulator.utils;
+
+import sun.reflect.ReflectionFactory;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAmount;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Copies object graphs, preserving aliasing and cycles within the copied graph.
+ * <p>
+ * Some objects are not copied, but shared between the original graph and the copy:
+ * <ul>
+ *     <li>the objects explicitly marked as shared, e.g. the roots whose state is restored in place;</li>
+ *     <li>objects of the types explicitly marked as shared;</li>
+ *     <li>immutable values (strings, boxed primitives, enums, {@code java.time} values, empty arrays, ...);</li>
+ *     <li>lambdas that capture nothing, or that are defined in the JDK;</li>
+ *     <li>JDK objects that are neither collections nor {@link Serializable}, e.g. threads.</li>
+ * </ul>
+ * Other JDK objects are copied through their public API (collections, atomics, futures, proxies),
+ * or by serialization. Objects implementing {@link DeepCopyable} copy themselves. Lambdas are
+ * re-created with copies of their captured values. All other objects are copied field by field,
+ * without running their constructors. Futures are copied with their result: callbacks still
+ * pending on them are not copied.
+ * <p>
+ * Re-creating lambdas and instantiating objects without running their constructors rely on
+ * details of the JDK (the layout of lambda classes, and {@code ReflectionFactory} from the
+ * {@code jdk.unsupported} module). When they do not hold, copying fails with an
+ * {@link IllegalStateException} naming the class: implement {@link DeepCopyable} for it.
+ * <p>
+ * A copier remembers the objects it has copied: use the same copier to copy several objects
+ * that share state, and a new one for each independent copy.
+ */
+public class DeepCopier {
+    /**
+     * The instance fields of each class, including those inherited.
+     */
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+    /**
+     * The serialization constructor of each class.
+     */
+    private static final Map<Class<?>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    /**
+     * The classes of the unmodifiable containers of the JDK, taken from the factories that create them.
+     */
+    private static final Set<Class<?>> UNMODIFIABLE_CONTAINERS = unmodifiableContainerTypes();
+
+    /**
+     * The objects that are shared instead of copied.
+     */
+    private final Set<Object> sharedObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * The types whose instances are shared instead of copied.
+     */
+    private final Set<Class<?>> sharedTypes;
+
+    /**
+     * The copies made so far, by original object.
+     */
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    /**
+     * Creates a new copier.
+     *
+     * @param sharedObjects The objects that are shared instead of copied.
+     * @param sharedTypes   The types whose instances are shared instead of copied.
+     */
+    public DeepCopier(Collection<?> sharedObjects, Set<Class<?>> sharedTypes) {
+        this.sharedObjects.addAll(sharedObjects);
+        this.sharedTypes = sharedTypes;
+    }
+
+    /**
+     * Makes the copier use the given replacement wherever the original object is referenced,
+     * instead of copying it.
+     *
+     * @param original    The original object.
+     * @param replacement The object to use in its place.
+     */
+    public void replace(Object original, Object replacement) {
+        this.copies.put(original, replacement);
+    }
+
+    /**
+     * Returns the instance fields of a class and its superclasses.
+     *
+     * @param type The class.
+     * @return The non-static fields, made accessible.
+     */
+    public static Field[] getInstanceFields(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(Field[]::new);
+        });
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return type == String.class || type == Boolean.class || type == Character.class
+                || type == Byte.class || type == Short.class || type == Integer.class || type == Long.class
+                || type == Float.class || type == Double.class || type == BigInteger.class || type == BigDecimal.class
+                || type == UUID.class || type == Class.class || type == Object.class || type.isEnum()
+                || Enum.class.isAssignableFrom(type)
+                || TemporalAccessor.class.isAssignableFrom(type) || TemporalAmount.class.isAssignableFrom(type);
+    }
+
+    private static Set<Class<?>> unmodifiableContainerTypes() {
+        List<Integer> list = new ArrayList<>(List.of(1, 2, 3));
+        Set<Integer> set = new HashSet<>(list);
+        TreeSet<Integer> sortedSet = new TreeSet<>(list);
+        Map<Integer, Integer> map = new HashMap<>(Map.of(1, 1));
+        TreeMap<Integer, Integer> sortedMap = new TreeMap<>(map);
+        List<Object> containers = List.of(
+                List.of(), List.of(1), List.of(1, 2), List.of(1, 2, 3), List.of(1, 2, 3).subList(0, 2),
+                Set.of(), Set.of(1), Set.of(1, 2), Set.of(1, 2, 3),
+                Map.of(), Map.of(1, 1), Map.of(1, 1, 2, 2),
+                Collections.emptyList(), Collections.emptySet(), Collections.emptySortedSet(),
+                Collections.emptyNavigableSet(), Collections.emptyMap(), Collections.emptySortedMap(),
+                Collections.emptyNavigableMap(), Collections.singletonList(1), Collections.singleton(1),
+                Collections.singletonMap(1, 1), Collections.nCopies(2, 1),
+                Collections.unmodifiableCollection(list), Collections.unmodifiableSequencedCollection(list),
+                Collections.unmodifiableList(list), Collections.unmodifiableList(new LinkedList<>(list)),
+                Collections.unmodifiableSet(set), Collections.unmodifiableSequencedSet(new LinkedHashSet<>(set)),
+                Collections.unmodifiableSortedSet(sortedSet), Collections.unmodifiableNavigableSet(sortedSet),
+                Collections.unmodifiableMap(map), Collections.unmodifiableSequencedMap(new LinkedHashMap<>(map)),
+                Collections.unmodifiableSortedMap(sortedMap), Collections.unmodifiableNavigableMap(sortedMap),
+                Collections.unmodifiableMap(map).entrySet(), Collections.unmodifiableSortedMap(sortedMap).entrySet());
+        Set<Class<?>> types = new HashSet<>();
+        containers.forEach(container -> types.add(container.getClass()));
+        return Set.copyOf(types);
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+
+    /**
+     * Copies an object graph.
+     *
+     * @param object The root of the graph.
+     * @param <T>    The type of the root.
+     * @return The copy of the root.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T copy(T object) {
+        if (object == null || this.sharedObjects.contains(object)) {
+            return object;
+        }
+
+        Object copy = this.copies.get(object);
+        if (copy != null) {
+            return (T) copy;
+        }
+
+        Class<?> type = object.getClass();
+        if (isImmutable(type) || this.isSharedType(type)) {
+            return object;
+        }
+
+        if (object instanceof DeepCopyable copyable) {
+            return (T) this.remember(object, copyable.deepCopy(this));
+        }
+
+        try {
+            if (type.isHidden()) {
+                return (T) this.copyLambda(object);
+            }
+            if (Proxy.isProxyClass(type)) {
+                return (T) this.copyProxy(object);
+            }
+            if (type.isArray()) {
+                // empty arrays are immutable, and commonly used as locks
+                return Array.getLength(object) == 0 ? object : (T) this.copyArray(object);
+            }
+            if (type.isRecord()) {
+                return (T) this.copyRecord(object);
+            }
+            if (object instanceof CompletableFuture<?> future) {
+                return (T) this.copyFuture(future);
+            }
+            if (isJdkType(type)) {
+                return (T) this.copyJdkObject(object);
+            }
+            return (T) this.copyFields(object);
+        } catch (ReflectiveOperationException | IOException e) {
+            throw new IllegalStateException("Cannot copy object of type " + type.getName(), e);
+        }
+    }
+
+    private boolean isSharedType(Class<?> type) {
+        for (Class<?> sharedType : this.sharedTypes) {
+            if (sharedType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object copyArray(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        this.copies.put(array, copy);
+        if (array.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(array, 0, copy, 0, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                Array.set(copy, i, this.copy(Array.get(array, i)));
+            }
+        }
+        return copy;
+    }
+
+    private Object copyRecord(Object record) throws ReflectiveOperationException {
+        RecordComponent[] components = record.getClass().getRecordComponents();
+        Class<?>[] types = new Class<?>[components.length];
+        Object[] values = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            types[i] = components[i].getType();
+            Method accessor = components[i].getAccessor();
+            accessor.setAccessible(true);
+            values[i] = this.copy(accessor.invoke(record));
+        }
+        Constructor<?> constructor = record.getClass().getDeclaredConstructor(types);
+        constructor.setAccessible(true);
+        Object copy = constructor.newInstance(values);
+        this.copies.put(record, copy);
+        return copy;
+    }
+
+    /**
+     * Re-creates a lambda through its constructor, which takes the captured values in the
+     * order of its fields ({@code arg$1}, {@code arg$2}, ...). Lambdas that capture nothing
+     * are shared.
+     *
+     * @throws IllegalStateException If the lambda captures values, but its class does not have
+     *                               the expected layout.
+     */
+    private Object copyLambda(Object lambda) throws ReflectiveOperationException {
+        Class<?> type = lambda.getClass();
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        Field[] fields;
+        try {
+            fields = getInstanceFields(type);
+            if (fields.length == 0) {
+                return lambda;
+            }
+            constructors[0].setAccessible(true);
+        } catch (InaccessibleObjectException e) {
+            // lambdas defined in the JDK
+            return lambda;
+        }
+        if (constructors.length != 1 || constructors[0].getParameterCount() != fields.length
+                || !Arrays.stream(fields).allMatch(field -> field.getName().matches("arg\\$\\d+"))) {
+            throw new IllegalStateException("Cannot copy lambda " + type.getName() + " capturing " + fields.length
+                    + " values: unexpected lambda class layout. Capture its state in a class implementing DeepCopyable");
+        }
+
+        Field[] captured = fields.clone();
+        Arrays.sort(captured, Comparator.comparingInt(DeepCopier::capturedIndex));
+        Object[] values = new Object[captured.length];
+        for (int i = 0; i < captured.length; i++) {
+            values[i] = this.copy(captured[i].get(lambda));
+        }
+        Object copy = this.copies.get(lambda);
+        return copy != null ? copy : this.remember(lambda, constructors[0].newInstance(values));
+    }
+
+    private static int capturedIndex(Field field) {
+        String name = field.getName();
+        return Integer.parseInt(name.substring(name.lastIndexOf('$') + 1));
+    }
+
+    private Object copyProxy(Object proxy) {
+        Class<?> type = proxy.getClass();
+        InvocationHandler handler = Proxy.getInvocationHandler(proxy);
+        InvocationHandler handlerCopy = this.copy(handler);
+        Object copy = this.copies.get(proxy);
+        if (copy != null) {
+            return copy;
+        }
+        return this.remember(proxy, handlerCopy == handler ? proxy
+                : Proxy.newProxyInstance(type.getClassLoader(), type.getInterfaces(), handlerCopy));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copyFuture(CompletableFuture<?> future) throws ReflectiveOperationException {
+        CompletableFuture<Object> copy = (CompletableFuture<Object>) future.getClass().getConstructor().newInstance();
+        this.copies.put(future, copy);
+        if (future.isDone()) {
+            try {
+                copy.complete(this.copy(future.join()));
+            } catch (CompletionException | CancellationException e) {
+                copy.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        return copy;
+    }
+
+    private Object copyFields(Object object) throws ReflectiveOperationException {
+        Constructor<?> constructor = CONSTRUCTORS.computeIfAbsent(object.getClass(), DeepCopier::serializationConstructor);
+        Object copy = constructor.newInstance();
+        this.copies.put(object, copy);
+        for (Field field : getInstanceFields(object.getClass())) {
+            if (field.getType().isPrimitive()) {
+                field.set(copy, field.get(object));
+            } else {
+                field.set(copy, this.copy(field.get(object)));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Gets a constructor that instantiates a class without running any of its constructors.
+     *
+     * @throws IllegalStateException If the JDK does not provide one.
+     */
+    private static Constructor<?> serializationConstructor(Class<?> type) {
+        Constructor<?> constructor;
+        try {
+            constructor = ReflectionFactory.getReflectionFactory()
+                    .newConstructorForSerialization(type, Object.class.getDeclaredConstructor());
+        } catch (NoSuchMethodException | RuntimeException | LinkageError e) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName()
+                    + " without running its constructors. Implement DeepCopyable to copy it", e);
+        }
+        if (constructor == null) {
+            throw new IllegalStateException("Cannot instantiate " + type.getName()
+                    + " without running its constructors. Implement DeepCopyable to copy it");
+        }
+        return constructor;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object copyJdkObject(Object object) throws ReflectiveOperationException, IOException {
+        switch (object) {
+            case Optional<?> optional -> {
+                return optional.map(this::copy);
+            }
+            case AtomicLong atomic -> {
+                return this.remember(object, new AtomicLong(atomic.get()));
+            }
+            case AtomicInteger atomic -> {
+                return this.remember(object, new AtomicInteger(atomic.get()));
+            }
+            case AtomicBoolean atomic -> {
+                return this.remember(object, new AtomicBoolean(atomic.get()));
+            }
+            case AtomicReference atomic -> {
+                AtomicReference copy = new AtomicReference();
+                this.copies.put(object, copy);
+                copy.set(this.copy(atomic.get()));
+                return copy;
+            }
+            case Map map -> {
+                return this.copyMap(map);
+            }
+            case Collection collection -> {
+                return this.copyCollection(collection);
+            }
+            case Serializable serializable -> {
+                return this.remember(object, this.copyBySerialization(serializable));
+            }
+            default -> {
+                return object;
+            }
+        }
+    }
+
+    private Object remember(Object original, Object copy) {
+        this.copies.put(original, copy);
+        return copy;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object copyMap(Map map) throws ReflectiveOperationException {
+        Map copy = this.newContainer(map);
+        if (copy == null) {
+            // unmodifiable maps: copy into an unmodifiable map of the same kind
+            Map entries = map instanceof SortedMap sorted ? new TreeMap(sorted.comparator()) : new LinkedHashMap();
+            this.copies.put(map, map instanceof SortedMap ? Collections.unmodifiableSortedMap((SortedMap) entries) : Collections.unmodifiableMap(entries));
+            map.forEach((key, value) -> entries.put(this.copy(key), this.copy(value)));
+            return this.copies.get(map);
+        }
+
+        this.copies.put(map, copy);
+        // a clone keeps the layout (and iteration order) of hash tables: only replace values
+        boolean keysShared = map.keySet().stream().allMatch(key -> this.copy(key) == key);
+        if (keysShared && copy.size() == map.size()) {
+            for (Object entry : copy.entrySet()) {
+                Map.Entry e = (Map.Entry) entry;
+                e.setValue(this.copy(e.getValue()));
+            }
+        } else {
+            copy.clear();
+            map.forEach((key, value) -> copy.put(this.copy(key), this.copy(value)));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object copyCollection(Collection collection) throws ReflectiveOperationException {
+        Collection copy = this.newContainer(collection);
+        if (copy == null) {
+            // unmodifiable collections: copy into an unmodifiable collection of the same kind
+            Collection elements = switch (collection) {
+                case List ignored -> new ArrayList();
+                case SortedSet sorted -> new TreeSet(sorted.comparator());
+                case Set ignored -> new LinkedHashSet();
+                default -> new ArrayList();
+            };
+            this.copies.put(collection, switch (collection) {
+                case List ignored -> Collections.unmodifiableList((List) elements);
+                case SortedSet ignored -> Collections.unmodifiableSortedSet((SortedSet) elements);
+                case Set ignored -> Collections.unmodifiableSet((Set) elements);
+                default -> Collections.unmodifiableCollection(elements);
+            });
+            for (Object element : collection) {
+                elements.add(this.copy(element));
+            }
+            return this.copies.get(collection);
+        }
+
+        this.copies.put(collection, copy);
+        if (copy instanceof List list && list.size() == collection.size()) {
+            for (ListIterator it = list.listIterator(); it.hasNext(); ) {
+                it.set(this.copy(it.next()));
+            }
+            return copy;
+        }
+
+        List elements = new ArrayList(collection.size());
+        boolean elementsShared = true;
+        for (Object element : collection) {
+            Object elementCopy = this.copy(element);
+            elementsShared &= elementCopy == element;
+            elements.add(elementCopy);
+        }
+        if (!elementsShared || copy.size() != collection.size()) {
+            copy.clear();
+            copy.addAll(elements);
+        }
+        return copy;
+    }
+
+    /**
+     * Creates a modifiable container holding the same entries or elements as the given one:
+     * a shallow clone if its class is cloneable, a new instance of its class if possible, or
+     * a general-purpose container of the same kind otherwise.
+     *
+     * @return The new container, or null if the container is not modifiable.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <C> C newContainer(C container) throws ReflectiveOperationException {
+        Class<?> type = container.getClass();
+        if (UNMODIFIABLE_CONTAINERS.contains(type)) {
+            return null;
+        }
+
+        switch (container) {
+            case EnumSet enumSet -> {
+                return (C) enumSet.clone();
+            }
+            case PriorityQueue queue -> {
+                return (C) new PriorityQueue(queue);
+            }
+            case ConcurrentHashMap.KeySetView keySet -> {
+                Set copy = ConcurrentHashMap.newKeySet();
+                copy.addAll(keySet);
+                return (C) copy;
+            }
+            default -> {
+            }
+        }
+
+        if (Modifier.isPublic(type.getModifiers())) {
+            if (container instanceof Cloneable) {
+                return (C) type.getMethod("clone").invoke(container);
+            }
+            try {
+                C copy = container instanceof SortedMap || container instanceof SortedSet
+                        ? (C) type.getConstructor(Comparator.class).newInstance(comparator(container))
+                        : (C) type.getConstructor().newInstance();
+                if (copy instanceof Map map) {
+                    map.putAll((Map) container);
+                } else {
+                    ((Collection) copy).addAll((Collection) container);
+                }
+                return copy;
+            } catch (NoSuchMethodException e) {
+                // fall back to a general-purpose container
+            }
+        }
+
+        return (C) switch (container) {
+            case SortedMap sorted -> new TreeMap(sorted);
+            case Map map -> new LinkedHashMap(map);
+            case List list -> new ArrayList(list);
+            case SortedSet sorted -> new TreeSet(sorted);
+            case Set set -> new LinkedHashSet(set);
+            case Collection collection -> new ArrayDeque(collection);
+            default -> throw new IllegalArgumentException("Not a container: " + type.getName());
+        };
+    }
+
+    private static Comparator<?> comparator(Object sorted) {
+        return sorted instanceof SortedMap<?, ?> map ? map.comparator() : ((SortedSet<?>) sorted).comparator();
+    }
+
+    private Object copyBySerialization(Serializable object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package byzzbench.simulator.utils;
+
+/**
+ * An object that copies itself for a {@link DeepCopier}, instead of being copied field by field.
+ * <p>
+ * Implement it for state that reflection cannot copy faithfully, e.g. objects holding lambdas
+ * that capture state, or handles to resources. The copy must be registered with
+ * {@link DeepCopier#replace} before copying the objects it references, so references back to
+ * this object resolve to the copy.
+ */
+public interface DeepCopyable {
+    /**
+     * Copies this object.
+     *
+     * @param copier The copier, used to copy the objects this object references.
+     * @return The copy.
+     */
+    Object deepCopy(DeepCopier copier);
+}
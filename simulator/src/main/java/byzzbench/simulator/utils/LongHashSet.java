@@ -0,0 +1,111 @@
+package byzzbench.simulator.utils;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs, in an open-addressing table with linear probing.
+ * <p>
+ * Each element takes 8 bytes (16 bytes while the table is at most half full), instead of the
+ * ~50 bytes of a boxed {@link Long} in a {@link java.util.HashSet}. Elements cannot be removed.
+ * Not thread-safe.
+ */
+public class LongHashSet {
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * The slots of the table: 0 marks an empty slot, so 0 itself is tracked separately.
+     */
+    private long[] slots;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a set sized to hold the given number of elements without growing.
+     *
+     * @param expectedSize the expected number of elements
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize) * 2 - 1) << 1;
+        this.slots = new long[capacity];
+    }
+
+    /**
+     * Adds an element to the set.
+     *
+     * @param value the element
+     * @return true if the element was not in the set
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            boolean added = !this.containsZero;
+            this.containsZero = true;
+            this.size += added ? 1 : 0;
+            return added;
+        }
+
+        int index = this.indexOf(value);
+        if (this.slots[index] == value) {
+            return false;
+        }
+        this.slots[index] = value;
+        this.size++;
+        if (this.size * 2 > this.slots.length) {
+            this.grow();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether an element is in the set.
+     *
+     * @param value the element
+     * @return true if the element is in the set
+     */
+    public boolean contains(long value) {
+        return value == 0 ? this.containsZero : this.slots[this.indexOf(value)] == value;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes all elements from the set, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(this.slots, 0);
+        this.containsZero = false;
+        this.size = 0;
+    }
+
+    /**
+     * Gets the index of the slot holding a non-zero element, or of the empty slot it would go in.
+     */
+    private int indexOf(long value) {
+        int mask = this.slots.length - 1;
+        long hash = value * 0x9E3779B97F4A7C15L;
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        while (this.slots[index] != 0 && this.slots[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        long[] old = this.slots;
+        this.slots = new long[old.length * 2];
+        for (long value : old) {
+            if (value != 0) {
+                this.slots[this.indexOf(value)] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package byzzbench.simulator.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hashes object graphs into 64-bit fingerprints, by their contents rather than their identity.
+ * <p>
+ * Objects are hashed field by field, with their class, like {@link DeepCopier} copies them,
+ * except for the fields declared by JDK superclasses.
+ * Lists and arrays are hashed in order, other collections and maps regardless of their
+ * iteration order. Objects reached again within the same graph are hashed by the order in
+ * which they were first reached, so cycles and aliasing are hashed consistently. Some objects
+ * are not part of the state being hashed, and are skipped:
+ * <ul>
+ *     <li>objects of the types explicitly marked as skipped, e.g. back-references to the scenario;</li>
+ *     <li>lambdas and JDK objects that are neither values nor collections, which are hashed by
+ *     their class only.</li>
+ * </ul>
+ * A fingerprinter remembers the objects it has reached: use the same fingerprinter for objects
+ * that share state, and a new one for each independent fingerprint. Not thread-safe.
+ */
+public class ObjectFingerprinter {
+    private static final long NULL = 0x6A09E667F3BCC908L;
+    private static final long BACK_REFERENCE = 0xBB67AE8584CAA73BL;
+    private static final long UNORDERED = 0x3C6EF372FE94F82BL;
+
+    /**
+     * The hashed fields of each class.
+     */
+    private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+    /**
+     * The types whose instances are not hashed.
+     */
+    private final Set<Class<?>> skippedTypes;
+
+    /**
+     * The order in which each object was first reached.
+     */
+    private final Map<Object, Integer> reached = new IdentityHashMap<>();
+
+    /**
+     * Creates a new fingerprinter.
+     *
+     * @param skippedTypes The types whose instances are not hashed.
+     */
+    public ObjectFingerprinter(Set<Class<?>> skippedTypes) {
+        this.skippedTypes = skippedTypes;
+    }
+
+    /**
+     * Mixes a value into a 64-bit hash.
+     *
+     * @param hash  the hash so far
+     * @param value the value to mix in
+     * @return the new hash
+     */
+    public static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Hashes a string into 64 bits.
+     *
+     * @param value the string
+     * @return the hash
+     */
+    public static long hash(String value) {
+        long hash = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            hash = hash * 0x100000001B3L + value.charAt(i);
+        }
+        return mix(hash, 0);
+    }
+
+    /**
+     * Hashes an object graph.
+     *
+     * @param object The root of the graph.
+     * @return The fingerprint of the graph.
+     */
+    public long fingerprint(Object object) {
+        if (object == null) {
+            return NULL;
+        }
+
+        Class<?> type = object.getClass();
+        switch (object) {
+            case String string -> {
+                return hash(string);
+            }
+            case Boolean bool -> {
+                return mix(Boolean.class.hashCode(), bool ? 1 : 0);
+            }
+            case Character character -> {
+                return mix(Character.class.hashCode(), character);
+            }
+            case Double number -> {
+                return mix(Double.class.hashCode(), Double.doubleToLongBits(number));
+            }
+            case Float number -> {
+                return mix(Float.class.hashCode(), Float.floatToIntBits(number));
+            }
+            case Enum<?> constant -> {
+                return mix(hash(constant.getDeclaringClass().getName()), hash(constant.name()));
+            }
+            case Class<?> cls -> {
+                return hash(cls.getName());
+            }
+            default -> {
+                // other values are handled below
+            }
+        }
+        if (object instanceof Number number && isJdkType(type)) {
+            return number instanceof java.math.BigInteger || number instanceof java.math.BigDecimal
+                    ? hash(number.toString())
+                    : mix(Long.class.hashCode(), number.longValue());
+        }
+        if (this.isSkippedType(type)) {
+            return hash(type.getName());
+        }
+
+        Integer index = this.reached.get(object);
+        if (index != null) {
+            return mix(BACK_REFERENCE, index);
+        }
+        this.reached.put(object, this.reached.size());
+
+        long hash = hash(type.getName());
+        if (type.isArray()) {
+            int length = Array.getLength(object);
+            for (int i = 0; i < length; i++) {
+                hash = mix(hash, this.fingerprint(Array.get(object, i)));
+            }
+            return mix(hash, length);
+        }
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                try {
+                    component.getAccessor().setAccessible(true);
+                    hash = mix(hash, this.fingerprint(component.getAccessor().invoke(object)));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot fingerprint record of type " + type.getName(), e);
+                }
+            }
+            return hash;
+        }
+        if (object instanceof List<?> list) {
+            for (Object element : list) {
+                hash = mix(hash, this.fingerprint(element));
+            }
+            return mix(hash, list.size());
+        }
+        if (object instanceof Collection<?> collection) {
+            return mix(hash, this.unordered(collection));
+        }
+        if (object instanceof Map<?, ?> map) {
+            return mix(hash, this.unordered(map.entrySet()));
+        }
+        if (object instanceof Map.Entry<?, ?> entry) {
+            return mix(mix(hash, this.fingerprint(entry.getKey())), this.fingerprint(entry.getValue()));
+        }
+        if (isJdkType(type)) {
+            return switch (object) {
+                case Optional<?> optional -> mix(hash, this.fingerprint(optional.orElse(null)));
+                case AtomicReference<?> atomic -> mix(hash, this.fingerprint(atomic.get()));
+                case AtomicBoolean atomic -> mix(hash, atomic.get() ? 1 : 0);
+                case Comparable<?> value -> mix(hash, value.hashCode());
+                default -> hash;
+            };
+        }
+        if (type.isHidden()) {
+            return hash;
+        }
+
+        for (Field field : getInstanceFields(type)) {
+            try {
+                hash = mix(hash, this.fingerprint(field.get(object)));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot fingerprint object of type " + type.getName(), e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the elements of a collection regardless of their order.
+     */
+    private long unordered(Collection<?> elements) {
+        long sum = 0;
+        long xor = 0;
+        for (Object element : elements) {
+            long hash = this.fingerprint(element);
+            sum += hash;
+            xor ^= mix(UNORDERED, hash);
+        }
+        return mix(mix(sum, xor), elements.size());
+    }
+
+    private boolean isSkippedType(Class<?> type) {
+        for (Class<?> skippedType : this.skippedTypes) {
+            if (skippedType.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the instance fields of a class and its superclasses, up to the first JDK class:
+     * the state of JDK superclasses, e.g. of a {@link java.util.concurrent.CompletableFuture},
+     * is not hashed.
+     */
+    private static Field[] getInstanceFields(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, t -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = t; c != null && !isJdkType(c); c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(Field[]::new);
+        });
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+    }
+}
@@ -0,0 +1,226 @@
+package byzzbench.simulator.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * Typed, subscription-based dispatcher for observer interfaces.
+ * <p>
+ * Each callback of the observer interface {@code L} belongs to a kind {@code K}. Listeners
+ * are only subscribed to the kinds whose callbacks they actually implement (i.e. override the
+ * interface's default no-op), and the bus keeps a precomputed array of listeners per kind.
+ * Dispatching is then a plain loop over {@link #get(Enum)}, without any allocation:
+ * <pre>{@code
+ * for (TransportObserver o : bus.get(TransportObserver.Kind.EVENT_DROPPED)) {
+ *     o.onEventDropped(event);
+ * }
+ * }</pre>
+ * Listeners that do not need to run inline can be subscribed on an {@link AsyncLane}, in which
+ * case their callbacks are queued and run in order on a background thread.
+ *
+ * @param <L> The observer interface.
+ * @param <K> The enumeration of callback kinds of the observer interface.
+ */
+public class ObserverBus<L, K extends Enum<K> & ObserverBus.Kind> {
+    /**
+     * The observer interface.
+     */
+    private final Class<L> listenerType;
+
+    /**
+     * The kinds of callbacks of the observer interface.
+     */
+    private final K[] kinds;
+
+    /**
+     * The subscribed listeners, in subscription order.
+     */
+    private final List<L> listeners = new ArrayList<>();
+
+    /**
+     * The dispatch target of each listener: the listener itself, or its asynchronous proxy.
+     */
+    private final Map<L, L> targets = new IdentityHashMap<>();
+
+    /**
+     * The kinds each listener is subscribed to.
+     */
+    private final Map<L, Set<K>> subscriptions = new IdentityHashMap<>();
+
+    /**
+     * The dispatch table: the listeners subscribed to each kind, indexed by ordinal.
+     */
+    private volatile L[][] table;
+
+    /**
+     * Creates a new observer bus.
+     *
+     * @param listenerType The observer interface.
+     * @param kindType     The enumeration of callback kinds of the observer interface.
+     */
+    public ObserverBus(Class<L> listenerType, Class<K> kindType) {
+        this.listenerType = listenerType;
+        this.kinds = kindType.getEnumConstants();
+        this.rebuildTable();
+    }
+
+    /**
+     * Subscribes a listener to the kinds whose callbacks it implements.
+     *
+     * @param listener The listener to subscribe.
+     */
+    public synchronized void subscribe(L listener) {
+        this.subscribe(listener, this.implementedKinds(listener), null);
+    }
+
+    /**
+     * Subscribes a listener to the given kinds only.
+     *
+     * @param listener The listener to subscribe.
+     * @param kinds    The kinds to subscribe to.
+     */
+    public synchronized void subscribe(L listener, Set<K> kinds) {
+        this.subscribe(listener, kinds, null);
+    }
+
+    /**
+     * Subscribes a listener to the kinds whose callbacks it implements. The callbacks are
+     * run in order on the given lane instead of inline.
+     *
+     * @param listener The listener to subscribe.
+     * @param lane     The lane on which to run the callbacks.
+     */
+    public synchronized void subscribeAsync(L listener, AsyncLane lane) {
+        this.subscribe(listener, this.implementedKinds(listener), lane);
+    }
+
+    /**
+     * Unsubscribes a listener from all kinds.
+     *
+     * @param listener The listener to unsubscribe.
+     */
+    public synchronized void unsubscribe(L listener) {
+        if (this.targets.remove(listener) != null) {
+            this.listeners.removeIf(l -> l == listener);
+            this.subscriptions.remove(listener);
+            this.rebuildTable();
+        }
+    }
+
+    /**
+     * Gets the listeners subscribed to a given kind. The returned array must not be modified.
+     *
+     * @param kind The kind of callback.
+     * @return The listeners to invoke, in subscription order.
+     */
+    public L[] get(K kind) {
+        return this.table[kind.ordinal()];
+    }
+
+    /**
+     * Gets all subscribed listeners, in subscription order.
+     *
+     * @return The list of listeners.
+     */
+    public synchronized List<L> getListeners() {
+        return List.copyOf(this.listeners);
+    }
+
+    private void subscribe(L listener, Set<K> kinds, AsyncLane lane) {
+        if (this.targets.containsKey(listener)) {
+            return;
+        }
+        this.listeners.add(listener);
+        this.targets.put(listener, lane == null ? listener : this.asyncProxy(listener, lane));
+        this.subscriptions.put(listener, kinds.isEmpty() ? Set.of() : EnumSet.copyOf(kinds));
+        this.rebuildTable();
+    }
+
+    /**
+     * Rebuilds the dispatch table. The arrays are replaced, never modified, so that
+     * (un)subscribing while dispatching is safe.
+     */
+    @SuppressWarnings("unchecked")
+    private void rebuildTable() {
+        L[][] newTable = (L[][]) Array.newInstance(this.listenerType, this.kinds.length, 0);
+        for (K kind : this.kinds) {
+            List<L> subscribed = new ArrayList<>();
+            for (L listener : this.listeners) {
+                if (this.subscriptions.get(listener).contains(kind)) {
+                    subscribed.add(this.targets.get(listener));
+                }
+            }
+            newTable[kind.ordinal()] = subscribed.toArray((L[]) Array.newInstance(this.listenerType, 0));
+        }
+        this.table = newTable;
+    }
+
+    /**
+     * Gets the kinds whose callbacks are implemented by the listener's class, rather than
+     * inherited from the default methods of the observer interface.
+     */
+    private Set<K> implementedKinds(L listener) {
+        Set<K> implemented = new HashSet<>();
+        for (K kind : this.kinds) {
+            for (String methodName : kind.getMethodNames()) {
+                if (this.overrides(listener.getClass(), methodName)) {
+                    implemented.add(kind);
+                }
+            }
+        }
+        return implemented;
+    }
+
+    private boolean overrides(Class<?> listenerClass, String methodName) {
+        for (Method method : this.listenerType.getMethods()) {
+            if (!method.getName().equals(methodName)) {
+                continue;
+            }
+            try {
+                Method implementation = listenerClass.getMethod(methodName, method.getParameterTypes());
+                if (!implementation.getDeclaringClass().isInterface()) {
+                    return true;
+                }
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Listener does not implement " + methodName, e);
+            }
+        }
+        return false;
+    }
+
+    private L asyncProxy(L listener, AsyncLane lane) {
+        Object proxy = Proxy.newProxyInstance(this.listenerType.getClassLoader(), new Class<?>[]{this.listenerType},
+                (p, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return method.invoke(listener, args);
+                    }
+                    lane.submit(() -> {
+                        try {
+                            method.invoke(listener, args);
+                        } catch (IllegalAccessException e) {
+                            throw new IllegalStateException(e);
+                        } catch (InvocationTargetException e) {
+                            throw new IllegalStateException(e.getCause());
+                        }
+                    });
+                    return null;
+                });
+        return this.listenerType.cast(proxy);
+    }
+
+    /**
+     * A kind of callback of an observer interface.
+     */
+    public interface Kind {
+        /**
+         * Gets the names of the interface methods that deliver this kind of callback. A
+         * listener implementing any of them is subscribed to the kind.
+         *
+         * @return The method names.
+         */
+        List<String> getMethodNames();
+    }
+}
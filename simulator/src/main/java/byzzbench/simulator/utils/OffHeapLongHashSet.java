@@ -0,0 +1,163 @@
+package byzzbench.simulator.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A set of primitive longs, in an open-addressing table with linear probing, stored outside of
+ * the Java heap.
+ * <p>
+ * Like {@link LongHashSet}, but the slots are kept in direct buffers of up to 1 GiB each, so the
+ * table can hold billions of elements without a garbage-collected array: each element takes 8
+ * to 16 bytes of native memory (the table is kept at most 3/4 full). The amount of native memory
+ * available is bounded by {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap
+ * size. Elements cannot be removed. Thread-safe.
+ */
+public class OffHeapLongHashSet {
+    private static final long MIN_CAPACITY = 16;
+
+    /**
+     * The number of slots in each buffer, as a power of two: 2^27 slots of 8 bytes, i.e. 1 GiB.
+     */
+    private static final int SEGMENT_BITS = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    /**
+     * The slots of the table, split into buffers: 0 marks an empty slot, so 0 itself is tracked separately.
+     */
+    private LongBuffer[] segments;
+    private long capacity;
+    private boolean containsZero;
+    private long size;
+
+    public OffHeapLongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates a set sized to hold the given number of elements without growing.
+     *
+     * @param expectedSize the expected number of elements
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public OffHeapLongHashSet(long expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        this.capacity = Long.highestOneBit(Math.max(MIN_CAPACITY, expectedSize + expectedSize / 3) * 2 - 1);
+        this.segments = allocate(this.capacity);
+    }
+
+    /**
+     * Adds an element to the set.
+     *
+     * @param value the element
+     * @return true if the element was not in the set
+     */
+    public synchronized boolean add(long value) {
+        if (value == 0) {
+            boolean added = !this.containsZero;
+            this.containsZero = true;
+            this.size += added ? 1 : 0;
+            return added;
+        }
+
+        long index = this.indexOf(value);
+        if (this.get(index) == value) {
+            return false;
+        }
+        this.set(index, value);
+        this.size++;
+        if (this.size * 4 > this.capacity * 3) {
+            this.grow();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether an element is in the set.
+     *
+     * @param value the element
+     * @return true if the element is in the set
+     */
+    public synchronized boolean contains(long value) {
+        return value == 0 ? this.containsZero : this.get(this.indexOf(value)) == value;
+    }
+
+    public synchronized long size() {
+        return this.size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the amount of native memory taken by the table.
+     *
+     * @return the size of the table, in bytes
+     */
+    public synchronized long getMemoryBytes() {
+        return this.capacity * Long.BYTES;
+    }
+
+    /**
+     * Removes all elements from the set, releasing the memory of the table to its minimum capacity.
+     * The memory is freed once the buffers are garbage collected.
+     */
+    public synchronized void clear() {
+        this.capacity = MIN_CAPACITY;
+        this.segments = allocate(this.capacity);
+        this.containsZero = false;
+        this.size = 0;
+    }
+
+    private static LongBuffer[] allocate(long capacity) {
+        int numSegments = (int) ((capacity + SEGMENT_MASK) >>> SEGMENT_BITS);
+        LongBuffer[] segments = new LongBuffer[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            long length = Math.min(capacity - ((long) i << SEGMENT_BITS), 1L << SEGMENT_BITS);
+            segments[i] = ByteBuffer.allocateDirect((int) (length * Long.BYTES))
+                    .order(ByteOrder.nativeOrder())
+                    .asLongBuffer();
+        }
+        return segments;
+    }
+
+    private long get(long index) {
+        return this.segments[(int) (index >>> SEGMENT_BITS)].get((int) (index & SEGMENT_MASK));
+    }
+
+    private void set(long index, long value) {
+        this.segments[(int) (index >>> SEGMENT_BITS)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Gets the index of the slot holding a non-zero element, or of the empty slot it would go in.
+     */
+    private long indexOf(long value) {
+        long mask = this.capacity - 1;
+        long hash = value * 0x9E3779B97F4A7C15L;
+        long index = (hash ^ (hash >>> 32)) & mask;
+        long slot;
+        while ((slot = this.get(index)) != 0 && slot != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        LongBuffer[] old = this.segments;
+        this.capacity *= 2;
+        this.segments = allocate(this.capacity);
+        for (LongBuffer segment : old) {
+            for (int i = 0; i < segment.capacity(); i++) {
+                long value = segment.get(i);
+                if (value != 0) {
+                    this.set(this.indexOf(value), value);
+                }
+            }
+        }
+    }
+}
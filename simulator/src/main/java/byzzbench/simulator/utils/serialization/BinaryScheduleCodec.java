@@ -0,0 +1,486 @@
+package byzzbench.simulator.utils.serialization;
+
+import byzzbench.simulator.domain.*;
+import byzzbench.simulator.transport.MessagePayload;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * A compact, versioned binary encoding of schedules.
+ * <p>
+ * A stream of actions starts with the format version and a flags byte, followed by one record
+ * per action and an end tag. Each record starts with a tag identifying the type of the action,
+ * followed by its fields:
+ * <ul>
+ *     <li>event ids are zigzag varints, relative to the previous event id in the stream;</li>
+ *     <li>node ids, mutator ids and timeout descriptions are dictionary-coded: a string is written
+ *     in full the first time it appears, and as its index in the dictionary afterward;</li>
+ *     <li>instants are relative to the previous instant in the stream;</li>
+ *     <li>absent values are written as a single zero byte;</li>
+ *     <li>message payloads are only written if {@link #FLAG_PAYLOADS} is set, using Java serialization.</li>
+ * </ul>
+ * A schedule starts with {@link #MAGIC}, its parameters in JSON and its name, followed by the
+ * stream of its actions. Both are written and read one action at a time, so schedules can be
+ * streamed without holding all their actions in memory.
+ */
+public final class BinaryScheduleCodec {
+    /**
+     * The first bytes of an encoded schedule.
+     */
+    public static final byte[] MAGIC = {'B', 'Z', 'S', 'C'};
+
+    /**
+     * The current version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Flag set if the stream includes the payloads of the messages.
+     */
+    public static final int FLAG_PAYLOADS = 1;
+
+    private static final int TAG_END = 0;
+    private static final int TAG_DELIVER = 1;
+    private static final int TAG_DROP = 2;
+    private static final int TAG_FAULT = 3;
+    private static final int TAG_TIMEOUT = 4;
+
+    /**
+     * The classes that may be deserialized as part of a message payload.
+     */
+    private static final ObjectInputFilter PAYLOAD_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=64;byzzbench.simulator.**;java.**;org.apache.commons.lang3.tuple.*;!*");
+
+    private static final ObjectMapper PARAMETERS_MAPPER = new ObjectMapper();
+
+    private BinaryScheduleCodec() {
+    }
+
+    /**
+     * Encodes a list of actions.
+     *
+     * @param actions  the actions
+     * @param payloads whether to include the payloads of the messages
+     * @return the encoded actions
+     */
+    public static byte[] encodeActions(Collection<Action> actions, boolean payloads) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + actions.size() * 8);
+        try (ActionWriter writer = new ActionWriter(out, payloads)) {
+            for (Action action : actions) {
+                writer.write(action);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a list of actions.
+     *
+     * @param data     the encoded actions, or null for no actions
+     * @param schedule the schedule the actions belong to
+     * @return the actions
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    public static List<Action> decodeActions(byte[] data, Schedule schedule) {
+        List<Action> actions = new ArrayList<>();
+        if (data == null) {
+            return actions;
+        }
+        ActionReader reader = new ActionReader(new ByteArrayInputStream(data));
+        while (reader.hasNext()) {
+            Action action = reader.next();
+            action.setSchedule(schedule);
+            actions.add(action);
+        }
+        return actions;
+    }
+
+    /**
+     * Writes the header of a schedule: its parameters and name. The stream of its actions
+     * must follow.
+     *
+     * @param schedule the schedule
+     * @param out      the output stream
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeHeader(Schedule schedule, OutputStream out) throws IOException {
+        out.write(MAGIC);
+        writeBytes(out, PARAMETERS_MAPPER.writeValueAsBytes(schedule.getParameters()));
+        writeBytes(out, schedule.getName() == null ? new byte[0] : schedule.getName().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the header of a schedule.
+     *
+     * @param in the input stream
+     * @return a schedule with the parameters and name read, and no actions
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the stream is not an encoded schedule
+     */
+    public static Schedule readHeader(InputStream in) throws IOException {
+        byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Not an encoded schedule");
+        }
+        Schedule schedule = new Schedule(PARAMETERS_MAPPER.readValue(readBytes(in), ScenarioParameters.class));
+        byte[] name = readBytes(in);
+        schedule.setName(name.length == 0 ? null : new String(name, StandardCharsets.UTF_8));
+        return schedule;
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeSignedVarint(OutputStream out, long value) throws IOException {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeBytes(OutputStream out, byte[] bytes) throws IOException {
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new IllegalArgumentException("Truncated schedule encoding");
+        }
+        return b;
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in schedule encoding");
+    }
+
+    private static long readSignedVarint(InputStream in) throws IOException {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] readBytes(InputStream in) throws IOException {
+        long length = readVarint(in);
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Malformed length in schedule encoding");
+        }
+        byte[] bytes = in.readNBytes((int) length);
+        if (bytes.length != length) {
+            throw new IllegalArgumentException("Truncated schedule encoding");
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes a stream of actions. Closing the writer ends the stream, but does not close the
+     * underlying output stream.
+     */
+    public static class ActionWriter implements Closeable {
+        private final OutputStream out;
+        private final boolean payloads;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private long lastEventId = 0;
+        private long lastSecond = 0;
+        private boolean closed = false;
+
+        /**
+         * The number of actions written.
+         */
+        @Getter
+        private long numActions = 0;
+
+        /**
+         * Starts a stream of actions.
+         *
+         * @param out      the output stream
+         * @param payloads whether to include the payloads of the messages
+         * @throws UncheckedIOException if the stream cannot be written
+         */
+        public ActionWriter(OutputStream out, boolean payloads) {
+            this.out = out;
+            this.payloads = payloads;
+            try {
+                out.write(VERSION);
+                out.write(payloads ? FLAG_PAYLOADS : 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes an action.
+         *
+         * @param action the action
+         * @throws IOException              if the stream cannot be written
+         * @throws IllegalArgumentException if the action cannot be encoded
+         */
+        public void write(Action action) throws IOException {
+            switch (action) {
+                case DeliverMessageAction deliver -> {
+                    this.out.write(TAG_DELIVER);
+                    this.writeMessage(deliver.getMessageEventId(), deliver.getRecipientId(), deliver.getSenderId(),
+                            deliver.getTimestamp(), deliver.getPayload());
+                }
+                case DropMessageAction drop -> {
+                    this.out.write(TAG_DROP);
+                    this.writeMessage(drop.getEventId(), drop.getRecipientId(), drop.getSenderId(),
+                            drop.getTimestamp(), drop.getPayload());
+                }
+                case FaultInjectionAction fault -> {
+                    this.out.write(TAG_FAULT);
+                    this.writeEventId(fault.getMessageId());
+                    this.writeString(fault.getMutatorId());
+                }
+                case TriggerTimeoutAction timeout -> {
+                    this.out.write(TAG_TIMEOUT);
+                    this.writeEventId(timeout.getTimeoutEventId());
+                    this.writeString(timeout.getNodeId());
+                    this.writeString(timeout.getDescription());
+                    this.out.write(timeout.getTimeout() == null ? 0 : 1);
+                    if (timeout.getTimeout() != null) {
+                        writeSignedVarint(this.out, timeout.getTimeout().getSeconds());
+                        writeVarint(this.out, timeout.getTimeout().getNano());
+                    }
+                    this.writeInstant(timeout.getExpiresAt());
+                }
+                default -> throw new IllegalArgumentException("Unsupported action type: " + action.getClass().getName());
+            }
+            this.numActions++;
+        }
+
+        /**
+         * Ends the stream of actions.
+         *
+         * @throws IOException if the stream cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            if (!this.closed) {
+                this.closed = true;
+                this.out.write(TAG_END);
+                this.out.flush();
+            }
+        }
+
+        private void writeMessage(long eventId, String recipientId, String senderId, Instant timestamp,
+                                  MessagePayload payload) throws IOException {
+            this.writeEventId(eventId);
+            this.writeString(recipientId);
+            this.writeString(senderId);
+            this.writeInstant(timestamp);
+            if (this.payloads) {
+                this.out.write(payload == null ? 0 : 1);
+                if (payload != null) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                        oos.writeObject(payload);
+                    } catch (NotSerializableException e) {
+                        throw new IllegalArgumentException("Cannot encode payload " + payload.getType(), e);
+                    }
+                    writeBytes(this.out, bytes.toByteArray());
+                }
+            }
+        }
+
+        private void writeEventId(long eventId) throws IOException {
+            writeSignedVarint(this.out, eventId - this.lastEventId);
+            this.lastEventId = eventId;
+        }
+
+        /**
+         * Writes a nullable string: 0 for null, its index in the dictionary plus 2 if it was
+         * written before, or 1 followed by its bytes.
+         */
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                this.out.write(0);
+                return;
+            }
+            Integer index = this.dictionary.get(value);
+            if (index != null) {
+                writeVarint(this.out, index + 2L);
+                return;
+            }
+            this.dictionary.put(value, this.dictionary.size());
+            this.out.write(1);
+            writeBytes(this.out, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Writes a nullable instant: 0 for null, or 1 followed by its seconds relative to the
+         * previous instant and its nanoseconds.
+         */
+        private void writeInstant(Instant instant) throws IOException {
+            this.out.write(instant == null ? 0 : 1);
+            if (instant != null) {
+                writeSignedVarint(this.out, instant.getEpochSecond() - this.lastSecond);
+                writeVarint(this.out, instant.getNano());
+                this.lastSecond = instant.getEpochSecond();
+            }
+        }
+    }
+
+    /**
+     * Reads a stream of actions, one at a time.
+     */
+    public static class ActionReader implements Iterator<Action> {
+        private final InputStream in;
+        private final boolean payloads;
+        private final List<String> dictionary = new ArrayList<>();
+        private long lastEventId = 0;
+        private long lastSecond = 0;
+        private int nextTag;
+
+        /**
+         * The number of actions read.
+         */
+        @Getter
+        private long numActions = 0;
+
+        /**
+         * Opens a stream of actions.
+         *
+         * @param in the input stream
+         * @throws IllegalArgumentException if the stream has an unsupported version
+         * @throws UncheckedIOException     if the stream cannot be read
+         */
+        public ActionReader(InputStream in) {
+            this.in = in;
+            try {
+                int version = readByte(in);
+                if (version != VERSION) {
+                    throw new IllegalArgumentException("Unsupported schedule encoding version: " + version);
+                }
+                this.payloads = (readByte(in) & FLAG_PAYLOADS) != 0;
+                this.nextTag = readByte(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Checks whether the stream includes the payloads of the messages.
+         *
+         * @return true if the stream includes the payloads
+         */
+        public boolean hasPayloads() {
+            return this.payloads;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextTag != TAG_END;
+        }
+
+        /**
+         * Reads the next action.
+         *
+         * @return the action
+         * @throws NoSuchElementException   if the stream has ended
+         * @throws IllegalArgumentException if the stream is malformed
+         * @throws UncheckedIOException     if the stream cannot be read
+         */
+        @Override
+        public Action next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                Action action = switch (this.nextTag) {
+                    case TAG_DELIVER -> DeliverMessageAction.builder()
+                            .messageEventId(this.readEventId())
+                            .recipientId(this.readString())
+                            .senderId(this.readString())
+                            .timestamp(this.readInstant())
+                            .payload(this.readPayload())
+                            .build();
+                    case TAG_DROP -> DropMessageAction.builder()
+                            .eventId(this.readEventId())
+                            .recipientId(this.readString())
+                            .senderId(this.readString())
+                            .timestamp(this.readInstant())
+                            .payload(this.readPayload())
+                            .build();
+                    case TAG_FAULT -> FaultInjectionAction.builder()
+                            .messageId(this.readEventId())
+                            .mutatorId(this.readString())
+                            .build();
+                    case TAG_TIMEOUT -> TriggerTimeoutAction.builder()
+                            .timeoutEventId(this.readEventId())
+                            .nodeId(this.readString())
+                            .description(this.readString())
+                            .timeout(readByte(this.in) == 0 ? null
+                                    : Duration.ofSeconds(readSignedVarint(this.in), readVarint(this.in)))
+                            .expiresAt(this.readInstant())
+                            .build();
+                    default -> throw new IllegalArgumentException("Unknown action tag: " + this.nextTag);
+                };
+                this.numActions++;
+                this.nextTag = readByte(this.in);
+                return action;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private long readEventId() throws IOException {
+            this.lastEventId += readSignedVarint(this.in);
+            return this.lastEventId;
+        }
+
+        private String readString() throws IOException {
+            long code = readVarint(this.in);
+            if (code == 0) {
+                return null;
+            }
+            if (code == 1) {
+                String value = new String(readBytes(this.in), StandardCharsets.UTF_8);
+                this.dictionary.add(value);
+                return value;
+            }
+            if (code - 2 >= this.dictionary.size()) {
+                throw new IllegalArgumentException("Unknown dictionary entry in schedule encoding: " + code);
+            }
+            return this.dictionary.get((int) (code - 2));
+        }
+
+        private Instant readInstant() throws IOException {
+            if (readByte(this.in) == 0) {
+                return null;
+            }
+            this.lastSecond += readSignedVarint(this.in);
+            return Instant.ofEpochSecond(this.lastSecond, readVarint(this.in));
+        }
+
+        private MessagePayload readPayload() throws IOException {
+            if (!this.payloads || readByte(this.in) == 0) {
+                return null;
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(this.in)))) {
+                ois.setObjectInputFilter(PAYLOAD_FILTER);
+                return (MessagePayload) ois.readObject();
+            } catch (ClassNotFoundException | ClassCastException | InvalidClassException e) {
+                throw new IllegalArgumentException("Cannot decode payload", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package byzzbench.simulator.utils.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
+
+import java.io.*;
+
+/**
+ * Writes values as newline-delimited JSON (one compact JSON document per line) to an output
+ * stream, one value at a time, so arbitrarily long sequences are written in constant memory.
+ * <p>
+ * Closing the writer flushes it, but does not close the underlying output stream.
+ */
+public class NdjsonWriter implements Closeable {
+    /**
+     * The media type of newline-delimited JSON.
+     */
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final OutputStream out;
+    private final ObjectWriter writer;
+
+    /**
+     * The number of values written.
+     */
+    @Getter
+    private long numWritten = 0;
+
+    /**
+     * Creates a writer.
+     *
+     * @param objectMapper the mapper used to serialize the values
+     * @param out          the output stream
+     */
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out) {
+        this.out = new BufferedOutputStream(out);
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Writes a value on a line of its own.
+     *
+     * @param value the value
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(Object value) throws IOException {
+        this.writer.writeValue(this.out, value);
+        this.out.write('\n');
+        this.numWritten++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.flush();
+    }
+}
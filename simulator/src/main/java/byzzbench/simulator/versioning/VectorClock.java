@@ -88,37 +88,44 @@ public class VectorClock implements Serializable {
         return newClock;
     }
 
+    /**
+     * Compare this clock with another clock. A node missing from a clock has version 0.
+     *
+     * @param otherClock The other clock
+     * @return How this clock occurred relative to the other clock: {@link Occurred#BEFORE} if
+     * every version of this clock is lower than or equal to the other's, {@link Occurred#AFTER} if
+     * every version is higher or equal, {@link Occurred#EQUAL} if they are all equal, and
+     * {@link Occurred#CONCURRENTLY} otherwise.
+     */
     public Occurred compare(VectorClock otherClock) {
         if (otherClock == null) {
             throw new IllegalArgumentException("Invalid clock");
         }
 
-        boolean thisIsLess = false;
-        boolean otherIsLess = false;
+        boolean thisIsGreater = false;
+        boolean otherIsGreater = false;
 
         for (Map.Entry<String, Long> entry : this.versions.entrySet()) {
-            Long otherVersion = otherClock.versions.get(entry.getKey());
-            if (otherVersion == null) {
-                otherIsLess = true;
-            } else if (entry.getValue() > otherVersion) {
-                thisIsLess = true;
+            long otherVersion = otherClock.versions.getOrDefault(entry.getKey(), 0L);
+            if (entry.getValue() > otherVersion) {
+                thisIsGreater = true;
             } else if (entry.getValue() < otherVersion) {
-                otherIsLess = true;
+                otherIsGreater = true;
             }
         }
 
         for (Map.Entry<String, Long> entry : otherClock.versions.entrySet()) {
-            if (!this.versions.containsKey(entry.getKey())) {
-                thisIsLess = true;
+            if (!this.versions.containsKey(entry.getKey()) && entry.getValue() > 0) {
+                otherIsGreater = true;
                 break;
             }
         }
 
-        if (thisIsLess && otherIsLess) {
+        if (thisIsGreater && otherIsGreater) {
             return Occurred.CONCURRENTLY;
-        } else if (thisIsLess) {
+        } else if (otherIsGreater) {
             return Occurred.BEFORE;
-        } else if (otherIsLess) {
+        } else if (thisIsGreater) {
             return Occurred.AFTER;
         } else {
             return Occurred.EQUAL;
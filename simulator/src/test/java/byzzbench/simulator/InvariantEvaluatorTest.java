@@ -0,0 +1,113 @@
+package byzzbench.simulator;
+
+import byzzbench.simulator.config.TerminationConfig;
+import byzzbench.simulator.domain.Campaign;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.transport.Event;
+import byzzbench.simulator.transport.Transport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("InvariantEvaluator Tests")
+class InvariantEvaluatorTest {
+    private Scenario scenario;
+    private Schedule schedule;
+    private TerminationConfig termination;
+
+    @BeforeEach
+    void setUp() {
+        scenario = mock(Scenario.class);
+        schedule = mock(Schedule.class);
+        termination = new TerminationConfig();
+        Campaign campaign = new Campaign();
+        campaign.setTermination(termination);
+        when(scenario.getTransport()).thenReturn(mock(Transport.class));
+        when(scenario.getReplicas()).thenReturn(new TreeMap<>());
+        when(scenario.getSchedule()).thenReturn(schedule);
+        when(schedule.getCampaign()).thenReturn(campaign);
+    }
+
+    @Test
+    @DisplayName("Should only re-evaluate predicates whose inputs changed")
+    void testReevaluatesOnlyDirtyPredicates() {
+        CountingPredicate queue = new CountingPredicate(scenario, EnumSet.of(ScenarioPredicate.Input.QUEUE), false);
+        CountingPredicate commits = new CountingPredicate(scenario, EnumSet.of(ScenarioPredicate.Input.COMMIT_LOG), false);
+        InvariantEvaluator evaluator = new InvariantEvaluator(scenario, List.of(queue, commits));
+
+        assertTrue(evaluator.invariantsHold());
+        assertTrue(evaluator.invariantsHold());
+        assertEquals(1, queue.evaluations);
+        assertEquals(1, commits.evaluations);
+
+        evaluator.onEventDelivered(mock(Event.class));
+        queue.result = false;
+        assertFalse(evaluator.invariantsHold());
+        assertEquals(2, queue.evaluations);
+        assertEquals(1, commits.evaluations);
+
+        // the memoized result is reported until the inputs change again
+        assertEquals(Set.of(queue), evaluator.unsatisfiedInvariants());
+        assertEquals(2, queue.evaluations);
+    }
+
+    @Test
+    @DisplayName("Should evaluate expensive predicates at the sampling frequency")
+    void testSamplesExpensivePredicates() {
+        termination.setSamplingFrequency(3);
+        CountingPredicate expensive = new CountingPredicate(scenario, EnumSet.of(ScenarioPredicate.Input.SCHEDULE), true);
+        InvariantEvaluator evaluator = new InvariantEvaluator(scenario, List.of(expensive));
+
+        for (int length = 1; length <= 9; length++) {
+            when(schedule.getLength()).thenReturn(length);
+            evaluator.invariantsHold();
+        }
+
+        // first evaluation, then at lengths 3, 6 and 9
+        assertEquals(4, expensive.evaluations);
+
+        // off the cadence, the final verdict still re-evaluates the changed predicate
+        when(schedule.getLength()).thenReturn(10);
+        expensive.result = false;
+        assertTrue(evaluator.invariantsHold());
+        assertEquals(Set.of(expensive), evaluator.unsatisfiedInvariants());
+        assertEquals(5, expensive.evaluations);
+    }
+
+    static class CountingPredicate extends ScenarioPredicate {
+        private final Set<Input> inputs;
+        private final boolean expensive;
+        int evaluations = 0;
+        boolean result = true;
+
+        CountingPredicate(Scenario scenario, Set<Input> inputs, boolean expensive) {
+            super(scenario);
+            this.inputs = inputs;
+            this.expensive = expensive;
+        }
+
+        @Override
+        public Set<Input> getInputs() {
+            return inputs;
+        }
+
+        @Override
+        public boolean isExpensive() {
+            return expensive;
+        }
+
+        @Override
+        public boolean test(Scenario scenario) {
+            evaluations++;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package byzzbench.simulator;
+
+import byzzbench.simulator.config.CheckpointConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.random.RandomExplorationStrategy;
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import byzzbench.simulator.state.CommitLog;
+import byzzbench.simulator.transport.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Scenario snapshot Tests")
+class ScenarioSnapshotTest {
+    private Scenario scenario;
+    private RandomExplorationStrategy strategy;
+
+    /**
+     * A summary of the observable state of a scenario.
+     */
+    private static String fingerprint(Scenario scenario) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(scenario.getSchedule().getActions().size()).append('|');
+        for (Event event : scenario.getTransport().getEvents().values()) {
+            sb.append(event.getEventId()).append(event.getStatus().name().charAt(0));
+        }
+        for (Replica replica : scenario.getReplicas().values()) {
+            CommitLog commitLog = replica.getCommitLog();
+            sb.append('|').append(replica.getId()).append(':').append(commitLog.getLength());
+            if (!commitLog.isEmpty()) {
+                sb.append(':').append(commitLog.get(commitLog.getHighestSequenceNumber()));
+            }
+        }
+        sb.append('|').append(scenario.getTimekeeper().getTime(scenario.getNode("A")));
+        return sb.toString();
+    }
+
+    /**
+     * A description of an action, without the wall-clock time at which its event was created.
+     */
+    private static String describe(Action action) {
+        return action.toString().replaceAll("timestamp=[^,]*, ", "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        ScenarioParameters parameters = ScenarioParameters.builder()
+                .scenarioId("pbft-java")
+                .randomSeed(7L)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+        scenario = new PbftJavaScenario(new Schedule(parameters));
+        CheckpointConfig config = new CheckpointConfig();
+        config.setInterval(10);
+        config.setMaxCheckpoints(4);
+        scenario.getCheckpoints().configure(config);
+        scenario.getCheckpoints().checkpoint();
+
+        ExplorationStrategyParameters strategyParameters = new ExplorationStrategyParameters();
+        strategyParameters.setRandomSeed(3L);
+        strategy = new RandomExplorationStrategy();
+        strategy.loadParameters(strategyParameters);
+    }
+
+    private void explore(int steps) {
+        explore(scenario, steps);
+    }
+
+    private void explore(Scenario scenario, int steps) {
+        for (int i = 0; i < steps; i++) {
+            scenario.getCheckpoints().checkpointIfDue();
+            assertTrue(strategy.scheduleNext(scenario).isPresent());
+        }
+    }
+
+    @Test
+    @DisplayName("Should restore the state of a snapshot, and evolve identically from it")
+    void testRestoreSnapshot() {
+        explore(40);
+        ScenarioSnapshot snapshot = scenario.snapshot();
+        String before = fingerprint(scenario);
+        int lengthBefore = scenario.getSchedule().getLength();
+
+        explore(40);
+        List<Action> continuation = new ArrayList<>(scenario.getSchedule().getActions().subList(40, 80));
+        String after = fingerprint(scenario);
+        int lengthAfter = scenario.getSchedule().getLength();
+
+        scenario.restore(snapshot);
+        assertEquals(before, fingerprint(scenario));
+        // the cached length of the schedule follows the restored actions
+        assertEquals(lengthBefore, scenario.getSchedule().getLength());
+
+        // restoring twice yields the same state, and replaying the actions reaches the same state
+        scenario.restore(snapshot);
+        continuation.forEach(action -> action.accept(scenario));
+        assertEquals(after, fingerprint(scenario));
+        assertEquals(lengthAfter, scenario.getSchedule().getLength());
+        assertTrue(scenario.invariantsHold());
+    }
+
+    @Test
+    @DisplayName("Should reset to the state right after setup")
+    void testReset() {
+        String initial = fingerprint(scenario);
+        explore(25);
+        assertNotEquals(initial, fingerprint(scenario));
+
+        scenario.reset();
+        assertEquals(initial, fingerprint(scenario));
+        assertEquals(0, scenario.getSchedule().getActions().size());
+    }
+
+    @Test
+    @DisplayName("Should restore to any step from periodic checkpoints")
+    void testRestoreToStep() {
+        List<String> fingerprints = new ArrayList<>();
+        for (int step = 0; step < 60; step++) {
+            fingerprints.add(fingerprint(scenario));
+            explore(1);
+        }
+
+        // at most 4 checkpoints are kept, thinned out to cover the whole schedule
+        assertEquals(Set.of(0, 20, 40), scenario.getCheckpoints().getSteps());
+
+        for (int step : new int[]{45, 33, 7, 0}) {
+            scenario.restoreToStep(step);
+            assertEquals(fingerprints.get(step), fingerprint(scenario), "state at step " + step);
+        }
+        assertThrows(IllegalArgumentException.class, () -> scenario.restoreToStep(1));
+    }
+
+    @Test
+    @DisplayName("Should fork an independent scenario that shares the schedule prefix")
+    void testFork() {
+        explore(30);
+        String forkPoint = fingerprint(scenario);
+        Schedule schedule = Schedule.forkOf(scenario.getSchedule());
+        schedule.getActions().addAll(scenario.getSchedule().getActions());
+
+        Scenario fork = scenario.fork(schedule);
+        assertSame(schedule, fork.getSchedule());
+        assertEquals(30, schedule.getPrefixLength());
+        assertSame(scenario.getSchedule().getActions().getFirst(), schedule.getActions().getFirst());
+        assertEquals(forkPoint, fingerprint(fork));
+
+        // with the same random stream, the fork follows the same schedule as the original
+        strategy.reseed(scenario, 5);
+        strategy.reseed(fork, 5);
+        explore(fork, 30);
+        assertEquals(forkPoint, fingerprint(scenario));
+        explore(scenario, 30);
+        assertEquals(fingerprint(scenario), fingerprint(fork));
+        assertEquals(
+                scenario.getSchedule().getActions().subList(30, 60).stream().map(ScenarioSnapshotTest::describe).toList(),
+                fork.getSchedule().getActions().subList(30, 60).stream().map(ScenarioSnapshotTest::describe).toList());
+        assertTrue(fork.invariantsHold());
+
+        // with different random streams, the fork diverges from the original
+        Schedule otherSchedule = Schedule.forkOf(scenario.getSchedule());
+        otherSchedule.getActions().addAll(scenario.getSchedule().getActions());
+        Scenario other = scenario.fork(otherSchedule);
+        strategy.reseed(other, 6);
+        explore(scenario, 30);
+        explore(other, 30);
+        assertNotEquals(
+                scenario.getSchedule().getActions().subList(60, 90).stream().map(ScenarioSnapshotTest::describe).toList(),
+                other.getSchedule().getActions().subList(60, 90).stream().map(ScenarioSnapshotTest::describe).toList());
+    }
+}
@@ -39,7 +39,9 @@ class ByzzFuzzRoundInfoOracleTest {
         // Remove any existing transport observers so tests use the TestOracle exclusively
         oracle = new TestOracle(scenario);
         // ensure the transport observers contain only our TestOracle (remove any other ByzzFuzzRoundInfoOracle)
-        scenario.getTransport().getObservers().removeIf(o -> o != oracle);
+        scenario.getTransport().getObservers().stream()
+                .filter(o -> o != oracle)
+                .forEach(scenario.getTransport()::removeObserver);
     }
 
     private Replica anyReplica() {
@@ -0,0 +1,106 @@
+package byzzbench.simulator.exploration_strategy.coverage;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import byzzbench.simulator.utils.LongHashSet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Coverage-guided exploration strategy")
+class CoverageGuidedExplorationStrategyTest {
+    private static final int NUM_SCENARIOS = 30;
+    private static final int NUM_STEPS = 150;
+
+    private static <T extends ExplorationStrategy> T strategy(T strategy) {
+        ExplorationStrategyParameters parameters = new ExplorationStrategyParameters();
+        parameters.setRandomSeed(42L);
+        parameters.setParams(Map.of("maxCorpusSize", "64"));
+        strategy.loadParameters(parameters);
+        return strategy;
+    }
+
+    private static Scenario scenario(long seed) {
+        ScenarioParameters parameters = ScenarioParameters.builder()
+                .scenarioId("pbft-java")
+                .randomSeed(seed)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+        return new PbftJavaScenario(new Schedule(parameters));
+    }
+
+    /**
+     * Explores a number of scenarios with a strategy, and counts the distinct states they reach.
+     */
+    private static int explore(ExplorationStrategy strategy) {
+        LongHashSet states = new LongHashSet();
+        for (long seed = 1; seed <= NUM_SCENARIOS; seed++) {
+            Scenario scenario = scenario(seed);
+            strategy.ensureScenarioInitialized(scenario);
+            for (int i = 0; i < NUM_STEPS; i++) {
+                Optional<Action> action = strategy.scheduleNext(scenario);
+                if (action.isEmpty()) {
+                    break;
+                }
+                states.add(CoverageGuidedExplorationStrategy.fingerprint(scenario));
+            }
+        }
+        return states.size();
+    }
+
+    @Test
+    @DisplayName("Schedules reaching new states are added to the corpus, and later scenarios replay them mutated")
+    void corpusGrowsAndIsReplayed() {
+        CoverageGuidedExplorationStrategy strategy = strategy(new CoverageGuidedExplorationStrategy());
+        int states = explore(strategy);
+        assertTrue(strategy.getNumVisitedStates() >= states);
+        assertTrue(strategy.getCorpusSize() > 0);
+        assertTrue(strategy.getCorpusSize() <= 64);
+
+        // most scenarios start from a mutated corpus entry
+        CoverageScenarioStrategyData data = null;
+        for (long seed = 100; seed < 110 && (data == null || !data.isFromCorpus()); seed++) {
+            Scenario scenario = scenario(seed);
+            strategy.ensureScenarioInitialized(scenario);
+            data = (CoverageScenarioStrategyData) strategy.getScenarioStrategyData(scenario);
+        }
+        assertTrue(data.isFromCorpus());
+        assertTrue(data.getNumPlannedSteps() > 0);
+
+        strategy.reset();
+        assertEquals(0, strategy.getNumVisitedStates());
+        assertEquals(0, strategy.getCorpusSize());
+    }
+
+    @Test
+    @DisplayName("Scenarios decide independently whether to start from the corpus")
+    void scenariosMixCorpusAndFreshStarts() {
+        CoverageGuidedExplorationStrategy strategy = new CoverageGuidedExplorationStrategy();
+        ExplorationStrategyParameters parameters = new ExplorationStrategyParameters();
+        parameters.setRandomSeed(42L);
+        parameters.setParams(Map.of("corpusProbability", "0.5"));
+        strategy.loadParameters(parameters);
+        explore(strategy);
+
+        // consecutive scenario seeds must not all make the same decision
+        int fromCorpus = 0;
+        for (long seed = NUM_SCENARIOS + 1; seed <= 2 * NUM_SCENARIOS; seed++) {
+            Scenario scenario = scenario(seed);
+            strategy.ensureScenarioInitialized(scenario);
+            if (((CoverageScenarioStrategyData) strategy.getScenarioStrategyData(scenario)).isFromCorpus()) {
+                fromCorpus++;
+            }
+        }
+        assertTrue(fromCorpus > NUM_SCENARIOS / 5 && fromCorpus < NUM_SCENARIOS * 4 / 5, "from corpus: " + fromCorpus);
+    }
+}
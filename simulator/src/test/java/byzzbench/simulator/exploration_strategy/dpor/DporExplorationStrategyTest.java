@@ -0,0 +1,142 @@
+package byzzbench.simulator.exploration_strategy.dpor;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import byzzbench.simulator.transport.MessageEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("DPOR exploration strategy")
+class DporExplorationStrategyTest {
+    private static final int MAX_DEPTH = 8;
+
+    private static DporExplorationStrategy strategy() {
+        ExplorationStrategyParameters parameters = new ExplorationStrategyParameters();
+        parameters.setRandomSeed(42L);
+        parameters.setParams(Map.of(
+                "maxDepth", String.valueOf(MAX_DEPTH),
+                "checkpointInterval", "2",
+                "exploreTimeouts", "false"));
+        DporExplorationStrategy strategy = new DporExplorationStrategy();
+        strategy.loadParameters(parameters);
+        return strategy;
+    }
+
+    private static Scenario scenario() {
+        ScenarioParameters parameters = ScenarioParameters.builder()
+                .scenarioId("pbft-java")
+                .randomSeed(1L)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+        return new PbftJavaScenario(new Schedule(parameters));
+    }
+
+    /**
+     * Gets the sequence of messages delivered to each node of a scenario since the given step.
+     * Equivalent schedules deliver the same sequences.
+     */
+    private static Map<String, List<String>> deliveries(Scenario scenario, int fromStep) {
+        Map<String, List<String>> deliveries = new TreeMap<>();
+        List<Action> actions = scenario.getSchedule().getActions();
+        for (Action action : actions.subList(fromStep, actions.size())) {
+            DeliverMessageAction delivery = (DeliverMessageAction) action;
+            deliveries.computeIfAbsent(delivery.getRecipientId(), id -> new ArrayList<>())
+                    .add(delivery.getSenderId() + ":" + delivery.getPayload().getType());
+        }
+        return deliveries;
+    }
+
+    /**
+     * Gets the messages queued in the mailbox of each node of a scenario.
+     */
+    private static Map<String, List<String>> mailboxes(Scenario scenario) {
+        Map<String, List<String>> mailboxes = new TreeMap<>();
+        for (String nodeId : scenario.getNodes().keySet()) {
+            mailboxes.put(nodeId, scenario.getTransport().getQueuedMessages(nodeId).stream()
+                    .map(queued -> queued.getSenderId() + ":" + queued.getPayload().getType())
+                    .toList());
+        }
+        return mailboxes;
+    }
+
+    /**
+     * Checks whether two schedules order the messages delivered to each node in the same way,
+     * up to the end of the shorter sequence: whether they only differ by which independent
+     * steps the depth bound cut off.
+     */
+    private static boolean compatible(Map<String, List<String>> deliveries, Map<String, List<String>> other) {
+        Set<String> nodeIds = new HashSet<>(deliveries.keySet());
+        nodeIds.addAll(other.keySet());
+        for (String nodeId : nodeIds) {
+            List<String> a = deliveries.getOrDefault(nodeId, List.of());
+            List<String> b = other.getOrDefault(nodeId, List.of());
+            int length = Math.min(a.size(), b.size());
+            if (!a.subList(0, length).equals(b.subList(0, length))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    @DisplayName("Explores one schedule per equivalence class, covering every schedule found at random")
+    void exploresEachTraceOnce() {
+        DporExplorationStrategy strategy = strategy();
+        Scenario scenario = scenario();
+        strategy.ensureScenarioInitialized(scenario);
+        int rootStep = scenario.getSchedule().getActions().size();
+
+        // collect the deliveries of each path explored up to its end, and check their end states differ
+        List<Map<String, List<String>>> traces = new ArrayList<>();
+        Set<List<Map<String, List<String>>>> states = new HashSet<>();
+        while (true) {
+            Map<String, List<String>> deliveries = deliveries(scenario, rootStep);
+            Map<String, List<String>> mailboxes = mailboxes(scenario);
+            DporScenarioStrategyData before = (DporScenarioStrategyData) strategy.getScenarioStrategyData(scenario);
+            Optional<Action> action = strategy.scheduleNext(scenario);
+            DporScenarioStrategyData after = (DporScenarioStrategyData) strategy.getScenarioStrategyData(scenario);
+            if (after.getNumTraces() > before.getNumTraces() && after.getNumSleepBlocked() == before.getNumSleepBlocked()) {
+                traces.add(deliveries);
+                assertTrue(states.add(List.of(deliveries, mailboxes)), "a trace was explored twice");
+            }
+            if (action.isEmpty()) {
+                break;
+            }
+            assertTrue(after.getDepth() <= MAX_DEPTH);
+        }
+
+        DporScenarioStrategyData data = (DporScenarioStrategyData) strategy.getScenarioStrategyData(scenario);
+        assertTrue(data.isComplete());
+        assertEquals(0, data.getNumPendingBacktrackPoints());
+        assertTrue(traces.size() > 1);
+        // every trace either reaches its end or is cut short by the sleep sets
+        assertEquals(traces.size(), data.getNumTraces() - data.getNumSleepBlocked());
+        assertTrue(data.getNumBacktracks() >= traces.size() - 1);
+        assertTrue(strategy.scheduleNext(scenario).isEmpty());
+
+        // every schedule of random deliveries is equivalent to an explored one, up to the depth bound
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            Scenario randomScenario = scenario();
+            for (int step = 0; step < MAX_DEPTH; step++) {
+                List<MessageEvent> events = strategy.getQueuedMessageEvents(randomScenario);
+                if (events.isEmpty()) {
+                    break;
+                }
+                DeliverMessageAction.fromEvent(events.get(random.nextInt(events.size()))).accept(randomScenario);
+            }
+            Map<String, List<String>> trace = deliveries(randomScenario, rootStep);
+            assertTrue(traces.stream().anyMatch(explored -> compatible(trace, explored)), "unexplored trace: " + trace);
+        }
+    }
+}
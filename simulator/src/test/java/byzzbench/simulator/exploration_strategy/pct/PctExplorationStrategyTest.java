@@ -0,0 +1,142 @@
+package byzzbench.simulator.exploration_strategy.pct;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PCT exploration strategy")
+class PctExplorationStrategyTest {
+    private static final int CHANGE_POINTS = 3;
+    private static final int EXPECTED_LENGTH = 40;
+
+    private static PctExplorationStrategy strategy(long seed) {
+        ExplorationStrategyParameters parameters = new ExplorationStrategyParameters();
+        parameters.setRandomSeed(seed);
+        parameters.setParams(Map.of(
+                "priorityChangePoints", String.valueOf(CHANGE_POINTS),
+                "expectedLength", String.valueOf(EXPECTED_LENGTH)));
+        PctExplorationStrategy strategy = new PctExplorationStrategy();
+        strategy.loadParameters(parameters);
+        return strategy;
+    }
+
+    private static Scenario scenario() {
+        ScenarioParameters parameters = ScenarioParameters.builder()
+                .scenarioId("pbft-java")
+                .randomSeed(1L)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+        return new PbftJavaScenario(new Schedule(parameters));
+    }
+
+    /**
+     * Gets the nodes of a scenario with queued messages.
+     */
+    private static Set<String> nodesWithQueuedMessages(Scenario scenario) {
+        Set<String> nodeIds = new TreeSet<>();
+        for (String nodeId : scenario.getNodes().keySet()) {
+            if (!scenario.getTransport().getQueuedMessages(nodeId).isEmpty()) {
+                nodeIds.add(nodeId);
+            }
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Runs a scenario with PCT for a number of steps, checking that each message is delivered to
+     * the node with the highest priority.
+     */
+    private static List<String> run(PctExplorationStrategy strategy, Scenario scenario, int numSteps) {
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < numSteps; i++) {
+            Set<String> ready = nodesWithQueuedMessages(scenario);
+            Optional<Action> action = strategy.scheduleNext(scenario);
+            assertTrue(action.isPresent());
+            NodePriorityQueue queue = strategy.getContext(scenario).getQueue();
+            if (action.get() instanceof DeliverMessageAction delivery) {
+                String highest = ready.stream().max(Comparator.comparingLong(queue::getPriority)).orElseThrow();
+                assertEquals(highest, delivery.getRecipientId());
+                recipients.add(delivery.getRecipientId());
+            } else {
+                assertTrue(ready.isEmpty());
+                recipients.add("timeout");
+            }
+            assertEquals(nodesWithQueuedMessages(scenario), new TreeSet<>(queue.getReadyNodes()));
+        }
+        return recipients;
+    }
+
+    @Test
+    @DisplayName("Delivers to the node with the highest priority, lowering it at each change point")
+    void testPriorities() {
+        PctExplorationStrategy strategy = strategy(42L);
+        Scenario scenario = scenario();
+        run(strategy, scenario, EXPECTED_LENGTH);
+
+        PctScenarioStrategyData data = (PctScenarioStrategyData) strategy.getScenarioStrategyData(scenario);
+        assertEquals(EXPECTED_LENGTH, data.getNumSteps());
+        assertEquals(CHANGE_POINTS, data.getChangePoints().size());
+        assertTrue(data.getChangePoints().stream().allMatch(step -> step >= 1 && step <= EXPECTED_LENGTH));
+        assertEquals(CHANGE_POINTS, data.getNumChanges());
+
+        // the priorities of the nodes are distinct, and the demoted nodes rank below all others
+        Collection<Long> priorities = data.getPriorities().values();
+        assertEquals(priorities.size(), new HashSet<>(priorities).size());
+        assertEquals(scenario.getNodes().keySet(), data.getPriorities().keySet());
+        long numDemoted = priorities.stream().filter(priority -> priority <= CHANGE_POINTS).count();
+        assertTrue(numDemoted >= 1 && numDemoted <= CHANGE_POINTS);
+    }
+
+    @Test
+    @DisplayName("Keeps the priority queue in sync with the transport across restores")
+    void testRestore() {
+        PctExplorationStrategy strategy = strategy(7L);
+        Scenario scenario = scenario();
+        strategy.ensureScenarioInitialized(scenario);
+        scenario.getCheckpoints().checkpoint();
+        run(strategy, scenario, 10);
+        scenario.getCheckpoints().checkpoint();
+        List<String> recipients = run(strategy, scenario, 10);
+
+        // restoring a checkpoint restores the priorities and change points along with the mailboxes
+        scenario.restoreToStep(10);
+        assertEquals(nodesWithQueuedMessages(scenario), new TreeSet<>(strategy.getContext(scenario).getQueue().getReadyNodes()));
+        assertEquals(recipients, run(strategy, scenario, 10));
+
+        // replaying actions from a checkpoint keeps the queue in sync
+        scenario.restoreToStep(5);
+        assertEquals(nodesWithQueuedMessages(scenario), new TreeSet<>(strategy.getContext(scenario).getQueue().getReadyNodes()));
+    }
+
+    @Test
+    @DisplayName("Picks the same schedule for the same seed, and different ones for different seeds")
+    void testSeeds() {
+        List<String> first = run(strategy(1L), scenario(), EXPECTED_LENGTH);
+        assertEquals(first, run(strategy(1L), scenario(), EXPECTED_LENGTH));
+
+        Set<List<String>> schedules = new HashSet<>();
+        for (long seed = 0; seed < 10; seed++) {
+            schedules.add(run(strategy(seed), scenario(), EXPECTED_LENGTH));
+        }
+        assertTrue(schedules.size() > 1);
+    }
+
+    @Test
+    @DisplayName("Rejects invalid parameters")
+    void testParameters() {
+        ExplorationStrategyParameters parameters = new ExplorationStrategyParameters();
+        parameters.setParams(Map.of("priorityChangePoints", "-1"));
+        assertThrows(IllegalArgumentException.class, () -> new PctExplorationStrategy().loadParameters(parameters));
+    }
+}
@@ -0,0 +1,106 @@
+package byzzbench.simulator.exploration_strategy.random;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.StrategyContext;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Random exploration strategy")
+class RandomExplorationStrategyTest {
+    private static final int NUM_SCENARIOS = 4;
+    private static final int NUM_STEPS = 200;
+
+    private static RandomExplorationStrategy strategy() {
+        ExplorationStrategyParameters parameters = new ExplorationStrategyParameters();
+        parameters.setRandomSeed(42L);
+        RandomExplorationStrategy strategy = new RandomExplorationStrategy();
+        strategy.loadParameters(parameters);
+        return strategy;
+    }
+
+    private static Scenario scenario(long seed) {
+        ScenarioParameters parameters = ScenarioParameters.builder()
+                .scenarioId("pbft-java")
+                .randomSeed(seed)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+        return new PbftJavaScenario(new Schedule(parameters));
+    }
+
+    private static List<String> explore(RandomExplorationStrategy strategy, Scenario scenario) {
+        List<String> actions = new ArrayList<>();
+        for (int i = 0; i < NUM_STEPS; i++) {
+            Optional<Action> action = strategy.scheduleNext(scenario);
+            if (action.isEmpty()) {
+                break;
+            }
+            actions.add(action.get().toString());
+        }
+        return actions;
+    }
+
+    @Test
+    @DisplayName("Scenarios explored concurrently follow the same schedules as when explored sequentially")
+    void concurrentExplorationMatchesSequential() throws Exception {
+        RandomExplorationStrategy sequential = strategy();
+        List<List<String>> expected = new ArrayList<>();
+        for (long seed = 1; seed <= NUM_SCENARIOS; seed++) {
+            expected.add(explore(sequential, scenario(seed)));
+        }
+
+        RandomExplorationStrategy concurrent = strategy();
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_SCENARIOS);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            // submit in reverse order, so the scenarios do not start in the sequential order
+            for (long seed = NUM_SCENARIOS; seed >= 1; seed--) {
+                long scenarioSeed = seed;
+                futures.addFirst(executor.submit(() -> explore(concurrent, scenario(scenarioSeed))));
+            }
+            for (int i = 0; i < NUM_SCENARIOS; i++) {
+                assertEquals(expected.get(i), futures.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Each scenario owns the context of the strategy, until it is released")
+    void scenarioOwnsStrategyContext() {
+        RandomExplorationStrategy strategy = strategy();
+        RandomExplorationStrategy other = strategy();
+        Scenario scenario = scenario(1);
+
+        StrategyContext context = strategy.getContext(scenario);
+        assertSame(context, strategy.getContext(scenario));
+        assertNotSame(context, strategy.getContext(scenario(1)));
+        assertNotSame(context, other.getContext(scenario));
+
+        strategy.ensureScenarioInitialized(scenario);
+        explore(strategy, scenario);
+        assertTrue(context.isInitialized());
+
+        // a released context starts over with the initial random stream
+        strategy.releaseContext(scenario);
+        StrategyContext released = strategy.getContext(scenario);
+        assertNotSame(context, released);
+        assertFalse(released.isInitialized());
+        assertEquals(strategy.getContext(scenario(1)).getRand().nextLong(), released.getRand().nextLong());
+    }
+}
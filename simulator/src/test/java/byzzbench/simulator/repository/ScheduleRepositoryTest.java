@@ -0,0 +1,102 @@
+package byzzbench.simulator.repository;
+
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.domain.Campaign;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(ByzzBenchConfig.class)
+@DisplayName("Schedule repository Tests")
+class ScheduleRepositoryTest {
+    @Autowired
+    private ScheduleRepository scheduleRepository;
+
+    @Autowired
+    private CampaignRepository campaignRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private static Schedule schedule(long id) {
+        Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("test").randomSeed(id).build());
+        schedule.setScheduleId(id);
+        return schedule;
+    }
+
+    @Test
+    @DisplayName("Should page through schedules filtered by campaign and broken invariant")
+    void testFindScheduleIds() {
+        Campaign campaign = campaignRepository.save(new Campaign());
+        String invariant = "Broken";
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("test").randomSeed((long) i).build());
+            schedule.setScheduleId(i + 1);
+            if (i % 2 == 0) {
+                schedule.setCampaign(campaign);
+            }
+            if (i % 3 == 0) {
+                schedule.getBrokenInvariantIds().add(invariant);
+            }
+            ids.add(scheduleRepository.save(schedule).getScheduleId());
+        }
+
+        assertEquals(ids, scheduleRepository.findAllScheduleIds());
+        assertEquals(ids.subList(0, 4), scheduleRepository.findScheduleIds(0, null, null, null, PageRequest.of(0, 4)));
+        assertEquals(ids.subList(4, 8), scheduleRepository.findScheduleIds(ids.get(3), null, null, null, PageRequest.of(0, 4)));
+
+        long campaignId = campaign.getCampaignId();
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(4), ids.get(6), ids.get(8)),
+                scheduleRepository.findScheduleIds(0, campaignId, null, null, PageRequest.of(0, 10)));
+        assertEquals(List.of(ids.get(0), ids.get(6)),
+                scheduleRepository.findScheduleIds(0, campaignId, true, invariant, PageRequest.of(0, 10)));
+        assertEquals(List.of(ids.get(1), ids.get(2)),
+                scheduleRepository.findScheduleIds(0, null, false, null, PageRequest.of(0, 2)));
+        assertEquals(4, scheduleRepository.countSchedules(null, true, null));
+        assertEquals(3, scheduleRepository.countSchedules(campaignId, false, null));
+        assertEquals(0, scheduleRepository.countSchedules(null, null, "unknown"));
+    }
+
+    @Test
+    @DisplayName("Should insert new schedules without querying them or the schedules they were forked from")
+    void testInsertNewSchedules() {
+        Schedule parent = schedule(1);
+        scheduleRepository.save(parent);
+        assertEquals(1, scheduleRepository.findMaxScheduleId());
+        entityManager.flush();
+        entityManager.clear();
+
+        // forks of the now detached parent, as the write-behind persists them
+        List<Schedule> forks = new ArrayList<>();
+        for (long id = 2; id <= 5; id++) {
+            Schedule fork = Schedule.forkOf(parent);
+            fork.setScheduleId(id);
+            forks.add(fork);
+        }
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        scheduleRepository.saveAll(forks);
+        entityManager.flush();
+        assertEquals(4, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        // a single batched insert statement
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(5, scheduleRepository.findMaxScheduleId());
+    }
+}
@@ -0,0 +1,101 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.config.ScheduleCacheConfig;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.transport.Event;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Materialized schedule cache Tests")
+class MaterializedScheduleCacheTest {
+    private final List<Schedule> spilled = new ArrayList<>();
+
+    /**
+     * A materialized schedule whose scenario has the given number of events.
+     */
+    private static Schedule schedule(long id, int numEvents) {
+        Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("test").randomSeed(0L).build());
+        schedule.setScheduleId(id);
+        SortedMap<Long, Event> events = new TreeMap<>();
+        for (long i = 0; i < numEvents; i++) {
+            events.put(i, mock(Event.class));
+        }
+        Scenario scenario = mock(Scenario.class, RETURNS_DEEP_STUBS);
+        when(scenario.getTransport().getEvents()).thenReturn(events);
+        schedule.setScenario(scenario);
+        return schedule;
+    }
+
+    private MaterializedScheduleCache cache(int maxSchedules, long maxWeight) {
+        ScheduleCacheConfig config = new ScheduleCacheConfig();
+        config.setMaxSchedules(maxSchedules);
+        config.setMaxWeight(maxWeight);
+        return new MaterializedScheduleCache(config, spilled::add);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used schedules")
+    void testEvictsLeastRecentlyUsed() {
+        MaterializedScheduleCache cache = cache(2, 0);
+        Schedule first = schedule(1, 0);
+        cache.put(first, false);
+        cache.put(schedule(2, 0), false);
+        assertSame(first, cache.get(1));
+
+        cache.put(schedule(3, 0), false);
+        assertEquals(List.of(1L, 3L), List.copyOf(cache.asMap().keySet()));
+        assertEquals(List.of(2L), spilled.stream().map(Schedule::getScheduleId).toList());
+        assertTrue(cache.isEvicted(2));
+
+        // accessing an evicted schedule is a miss; caching it again clears the eviction
+        assertNull(cache.get(2));
+        assertNull(cache.get(4));
+        cache.put(spilled.getFirst(), false);
+        assertFalse(cache.isEvicted(2));
+
+        MaterializedScheduleCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.getSize());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getEvictions());
+        assertEquals(1, stats.getEvicted());
+    }
+
+    @Test
+    @DisplayName("Should evict schedules until the total weight is within bounds")
+    void testEvictsByWeight() {
+        MaterializedScheduleCache cache = cache(0, 10);
+        cache.put(schedule(1, 4), false);
+        cache.put(schedule(2, 4), false);
+        assertTrue(spilled.isEmpty());
+
+        cache.put(schedule(3, 8), false);
+        assertEquals(List.of(3L), List.copyOf(cache.asMap().keySet()));
+        assertEquals(8, cache.getStats().getWeight());
+        assertEquals(2, spilled.size());
+    }
+
+    @Test
+    @DisplayName("Should not evict pinned schedules until they are unpinned")
+    void testPinnedSchedules() {
+        MaterializedScheduleCache cache = cache(1, 0);
+        cache.put(schedule(1, 0), true);
+        cache.put(schedule(2, 0), true);
+        assertEquals(2, cache.getStats().getSize());
+        assertTrue(spilled.isEmpty());
+
+        cache.unpin(1);
+        assertEquals(List.of(2L), List.copyOf(cache.asMap().keySet()));
+        assertEquals(1, spilled.getFirst().getScheduleId());
+    }
+}
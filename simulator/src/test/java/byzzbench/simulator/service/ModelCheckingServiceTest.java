@@ -0,0 +1,144 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.ScenarioFingerprinter;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.protocols.faulty_deadlock.FaultyDeadlockScenario;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Model checking service")
+class ModelCheckingServiceTest {
+    private static ScenarioParameters parameters(String scenarioId) {
+        return ScenarioParameters.builder()
+                .scenarioId(scenarioId)
+                .randomSeed(1L)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+    }
+
+    private static Scenario pbft() {
+        return new PbftJavaScenario(new Schedule(parameters("pbft-java")));
+    }
+
+    private static ModelCheckingService.Options options(ModelCheckingService.SearchOrder order, int maxDepth) {
+        return ModelCheckingService.Options.builder().order(order).maxDepth(maxDepth).build();
+    }
+
+    @Test
+    @DisplayName("Fingerprints the state of the nodes regardless of the order of deliveries, and the mailboxes in order")
+    void testFingerprint() {
+        Scenario scenario = pbft();
+        Scenario other = pbft();
+        assertEquals(ScenarioFingerprinter.fingerprint(scenario), ScenarioFingerprinter.fingerprint(other));
+
+        // deliver the messages queued until two replicas have messages queued
+        while (queuedHeads(scenario).size() < 2) {
+            long eventId = queuedHeads(scenario).getFirst();
+            scenario.getTransport().deliverEvent(eventId);
+            other.getTransport().deliverEvent(eventId);
+        }
+        assertEquals(ScenarioFingerprinter.fingerprint(scenario), ScenarioFingerprinter.fingerprint(other));
+
+        // deliver two messages to different replicas in either order
+        List<Long> eventIds = queuedHeads(scenario).subList(0, 2);
+        scenario.getTransport().deliverEvent(eventIds.get(0));
+        assertNotEquals(ScenarioFingerprinter.fingerprint(scenario), ScenarioFingerprinter.fingerprint(other));
+        scenario.getTransport().deliverEvent(eventIds.get(1));
+        other.getTransport().deliverEvent(eventIds.get(1));
+        other.getTransport().deliverEvent(eventIds.get(0));
+
+        // the nodes reach the same states, but the mailboxes may be filled in different orders
+        for (String nodeId : scenario.getNodes().keySet()) {
+            assertEquals(ScenarioFingerprinter.fingerprint(scenario.getNode(nodeId)), ScenarioFingerprinter.fingerprint(other.getNode(nodeId)));
+        }
+        assertEquals(mailboxes(scenario).equals(mailboxes(other)),
+                ScenarioFingerprinter.fingerprint(scenario) == ScenarioFingerprinter.fingerprint(other));
+    }
+
+    /**
+     * Gets the messages queued in the mailbox of each node of a scenario.
+     */
+    private static Map<String, List<String>> mailboxes(Scenario scenario) {
+        Map<String, List<String>> mailboxes = new TreeMap<>();
+        for (String nodeId : scenario.getNodes().keySet()) {
+            mailboxes.put(nodeId, scenario.getTransport().getQueuedMessages(nodeId).stream()
+                    .map(queued -> queued.getSenderId() + ":" + queued.getPayload().getType())
+                    .toList());
+        }
+        return mailboxes;
+    }
+
+    /**
+     * Gets the ids of the messages at the head of the mailboxes of a scenario.
+     */
+    private static List<Long> queuedHeads(Scenario scenario) {
+        return scenario.getNodes().keySet().stream()
+                .filter(nodeId -> !scenario.getTransport().getQueuedMessages(nodeId).isEmpty())
+                .map(nodeId -> scenario.getTransport().getQueuedMessages(nodeId).getFirst().getEventId())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Explores the same states breadth-first and depth-first, pruning revisits")
+    void testExhaustiveSearch() {
+        ModelCheckingService.ModelCheckingResult bfs = ModelCheckingService.check(pbft(), options(ModelCheckingService.SearchOrder.BFS, 6));
+        ModelCheckingService.ModelCheckingResult dfs = ModelCheckingService.check(pbft(), options(ModelCheckingService.SearchOrder.DFS, 6));
+
+        for (ModelCheckingService.ModelCheckingResult result : List.of(bfs, dfs)) {
+            assertTrue(result.isComplete());
+            assertNull(result.getCounterexample());
+            assertTrue(result.getViolatedInvariants().isEmpty());
+            assertTrue(result.getNumRevisits() > 0);
+            assertEquals(6, result.getDepthReached());
+            assertEquals(result.getNumStates() - 1 + result.getNumRevisits(), result.getNumTransitions());
+        }
+        // every step delivers a message, so each state is only reachable at a single depth
+        assertEquals(bfs.getNumStates(), dfs.getNumStates());
+
+        ModelCheckingService.ModelCheckingResult bounded = ModelCheckingService.check(pbft(),
+                ModelCheckingService.Options.builder().order(ModelCheckingService.SearchOrder.BFS).maxDepth(6).maxStates(10).build());
+        assertFalse(bounded.isComplete());
+        assertEquals(10, bounded.getNumStates());
+    }
+
+    @Test
+    @DisplayName("Finds a replayable counterexample")
+    void testCounterexample() {
+        for (ModelCheckingService.SearchOrder order : ModelCheckingService.SearchOrder.values()) {
+            ModelCheckingService.ModelCheckingResult result = ModelCheckingService.check(
+                    new FaultyDeadlockScenario(new Schedule(parameters("faulty-deadlock"))), options(order, 8));
+            assertFalse(result.isComplete());
+            assertEquals(Set.of("Deadlock"), result.getViolatedInvariants());
+
+            Schedule counterexample = result.getCounterexample();
+            assertNotNull(counterexample);
+            assertEquals(result.getCounterexampleLength(), counterexample.getActions().size());
+            assertEquals(Set.of("Deadlock"), Set.copyOf(counterexample.getBrokenInvariants().stream().map(invariant -> invariant.getId()).toList()));
+            if (order == ModelCheckingService.SearchOrder.BFS) {
+                // the shortest counterexample delivers the first client request
+                assertEquals(1, counterexample.getActions().size());
+            }
+
+            Scenario replay = new FaultyDeadlockScenario(new Schedule(counterexample.getParameters()));
+            assertTrue(replay.invariantsHold());
+            for (Action action : List.copyOf(counterexample.getActions())) {
+                action.accept(replay);
+            }
+            assertFalse(replay.invariantsHold());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> ModelCheckingService.check(pbft(), options(ModelCheckingService.SearchOrder.DFS, 0)));
+    }
+}
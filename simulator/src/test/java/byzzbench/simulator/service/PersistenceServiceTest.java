@@ -0,0 +1,195 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.Campaign;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.repository.CampaignRepository;
+import byzzbench.simulator.repository.ScheduleRepository;
+import byzzbench.simulator.utils.serialization.BinaryScheduleCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Write-behind persistence Tests")
+class PersistenceServiceTest {
+    private final Map<Long, Schedule> stored = new ConcurrentHashMap<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private ScheduleRepository scheduleRepository;
+    private CampaignRepository campaignRepository;
+    private PersistenceService persistenceService;
+
+    @BeforeEach
+    void setUp() {
+        ByzzBenchConfig config = new ByzzBenchConfig();
+        config.getPersistence().setBatchSize(4);
+        scheduleRepository = mock(ScheduleRepository.class);
+        when(scheduleRepository.saveAll(any())).thenAnswer(inv -> {
+            Iterable<Schedule> schedules = inv.getArgument(0);
+            int size = 0;
+            for (Schedule schedule : schedules) {
+                stored.put(schedule.getScheduleId(), schedule);
+                size++;
+            }
+            synchronized (batchSizes) {
+                batchSizes.add(size);
+            }
+            return schedules;
+        });
+        campaignRepository = mock(CampaignRepository.class);
+        persistenceService = new PersistenceService(config, scheduleRepository, campaignRepository);
+        persistenceService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        persistenceService.shutdown();
+    }
+
+    private static Schedule schedule(long id, int numActions) {
+        Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("test").randomSeed(0L).build());
+        schedule.setScheduleId(id);
+        for (int i = 0; i < numActions; i++) {
+            schedule.appendAction(DeliverMessageAction.builder().messageEventId(i).build());
+        }
+        return schedule;
+    }
+
+    @Test
+    @DisplayName("Should persist stored schedules in batches, in the background")
+    void testWriteBehind() {
+        for (long id = 1; id <= 10; id++) {
+            persistenceService.storeSchedule(schedule(id, 3));
+        }
+        persistenceService.flush();
+
+        assertEquals(0, persistenceService.getNumPending());
+        assertEquals(10, stored.size());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 4));
+        assertEquals(10, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(persistenceService.getPendingSchedule(1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should only encode the actions a forked schedule does not share with its parent")
+    void testForkedSchedules() {
+        Schedule parent = schedule(1, 5);
+        Schedule child = Schedule.forkOf(parent);
+        child.setScheduleId(2);
+        child.getActions().addAll(parent.getActions());
+        child.appendAction(DeliverMessageAction.builder().messageEventId(5).build());
+
+        persistenceService.storeSchedule(child);
+        persistenceService.flush();
+
+        List<Action> persisted = BinaryScheduleCodec.decodeActions(stored.get(2L).getEncodedActions(), child);
+        assertEquals(1, persisted.size());
+        assertEquals(5, ((DeliverMessageAction) persisted.getFirst()).getMessageEventId());
+        assertEquals(6, child.getActions().size());
+
+        // the parent is persisted with it, and the decoded child starts with the shared prefix
+        assertEquals(1, stored.get(2L).getParent().getScheduleId());
+        assertEquals(5, stored.get(1L).getActions().size());
+        assertEquals(6, stored.get(2L).getActions().size());
+    }
+
+    @Test
+    @DisplayName("Should assign ids after the greatest persisted one, and insert each schedule once")
+    void testNewSchedules() {
+        when(scheduleRepository.findMaxScheduleId()).thenReturn(41L);
+        ByzzBenchConfig config = new ByzzBenchConfig();
+        config.getPersistence().setWriteBehind(false);
+        PersistenceService synchronous = new PersistenceService(config, scheduleRepository, campaignRepository);
+        synchronous.start();
+
+        Schedule schedule = synchronous.assignScheduleId(schedule(0, 2));
+        assertEquals(42, schedule.getScheduleId());
+        assertEquals(43, synchronous.assignScheduleId(schedule(0, 1)).getScheduleId());
+
+        // the first write inserts the schedule, later ones update it
+        assertTrue(schedule.isNew());
+        synchronous.storeSchedule(schedule);
+        assertTrue(stored.get(42L).isNew());
+        assertFalse(schedule.isNew());
+        synchronous.storeSchedule(schedule);
+        assertFalse(stored.get(42L).isNew());
+        synchronous.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should add the campaign results to its counters, without saving the campaign")
+    void testCampaignResults() {
+        Campaign campaign = new Campaign();
+        campaign.setCampaignId(7);
+        persistenceService.recordResult(campaign, CampaignService.ScenarioExecutionResult.CORRECT);
+        persistenceService.recordResult(campaign, CampaignService.ScenarioExecutionResult.CORRECT);
+        persistenceService.recordResult(campaign, CampaignService.ScenarioExecutionResult.TERMINATED);
+        persistenceService.recordResult(campaign, CampaignService.ScenarioExecutionResult.ERRORED);
+        persistenceService.flush();
+
+        verify(campaignRepository, atLeastOnce()).addResults(eq(7L), anyLong(), anyLong(), anyLong());
+        verify(campaignRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should persist everything pending on shutdown")
+    void testFlushOnShutdown() {
+        for (long id = 1; id <= 20; id++) {
+            persistenceService.storeSchedule(schedule(id, 2));
+        }
+        persistenceService.shutdown();
+        assertEquals(20, stored.size());
+
+        // once stopped, schedules are persisted synchronously
+        persistenceService.storeSchedule(schedule(21, 1));
+        assertTrue(stored.containsKey(21L));
+    }
+
+    @Test
+    @DisplayName("Should retry batches that fail to persist, and count the schedules it gives up on")
+    void testFailedWrites() {
+        ByzzBenchConfig config = new ByzzBenchConfig();
+        config.getPersistence().setMaxRetries(2);
+        ScheduleRepository failingRepository = mock(ScheduleRepository.class);
+        AtomicInteger attempts = new AtomicInteger();
+        when(failingRepository.saveAll(any())).thenAnswer(inv -> {
+            Iterable<Schedule> schedules = inv.getArgument(0);
+            // the first schedule is persisted on its second attempt, the second one never is
+            if (attempts.incrementAndGet() == 2) {
+                schedules.forEach(schedule -> stored.put(schedule.getScheduleId(), schedule));
+                return schedules;
+            }
+            throw new IllegalStateException("database unavailable");
+        });
+        PersistenceService failing = new PersistenceService(config, failingRepository, campaignRepository);
+        failing.start();
+        try {
+            failing.storeSchedule(schedule(1, 2));
+            assertEquals(0, failing.flush());
+            assertTrue(stored.containsKey(1L));
+
+            failing.storeSchedule(schedule(2, 2));
+            assertEquals(1, failing.flush());
+            assertEquals(1, failing.getNumFailed());
+            assertEquals(0, failing.getNumPending());
+            assertFalse(stored.containsKey(2L));
+            // the first attempt of each schedule and two retries of the second one
+            assertEquals(5, attempts.get());
+        } finally {
+            failing.shutdown();
+        }
+    }
+}
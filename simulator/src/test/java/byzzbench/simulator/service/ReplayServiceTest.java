@@ -0,0 +1,128 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.config.ScheduleCacheConfig;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.random.RandomExplorationStrategy;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import byzzbench.simulator.repository.ScheduleRepository;
+import byzzbench.simulator.state.ErroredPredicate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Replay service Tests")
+class ReplayServiceTest {
+    private ReplayService replayService;
+
+    @BeforeEach
+    void setUp() {
+        ByzzBenchConfig config = mock(ByzzBenchConfig.class);
+        when(config.getReplayWorkers()).thenReturn(4);
+        when(config.getScheduleCache()).thenReturn(new ScheduleCacheConfig());
+        ScenarioService scenarioService = new ScenarioService(config, mock(ScheduleRepository.class), mock(PersistenceService.class));
+        scenarioService.onStartup();
+        replayService = new ReplayService(config, scenarioService);
+        replayService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replayService.shutdown();
+    }
+
+    /**
+     * Explore a PBFT scenario at random, recording the invariants it breaks.
+     */
+    private static Schedule explore(long seed, int steps) {
+        ScenarioParameters parameters = ScenarioParameters.builder()
+                .scenarioId(PbftJavaScenario.class.getName())
+                .randomSeed(seed)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+        Schedule schedule = new Schedule(parameters);
+        Scenario scenario = new PbftJavaScenario(schedule);
+        scenario.loadParameters(parameters);
+
+        ExplorationStrategyParameters strategyParameters = new ExplorationStrategyParameters();
+        strategyParameters.setRandomSeed(seed);
+        RandomExplorationStrategy strategy = new RandomExplorationStrategy();
+        strategy.loadParameters(strategyParameters);
+        for (int i = 0; i < steps && strategy.scheduleNext(scenario).isPresent(); i++) {
+            // keep exploring
+        }
+        schedule.finalizeSchedule(scenario.unsatisfiedInvariants());
+        return schedule;
+    }
+
+    @Test
+    @DisplayName("Should reproduce the outcome of a schedule")
+    void testReplayReproduces() {
+        Schedule schedule = explore(1, 100);
+        ReplayService.ReplayResult result = replayService.replay(schedule, Set.of(0, 50));
+
+        assertEquals(ReplayService.ReplayStatus.REPRODUCED, result.getStatus());
+        assertEquals(schedule.getActions().size(), result.getNumActions());
+        assertTrue(result.getViolations().isEmpty());
+        assertNull(result.getError());
+        assertTrue(result.getActionsPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Should report schedules whose outcome is not reproduced")
+    void testReplayDoesNotReproduce() {
+        Schedule schedule = explore(2, 50);
+        int numActions = schedule.getActions().size();
+        schedule.finalizeSchedule(Set.of(new ErroredPredicate(null)));
+
+        ReplayService.ReplayResult result = replayService.replay(schedule, Set.of());
+        assertEquals(ReplayService.ReplayStatus.NOT_REPRODUCED, result.getStatus());
+        assertEquals(Set.of("Error"), result.getExpectedInvariants());
+        assertTrue(result.getViolatedInvariants().isEmpty());
+        // the replayed schedule is left untouched
+        assertEquals(numActions, schedule.getActions().size());
+    }
+
+    @Test
+    @DisplayName("Should report schedules that cannot be replayed")
+    void testReplayErrors() {
+        Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("unknown").randomSeed(0L).build());
+        ReplayService.ReplayResult result = replayService.replay(schedule, Set.of());
+        assertEquals(ReplayService.ReplayStatus.ERRORED, result.getStatus());
+        assertNotNull(result.getError());
+    }
+
+    @Test
+    @DisplayName("Should replay schedules in parallel, in order")
+    void testReplayAll() {
+        List<Schedule> schedules = new ArrayList<>();
+        for (long seed = 0; seed < 8; seed++) {
+            schedules.add(explore(seed, 60));
+        }
+
+        ReplayService.ReplayReport report = replayService.replayAll(schedules, Set.of(30));
+        assertEquals(schedules.size(), report.getResults().size());
+        assertEquals(schedules.size(), report.count(ReplayService.ReplayStatus.REPRODUCED));
+        for (int i = 0; i < schedules.size(); i++) {
+            ReplayService.ReplayResult sequential = replayService.replay(schedules.get(i), Set.of(30));
+            ReplayService.ReplayResult parallel = report.getResults().get(i);
+            assertEquals(sequential.getNumActions(), parallel.getNumActions());
+            assertEquals(sequential.getViolatedInvariants(), parallel.getViolatedInvariants());
+        }
+        assertEquals(schedules.stream().mapToLong(s -> s.getActions().size()).sum(), report.getNumActions());
+        assertTrue(report.getActionsPerSecond() > 0);
+    }
+}
@@ -29,6 +29,7 @@ class ScenarioRunnerMaxActionsTest {
     private CampaignRepository campaignRepository;
     private ScenarioService scenarioService;
     private ExplorationStrategyService explorationStrategyService;
+    private PersistenceService persistenceService;
 
     @BeforeEach
     void setup() {
@@ -37,6 +38,7 @@ class ScenarioRunnerMaxActionsTest {
         campaignRepository = mock(CampaignRepository.class);
         scenarioService = mock(ScenarioService.class);
         explorationStrategyService = mock(ExplorationStrategyService.class);
+        persistenceService = mock(PersistenceService.class);
     }
 
     @Test
@@ -68,7 +70,7 @@ class ScenarioRunnerMaxActionsTest {
         strategy.loadParameters(strategyParameters);
 
         // Run the scenario
-        CampaignService campaignService = new CampaignService(byzzBenchConfig, campaignRepository, scenarioService, explorationStrategyService);
+        CampaignService campaignService = new CampaignService(byzzBenchConfig, campaignRepository, scenarioService, explorationStrategyService, persistenceService);
         CampaignService.ScenarioRunner runner = campaignService.new ScenarioRunner(campaign, scenario, strategy);
         runner.run();
 
@@ -109,7 +111,7 @@ class ScenarioRunnerMaxActionsTest {
         strategy.loadParameters(strategyParameters);
 
         // Run the scenario
-        CampaignService campaignService = new CampaignService(byzzBenchConfig, campaignRepository, scenarioService, explorationStrategyService);
+        CampaignService campaignService = new CampaignService(byzzBenchConfig, campaignRepository, scenarioService, explorationStrategyService, persistenceService);
         CampaignService.ScenarioRunner runner = campaignService.new ScenarioRunner(campaign, scenario, strategy);
         runner.run();
 
@@ -5,11 +5,14 @@ import byzzbench.simulator.config.ByzzBenchConfig;
 import byzzbench.simulator.config.TerminationConfig;
 import byzzbench.simulator.domain.Action;
 import byzzbench.simulator.domain.Campaign;
+import byzzbench.simulator.domain.DeliverMessageAction;
 import byzzbench.simulator.domain.ScenarioParameters;
 import byzzbench.simulator.domain.Schedule;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
 import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.protocols.faulty_safety.FaultySafetyScenario;
 import byzzbench.simulator.repository.CampaignRepository;
+import byzzbench.simulator.repository.ScheduleRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -34,6 +38,7 @@ class ScenarioRunnerTest {
     private CampaignRepository campaignRepository;
     private ScenarioService scenarioService;
     private ExplorationStrategyService explorationStrategyService;
+    private PersistenceService persistenceService;
 
     @BeforeEach
     void setup() {
@@ -43,6 +48,7 @@ class ScenarioRunnerTest {
         campaignRepository = mock(CampaignRepository.class);
         scenarioService = mock(ScenarioService.class);
         explorationStrategyService = mock(ExplorationStrategyService.class);
+        persistenceService = mock(PersistenceService.class);
     }
 
     @Test
@@ -126,7 +132,7 @@ class ScenarioRunnerTest {
         ExplorationStrategy strategy = new TestExplorationStrategy();
 
         // And a CampaignService to host the ScenarioRunner
-        CampaignService campaignService = new CampaignService(byzzBenchConfig, campaignRepository, scenarioService, explorationStrategyService);
+        CampaignService campaignService = new CampaignService(byzzBenchConfig, campaignRepository, scenarioService, explorationStrategyService, persistenceService);
         CampaignService.ScenarioRunner runner = campaignService.new ScenarioRunner(campaign, scenario, strategy);
 
         // When we run the scenario
@@ -139,4 +145,103 @@ class ScenarioRunnerTest {
         assertEquals(minEvents + gstGrace, schedule.getActions().size(),
                 "ScenarioRunner should execute minEvents, then after GST execute gstGracePeriod additional steps");
     }
+
+    @Test
+    @DisplayName("ScenarioRunner should pause without finalizing the scenario when reaching maxActions")
+    void scenarioRunner_pausesAtMaxActions() {
+        TerminationConfig terminationConfig = new TerminationConfig();
+        terminationConfig.setMinEvents(10);
+        terminationConfig.setGstGracePeriod(0);
+        Campaign campaign = new Campaign();
+        campaign.setTermination(terminationConfig);
+
+        Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("test").randomSeed(0L).build());
+        Scenario scenario = mock(Scenario.class, RETURNS_DEEP_STUBS);
+        when(scenario.getSchedule()).thenReturn(schedule);
+        when(scenario.invariantsHold()).thenReturn(true);
+        when(scenario.unsatisfiedInvariants()).thenReturn(new java.util.TreeSet<>());
+        when(scenario.getTransport().isGlobalStabilizationTime()).thenReturn(true);
+
+        ExplorationStrategy strategy = new ExplorationStrategy() {
+            @Override
+            public void initializeScenario(Scenario sc) { /* no-op */ }
+
+            @Override
+            public Optional<Action> scheduleNext(Scenario sc) {
+                Action a = mock(DeliverMessageAction.class);
+                schedule.appendAction(a);
+                return Optional.of(a);
+            }
+
+            @Override
+            public void reset() { /* no-op */ }
+
+            @Override
+            public void loadSchedulerParameters(ExplorationStrategyParameters parameters) { /* no-op */ }
+        };
+
+        CampaignService campaignService = new CampaignService(byzzBenchConfig, campaignRepository, scenarioService, explorationStrategyService, persistenceService);
+        CampaignService.ScenarioRunner runner = campaignService.new ScenarioRunner(campaign, scenario, strategy);
+
+        // paused: the result is not recorded
+        assertFalse(runner.run(4));
+        assertEquals(4, schedule.getActions().size());
+        assertEquals(0, campaign.getNumMaxedOut());
+        verify(persistenceService, never()).recordResult(any(), any());
+
+        // resumed: runs until termination
+        assertTrue(runner.run(Long.MAX_VALUE));
+        assertEquals(10, schedule.getActions().size());
+        assertEquals(1, campaign.getNumMaxedOut());
+        verify(persistenceService).recordResult(campaign, CampaignService.ScenarioExecutionResult.CORRECT);
+    }
+
+    @Test
+    @DisplayName("ScenarioRunner should release a scenario that deadlocks after GST")
+    void scenarioRunner_releasesDeadlockedScenario() {
+        ByzzBenchConfig config = new ByzzBenchConfig();
+        config.getPersistence().setWriteBehind(false);
+        // keep completed schedules cached, so only releasing them unpins them
+        config.setRemoveCompletedSimulations(false);
+        ScheduleRepository repository = mock(ScheduleRepository.class);
+        PersistenceService persistence = new PersistenceService(config, repository, campaignRepository);
+        persistence.start();
+        ScenarioService service = new ScenarioService(config, repository, persistence);
+        service.onStartup();
+
+        Campaign campaign = new Campaign();
+        campaign.setTermination(new TerminationConfig());
+        Scenario scenario = service.generateScenario(ScenarioParameters.builder()
+                .scenarioId(FaultySafetyScenario.class.getName())
+                .randomSeed(0L)
+                .build(), campaign);
+        assertEquals(1, service.getCacheStats().getPinned());
+
+        // a strategy that never schedules anything: the scenario deadlocks once GST is triggered
+        ExplorationStrategy strategy = spy(new ExplorationStrategy() {
+            @Override
+            public void initializeScenario(Scenario sc) { /* no-op */ }
+
+            @Override
+            public Optional<Action> scheduleNext(Scenario sc) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void reset() { /* no-op */ }
+
+            @Override
+            public void loadSchedulerParameters(ExplorationStrategyParameters parameters) { /* no-op */ }
+        });
+
+        CampaignService campaignService = new CampaignService(config, campaignRepository, service, explorationStrategyService, persistenceService);
+        CampaignService.ScenarioRunner runner = campaignService.new ScenarioRunner(campaign, scenario, strategy);
+        assertTrue(runner.run(Long.MAX_VALUE));
+
+        assertEquals(CampaignService.ScenarioExecutionResult.TERMINATED, runner.getResult());
+        assertTrue(scenario.getSchedule().isBuggy());
+        assertEquals(0, service.getCacheStats().getPinned());
+        verify(strategy).releaseContext(scenario);
+        verify(repository).saveAll(any());
+    }
 }
@@ -0,0 +1,164 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.random.RandomExplorationStrategy;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import byzzbench.simulator.repository.CampaignRepository;
+import byzzbench.simulator.repository.ScheduleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Scenario service Tests")
+class ScenarioServiceTest {
+    private final Map<Long, Schedule> stored = new HashMap<>();
+    private ByzzBenchConfig config;
+    private ScenarioService scenarioService;
+
+    @BeforeEach
+    void setUp() {
+        config = new ByzzBenchConfig();
+        config.getScheduleCache().setMaxSchedules(1);
+        config.getPersistence().setWriteBehind(false);
+        ScheduleRepository repository = mock(ScheduleRepository.class);
+        // schedules created by the service get ids after the ones used by the tests
+        when(repository.findMaxScheduleId()).thenReturn(99L);
+        when(repository.saveAll(any())).thenAnswer(inv -> {
+            Iterable<Schedule> schedules = inv.getArgument(0);
+            schedules.forEach(schedule -> stored.put(schedule.getScheduleId(), schedule));
+            return schedules;
+        });
+        when(repository.findByScheduleId(anyLong())).thenAnswer(inv -> Optional.ofNullable(stored.get((Long) inv.getArgument(0))));
+        PersistenceService persistence = new PersistenceService(config, repository, mock(CampaignRepository.class));
+        persistence.start();
+        scenarioService = new ScenarioService(config, repository, persistence);
+        scenarioService.onStartup();
+    }
+
+    private static ScenarioParameters parameters(long seed) {
+        return ScenarioParameters.builder()
+                .scenarioId(PbftJavaScenario.class.getName())
+                .randomSeed(seed)
+                .numClients(1)
+                .numReplicas(4)
+                .build();
+    }
+
+    private static void run(Scenario scenario, long seed, int steps) {
+        ExplorationStrategyParameters strategyParameters = new ExplorationStrategyParameters();
+        strategyParameters.setRandomSeed(seed);
+        RandomExplorationStrategy strategy = new RandomExplorationStrategy();
+        strategy.loadParameters(strategyParameters);
+        for (int i = 0; i < steps; i++) {
+            assertTrue(strategy.scheduleNext(scenario).isPresent());
+        }
+    }
+
+    private Scenario explore(long scheduleId, int steps) {
+        Schedule schedule = new Schedule(parameters(scheduleId));
+        schedule.setScheduleId(scheduleId);
+        Scenario scenario = scenarioService.generateScenario(schedule);
+        run(scenario, scheduleId, steps);
+        return scenario;
+    }
+
+    /**
+     * Creates a schedule from its persisted columns, as the repository loads it.
+     */
+    private static Schedule reload(Schedule persisted, Schedule parent) {
+        Schedule schedule = new Schedule(persisted.getParameters());
+        schedule.setScheduleId(persisted.getScheduleId());
+        schedule.setParent(parent);
+        schedule.setPrefixLength(persisted.getPrefixLength());
+        schedule.setEncodedActions(persisted.getEncodedActions());
+        return schedule;
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used scenarios, and re-materialize them on access")
+    void testEvictAndRematerialize() {
+        Scenario first = explore(1, 40);
+        int numEvents = first.getTransport().getEvents().size();
+        assertSame(first, scenarioService.getScenarioById(1));
+
+        explore(2, 40);
+        assertEquals(Set.of(2L), scenarioService.getMaterializedScheduleIds());
+        assertTrue(stored.containsKey(1L));
+        assertFalse(stored.get(1L).isMaterialized());
+
+        // the evicted scenario is replayed from its persisted schedule
+        Scenario rematerialized = scenarioService.getScenarioById(1);
+        assertNotSame(first, rematerialized);
+        assertEquals(40, rematerialized.getSchedule().getActions().size());
+        assertEquals(numEvents, rematerialized.getTransport().getEvents().size());
+        assertEquals(Set.of(1L), scenarioService.getMaterializedScheduleIds());
+
+        MaterializedScheduleCache.Stats stats = scenarioService.getCacheStats();
+        assertEquals(2, stats.getEvictions());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getEvicted());
+    }
+
+    @Test
+    @DisplayName("Should persist the ancestors of a stored fork, so it can be reloaded and replayed")
+    void testForkRoundTrip() {
+        Scenario root = scenarioService.generateScenario(parameters(7), null);
+        run(root, 7, 20);
+        Scenario fork = scenarioService.forkScenario(root);
+        run(fork, 8, 20);
+        Schedule leaf = fork.getSchedule();
+        long rootId = root.getSchedule().getScheduleId();
+
+        // only the leaf is stored: its parent is persisted along with it
+        scenarioService.storeSchedule(leaf.getScheduleId());
+        Schedule reloadedRoot = reload(stored.get(rootId), null);
+        assertEquals(20, reloadedRoot.getActions().size());
+        Schedule reloadedLeaf = reload(stored.get(leaf.getScheduleId()), reloadedRoot);
+        assertEquals(40, reloadedLeaf.getActions().size());
+
+        // the reloaded leaf replays to the same state
+        Scenario replayed = scenarioService.generateScenario(reloadedLeaf);
+        assertEquals(40, replayed.getSchedule().getActions().size());
+        assertEquals(fork.getTransport().getEvents().keySet(), replayed.getTransport().getEvents().keySet());
+    }
+
+    @Test
+    @DisplayName("Should reset scenarios from their initial checkpoint, or by replaying their schedule")
+    void testReset() {
+        // without checkpoints, the schedule is replayed up to the reset point in a new scenario
+        Schedule schedule = new Schedule(parameters(3));
+        schedule.setScheduleId(3);
+        Scenario scenario = scenarioService.generateScenario(schedule);
+        int numEvents = scenario.getTransport().getEvents().size();
+        run(scenario, 3, 20);
+        Scenario replayed = scenarioService.resetScenario(3);
+        assertNotSame(scenario, replayed);
+        assertEquals(0, replayed.getSchedule().getActions().size());
+        assertEquals(numEvents, replayed.getTransport().getEvents().size());
+
+        // with checkpoints, the scenario is restored in place
+        config.getCheckpoints().setEnabled(true);
+        Schedule checkpointed = new Schedule(parameters(4));
+        checkpointed.setScheduleId(4);
+        scenario = scenarioService.generateScenario(checkpointed);
+        run(scenario, 4, 20);
+        assertSame(scenario, scenarioService.resetScenario(4));
+        assertEquals(0, scenario.getSchedule().getActions().size());
+        assertEquals(numEvents, scenario.getTransport().getEvents().size());
+    }
+}
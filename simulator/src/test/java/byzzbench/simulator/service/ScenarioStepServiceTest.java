@@ -0,0 +1,158 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategy;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.transport.Transport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ScenarioStepServiceTest {
+    private final ScenarioStepService stepService = new ScenarioStepService(mock(ScenarioService.class), mock(ExplorationStrategyService.class));
+
+    private Schedule schedule;
+    private Scenario scenario;
+    private AtomicBoolean gst;
+
+    @BeforeEach
+    void setup() {
+        schedule = new Schedule(ScenarioParameters.builder().scenarioId("test").randomSeed(0L).build());
+        scenario = mock(Scenario.class, RETURNS_DEEP_STUBS);
+        when(scenario.getSchedule()).thenReturn(schedule);
+        when(scenario.getReplicas()).thenReturn(new TreeMap<>());
+        when(scenario.invariantsHold()).thenReturn(true);
+        when(scenario.unsatisfiedInvariants()).thenReturn(new TreeSet<>());
+
+        gst = new AtomicBoolean(false);
+        Transport transport = mock(Transport.class);
+        when(transport.isGlobalStabilizationTime()).thenAnswer(inv -> gst.get());
+        when(scenario.getTransport()).thenReturn(transport);
+    }
+
+    /**
+     * A strategy that delivers the given number of messages, then has no enabled action.
+     */
+    private ExplorationStrategy strategy(int numActions, Runnable afterEachAction) {
+        return new ExplorationStrategy() {
+            private int remaining = numActions;
+
+            @Override
+            public void initializeScenario(Scenario sc) { /* no-op */ }
+
+            @Override
+            public Optional<Action> scheduleNext(Scenario sc) {
+                if (remaining == 0) {
+                    return Optional.empty();
+                }
+                remaining--;
+                Action action = mock(DeliverMessageAction.class);
+                schedule.appendAction(action);
+                afterEachAction.run();
+                return Optional.of(action);
+            }
+
+            @Override
+            public void reset() { /* no-op */ }
+
+            @Override
+            public void loadSchedulerParameters(ExplorationStrategyParameters parameters) { /* no-op */ }
+        };
+    }
+
+    @Test
+    @DisplayName("Should stop after the requested number of steps, or when no action is enabled")
+    void testStepsAndQuiescence() {
+        ExplorationStrategy strategy = strategy(8, () -> {
+        });
+
+        ScenarioStepService.StepSummary summary = stepService.step(scenario, strategy, 5, EnumSet.noneOf(ScenarioStepService.StopCondition.class), 0);
+        assertEquals(5, summary.getNumSteps());
+        assertEquals(ScenarioStepService.StopReason.STEPS, summary.getStopReason());
+        assertEquals(0, summary.getFromStep());
+        assertEquals(5, summary.getToStep());
+        assertEquals(5L, summary.getActionCounts().values().stream().mapToLong(Long::longValue).sum());
+
+        summary = stepService.step(scenario, strategy, 100, EnumSet.noneOf(ScenarioStepService.StopCondition.class), 0);
+        assertEquals(3, summary.getNumSteps());
+        assertEquals(ScenarioStepService.StopReason.QUIESCENCE, summary.getStopReason());
+        assertEquals(5, summary.getFromStep());
+        assertEquals(8, summary.getToStep());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> stepService.step(scenario, strategy, 0, EnumSet.noneOf(ScenarioStepService.StopCondition.class), 0));
+    }
+
+    @Test
+    @DisplayName("Should stop as soon as one of the requested conditions holds")
+    void testStopConditions() {
+        AtomicInteger committed = new AtomicInteger();
+        Replica replica = mock(Replica.class, RETURNS_DEEP_STUBS);
+        when(replica.getCommitLog().getLength()).thenAnswer(inv -> committed.get());
+        TreeMap<String, Replica> replicas = new TreeMap<>();
+        replicas.put("A", replica);
+        when(scenario.getReplicas()).thenReturn(replicas);
+
+        // every other step commits an entry, GST is reached after 7 steps
+        AtomicInteger steps = new AtomicInteger();
+        ExplorationStrategy strategy = strategy(100, () -> {
+            if (steps.incrementAndGet() % 2 == 0) {
+                committed.incrementAndGet();
+            }
+            gst.set(steps.get() >= 7);
+        });
+
+        ScenarioStepService.StepSummary summary = stepService.step(scenario, strategy, 100,
+                EnumSet.of(ScenarioStepService.StopCondition.COMMIT_HEIGHT, ScenarioStepService.StopCondition.GST), 3);
+        assertEquals(6, summary.getNumSteps());
+        assertEquals(ScenarioStepService.StopReason.COMMIT_HEIGHT, summary.getStopReason());
+        assertEquals(3, summary.getCommitHeight());
+        assertFalse(summary.isGlobalStabilizationTime());
+
+        summary = stepService.step(scenario, strategy, 100, EnumSet.of(ScenarioStepService.StopCondition.GST), 0);
+        assertEquals(1, summary.getNumSteps());
+        assertEquals(ScenarioStepService.StopReason.GST, summary.getStopReason());
+        assertTrue(summary.isGlobalStabilizationTime());
+
+        // a condition that already holds stops the batch before any step
+        summary = stepService.step(scenario, strategy, 100, EnumSet.of(ScenarioStepService.StopCondition.GST), 0);
+        assertEquals(0, summary.getNumSteps());
+
+        when(scenario.invariantsHold()).thenReturn(true, true, false);
+        summary = stepService.step(scenario, strategy, 100, EnumSet.of(ScenarioStepService.StopCondition.INVARIANT_VIOLATION), 0);
+        assertEquals(2, summary.getNumSteps());
+        assertEquals(ScenarioStepService.StopReason.INVARIANT_VIOLATION, summary.getStopReason());
+    }
+
+    @Test
+    @DisplayName("Should report a failed step with the steps taken before it")
+    void testError() {
+        AtomicInteger steps = new AtomicInteger();
+        ExplorationStrategy strategy = strategy(100, () -> {
+            if (steps.incrementAndGet() == 4) {
+                throw new IllegalStateException("boom");
+            }
+        });
+
+        ScenarioStepService.StepSummary summary = stepService.step(scenario, strategy, 100, EnumSet.noneOf(ScenarioStepService.StopCondition.class), 0);
+        assertEquals(ScenarioStepService.StopReason.ERROR, summary.getStopReason());
+        assertEquals("boom", summary.getError());
+        assertEquals(3, summary.getNumSteps());
+        assertEquals(4, summary.getToStep());
+    }
+}
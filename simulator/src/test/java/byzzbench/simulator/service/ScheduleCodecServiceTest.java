@@ -0,0 +1,129 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.domain.TriggerTimeoutAction;
+import byzzbench.simulator.repository.ScheduleRepository;
+import byzzbench.simulator.utils.serialization.BinaryScheduleCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Schedule codec service Tests")
+class ScheduleCodecServiceTest {
+    private ScheduleCodecService scheduleCodecService;
+
+    @BeforeEach
+    void setUp() {
+        ByzzBenchConfig config = new ByzzBenchConfig();
+        ScheduleRepository repository = mock(ScheduleRepository.class);
+        when(repository.save(any())).thenAnswer(inv -> {
+            Schedule schedule = inv.getArgument(0);
+            schedule.setScheduleId(42);
+            return schedule;
+        });
+        ScenarioService scenarioService = new ScenarioService(config, repository, mock(PersistenceService.class));
+        scheduleCodecService = new ScheduleCodecService(config, scenarioService, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    private static Schedule schedule(int numActions) {
+        Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("pbft-java").randomSeed(1L).build());
+        Instant timestamp = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < numActions; i++) {
+            schedule.appendAction(i % 4 == 3
+                    ? TriggerTimeoutAction.builder().timeoutEventId(i).nodeId("A").timeout(Duration.ofSeconds(5)).build()
+                    : DeliverMessageAction.builder().messageEventId(i).senderId("A").recipientId("B").timestamp(timestamp.plusMillis(i)).build());
+        }
+        return schedule;
+    }
+
+    private static List<Long> eventIds(Iterator<Action> actions) {
+        List<Long> ids = new ArrayList<>();
+        actions.forEachRemaining(action -> ids.add(switch (action) {
+            case DeliverMessageAction deliver -> deliver.getMessageEventId();
+            case TriggerTimeoutAction timeout -> timeout.getTimeoutEventId();
+            default -> throw new IllegalArgumentException();
+        }));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Should import the schedules it exports")
+    void testExportImport() throws IOException {
+        Schedule schedule = schedule(50);
+        schedule.setName("exported");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        scheduleCodecService.exportSchedule(schedule, false, out);
+
+        Schedule imported = scheduleCodecService.importSchedule(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(42, imported.getScheduleId());
+        assertEquals("exported", imported.getName());
+        assertEquals(schedule.getParameters(), imported.getParameters());
+        assertTrue(imported.isEncoded());
+        assertEquals(schedule.getActions().toString(), imported.getActions().toString());
+
+        // an undecoded schedule is exported as it is stored
+        Schedule stored = new Schedule(schedule.getParameters());
+        stored.setName("exported");
+        stored.setEncodedActions(BinaryScheduleCodec.encodeActions(schedule.getActions(), false));
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        scheduleCodecService.exportSchedule(stored, false, copy);
+        assertArrayEquals(out.toByteArray(), copy.toByteArray());
+        assertTrue(stored.isEncoded());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduleCodecService.importSchedule(new ByteArrayInputStream(new byte[]{1, 2, 3, 4})));
+    }
+
+    @Test
+    @DisplayName("Should iterate over a range of the actions of encoded, live and forked schedules")
+    void testIterateActions() {
+        Schedule live = schedule(10);
+        assertEquals(List.of(2L, 3L, 4L), eventIds(scheduleCodecService.iterateActions(live, 2, 3)));
+        assertEquals(List.of(8L, 9L), eventIds(scheduleCodecService.iterateActions(live, 8, Long.MAX_VALUE)));
+        assertEquals(List.of(), eventIds(scheduleCodecService.iterateActions(live, 20, 5)));
+
+        Schedule encoded = new Schedule(live.getParameters());
+        encoded.setEncodedActions(BinaryScheduleCodec.encodeActions(live.getActions(), false));
+        assertEquals(List.of(2L, 3L, 4L), eventIds(scheduleCodecService.iterateActions(encoded, 2, 3)));
+        assertEquals(List.of(9L), eventIds(scheduleCodecService.iterateActions(encoded, 9, 5)));
+        assertTrue(encoded.isEncoded());
+
+        // a persisted fork only encodes its own actions
+        Schedule fork = Schedule.forkOf(live);
+        fork.setEncodedActions(BinaryScheduleCodec.encodeActions(List.of(DeliverMessageAction.builder().messageEventId(10).build()), false));
+        assertEquals(List.of(9L, 10L), eventIds(scheduleCodecService.iterateActions(fork, 9, 5)));
+
+        assertThrows(IllegalArgumentException.class, () -> scheduleCodecService.iterateActions(live, -1, 5));
+        assertThrows(IllegalArgumentException.class, () -> scheduleCodecService.iterateActions(live, 0, -1));
+    }
+
+    @Test
+    @DisplayName("Should compare the binary encoding with JSON")
+    void testCompare() {
+        ScheduleCodecService.EncodingComparison comparison = scheduleCodecService.compare(schedule(100), 2);
+        assertEquals(100, comparison.getNumActions());
+        assertTrue(comparison.getBinaryBytes() > 0);
+        assertTrue(comparison.getCompressionRatio() > 1, "ratio: " + comparison.getCompressionRatio());
+        assertThrows(IllegalArgumentException.class, () -> scheduleCodecService.compare(schedule(1), 0));
+    }
+}
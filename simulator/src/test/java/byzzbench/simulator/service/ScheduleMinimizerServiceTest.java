@@ -0,0 +1,147 @@
+package byzzbench.simulator.service;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.ScenarioPredicate;
+import byzzbench.simulator.config.ByzzBenchConfig;
+import byzzbench.simulator.config.ScheduleCacheConfig;
+import byzzbench.simulator.domain.Action;
+import byzzbench.simulator.domain.DeliverMessageAction;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.domain.TriggerTimeoutAction;
+import byzzbench.simulator.nodes.Node;
+import byzzbench.simulator.protocols.faulty_safety.FaultySafetyScenario;
+import byzzbench.simulator.repository.ScheduleRepository;
+import byzzbench.simulator.transport.TimeoutEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Schedule minimizer service Tests")
+class ScheduleMinimizerServiceTest {
+    private static final String AGREEMENT = "Agreement";
+
+    private ScenarioService scenarioService;
+    private ScheduleMinimizerService minimizerService;
+
+    @BeforeEach
+    void setUp() {
+        ByzzBenchConfig config = mock(ByzzBenchConfig.class);
+        when(config.getReplayWorkers()).thenReturn(4);
+        when(config.getScheduleCache()).thenReturn(new ScheduleCacheConfig());
+        scenarioService = new ScenarioService(config, mock(ScheduleRepository.class), mock(PersistenceService.class));
+        scenarioService.onStartup();
+        minimizerService = new ScheduleMinimizerService(config, scenarioService, mock(PersistenceService.class));
+        minimizerService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        minimizerService.shutdown();
+    }
+
+    private static boolean violates(Scenario scenario, String invariantId) {
+        return scenario.getInvariants().stream()
+                .filter(invariant -> invariant.getId().equals(invariantId))
+                .anyMatch(invariant -> !invariant.test(scenario));
+    }
+
+    /**
+     * Runs the faulty-safety scenario for a number of random steps, delivering queued messages
+     * in any order and triggering timeouts, recording the actions in a schedule.
+     */
+    private Schedule randomSchedule(long seed, int length) {
+        ScenarioParameters parameters = ScenarioParameters.builder()
+                .scenarioId(FaultySafetyScenario.class.getName())
+                .randomSeed(seed)
+                .build();
+        Scenario scenario = scenarioService.createScenario(new Schedule(parameters));
+        scenario.detachInstrumentation();
+        Schedule schedule = new Schedule(parameters);
+        Random random = new Random(seed);
+        while (schedule.getActions().size() < length) {
+            List<Action> actions = new ArrayList<>();
+            scenario.getTransport().getQueuedMessages().forEach(message -> actions.add(DeliverMessageAction.fromEvent(message)));
+            for (Node node : scenario.getNodes().values()) {
+                for (long eventId : scenario.getTransport().getQueuedTimeouts(node)) {
+                    actions.add(TriggerTimeoutAction.fromEvent((TimeoutEvent) scenario.getTransport().getEvent(eventId)));
+                }
+            }
+            if (actions.isEmpty()) {
+                break;
+            }
+            Action action = actions.get(random.nextInt(actions.size()));
+            action.accept(scenario);
+            schedule.appendAction(action);
+        }
+        schedule.finalizeSchedule(scenario.getInvariants().stream()
+                .filter(invariant -> !invariant.test(scenario))
+                .collect(Collectors.toSet()));
+        return schedule;
+    }
+
+    private boolean replayViolates(Schedule schedule, String invariantId) {
+        Scenario scenario = scenarioService.createScenario(new Schedule(schedule.getParameters()));
+        scenario.detachInstrumentation();
+        for (Action action : schedule.getActions()) {
+            action.accept(scenario);
+        }
+        return violates(scenario, invariantId);
+    }
+
+    @Test
+    @DisplayName("Minimizes a buggy schedule into one that still violates the same invariant")
+    void testMinimize() {
+        Schedule schedule = randomSchedule(3L, 30);
+        assertTrue(schedule.isBuggy());
+
+        ScheduleMinimizerService.MinimizationResult result = minimizerService.minimize(schedule, null, 1000);
+        assertEquals(AGREEMENT, result.getInvariantId());
+        assertEquals(30, result.getOriginalLength());
+        // a client request delivered to each replica, each replica committing a different one
+        assertEquals(2, result.getMinimizedLength());
+        assertTrue(result.getReductionRatio() > 0);
+        assertTrue(result.getNumReplays() > 0);
+        assertTrue(result.getReplaysPerSecond() > 0);
+        assertFalse(result.isBudgetExhausted());
+
+        // the minimized schedule replays as-is, and records the violated invariant
+        Schedule minimized = result.getMinimizedSchedule();
+        assertTrue(result.isReproduced());
+        assertEquals(2, minimized.getActions().size());
+        assertTrue(replayViolates(minimized, AGREEMENT));
+        assertTrue(minimized.getBrokenInvariants().stream().map(ScenarioPredicate::getId).anyMatch(AGREEMENT::equals));
+    }
+
+    @Test
+    @DisplayName("Stops after the maximum number of replays")
+    void testBudget() {
+        Schedule schedule = randomSchedule(3L, 30);
+        ScheduleMinimizerService.MinimizationResult result = minimizerService.minimize(schedule, AGREEMENT, 2);
+        assertEquals(2, result.getNumReplays());
+        assertTrue(result.isBudgetExhausted());
+        assertTrue(result.isReproduced());
+    }
+
+    @Test
+    @DisplayName("Rejects schedules that do not violate the invariant")
+    void testNotViolated() {
+        Schedule schedule = randomSchedule(3L, 30);
+        assertThrows(IllegalArgumentException.class, () -> minimizerService.minimize(schedule, "Unknown", 100));
+        assertThrows(IllegalArgumentException.class, () -> minimizerService.minimize(randomSchedule(1L, 30), null, 100));
+        assertThrows(IllegalArgumentException.class, () -> minimizerService.minimize(schedule, AGREEMENT, 0));
+
+        ScenarioParameters parameters = schedule.getParameters();
+        assertThrows(IllegalArgumentException.class, () -> minimizerService.minimize(new Schedule(parameters), null, 100));
+    }
+}
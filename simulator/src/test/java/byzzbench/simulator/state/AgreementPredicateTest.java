@@ -0,0 +1,107 @@
+package byzzbench.simulator.state;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.nodes.Replica;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AgreementPredicate Tests")
+class AgreementPredicateTest {
+    private Scenario scenario;
+    private NavigableMap<String, Replica> replicas;
+    private AgreementPredicate predicate;
+
+    private static LogEntry entry(String value) {
+        return new SerializableLogEntry(value);
+    }
+
+    @BeforeEach
+    void setUp() {
+        scenario = mock(Scenario.class);
+        replicas = new TreeMap<>();
+        for (String id : new String[]{"A", "B", "C"}) {
+            Replica replica = mock(Replica.class);
+            CommitLog commitLog = new TotalOrderCommitLog();
+            when(replica.getId()).thenReturn(id);
+            when(replica.getCommitLog()).thenReturn(commitLog);
+            replicas.put(id, replica);
+        }
+        when(scenario.getReplicas()).thenReturn(replicas);
+        when(scenario.getFaultyReplicaIds()).thenReturn(new TreeSet<>());
+        predicate = new AgreementPredicate(scenario);
+    }
+
+    private void commit(String replicaId, long sequenceNumber, LogEntry entry) {
+        Replica replica = replicas.get(replicaId);
+        replica.getCommitLog().add(sequenceNumber, entry);
+        predicate.onCommitLogEntry(replica, sequenceNumber, entry);
+    }
+
+    @Test
+    @DisplayName("Should subscribe to the scenario and its replicas")
+    void testSubscribes() {
+        verify(scenario).addObserver(predicate);
+        replicas.values().forEach(replica -> verify(replica).addObserver(predicate));
+    }
+
+    @Test
+    @DisplayName("Should hold while replicas commit the same entries")
+    void testAgreement() {
+        commit("A", 0, entry("x"));
+        commit("B", 0, entry("x"));
+        commit("A", 1, entry("y"));
+
+        assertTrue(predicate.test(scenario));
+        assertEquals("OK", predicate.getExplanation());
+    }
+
+    @Test
+    @DisplayName("Should fail when two replicas commit different entries at the same index")
+    void testDisagreement() {
+        commit("A", 0, entry("x"));
+        commit("B", 0, entry("y"));
+
+        assertFalse(predicate.test(scenario));
+        assertEquals("AgreementPredicate: Disagreement at index 0", predicate.getExplanation());
+    }
+
+    @Test
+    @DisplayName("Should fail when a replica commits the same entry twice")
+    void testDuplicate() {
+        commit("A", 3, entry("x"));
+        commit("A", 1, entry("x"));
+
+        assertFalse(predicate.test(scenario));
+        assertEquals("Replica A has duplicate entries at indices 1 and 3", predicate.getExplanation());
+    }
+
+    @Test
+    @DisplayName("Should ignore faulty replicas")
+    void testIgnoresFaultyReplicas() {
+        when(scenario.getFaultyReplicaIds()).thenReturn(new TreeSet<>(List.of("B")));
+        when(scenario.isFaultyReplica("B")).thenReturn(true);
+        commit("A", 0, entry("x"));
+        commit("B", 0, entry("y"));
+
+        assertTrue(predicate.test(scenario));
+    }
+
+    @Test
+    @DisplayName("Should re-index commit logs written without notifying observers")
+    void testReindexesUnobservedCommits() {
+        commit("A", 0, entry("x"));
+        replicas.get("B").getCommitLog().add(0, entry("y"));
+
+        assertFalse(predicate.test(scenario));
+        assertEquals("AgreementPredicate: Disagreement at index 0", predicate.getExplanation());
+    }
+}
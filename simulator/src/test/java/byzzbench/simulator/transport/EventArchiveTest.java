@@ -0,0 +1,105 @@
+package byzzbench.simulator.transport;
+
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EventArchive} and the bounded-memory mode of the {@link Transport}.
+ */
+@DisplayName("EventArchive Tests")
+class EventArchiveTest {
+    @TempDir
+    Path tempDir;
+
+    private EventStoreTest.PingPongScenario boundedScenario(int maxInMemory) {
+        EventStoreTest.PingPongScenario scenario = new EventStoreTest.PingPongScenario(
+                new Schedule(ScenarioParameters.builder().randomSeed(0L).build()));
+        scenario.getTransport().enableEventArchive(new EventArchive(maxInMemory, tempDir));
+        scenario.runScenario();
+        return scenario;
+    }
+
+    private static long nextQueuedMessage(Transport transport) {
+        return transport.getQueuedMessages().getFirst().getEventId();
+    }
+
+    @Test
+    @DisplayName("Archived events are evicted to disk and read back")
+    void evictsToDisk() throws Exception {
+        EventArchive archive = new EventArchive(10, tempDir);
+        for (long id = 1; id <= 35; id++) {
+            archive.add(new ArchivedEvent(id, "Message", "A", id % 2 == 0 ? "B" : null, Event.Status.DELIVERED));
+        }
+
+        assertEquals(2, archive.countInMemory());
+        assertEquals(35, archive.count(Event.Status.DELIVERED));
+        assertEquals(new ArchivedEvent(4, "Message", "A", "B", Event.Status.DELIVERED), archive.get(4).orElseThrow());
+        assertNull(archive.get(5).orElseThrow().recipientId());
+        assertEquals(35, archive.getEventIds(Event.Status.DELIVERED).size());
+        assertTrue(archive.getEventIds(Event.Status.DROPPED).isEmpty());
+        assertTrue(archive.get(36).isEmpty());
+
+        archive.close();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Delivered events are retired and rehydrated from the schedule")
+    void deliveredEventsAreRetired() {
+        EventStoreTest.PingPongScenario scenario = boundedScenario(100);
+        Transport transport = scenario.getTransport();
+        transport.globalStabilizationTime();
+
+        long firstMessageId = nextQueuedMessage(transport);
+        for (int i = 0; i < 1_000; i++) {
+            transport.deliverEvent(nextQueuedMessage(transport));
+        }
+
+        // only the queued message and the pending timeouts stay live
+        assertTrue(transport.getEvents().size() <= 3, "Live events: " + transport.getEvents().size());
+        assertEquals(1_000, transport.getEventIdsInState(Event.Status.DELIVERED).size());
+        assertTrue(transport.getEventIds().size() > 1_000);
+
+        Event rehydrated = transport.getEvent(firstMessageId);
+        assertInstanceOf(MessageEvent.class, rehydrated);
+        assertEquals(Event.Status.DELIVERED, rehydrated.getStatus());
+        assertInstanceOf(EventStoreTest.PingMessage.class, ((MessageEvent) rehydrated).getPayload());
+        assertEquals("A", ((MessageEvent) rehydrated).getSenderId());
+        assertEquals("B", ((MessageEvent) rehydrated).getRecipientId());
+
+        assertThrows(IllegalArgumentException.class, () -> transport.deliverEvent(firstMessageId));
+        transport.closeEventArchive();
+    }
+
+    @Test
+    @DisplayName("Dropped messages are still re-queued at GST")
+    void droppedMessagesAreRequeuedAtGst() {
+        EventStoreTest.PingPongScenario scenario = boundedScenario(1);
+        Transport transport = scenario.getTransport();
+
+        transport.deliverEvent(nextQueuedMessage(transport));
+        transport.deliverEvent(nextQueuedMessage(transport));
+        long droppedId = nextQueuedMessage(transport);
+        transport.dropEvent(droppedId);
+        assertTrue(transport.getQueuedMessages().isEmpty());
+
+        transport.globalStabilizationTime();
+
+        assertEquals(Event.Status.QUEUED, transport.getEvent(droppedId).getStatus());
+        transport.deliverEvent(droppedId);
+        assertEquals(Event.Status.DELIVERED, transport.getEvent(droppedId).getStatus());
+        assertEquals(3, transport.getEventIdsInState(Event.Status.DELIVERED).size());
+        transport.closeEventArchive();
+    }
+}
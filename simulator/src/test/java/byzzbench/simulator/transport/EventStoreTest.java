@@ -0,0 +1,314 @@
+package byzzbench.simulator.transport;
+
+import byzzbench.simulator.ExecutionMode;
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.nodes.Client;
+import byzzbench.simulator.nodes.Replica;
+import byzzbench.simulator.state.TotalOrderCommitLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the indices kept by {@link EventStore}, including a check that the queued indices of
+ * the {@link Transport} only hold the live events as the schedule grows, plus a benchmark of the
+ * per-step cost of the {@link Transport} as the schedule grows, run by the {@code benchmark} task.
+ */
+@DisplayName("EventStore Tests")
+class EventStoreTest {
+    private static final Logger log = Logger.getLogger(EventStoreTest.class.getName());
+
+    private static MessageEvent message(long id, String sender, String recipient) {
+        return MessageEvent.builder()
+                .eventId(id)
+                .senderId(sender)
+                .recipientId(recipient)
+                .timestamp(Instant.EPOCH)
+                .payload(new PingMessage())
+                .build();
+    }
+
+    private static TimeoutEvent timeout(long id, String nodeId, String description) {
+        return timeout(id, nodeId, description, Instant.EPOCH);
+    }
+
+    private static TimeoutEvent timeout(long id, String nodeId, String description, Instant expiresAt) {
+        return TimeoutEvent.builder()
+                .eventId(id)
+                .nodeId(nodeId)
+                .description(description)
+                .timeout(Duration.ofSeconds(1))
+                .expiresAt(expiresAt)
+                .task(() -> {
+                })
+                .build();
+    }
+
+    @Test
+    @DisplayName("Queued events are indexed by status, mailbox and node")
+    void queuedEventsAreIndexed() {
+        EventStore store = new EventStore();
+        MessageEvent m1 = message(1, "A", "B");
+        MessageEvent m2 = message(2, "B", "A");
+        MessageEvent m3 = message(3, "A", "B");
+        TimeoutEvent t4 = timeout(4, "A", "view-change");
+        List.of(m1, m2, m3, t4).forEach(store::add);
+
+        assertEquals(List.of(m1, m2, m3, t4), store.getEventsInState(Event.Status.QUEUED));
+        assertEquals(List.of(m1, m2, m3), store.getQueuedMessages());
+        assertEquals(List.of(m1, m3), store.getQueuedMessages("B"));
+        assertEquals(List.of(m2), store.getQueuedMessages("A"));
+        assertEquals(List.of(t4), store.getQueuedTimeouts("A"));
+        assertTrue(store.getQueuedTimeouts("B").isEmpty());
+        assertTrue(store.getQueuedMessages("C").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Status changes move events between indices")
+    void statusChangesUpdateIndices() {
+        EventStore store = new EventStore();
+        MessageEvent m1 = message(1, "A", "B");
+        MessageEvent m2 = message(2, "A", "B");
+        TimeoutEvent t3 = timeout(3, "A", "view-change");
+        List.of(m1, m2, t3).forEach(store::add);
+
+        store.setStatus(m1, Event.Status.DELIVERED);
+        store.setStatus(m2, Event.Status.DROPPED);
+        store.setStatus(t3, Event.Status.DROPPED);
+
+        assertTrue(store.getEventsInState(Event.Status.QUEUED).isEmpty());
+        assertTrue(store.getQueuedMessages("B").isEmpty());
+        assertTrue(store.getQueuedTimeouts("A").isEmpty());
+        assertEquals(List.of(m1), store.getEventsInState(Event.Status.DELIVERED));
+        assertEquals(List.of(m2, t3), store.getEventsInState(Event.Status.DROPPED));
+
+        // re-queue (as done at GST)
+        store.setStatus(m2, Event.Status.QUEUED);
+        assertEquals(List.of(m2), store.getQueuedMessages("B"));
+        assertEquals(Event.Status.QUEUED, store.get(2).getStatus());
+        assertEquals(3, store.getEvents().size());
+    }
+
+    @Test
+    @DisplayName("Filtered queries are paginated by event ID")
+    void queriesArePaginated() {
+        EventStore store = new EventStore();
+        for (long id = 0; id < 20; id++) {
+            store.add(id % 5 == 4 ? timeout(id, "A", "view-change") : message(id, id % 2 == 0 ? "A" : "B", id % 2 == 0 ? "B" : "A"));
+        }
+        store.setStatus(store.get(2), Event.Status.DELIVERED);
+        store.setStatus(store.get(6), Event.Status.DELIVERED);
+
+        assertEquals(List.of(0L, 1L, 2L), store.queryEventIds(EventQuery.ALL, -1, 3));
+        assertEquals(List.of(3L, 4L, 5L), store.queryEventIds(EventQuery.ALL, 2, 3));
+        assertEquals(List.of(), store.queryEventIds(EventQuery.ALL, 19, 3));
+        assertEquals(List.of(), store.queryEventIds(EventQuery.ALL, Long.MAX_VALUE, 3));
+
+        EventQuery fromA = new EventQuery("Message", "A", null, Event.Status.QUEUED);
+        assertEquals(List.of(0L, 8L, 10L), store.queryEventIds(fromA, -1, 3));
+        assertEquals(List.of(12L, 16L, 18L), store.queryEventIds(fromA, 10, 10));
+        assertEquals(List.of(2L, 6L), store.queryEventIds(new EventQuery(null, null, "B", Event.Status.DELIVERED), -1, 10));
+        assertEquals(List.of(4L, 9L, 14L, 19L), store.queryEventIds(new EventQuery("Timeout", null, "A", null), -1, 10));
+        assertEquals(List.of(), store.queryEventIds(new EventQuery(null, "C", null, null), -1, 10));
+
+        // retired events are no longer matched
+        store.setArchive(new EventArchive(100, null));
+        assertTrue(store.retire(store.get(2)));
+        assertEquals(List.of(6L), store.queryEventIds(new EventQuery(null, "A", null, Event.Status.DELIVERED), -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> store.queryEventIds(EventQuery.ALL, -1, -1));
+    }
+
+    @Test
+    @DisplayName("Earliest queued timeout of each node follows expiry order")
+    void earliestTimeoutFollowsExpiry() {
+        EventStore store = new EventStore();
+        TimeoutEvent a1 = timeout(1, "A", "view-change", Instant.ofEpochSecond(30));
+        TimeoutEvent a2 = timeout(2, "A", "request", Instant.ofEpochSecond(10));
+        TimeoutEvent a3 = timeout(3, "A", "batch", Instant.ofEpochSecond(20));
+        TimeoutEvent b4 = timeout(4, "B", "view-change", Instant.ofEpochSecond(10));
+        TimeoutEvent b5 = timeout(5, "B", "request", Instant.ofEpochSecond(10));
+        List.of(a1, a2, a3, b4, b5).forEach(store::add);
+
+        assertEquals(a2, store.getEarliestQueuedTimeout("A").orElseThrow());
+        // ties are broken by event ID
+        assertEquals(List.of(a2, b4), store.getEarliestQueuedTimeouts());
+        // listing stays in event ID order
+        assertEquals(List.of(a1, a2, a3), store.getQueuedTimeouts("A"));
+
+        store.setStatus(a2, Event.Status.DELIVERED);
+        store.setStatus(b4, Event.Status.DROPPED);
+        assertEquals(List.of(b5, a3), store.getEarliestQueuedTimeouts());
+
+        store.setStatus(a3, Event.Status.DROPPED);
+        store.setStatus(b5, Event.Status.DROPPED);
+        assertEquals(a1, store.getEarliestQueuedTimeout("A").orElseThrow());
+        assertTrue(store.getEarliestQueuedTimeout("B").isEmpty());
+        assertTrue(store.getEarliestQueuedTimeout("C").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Enabled events match a full rescan of the queue in both execution modes")
+    void enabledEventsMatchRescan() {
+        EventStore store = new EventStore();
+        Random random = new Random(42);
+        List<String> nodes = List.of("A", "B", "C", "D");
+        List<Event> live = new ArrayList<>();
+
+        for (long id = 1; id <= 2_000; id++) {
+            if (live.isEmpty() || random.nextInt(3) > 0) {
+                String node = nodes.get(random.nextInt(nodes.size()));
+                Event event = random.nextBoolean()
+                        ? message(id, "A", node)
+                        : timeout(id, node, "t" + id, Instant.ofEpochSecond(random.nextInt(100)));
+                store.add(event);
+                live.add(event);
+            } else {
+                Event event = live.remove(random.nextInt(live.size()));
+                store.setStatus(event, random.nextBoolean() ? Event.Status.DELIVERED : Event.Status.DROPPED);
+            }
+
+            EnabledEvents enabled = store.getEnabledEvents();
+            List<MessageEvent> heads = nodes.stream()
+                    .flatMap(node -> store.getQueuedMessages(node).stream().limit(1))
+                    .sorted(Comparator.comparingLong(Event::getEventId))
+                    .toList();
+            assertEquals(store.getQueuedMessages(), enabled.getDeliverableMessages(ExecutionMode.ASYNC));
+            assertEquals(heads, enabled.getDeliverableMessages(ExecutionMode.SYNC));
+            assertEquals(store.getEarliestQueuedTimeouts(), enabled.getTriggerableTimeouts(ExecutionMode.ASYNC));
+            assertEquals(heads.isEmpty() ? store.getEarliestQueuedTimeouts() : List.of(),
+                    enabled.getTriggerableTimeouts(ExecutionMode.SYNC));
+
+            for (ExecutionMode mode : ExecutionMode.values()) {
+                Set<Event> expected = new HashSet<>(enabled.getDeliverableMessages(mode));
+                expected.addAll(enabled.getTriggerableTimeouts(mode));
+                Set<Event> indexed = new HashSet<>();
+                for (int i = 0; i < enabled.size(mode); i++) {
+                    indexed.add(enabled.get(mode, i));
+                }
+                assertEquals(expected, indexed);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Queued indices only hold the live events as the history grows")
+    void queuedIndicesStayBounded() {
+        PingPongScenario scenario = new PingPongScenario(new Schedule(ScenarioParameters.builder().randomSeed(0L).build()));
+        scenario.runScenario();
+        Transport transport = scenario.getTransport();
+
+        for (int i = 0; i < 10_000; i++) {
+            List<Event> queued = transport.getEventsInState(Event.Status.QUEUED);
+            // one message in flight, plus at most one re-armed timeout per replica
+            assertTrue(queued.size() <= 3, "Queued index holds " + queued.size() + " events");
+            assertEquals(1, transport.getQueuedMessages().size());
+            assertTrue(transport.getQueuedTimeouts(scenario.getNode("A")).size() <= 1);
+            assertTrue(transport.getQueuedTimeouts(scenario.getNode("B")).size() <= 1);
+
+            MessageEvent next = transport.getQueuedMessages().getFirst();
+            transport.deliverEvent(next.getEventId());
+        }
+
+        // the history grows with every step, while the lookups above only saw the live events
+        assertTrue(transport.getEvents().size() >= 10_000);
+        assertEquals(10_000, transport.getEventsInState(Event.Status.DELIVERED).size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark: per-step cost as the schedule grows past 100k events")
+    void perStepCost() {
+        PingPongScenario scenario = new PingPongScenario(new Schedule(ScenarioParameters.builder().randomSeed(0L).build()));
+        scenario.runScenario();
+        Transport transport = scenario.getTransport();
+
+        // report the cost of each window of steps: it should stay flat as the history grows,
+        // except for the first window, which includes JIT warm-up
+        int windowSize = 10_000;
+        for (int window = 1; window <= 10; window++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < windowSize; i++) {
+                List<Event> queued = transport.getEventsInState(Event.Status.QUEUED);
+                Event next = queued.stream().filter(MessageEvent.class::isInstance).findFirst().orElseThrow();
+                transport.deliverEvent(next.getEventId());
+            }
+            double nanosPerStep = (System.nanoTime() - start) / (double) windowSize;
+            int numEvents = transport.getEvents().size();
+            log.info(() -> "EventStore benchmark: %d events, %.0f ns/step".formatted(numEvents, nanosPerStep));
+        }
+        assertTrue(transport.getEvents().size() >= 100_000);
+    }
+
+    static class PingMessage extends MessagePayload {
+        @Override
+        public String getType() {
+            return "PING";
+        }
+    }
+
+    /**
+     * Replica that re-arms a timeout and answers every message with another message.
+     */
+    static class PingPongReplica extends Replica {
+        PingPongReplica(String id, Scenario scenario) {
+            super(id, scenario, new TotalOrderCommitLog());
+        }
+
+        @Override
+        public void handleMessage(String sender, MessagePayload message) {
+            this.clearTimeout("ping");
+            this.setTimeout("ping", () -> {
+            }, Duration.ofSeconds(1));
+            this.sendMessage(new PingMessage(), sender);
+        }
+    }
+
+    /**
+     * Two replicas exchanging messages forever.
+     */
+    static class PingPongScenario extends Scenario {
+        PingPongScenario(Schedule schedule) {
+            super(schedule);
+        }
+
+        @Override
+        protected void setup() {
+            this.addNode(new PingPongReplica("A", this));
+            this.addNode(new PingPongReplica("B", this));
+        }
+
+        @Override
+        protected void run() {
+            this.getNode("A").sendMessage(new PingMessage(), "B");
+        }
+
+        @Override
+        protected void loadScenarioParameters(ScenarioParameters parameters) {
+            // no parameters
+        }
+
+        @Override
+        public int maxFaultyReplicas(int n) {
+            return 0;
+        }
+
+        @Override
+        public Class<? extends Replica> getReplicaClass() {
+            return PingPongReplica.class;
+        }
+
+        @Override
+        public Class<? extends Client> getClientClass() {
+            return Client.class;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package byzzbench.simulator.transport;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Router Tests")
+class RouterTest {
+    @Test
+    @DisplayName("Nodes are interned to dense indices")
+    void nodesAreInterned() {
+        Router router = new Router();
+        assertEquals(0, router.registerNode("A"));
+        assertEquals(1, router.registerNode("B"));
+        assertEquals(0, router.registerNode("A"));
+        assertEquals(1, router.getNodeIndex("B"));
+        assertEquals(-1, router.getNodeIndex("C"));
+        assertEquals("B", router.getNodeId(1));
+    }
+
+    @Test
+    @DisplayName("Connectivity follows partition changes")
+    void connectivityFollowsPartitions() {
+        Router router = new Router();
+        for (int i = 0; i < 70; i++) {
+            router.registerNode("N" + i);
+        }
+        assertTrue(router.haveConnectivity("N0", "N69"));
+        assertFalse(router.hasActivePartitions());
+
+        router.isolateNodes(new String[]{"N1", "N65"});
+        assertTrue(router.haveConnectivity("N1", "N65"));
+        assertFalse(router.haveConnectivity("N0", "N65"));
+        assertFalse(router.haveConnectivity(router.getNodeIndex("N65"), router.getNodeIndex("N2")));
+        assertTrue(router.haveConnectivity("N0", "N69"));
+        assertEquals(router.getNodePartition("N1"), router.getNodePartition("N65"));
+
+        router.healNode("N65");
+        assertTrue(router.haveConnectivity("N0", "N65"));
+        assertFalse(router.haveConnectivity("N1", "N65"));
+
+        router.resetPartitions();
+        assertTrue(router.haveConnectivity("N1", "N65"));
+        assertEquals(Router.DEFAULT_PARTITION, router.getNodePartition("N1"));
+    }
+
+    @Test
+    @DisplayName("Unregistered nodes are on the default partition")
+    void unregisteredNodesAreOnDefaultPartition() {
+        Router router = new Router();
+        router.isolateNode("A");
+        assertEquals(Router.DEFAULT_PARTITION, router.getNodePartition("X"));
+        assertTrue(router.haveConnectivity("X", "Y"));
+        assertFalse(router.haveConnectivity("A", "X"));
+    }
+}
@@ -0,0 +1,130 @@
+package byzzbench.simulator.transport;
+
+import byzzbench.simulator.domain.ScenarioParameters;
+import byzzbench.simulator.domain.Schedule;
+import byzzbench.simulator.faults.Fault;
+import byzzbench.simulator.nodes.Node;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Transport Tests")
+class TransportTest {
+    private static EventStoreTest.PingPongScenario scenario() {
+        return new EventStoreTest.PingPongScenario(new Schedule(ScenarioParameters.builder().randomSeed(0L).build()));
+    }
+
+    @Test
+    @DisplayName("Multicast copies share the payload and are reported in a single batch")
+    void multicastIsBatched() {
+        EventStoreTest.PingPongScenario scenario = scenario();
+        Transport transport = scenario.getTransport();
+        RecordingObserver observer = new RecordingObserver();
+        transport.addObserver(observer);
+
+        EventStoreTest.PingMessage payload = new EventStoreTest.PingMessage();
+        transport.multicast(scenario.getNode("A"), new TreeSet<>(List.of("A", "B")), payload);
+
+        assertEquals(1, observer.multicasts);
+        assertEquals(1, observer.batches.size());
+        assertEquals(0, observer.singleEvents);
+
+        List<? extends Event> batch = observer.batches.getFirst();
+        assertEquals(2, batch.size());
+        MessageEvent toA = (MessageEvent) batch.get(0);
+        MessageEvent toB = (MessageEvent) batch.get(1);
+        assertEquals("A", toA.getRecipientId());
+        assertEquals("B", toB.getRecipientId());
+        assertSame(payload, toA.getPayload());
+        assertSame(payload, toB.getPayload());
+        assertSame(toA.getCreatedAt(), toB.getCreatedAt());
+        assertEquals(List.of(toA, toB), transport.getQueuedMessages());
+
+        // rewriting one copy leaves the other one untouched
+        toB.setPayload(new EventStoreTest.PingMessage());
+        assertSame(payload, toA.getPayload());
+    }
+
+    @Test
+    @DisplayName("Multicast copies to partitioned recipients are dropped")
+    void multicastDropsAcrossPartitions() {
+        EventStoreTest.PingPongScenario scenario = scenario();
+        Transport transport = scenario.getTransport();
+        transport.getRouter().isolateNode("B");
+
+        transport.multicast(scenario.getNode("A"), new TreeSet<>(List.of("A", "B")), new EventStoreTest.PingMessage());
+
+        assertEquals(List.of("A"), transport.getQueuedMessages().stream().map(MessageEvent::getRecipientId).toList());
+        assertEquals(1, transport.getEventsInState(Event.Status.DROPPED).size());
+    }
+
+    @Test
+    @DisplayName("Timeouts notify onEventAdded exactly once")
+    void timeoutsAreNotifiedOnce() {
+        EventStoreTest.PingPongScenario scenario = scenario();
+        Transport transport = scenario.getTransport();
+        RecordingObserver observer = new RecordingObserver();
+        transport.addObserver(observer);
+
+        scenario.getNode("A").setTimeout("t", () -> {
+        }, Duration.ofSeconds(1));
+
+        assertEquals(1, observer.singleEvents);
+    }
+
+    static class RecordingObserver implements TransportObserver {
+        int multicasts = 0;
+        int singleEvents = 0;
+        List<List<? extends Event>> batches = new ArrayList<>();
+
+        @Override
+        public void onMulticast(Node sender, SortedSet<String> recipients, MessagePayload payload) {
+            multicasts++;
+        }
+
+        @Override
+        public void onEventAdded(Event event) {
+            singleEvents++;
+        }
+
+        @Override
+        public void onEventsAdded(List<? extends Event> events) {
+            batches.add(events);
+        }
+
+        @Override
+        public void onEventDropped(Event event) {
+        }
+
+        @Override
+        public void onEventRequeued(Event event) {
+        }
+
+        @Override
+        public void onEventDelivered(Event event) {
+        }
+
+        @Override
+        public void onMessageMutation(MutateMessageEventPayload payload) {
+        }
+
+        @Override
+        public void onFault(Fault fault) {
+        }
+
+        @Override
+        public void onTimeout(TimeoutEvent event) {
+        }
+
+        @Override
+        public void onGlobalStabilizationTime() {
+        }
+    }
+}
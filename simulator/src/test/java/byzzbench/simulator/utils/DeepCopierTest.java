@@ -0,0 +1,95 @@
+package byzzbench.simulator.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Deep copier")
+class DeepCopierTest {
+    private static DeepCopier copier() {
+        return new DeepCopier(List.of(), Set.of());
+    }
+
+    static class Node {
+        List<Node> children = new ArrayList<>();
+        Node parent;
+    }
+
+    static class Counter implements DeepCopyable {
+        int value;
+        Counter self = this;
+        int copies;
+
+        @Override
+        public Object deepCopy(DeepCopier copier) {
+            Counter copy = new Counter();
+            copier.replace(this, copy);
+            copy.value = this.value;
+            copy.self = copier.copy(this.self);
+            this.copies++;
+            return copy;
+        }
+    }
+
+    @Test
+    @DisplayName("Copies object graphs, preserving cycles and aliasing")
+    void copiesGraphs() {
+        Node root = new Node();
+        Node child = new Node();
+        child.parent = root;
+        root.children.add(child);
+        root.children.add(child);
+
+        Node copy = copier().copy(root);
+        assertNotSame(root, copy);
+        assertNotSame(child, copy.children.get(0));
+        assertSame(copy.children.get(0), copy.children.get(1));
+        assertSame(copy, copy.children.get(0).parent);
+    }
+
+    @Test
+    @DisplayName("Copies unmodifiable containers into unmodifiable containers")
+    void copiesUnmodifiableContainers() {
+        Node node = new Node();
+        List<Node> list = List.of(node);
+        Map<String, Node> map = Map.of("node", node);
+
+        DeepCopier copier = copier();
+        List<Node> listCopy = copier.copy(list);
+        Map<String, Node> mapCopy = copier.copy(map);
+        assertNotSame(node, listCopy.get(0));
+        assertSame(listCopy.get(0), mapCopy.get("node"));
+        assertThrows(UnsupportedOperationException.class, () -> listCopy.add(new Node()));
+    }
+
+    @Test
+    @DisplayName("Lets objects implementing the hook copy themselves")
+    void usesCopyHook() {
+        Counter counter = new Counter();
+        counter.value = 3;
+
+        Counter copy = copier().copy(counter);
+        assertNotSame(counter, copy);
+        assertEquals(3, copy.value);
+        assertSame(copy, copy.self);
+        assertEquals(1, counter.copies);
+    }
+
+    @Test
+    @DisplayName("Re-creates lambdas with copies of their captured state")
+    void copiesCapturingLambdas() {
+        Node node = new Node();
+        Supplier<Node> supplier = () -> node;
+
+        Supplier<Node> copy = copier().copy(supplier);
+        assertNotSame(supplier, copy);
+        assertNotSame(node, copy.get());
+    }
+}
@@ -0,0 +1,36 @@
+package byzzbench.simulator.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Long hash set")
+class LongHashSetTest {
+    @Test
+    @DisplayName("Behaves like a set of longs while growing, including zero")
+    void behavesLikeASet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            // a small range, so values repeat
+            long value = random.nextInt(5_000) - 2_500L;
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value = -3_000; value < 3_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+        assertTrue(set.contains(0));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+    }
+}
@@ -0,0 +1,87 @@
+package byzzbench.simulator.utils;
+
+import byzzbench.simulator.transport.Event;
+import byzzbench.simulator.transport.TransportObserver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("ObserverBus Tests")
+class ObserverBusTest {
+    private static ObserverBus<TransportObserver, TransportObserver.Kind> bus() {
+        return new ObserverBus<>(TransportObserver.class, TransportObserver.Kind.class);
+    }
+
+    @Test
+    @DisplayName("Listeners are only subscribed to the callbacks they implement")
+    void subscribesToImplementedKinds() {
+        ObserverBus<TransportObserver, TransportObserver.Kind> bus = bus();
+        DroppedObserver observer = new DroppedObserver();
+        bus.subscribe(observer);
+
+        assertArrayEquals(new TransportObserver[]{observer}, bus.get(TransportObserver.Kind.EVENT_DROPPED));
+        assertEquals(0, bus.get(TransportObserver.Kind.EVENT_DELIVERED).length);
+        assertEquals(0, bus.get(TransportObserver.Kind.GLOBAL_STABILIZATION_TIME).length);
+
+        bus.subscribe(observer);
+        assertEquals(List.of(observer), bus.getListeners());
+
+        bus.unsubscribe(observer);
+        assertEquals(0, bus.get(TransportObserver.Kind.EVENT_DROPPED).length);
+        assertTrue(bus.getListeners().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Listeners can be subscribed to explicit kinds")
+    void subscribesToExplicitKinds() {
+        ObserverBus<TransportObserver, TransportObserver.Kind> bus = bus();
+        TransportObserver observer = new TransportObserver() {
+        };
+        bus.subscribe(observer, Set.of(TransportObserver.Kind.FAULT));
+
+        assertArrayEquals(new TransportObserver[]{observer}, bus.get(TransportObserver.Kind.FAULT));
+        assertEquals(0, bus.get(TransportObserver.Kind.EVENT_DROPPED).length);
+    }
+
+    @Test
+    @DisplayName("Asynchronous listeners run in order and are drained by flush")
+    void asyncListenersRunInOrder() {
+        ObserverBus<TransportObserver, TransportObserver.Kind> bus = bus();
+        DroppedObserver observer = new DroppedObserver();
+        AsyncLane lane = new AsyncLane();
+        bus.subscribeAsync(observer, lane);
+
+        TransportObserver target = bus.get(TransportObserver.Kind.EVENT_DROPPED)[0];
+        assertNotSame(observer, target);
+        assertEquals(List.of(observer), bus.getListeners());
+
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 1_000; i++) {
+            Event event = mock(Event.class);
+            when(event.getEventId()).thenReturn(i);
+            target.onEventDropped(event);
+            expected.add(i);
+        }
+        lane.flush();
+
+        assertEquals(0, lane.getPending());
+        assertEquals(expected, observer.dropped);
+    }
+
+    static class DroppedObserver implements TransportObserver {
+        final List<Long> dropped = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onEventDropped(Event event) {
+            dropped.add(event.getEventId());
+        }
+    }
+}
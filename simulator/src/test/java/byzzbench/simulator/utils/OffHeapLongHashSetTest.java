@@ -0,0 +1,43 @@
+package byzzbench.simulator.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Off-heap long hash set")
+class OffHeapLongHashSetTest {
+    @Test
+    @DisplayName("Behaves like a set of longs while growing, including zero")
+    void behavesLikeASet() {
+        OffHeapLongHashSet set = new OffHeapLongHashSet(4);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            // a small range, so values repeat
+            long value = random.nextInt(5_000) - 2_500L;
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        assertTrue(set.getMemoryBytes() >= expected.size() * Long.BYTES);
+        for (long value = -3_000; value < 3_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+        assertTrue(set.contains(0));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+    }
+
+    @Test
+    @DisplayName("Rejects a negative expected size")
+    void rejectsNegativeExpectedSize() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapLongHashSet(-1));
+    }
+}
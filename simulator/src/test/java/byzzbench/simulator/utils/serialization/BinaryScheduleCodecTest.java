@@ -0,0 +1,123 @@
+package byzzbench.simulator.utils.serialization;
+
+import byzzbench.simulator.Scenario;
+import byzzbench.simulator.domain.*;
+import byzzbench.simulator.exploration_strategy.ExplorationStrategyParameters;
+import byzzbench.simulator.exploration_strategy.random.RandomExplorationStrategy;
+import byzzbench.simulator.protocols.pbft_java.PbftJavaScenario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Binary schedule encoding Tests")
+class BinaryScheduleCodecTest {
+    private static List<Action> sampleActions() {
+        Instant t0 = Instant.parse("2024-01-01T00:00:00.123456789Z");
+        return List.of(
+                DeliverMessageAction.builder().messageEventId(12).recipientId("A").senderId("B").timestamp(t0).build(),
+                DeliverMessageAction.builder().messageEventId(3).recipientId("B").senderId("A").timestamp(t0.minusSeconds(5)).build(),
+                DropMessageAction.builder().eventId(40).recipientId("C").senderId("A").build(),
+                FaultInjectionAction.builder().messageId(41).mutatorId("pbft-prepare-view-inc").build(),
+                TriggerTimeoutAction.builder().timeoutEventId(42).nodeId("A").description("view change")
+                        .timeout(Duration.ofMillis(1500)).expiresAt(t0.plusSeconds(30)).build(),
+                TriggerTimeoutAction.builder().timeoutEventId(Long.MAX_VALUE).nodeId("A").description("view change").build(),
+                DeliverMessageAction.builder().messageEventId(0).build());
+    }
+
+    @Test
+    @DisplayName("Should decode the actions it encodes")
+    void testRoundTrip() {
+        List<Action> actions = sampleActions();
+        byte[] encoded = BinaryScheduleCodec.encodeActions(actions, false);
+        assertEquals(BinaryScheduleCodec.VERSION, encoded[0]);
+        assertEquals(actions, BinaryScheduleCodec.decodeActions(encoded, null));
+        assertTrue(BinaryScheduleCodec.decodeActions(null, null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stream a schedule with its header")
+    void testScheduleStream() throws IOException {
+        Schedule schedule = new Schedule(ScenarioParameters.builder().scenarioId("pbft-java").randomSeed(3L).numReplicas(4).build());
+        schedule.setName("sample");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryScheduleCodec.writeHeader(schedule, out);
+        try (BinaryScheduleCodec.ActionWriter writer = new BinaryScheduleCodec.ActionWriter(out, false)) {
+            for (Action action : sampleActions()) {
+                writer.write(action);
+            }
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        Schedule read = BinaryScheduleCodec.readHeader(in);
+        assertEquals(schedule.getParameters(), read.getParameters());
+        assertEquals("sample", read.getName());
+        BinaryScheduleCodec.ActionReader reader = new BinaryScheduleCodec.ActionReader(in);
+        int count = 0;
+        while (reader.hasNext()) {
+            assertEquals(sampleActions().get(count++), reader.next());
+        }
+        assertEquals(sampleActions().size(), reader.getNumActions());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed encodings")
+    void testMalformed() {
+        byte[] encoded = BinaryScheduleCodec.encodeActions(sampleActions(), false);
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryScheduleCodec.decodeActions(Arrays.copyOf(encoded, encoded.length - 3), null));
+
+        byte[] newer = encoded.clone();
+        newer[0] = BinaryScheduleCodec.VERSION + 1;
+        assertThrows(IllegalArgumentException.class, () -> BinaryScheduleCodec.decodeActions(newer, null));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> BinaryScheduleCodec.readHeader(new ByteArrayInputStream("JSON".getBytes())));
+    }
+
+    @Test
+    @DisplayName("Should encode an explored schedule, with its payloads, more compactly than JSON")
+    void testExploredSchedule() throws IOException {
+        Scenario scenario = new PbftJavaScenario(new Schedule(ScenarioParameters.builder()
+                .scenarioId("pbft-java").randomSeed(7L).numClients(1).numReplicas(4).build()));
+        ExplorationStrategyParameters parameters = new ExplorationStrategyParameters();
+        parameters.setRandomSeed(3L);
+        RandomExplorationStrategy strategy = new RandomExplorationStrategy();
+        strategy.loadParameters(parameters);
+        for (int i = 0; i < 200; i++) {
+            assertTrue(strategy.scheduleNext(scenario).isPresent());
+        }
+        List<Action> actions = scenario.getSchedule().getActions();
+
+        byte[] withPayloads = BinaryScheduleCodec.encodeActions(actions, true);
+        List<Action> decoded = BinaryScheduleCodec.decodeActions(withPayloads, null);
+        assertEquals(actions.size(), decoded.size());
+        for (int i = 0; i < actions.size(); i++) {
+            if (actions.get(i) instanceof DeliverMessageAction deliver) {
+                DeliverMessageAction copy = (DeliverMessageAction) decoded.get(i);
+                assertEquals(deliver.getMessageEventId(), copy.getMessageEventId());
+                assertEquals(deliver.getTimestamp(), copy.getTimestamp());
+                assertEquals(deliver.getPayload().getType(), copy.getPayload().getType());
+            }
+        }
+
+        byte[] withoutPayloads = BinaryScheduleCodec.encodeActions(actions, false);
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        byte[] json = mapper.writeValueAsBytes(actions);
+        assertTrue(withoutPayloads.length * 5 < json.length,
+                "binary: " + withoutPayloads.length + " bytes, JSON: " + json.length + " bytes");
+        assertTrue(withPayloads.length > withoutPayloads.length);
+    }
+}
@@ -0,0 +1,35 @@
+package byzzbench.simulator.utils.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("NDJSON writer Tests")
+class NdjsonWriterTest {
+    @Test
+    @DisplayName("Should write one compact JSON document per line")
+    void testWrite() throws IOException {
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NdjsonWriter writer = new NdjsonWriter(mapper, out)) {
+            writer.write(Map.of("id", 1));
+            writer.write(List.of("a", "b"));
+            writer.write("c");
+            assertEquals(3, writer.getNumWritten());
+        }
+        assertEquals("{\"id\":1}\n[\"a\",\"b\"]\n\"c\"\n", out.toString(StandardCharsets.UTF_8));
+
+        // the output stream is left open
+        out.write('x');
+        assertEquals('x', out.toByteArray()[out.size() - 1]);
+    }
+}
@@ -0,0 +1,31 @@
+package byzzbench.simulator.versioning;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VectorClockTest {
+    @Test
+    @DisplayName("Should order clocks by their versions, treating missing nodes as version 0")
+    void testCompare() {
+        VectorClock empty = new VectorClock();
+        VectorClock a = new VectorClock();
+        a.incrementVersion("A");
+        VectorClock ab = a.clone();
+        ab.incrementVersion("B");
+        VectorClock b = new VectorClock();
+        b.incrementVersion("B");
+
+        assertEquals(Occurred.EQUAL, a.compare(a.clone()));
+        assertEquals(Occurred.BEFORE, empty.compare(a));
+        assertEquals(Occurred.AFTER, a.compare(empty));
+        assertEquals(Occurred.BEFORE, a.compare(ab));
+        assertEquals(Occurred.AFTER, ab.compare(a));
+        assertEquals(Occurred.CONCURRENTLY, a.compare(b));
+        assertEquals(Occurred.CONCURRENTLY, b.compare(a));
+        assertEquals(Occurred.EQUAL, ab.compare(a.merge(b)));
+        assertThrows(IllegalArgumentException.class, () -> a.compare(null));
+    }
+}